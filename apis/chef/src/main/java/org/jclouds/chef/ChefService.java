@@ -155,6 +155,10 @@ public interface ChefService {
 
    /**
     * Lists the details of all existing nodes, executing concurrently using the executorService.
+    * <p>
+    * Nodes are searched a page at a time and streamed as the result is
+    * iterated, requesting the next page while the current one is consumed. If
+    * the server cannot search nodes, each node is fetched instead.
     *
     * @return The details of all existing nodes.
     */
@@ -171,6 +175,8 @@ public interface ChefService {
 
    /**
     * Lists the details of all existing nodes in the given environment, using the ExecutorService to paralleling the execution.
+    * <p>
+    * Nodes are searched and streamed as in {@link #listNodes(ExecutorService)}.
     *
     * @param executorService The thread pool used in this operation
     * @param environmentName The name fo the environment.
@@ -161,7 +161,7 @@ public class SignedHeaderAuth implements HttpRequestFilter {
       checkArgument(payload != null, "payload was null");
       checkArgument(payload.isRepeatable(), "payload must be repeatable: " + payload);
       try {
-         return base64().encode(ByteStreams2.hashAndClose(payload.getInput(), sha1()).asBytes());
+         return base64().encode(Payloads.hash(payload, sha1()).asBytes());
       } catch (Exception e) {
          Throwables.propagateIfPossible(e);
          throw new HttpException("error creating sigature for payload: " + payload, e);
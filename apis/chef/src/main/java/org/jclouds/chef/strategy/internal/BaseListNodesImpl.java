@@ -18,11 +18,16 @@ package org.jclouds.chef.strategy.internal;
 
 import com.google.common.base.Function;
 import com.google.common.base.Joiner;
+import com.google.common.base.Supplier;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import org.jclouds.chef.ChefApi;
 import org.jclouds.chef.domain.Node;
+import org.jclouds.chef.domain.SearchResult;
+import org.jclouds.chef.options.SearchOptions;
+import org.jclouds.http.HttpResponseException;
 import org.jclouds.logging.Logger;
+import org.jclouds.rest.ResourceNotFoundException;
 
 import java.util.List;
 import java.util.concurrent.Callable;
@@ -34,6 +39,11 @@ import static com.google.common.util.concurrent.Futures.getUnchecked;
 
 public abstract class BaseListNodesImpl {
 
+   /**
+    * Number of nodes requested per search page.
+    */
+   static final int SEARCH_ROWS = 1000;
+
    protected final ChefApi api;
 
    protected Logger logger = Logger.NULL;
@@ -42,6 +52,28 @@ public abstract class BaseListNodesImpl {
       this.api = checkNotNull(api, "api");
    }
 
+   /**
+    * Streams the nodes matching the query a page at a time, fetching the next page on the executor while the current
+    * one is consumed. If the server does not support searching nodes, falls back to getting each of the named nodes,
+    * logging why to {@code logger}.
+    */
+   protected Iterable<? extends Node> searchOrGetEach(ListeningExecutorService executor, String query,
+         Supplier<? extends Iterable<String>> names, Logger logger) {
+      try {
+         return new PaginatedSearch<Node>(executor, new Function<SearchOptions, SearchResult<? extends Node>>() {
+            @Override
+            public SearchResult<? extends Node> apply(SearchOptions options) {
+               return api.searchNodes(options);
+            }
+         }, query, SEARCH_ROWS);
+      } catch (HttpResponseException e) {
+         logger.warn(e, "could not search nodes matching %s; getting each node instead", query);
+      } catch (ResourceNotFoundException e) {
+         logger.warn(e, "could not search nodes matching %s; getting each node instead", query);
+      }
+      return executeConcurrently(executor, names.get());
+   }
+
    protected Iterable<? extends Node> execute(Iterable<String> toGet) {
       Iterable<? extends Node> nodes = transform(toGet, new Function<String, Node>() {
                @Override
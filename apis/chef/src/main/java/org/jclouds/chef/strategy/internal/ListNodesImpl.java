@@ -20,7 +20,7 @@ import javax.annotation.Resource;
 import javax.inject.Named;
 import javax.inject.Singleton;
 
-import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.base.Supplier;
 import com.google.common.util.concurrent.MoreExecutors;
 import com.google.inject.Inject;
 import org.jclouds.chef.ChefApi;
@@ -29,11 +29,13 @@ import org.jclouds.chef.domain.Node;
 import org.jclouds.chef.strategy.ListNodes;
 import org.jclouds.logging.Logger;
 
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 
 @Singleton
 public class ListNodesImpl extends BaseListNodesImpl implements ListNodes {
 
+   private static final String ALL_NODES = "*:*";
 
    @Resource
    @Named(ChefProperties.CHEF_LOGGER)
@@ -46,17 +48,19 @@ public class ListNodesImpl extends BaseListNodesImpl implements ListNodes {
 
    @Override
    public Iterable<? extends Node> execute() {
-      return super.execute(api.listNodes());
+      return searchOrGetEach(MoreExecutors.sameThreadExecutor(), ALL_NODES, nodeNames, logger);
    }
 
    @Override
    public Iterable<? extends Node> execute(ExecutorService executor) {
-      return this.executeConcurrently(MoreExecutors.listeningDecorator(executor));
+      return searchOrGetEach(MoreExecutors.listeningDecorator(executor), ALL_NODES, nodeNames, logger);
    }
 
-
-   private Iterable<? extends Node> executeConcurrently(ListeningExecutorService executor) {
-      return super.executeConcurrently(executor, api.listNodes());
-   }
+   private final Supplier<Set<String>> nodeNames = new Supplier<Set<String>>() {
+      @Override
+      public Set<String> get() {
+         return api.listNodes();
+      }
+   };
 
 }
@@ -16,11 +16,13 @@
  */
 package org.jclouds.chef.strategy.internal;
 
+import static org.jclouds.chef.util.ChefUtils.escapeSearchTerm;
+
 import javax.annotation.Resource;
 import javax.inject.Named;
 import javax.inject.Singleton;
 
-import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.base.Supplier;
 import com.google.common.util.concurrent.MoreExecutors;
 import com.google.inject.Inject;
 import org.jclouds.chef.ChefApi;
@@ -29,6 +31,7 @@ import org.jclouds.chef.domain.Node;
 import org.jclouds.chef.strategy.ListNodesInEnvironment;
 import org.jclouds.logging.Logger;
 
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 
 @Singleton
@@ -45,18 +48,18 @@ public class ListNodesInEnvironmentImpl extends BaseListNodesImpl implements Lis
 
    @Override
    public Iterable<? extends Node> execute(String environmentName) {
-      return super.execute(api.listNodesInEnvironment(environmentName));
+      return execute(MoreExecutors.sameThreadExecutor(), environmentName);
    }
 
    @Override
-   public Iterable<? extends Node> execute(ExecutorService executor, String environmentName) {
-      return this.executeConcurrently(MoreExecutors.listeningDecorator(executor), environmentName);
-   }
-
-
-   private Iterable<? extends Node> executeConcurrently(ListeningExecutorService executor,
-         String environmentName) {
-      return super.executeConcurrently(executor, api.listNodesInEnvironment(environmentName));
+   public Iterable<? extends Node> execute(ExecutorService executor, final String environmentName) {
+      return searchOrGetEach(MoreExecutors.listeningDecorator(executor),
+            "chef_environment:" + escapeSearchTerm(environmentName), new Supplier<Set<String>>() {
+               @Override
+               public Set<String> get() {
+                  return api.listNodesInEnvironment(environmentName);
+               }
+            }, logger);
    }
 
 }
@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.chef.strategy.internal;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Throwables.propagate;
+import static com.google.common.util.concurrent.Futures.getUnchecked;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.jclouds.chef.domain.SearchResult;
+import org.jclouds.chef.options.SearchOptions;
+
+import com.google.common.base.Function;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.FluentIterable;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+/**
+ * Streams the results of a search, a page of {@code rows} at a time. While a page is being consumed, the next one is
+ * requested on the executor.
+ * <p/>
+ * Pages are kept once fetched, so iterating again does not search again. A page that failed is requested again by
+ * the next iteration that reaches it.
+ */
+class PaginatedSearch<T> extends FluentIterable<T> {
+
+   private final ListeningExecutorService executor;
+   private final Function<SearchOptions, ? extends SearchResult<? extends T>> search;
+   private final String query;
+   private final int rows;
+   // guarded by this
+   private final List<ListenableFuture<SearchResult<? extends T>>> pages = Lists.newArrayList();
+
+   /**
+    * fetches the first page in the calling thread, so that a search that is not supported fails here, rather than
+    * while iterating
+    */
+   PaginatedSearch(ListeningExecutorService executor,
+         Function<SearchOptions, ? extends SearchResult<? extends T>> search, String query, int rows) {
+      this.executor = checkNotNull(executor, "executor");
+      this.search = checkNotNull(search, "search");
+      this.query = checkNotNull(query, "query");
+      checkArgument(rows > 0, "rows must be positive");
+      this.rows = rows;
+      this.pages.add(Futures.<SearchResult<? extends T>> immediateFuture(search.apply(options(0))));
+   }
+
+   private SearchOptions options(int index) {
+      return new SearchOptions().query(query).rows(rows).start(index * rows);
+   }
+
+   /**
+    * Chef drops the rows the client may not read from a page, so a short page is not necessarily the last one.
+    */
+   private boolean isLast(int index, SearchResult<? extends T> page) {
+      if (page.getTotal() > 0)
+         return (index + 1L) * rows >= page.getTotal();
+      return page.isEmpty();
+   }
+
+   @Override
+   public Iterator<T> iterator() {
+      return new PageIterator();
+   }
+
+   private synchronized ListenableFuture<SearchResult<? extends T>> page(final int index) {
+      ListenableFuture<SearchResult<? extends T>> page = index < pages.size() ? pages.get(index) : null;
+      if (page != null && !failed(page))
+         return page;
+      page = executor.submit(new Callable<SearchResult<? extends T>>() {
+         @Override
+         public SearchResult<? extends T> call() {
+            return search.apply(options(index));
+         }
+      });
+      if (index < pages.size())
+         pages.set(index, page);
+      else
+         pages.add(page);
+      return page;
+   }
+
+   private static boolean failed(ListenableFuture<?> future) {
+      if (!future.isDone())
+         return false;
+      try {
+         getUnchecked(future);
+         return false;
+      } catch (RuntimeException e) {
+         return true;
+      }
+   }
+
+   private class PageIterator extends AbstractIterator<T> {
+      private int index;
+      private ListenableFuture<SearchResult<? extends T>> nextPage = page(0);
+      private Iterator<? extends T> current = Iterators.emptyIterator();
+
+      @Override
+      protected T computeNext() {
+         while (!current.hasNext()) {
+            if (nextPage == null)
+               return endOfData();
+            SearchResult<? extends T> page = await(nextPage);
+            nextPage = isLast(index, page) ? null : page(index + 1);
+            index++;
+            current = page.iterator();
+         }
+         return current.next();
+      }
+   }
+
+   private static <V> V await(ListenableFuture<V> future) {
+      try {
+         return getUnchecked(future);
+      } catch (UncheckedExecutionException e) {
+         throw propagate(e.getCause());
+      }
+   }
+}
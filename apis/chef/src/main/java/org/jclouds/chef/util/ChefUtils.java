@@ -26,6 +26,7 @@ import java.util.regex.Pattern;
 import org.jclouds.domain.JsonBall;
 import org.jclouds.ohai.Automatic;
 
+import com.google.common.base.CharMatcher;
 import com.google.common.base.Predicate;
 import com.google.common.base.Supplier;
 import com.google.common.collect.Iterables;
@@ -35,6 +36,9 @@ import com.google.inject.multibindings.MapBinder;
 
 public class ChefUtils {
 
+   private static final CharMatcher SEARCH_SPECIAL_CHARS = CharMatcher.anyOf("+-&|!(){}[]^\"~*?:\\/")
+         .or(CharMatcher.WHITESPACE);
+
    public static Date fromOhaiTime(JsonBall ohaiDate) {
       return new Date(Long.parseLong(checkNotNull(ohaiDate, "ohaiDate").toString().replaceAll("\\.[0-9]*$", "")));
    }
@@ -50,6 +54,22 @@ public class ChefUtils {
       return mapbinder;
    }
 
+   /**
+    * Escapes the characters of a value that have a meaning in the Lucene syntax of search queries, so that it is
+    * matched literally. For example, {@code "chef_environment:" + escapeSearchTerm(environment)}.
+    */
+   public static String escapeSearchTerm(String term) {
+      checkNotNull(term, "term");
+      StringBuilder escaped = new StringBuilder(term.length());
+      for (int i = 0; i < term.length(); i++) {
+         char c = term.charAt(i);
+         if (SEARCH_SPECIAL_CHARS.matches(c))
+            escaped.append('\\');
+         escaped.append(c);
+      }
+      return escaped.toString();
+   }
+
    /**
     * 
     * @return NoSuchElementException if no element in the runList is a role.
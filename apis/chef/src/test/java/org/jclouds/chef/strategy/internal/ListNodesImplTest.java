@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.chef.strategy.internal;
+
+import static com.google.common.util.concurrent.MoreExecutors.sameThreadExecutor;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.testng.Assert.assertEquals;
+
+import org.easymock.EasyMock;
+import org.jclouds.chef.ChefApi;
+import org.jclouds.chef.domain.Node;
+import org.jclouds.chef.domain.SearchResult;
+import org.jclouds.chef.options.SearchOptions;
+import org.jclouds.http.HttpResponseException;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Tests behavior of {@code ListNodesImpl}
+ */
+@Test(groups = { "unit" })
+public class ListNodesImplTest {
+
+   private final Node node1 = Node.builder().name("node1").environment("_default").build();
+   private final Node node2 = Node.builder().name("node2").environment("_default").build();
+
+   public void testSearchesNodesInsteadOfGettingEach() {
+      ChefApi chef = createMock(ChefApi.class);
+
+      EasyMock.<SearchResult<? extends Node>> expect(
+            chef.searchNodes(new SearchOptions().query("*:*").rows(BaseListNodesImpl.SEARCH_ROWS).start(0)))
+            .andReturn(new SearchResult<Node>(0, 2, ImmutableList.of(node1, node2)));
+
+      replay(chef);
+
+      assertEquals(ImmutableList.copyOf(new ListNodesImpl(chef).execute(sameThreadExecutor())),
+            ImmutableList.of(node1, node2));
+      verify(chef);
+   }
+
+   public void testGetsEachNodeWhenSearchFails() {
+      ChefApi chef = createMock(ChefApi.class);
+
+      expect(chef.searchNodes(new SearchOptions().query("*:*").rows(BaseListNodesImpl.SEARCH_ROWS).start(0)))
+            .andThrow(new HttpResponseException("search unavailable", null, null));
+      expect(chef.listNodes()).andReturn(ImmutableSet.of("node1", "node2"));
+      expect(chef.getNode("node1")).andReturn(node1);
+      expect(chef.getNode("node2")).andReturn(node2);
+
+      replay(chef);
+
+      assertEquals(ImmutableSet.copyOf(new ListNodesImpl(chef).execute(sameThreadExecutor())),
+            ImmutableSet.of(node1, node2));
+      verify(chef);
+   }
+}
@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.chef.strategy.internal;
+
+import static com.google.common.util.concurrent.MoreExecutors.sameThreadExecutor;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.testng.Assert.assertEquals;
+
+import org.easymock.EasyMock;
+import org.jclouds.chef.ChefApi;
+import org.jclouds.chef.domain.Node;
+import org.jclouds.chef.domain.SearchResult;
+import org.jclouds.chef.options.SearchOptions;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Tests behavior of {@code ListNodesInEnvironmentImpl}
+ */
+@Test(groups = { "unit" })
+public class ListNodesInEnvironmentImplTest {
+
+   private final Node node1 = Node.builder().name("node1").environment("prod:eu").build();
+
+   public void testEscapesTheEnvironmentInTheSearchQuery() {
+      ChefApi chef = createMock(ChefApi.class);
+
+      EasyMock.<SearchResult<? extends Node>> expect(
+            chef.searchNodes(new SearchOptions().query("chef_environment:prod\\:eu").rows(
+                  BaseListNodesImpl.SEARCH_ROWS).start(0)))
+            .andReturn(new SearchResult<Node>(0, 1, ImmutableList.of(node1)));
+
+      replay(chef);
+
+      assertEquals(ImmutableList.copyOf(new ListNodesInEnvironmentImpl(chef).execute(sameThreadExecutor(),
+            "prod:eu")), ImmutableList.of(node1));
+      verify(chef);
+   }
+}
@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.chef.strategy.internal;
+
+import static com.google.common.util.concurrent.MoreExecutors.sameThreadExecutor;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.jclouds.chef.domain.SearchResult;
+import org.jclouds.chef.options.SearchOptions;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+/**
+ * Tests behavior of {@code PaginatedSearch}
+ */
+@Test(groups = { "unit" })
+public class PaginatedSearchTest {
+
+   private static class PagesOf implements Function<SearchOptions, SearchResult<String>> {
+      private final List<String> results;
+      private final boolean reportTotal;
+      private final List<String> requestedStarts = Lists.newArrayList();
+
+      private PagesOf(List<String> results, boolean reportTotal) {
+         this.results = results;
+         this.reportTotal = reportTotal;
+      }
+
+      @Override
+      public SearchResult<String> apply(SearchOptions options) {
+         int start = Integer.parseInt(options.buildQueryParameters().get("start").iterator().next());
+         int rows = Integer.parseInt(options.buildQueryParameters().get("rows").iterator().next());
+         requestedStarts.add(String.valueOf(start));
+         List<String> page = results.subList(Math.min(start, results.size()), Math.min(start + rows, results.size()));
+         return new SearchResult<String>(start, reportTotal ? results.size() : 0, page);
+      }
+   }
+
+   public void testFetchesFirstPageWhenCreated() {
+      PagesOf search = new PagesOf(ImmutableList.of("a", "b", "c"), true);
+      new PaginatedSearch<String>(sameThreadExecutor(), search, "*:*", 2);
+      assertEquals(search.requestedStarts, ImmutableList.of("0"));
+   }
+
+   public void testStreamsAllPagesInOrder() {
+      PagesOf search = new PagesOf(ImmutableList.of("a", "b", "c", "d", "e"), true);
+      Iterable<String> results = new PaginatedSearch<String>(sameThreadExecutor(), search, "*:*", 2);
+      assertEquals(ImmutableList.copyOf(results), ImmutableList.of("a", "b", "c", "d", "e"));
+      assertEquals(search.requestedStarts, ImmutableList.of("0", "2", "4"));
+   }
+
+   public void testStopsAtTotalWithoutRequestingAnEmptyPage() {
+      PagesOf search = new PagesOf(ImmutableList.of("a", "b", "c", "d"), true);
+      Iterable<String> results = new PaginatedSearch<String>(sameThreadExecutor(), search, "*:*", 2);
+      assertEquals(ImmutableList.copyOf(results), ImmutableList.of("a", "b", "c", "d"));
+      assertEquals(search.requestedStarts, ImmutableList.of("0", "2"));
+   }
+
+   public void testStopsAtEmptyPageWhenTotalIsNotReported() {
+      PagesOf search = new PagesOf(ImmutableList.of("a", "b", "c", "d"), false);
+      Iterable<String> results = new PaginatedSearch<String>(sameThreadExecutor(), search, "*:*", 2);
+      assertEquals(ImmutableList.copyOf(results), ImmutableList.of("a", "b", "c", "d"));
+      assertEquals(search.requestedStarts, ImmutableList.of("0", "2", "4"));
+   }
+
+   public void testShortPageIsNotTheLast() {
+      PagesOf search = new PagesOf(ImmutableList.of("a", "b", "c", "d", "e"), true) {
+         @Override
+         public SearchResult<String> apply(SearchOptions options) {
+            SearchResult<String> page = super.apply(options);
+            // the server drops the rows the client may not read
+            page.remove("b");
+            return page;
+         }
+      };
+      Iterable<String> results = new PaginatedSearch<String>(sameThreadExecutor(), search, "*:*", 2);
+      assertEquals(ImmutableList.copyOf(results), ImmutableList.of("a", "c", "d", "e"));
+      assertEquals(search.requestedStarts, ImmutableList.of("0", "2", "4"));
+   }
+
+   public void testIteratingAgainReusesThePages() {
+      PagesOf search = new PagesOf(ImmutableList.of("a", "b", "c"), true);
+      Iterable<String> results = new PaginatedSearch<String>(sameThreadExecutor(), search, "*:*", 2);
+      assertEquals(ImmutableList.copyOf(results), ImmutableList.of("a", "b", "c"));
+      assertEquals(ImmutableList.copyOf(results), ImmutableList.of("a", "b", "c"));
+      assertEquals(search.requestedStarts, ImmutableList.of("0", "2"));
+   }
+
+   public void testIteratingAgainRetriesAFailedPage() {
+      final AtomicBoolean failed = new AtomicBoolean();
+      PagesOf search = new PagesOf(ImmutableList.of("a", "b", "c"), true) {
+         @Override
+         public SearchResult<String> apply(SearchOptions options) {
+            SearchResult<String> page = super.apply(options);
+            if (!options.buildQueryParameters().get("start").contains("0") && failed.compareAndSet(false, true))
+               throw new IllegalStateException("failed to get page");
+            return page;
+         }
+      };
+      Iterable<String> results = new PaginatedSearch<String>(sameThreadExecutor(), search, "*:*", 2);
+      try {
+         ImmutableList.copyOf(results);
+         fail("expected the second page to fail");
+      } catch (IllegalStateException expected) {
+      }
+      assertEquals(ImmutableList.copyOf(results), ImmutableList.of("a", "b", "c"));
+      assertEquals(search.requestedStarts, ImmutableList.of("0", "2", "2"));
+   }
+}
@@ -49,6 +49,12 @@ public class ChefUtilsTest {
       ChefUtils.findRoleInRunList(ImmutableList.of("recipe[java]"));
    }
 
+   public void testEscapeSearchTerm() {
+      assertEquals(ChefUtils.escapeSearchTerm("_default"), "_default");
+      assertEquals(ChefUtils.escapeSearchTerm("prod OR dev"), "prod\\ OR\\ dev");
+      assertEquals(ChefUtils.escapeSearchTerm("a:b*(c)\\"), "a\\:b\\*\\(c\\)\\\\");
+   }
+
    public void testFindRoleInRunList() {
       assertEquals(ChefUtils.findRoleInRunList(ImmutableList.of("role[prod]")), "prod");
 
@@ -22,7 +22,9 @@ import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.collect.Iterables.contains;
 import static com.google.common.collect.Iterables.filter;
 import static com.google.common.collect.Iterables.get;
+import static com.google.common.collect.Iterables.getOnlyElement;
 import static org.jclouds.cloudstack.options.DeployVirtualMachineOptions.Builder.displayName;
+import static org.jclouds.cloudstack.compute.functions.VirtualMachineToNodeMetadata.vmStateToNodeStatus;
 import static org.jclouds.cloudstack.options.ListTemplatesOptions.Builder.id;
 import static org.jclouds.cloudstack.predicates.TemplatePredicates.isReady;
 import static org.jclouds.cloudstack.predicates.ZonePredicates.supportsSecurityGroups;
@@ -72,11 +74,15 @@ import org.jclouds.cloudstack.options.CreateTagsOptions;
 import org.jclouds.cloudstack.options.DeployVirtualMachineOptions;
 import org.jclouds.cloudstack.options.ListFirewallRulesOptions;
 import org.jclouds.cloudstack.options.ListTemplatesOptions;
+import org.jclouds.cloudstack.options.ListVirtualMachinesOptions;
 import org.jclouds.cloudstack.strategy.BlockUntilJobCompletesAndReturnResult;
 import org.jclouds.collect.Memoized;
 import org.jclouds.compute.ComputeServiceAdapter;
+import org.jclouds.compute.ComputeServiceAdapter.ListsNodesMatchingFilter;
 import org.jclouds.compute.config.GetLoginForProviderFromPropertiesAndStoreCredentialsOrReturnNull;
+import org.jclouds.compute.domain.NodeMetadata.Status;
 import org.jclouds.compute.functions.GroupNamingConvention;
+import org.jclouds.compute.predicates.NodeFilter;
 import org.jclouds.compute.reference.ComputeServiceConstants;
 import org.jclouds.domain.Credentials;
 import org.jclouds.domain.LoginCredentials;
@@ -88,7 +94,7 @@ import org.jclouds.logging.Logger;
  */
 @Singleton
 public class CloudStackComputeServiceAdapter implements
-   ComputeServiceAdapter<VirtualMachine, ServiceOffering, Template, Zone> {
+   ComputeServiceAdapter<VirtualMachine, ServiceOffering, Template, Zone>, ListsNodesMatchingFilter<VirtualMachine> {
 
    @Resource
    @Named(ComputeServiceConstants.COMPUTE_LOGGER)
@@ -328,6 +334,29 @@ public class CloudStackComputeServiceAdapter implements
       return client.getVirtualMachineApi().listVirtualMachines();
    }
 
+   /**
+    * The id (when there is only one), zone and state (when the statuses correspond to a single state) of the filter
+    * are passed to {@code listVirtualMachines}.
+    */
+   @Override
+   public Iterable<VirtualMachine> listNodesMatching(NodeFilter<?> filter) {
+      ListVirtualMachinesOptions options = new ListVirtualMachinesOptions();
+      if (filter.getIds().size() == 1)
+         options.id(getOnlyElement(filter.getIds()));
+      else if (!filter.getIds().isEmpty())
+         return listNodesByIds(filter.getIds());
+      if (filter.getLocationId() != null)
+         options.zoneId(filter.getLocationId());
+      Set<VirtualMachine.State> states = Sets.newHashSet();
+      for (Map.Entry<VirtualMachine.State, Status> entry : vmStateToNodeStatus.entrySet()) {
+         if (filter.getStatuses().contains(entry.getValue()))
+            states.add(entry.getKey());
+      }
+      if (states.size() == 1)
+         options.state(getOnlyElement(states).toString());
+      return client.getVirtualMachineApi().listVirtualMachines(options);
+   }
+
    @Override
    public Iterable<VirtualMachine> listNodesByIds(final Iterable<String> ids) {
       return filter(listNodes(), new Predicate<VirtualMachine>() {
@@ -46,6 +46,18 @@ public final class CloudStackProperties {
     */
    public static final String AUTO_GENERATE_KEYPAIRS = "jclouds.cloudstack.auto-generate-keypairs";
 
+   /**
+    * Milliseconds between polls of pending jobs by
+    * {@link org.jclouds.cloudstack.strategy.AsyncJobTracker}.
+    */
+   public static final String JOB_POLL_INTERVAL = "jclouds.cloudstack.job-poll-interval";
+
+   /**
+    * Milliseconds after which {@link org.jclouds.cloudstack.strategy.AsyncJobTracker} gives up on a job that has not
+    * completed.
+    */
+   public static final String JOB_TIMEOUT = "jclouds.cloudstack.job-timeout";
+
    private CloudStackProperties() {
       throw new AssertionError("intentionally unimplemented");
    }
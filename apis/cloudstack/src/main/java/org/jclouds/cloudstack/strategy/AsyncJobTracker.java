@@ -0,0 +1,216 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.cloudstack.strategy;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.jclouds.Constants.PROPERTY_SCHEDULER_THREADS;
+import static org.jclouds.cloudstack.options.ListAsyncJobsOptions.Builder.startDate;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.annotation.Resource;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.cloudstack.AsyncJobException;
+import org.jclouds.cloudstack.CloudStackApi;
+import org.jclouds.cloudstack.config.CloudStackProperties;
+import org.jclouds.cloudstack.domain.AsyncCreateResponse;
+import org.jclouds.cloudstack.domain.AsyncJob;
+import org.jclouds.compute.reference.ComputeServiceConstants;
+import org.jclouds.logging.Logger;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+
+/**
+ * Tracks any number of asynchronous jobs with a single poll of {@code listAsyncJobs} per interval, instead of one
+ * blocked thread and one {@code queryAsyncJobResult} call per job.
+ * <p/>
+ * Each call to {@link #track} returns a future that completes with the finished job, or fails with an
+ * {@link AsyncJobException} if the job failed, or with a {@link TimeoutException} if it did not finish within
+ * {@link CloudStackProperties#JOB_TIMEOUT}. Cancelling the future stops tracking the job. Polling only runs while
+ * there are jobs pending.
+ * <p/>
+ * The listing is limited to jobs started since shortly before the oldest pending job was tracked. Jobs missing from
+ * the listing, for example because they belong to another account, are looked up individually. When the listing
+ * itself fails, no job is looked up until a later poll lists successfully.
+ */
+@Singleton
+public class AsyncJobTracker {
+
+   /**
+    * Allowance for the difference between our clock and the server's when filtering the listing by start date.
+    */
+   @VisibleForTesting
+   static final long CLOCK_SKEW_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+   @Resource
+   @Named(ComputeServiceConstants.COMPUTE_LOGGER)
+   protected Logger logger = Logger.NULL;
+
+   private final CloudStackApi client;
+   private final ScheduledExecutorService scheduler;
+   private final long pollIntervalMillis;
+   private final long timeoutMillis;
+   private final ConcurrentMap<String, PendingJob<?>> pending = Maps.newConcurrentMap();
+   private boolean polling;
+
+   @Inject
+   public AsyncJobTracker(CloudStackApi client, @Named(PROPERTY_SCHEDULER_THREADS) ScheduledExecutorService scheduler,
+         @Named(CloudStackProperties.JOB_POLL_INTERVAL) long pollIntervalMillis,
+         @Named(CloudStackProperties.JOB_TIMEOUT) long timeoutMillis) {
+      this.client = checkNotNull(client, "client");
+      this.scheduler = checkNotNull(scheduler, "scheduler");
+      this.pollIntervalMillis = pollIntervalMillis;
+      this.timeoutMillis = timeoutMillis;
+   }
+
+   public <T> ListenableFuture<AsyncJob<T>> track(AsyncCreateResponse job) {
+      return track(checkNotNull(job, "job").getJobId());
+   }
+
+   /**
+    * @return a future completing with the job once it has succeeded; tracking the same job twice returns the same
+    *         future
+    */
+   @SuppressWarnings("unchecked")
+   public <T> ListenableFuture<AsyncJob<T>> track(final String jobId) {
+      checkNotNull(jobId, "jobId");
+      PendingJob<T> job = new PendingJob<T>(jobId, System.currentTimeMillis());
+      PendingJob<?> existing = pending.putIfAbsent(jobId, job);
+      if (existing != null)
+         return PendingJob.class.cast(existing).future;
+      final PendingJob<T> tracked = job;
+      job.future.addListener(new Runnable() {
+         @Override
+         public void run() {
+            pending.remove(jobId, tracked);
+         }
+      }, MoreExecutors.sameThreadExecutor());
+      logger.trace(">> tracking job(%s)", jobId);
+      schedulePoll();
+      return job.future;
+   }
+
+   /**
+    * @return number of jobs not yet completed
+    */
+   public int getPendingCount() {
+      return pending.size();
+   }
+
+   private synchronized void schedulePoll() {
+      if (polling || pending.isEmpty())
+         return;
+      polling = true;
+      scheduler.schedule(new Runnable() {
+         @Override
+         public void run() {
+            try {
+               poll();
+            } catch (RuntimeException e) {
+               logger.warn(e, "error polling %d pending jobs", pending.size());
+            } finally {
+               synchronized (AsyncJobTracker.this) {
+                  polling = false;
+               }
+               schedulePoll();
+            }
+         }
+      }, pollIntervalMillis, TimeUnit.MILLISECONDS);
+   }
+
+   @VisibleForTesting
+   void poll() {
+      if (pending.isEmpty())
+         return;
+      long oldest = Long.MAX_VALUE;
+      for (PendingJob<?> job : pending.values())
+         oldest = Math.min(oldest, job.trackedAt);
+
+      Map<String, AsyncJob<?>> listed = Maps.newHashMap();
+      boolean listingFailed = false;
+      try {
+         for (AsyncJob<?> job : client.getAsyncJobApi().listAsyncJobs(startDate(new Date(oldest - CLOCK_SKEW_MILLIS))))
+            listed.put(job.getId(), job);
+      } catch (RuntimeException e) {
+         // leave the jobs pending rather than looking each one up against an api that is failing; the next poll
+         // retries, and the timeout bounds how long we keep trying
+         logger.warn(e, "error listing jobs; will retry");
+         listingFailed = true;
+      }
+
+      long now = System.currentTimeMillis();
+      int lookedUp = 0;
+      for (PendingJob<?> job : pending.values()) {
+         AsyncJob<?> current = listed.get(job.id);
+         if (current == null && !listingFailed) {
+            lookedUp++;
+            try {
+               current = client.getAsyncJobApi().getAsyncJob(job.id);
+            } catch (RuntimeException e) {
+               logger.warn(e, "error looking up job(%s)", job.id);
+            }
+         }
+         if (current != null && update(job, current))
+            continue;
+         if (now - job.trackedAt >= timeoutMillis) {
+            job.future.setException(new TimeoutException(String.format("job %s failed to complete in %sms: %s",
+                  job.id, timeoutMillis, current)));
+         }
+      }
+      logger.trace("<< polled %d jobs, %d looked up individually, %d pending", listed.size(), lookedUp,
+            pending.size());
+   }
+
+   /**
+    * @return true if the job finished and its future was completed
+    */
+   @SuppressWarnings("unchecked")
+   private static <T> boolean update(PendingJob<T> job, AsyncJob<?> current) {
+      if (current.hasFailed()) {
+         job.future.setException(new AsyncJobException(String.format("job %s failed with exception %s", current,
+               current.getError())));
+         return true;
+      } else if (current.hasSucceed()) {
+         job.future.set((AsyncJob<T>) current);
+         return true;
+      }
+      return false;
+   }
+
+   private static final class PendingJob<T> {
+      private final String id;
+      private final long trackedAt;
+      private final SettableFuture<AsyncJob<T>> future = SettableFuture.create();
+
+      private PendingJob(String id, long trackedAt) {
+         this.id = id;
+         this.trackedAt = trackedAt;
+      }
+   }
+}
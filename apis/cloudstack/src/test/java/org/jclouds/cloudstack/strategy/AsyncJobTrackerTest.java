@@ -0,0 +1,228 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.cloudstack.strategy;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jclouds.cloudstack.AsyncJobException;
+import org.jclouds.cloudstack.CloudStackApi;
+import org.jclouds.cloudstack.domain.AsyncJob;
+import org.jclouds.cloudstack.domain.AsyncJob.ResultCode;
+import org.jclouds.cloudstack.domain.AsyncJob.Status;
+import org.jclouds.cloudstack.domain.AsyncJobError;
+import org.jclouds.cloudstack.domain.AsyncJobError.ErrorCode;
+import org.jclouds.cloudstack.features.AsyncJobApi;
+import org.jclouds.cloudstack.options.ListAsyncJobsOptions;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ListenableFuture;
+
+@Test(groups = "unit", singleThreaded = true, testName = "AsyncJobTrackerTest")
+public class AsyncJobTrackerTest {
+
+   private FakeAsyncJobApi jobApi;
+   private CloudStackApi client;
+   private ScheduledExecutorService scheduler;
+
+   @BeforeMethod
+   public void setUp() {
+      jobApi = new FakeAsyncJobApi();
+      client = createMock(CloudStackApi.class);
+      expect(client.getAsyncJobApi()).andReturn(jobApi).anyTimes();
+      replay(client);
+      scheduler = Executors.newSingleThreadScheduledExecutor();
+   }
+
+   @AfterMethod(alwaysRun = true)
+   public void tearDown() {
+      scheduler.shutdownNow();
+   }
+
+   public void testPendingJobsAreCompletedWithOneListingPerPoll() throws Exception {
+      AsyncJobTracker tracker = manuallyPolledTracker(TimeUnit.HOURS.toMillis(1));
+      jobApi.jobs.put("1", inProgress("1"));
+      jobApi.jobs.put("2", inProgress("2"));
+      jobApi.jobs.put("3", inProgress("3"));
+      ListenableFuture<AsyncJob<String>> first = tracker.track("1");
+      ListenableFuture<AsyncJob<String>> second = tracker.track("2");
+
+      tracker.poll();
+      assertFalse(first.isDone());
+      assertFalse(second.isDone());
+
+      jobApi.jobs.put("1", succeeded("1", "foo"));
+      tracker.poll();
+      assertEquals(first.get().getResult(), "foo");
+      assertFalse(second.isDone());
+      assertEquals(tracker.getPendingCount(), 1);
+
+      jobApi.jobs.put("2", succeeded("2", "bar"));
+      tracker.poll();
+      assertEquals(second.get().getResult(), "bar");
+      assertEquals(tracker.getPendingCount(), 0);
+
+      assertEquals(jobApi.listings.get(), 3);
+      assertEquals(jobApi.lookups.get(), 0);
+   }
+
+   public void testTrackingTheSameJobTwiceReturnsTheSameFuture() {
+      AsyncJobTracker tracker = manuallyPolledTracker(TimeUnit.HOURS.toMillis(1));
+      assertSame(tracker.<String> track("1"), tracker.<String> track("1"));
+      assertEquals(tracker.getPendingCount(), 1);
+   }
+
+   public void testFailedJobFailsFuture() throws Exception {
+      AsyncJobTracker tracker = manuallyPolledTracker(TimeUnit.HOURS.toMillis(1));
+      jobApi.jobs.put("1", AsyncJob.builder().id("1").status(Status.FAILED).resultCode(ResultCode.FAIL)
+            .error(AsyncJobError.builder().errorCode(ErrorCode.INTERNAL_ERROR).errorText("ERROR").build()).build());
+      ListenableFuture<AsyncJob<String>> future = tracker.track("1");
+
+      tracker.poll();
+      try {
+         future.get();
+         fail("expected the job failure to surface");
+      } catch (ExecutionException e) {
+         assertTrue(e.getCause() instanceof AsyncJobException, e.getCause().toString());
+      }
+   }
+
+   public void testJobMissingFromListingIsLookedUp() throws Exception {
+      AsyncJobTracker tracker = manuallyPolledTracker(TimeUnit.HOURS.toMillis(1));
+      jobApi.unlisted.put("1", succeeded("1", "foo"));
+      ListenableFuture<AsyncJob<String>> future = tracker.track("1");
+
+      tracker.poll();
+      assertEquals(future.get().getResult(), "foo");
+      assertEquals(jobApi.lookups.get(), 1);
+   }
+
+   public void testJobTimesOut() throws Exception {
+      AsyncJobTracker tracker = manuallyPolledTracker(0);
+      jobApi.jobs.put("1", inProgress("1"));
+      ListenableFuture<AsyncJob<String>> future = tracker.track("1");
+
+      tracker.poll();
+      try {
+         future.get();
+         fail("expected the job to time out");
+      } catch (ExecutionException e) {
+         assertTrue(e.getCause() instanceof TimeoutException, e.getCause().toString());
+      }
+      assertEquals(tracker.getPendingCount(), 0);
+   }
+
+   public void testListingFailureLeavesJobsPending() {
+      AsyncJobTracker tracker = manuallyPolledTracker(TimeUnit.HOURS.toMillis(1));
+      jobApi.jobs.put("1", inProgress("1"));
+      ListenableFuture<AsyncJob<String>> future = tracker.track("1");
+      jobApi.failListing = true;
+
+      tracker.poll();
+      assertFalse(future.isDone());
+      assertEquals(tracker.getPendingCount(), 1);
+      assertEquals(jobApi.lookups.get(), 0, "looked up jobs individually while listing failed");
+
+      jobApi.failListing = false;
+      jobApi.jobs.put("1", succeeded("1", "foo"));
+      tracker.poll();
+      assertTrue(future.isDone());
+      assertEquals(jobApi.lookups.get(), 0);
+   }
+
+   public void testCancelledFutureIsNoLongerPolled() {
+      AsyncJobTracker tracker = manuallyPolledTracker(TimeUnit.HOURS.toMillis(1));
+      ListenableFuture<AsyncJob<String>> future = tracker.track("1");
+      future.cancel(false);
+      assertEquals(tracker.getPendingCount(), 0);
+
+      tracker.poll();
+      assertEquals(jobApi.listings.get(), 0);
+   }
+
+   public void testPollsOnScheduleUntilNothingIsPending() throws Exception {
+      AsyncJobTracker tracker = new AsyncJobTracker(client, scheduler, 10, TimeUnit.HOURS.toMillis(1));
+      jobApi.jobs.put("1", inProgress("1"));
+      ListenableFuture<AsyncJob<String>> future = tracker.track("1");
+
+      while (jobApi.listings.get() < 2)
+         Thread.sleep(10);
+      jobApi.jobs.put("1", succeeded("1", "foo"));
+      assertEquals(future.get(5, TimeUnit.SECONDS).getResult(), "foo");
+
+      Thread.sleep(100);
+      int listings = jobApi.listings.get();
+      Thread.sleep(100);
+      assertEquals(jobApi.listings.get(), listings, "kept polling with nothing pending");
+   }
+
+   private AsyncJobTracker manuallyPolledTracker(long timeoutMillis) {
+      return new AsyncJobTracker(client, scheduler, TimeUnit.HOURS.toMillis(1), timeoutMillis);
+   }
+
+   private static AsyncJob<?> inProgress(String id) {
+      return AsyncJob.builder().id(id).status(Status.IN_PROGRESS).resultCode(ResultCode.UNKNOWN).build();
+   }
+
+   private static AsyncJob<?> succeeded(String id, String result) {
+      return AsyncJob.<String> builder().id(id).status(Status.SUCCEEDED).resultCode(ResultCode.SUCCESS)
+            .result(result).build();
+   }
+
+   private static class FakeAsyncJobApi implements AsyncJobApi {
+      private final Map<String, AsyncJob<?>> jobs = Maps.newConcurrentMap();
+      private final Map<String, AsyncJob<?>> unlisted = Maps.newConcurrentMap();
+      private final AtomicInteger listings = new AtomicInteger();
+      private final AtomicInteger lookups = new AtomicInteger();
+      private volatile boolean failListing;
+
+      @Override
+      public Set<AsyncJob<?>> listAsyncJobs(ListAsyncJobsOptions... options) {
+         listings.incrementAndGet();
+         if (failListing)
+            throw new IllegalStateException("rate limited");
+         return ImmutableSet.copyOf(jobs.values());
+      }
+
+      @SuppressWarnings("unchecked")
+      @Override
+      public <T> AsyncJob<T> getAsyncJob(String id) {
+         lookups.incrementAndGet();
+         AsyncJob<?> job = jobs.get(id);
+         return (AsyncJob<T>) (job != null ? job : unlisted.get(id));
+      }
+   }
+}
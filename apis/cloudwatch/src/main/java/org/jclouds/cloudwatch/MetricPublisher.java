@@ -0,0 +1,402 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.cloudwatch;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.Closeable;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.jclouds.cloudwatch.domain.Dimension;
+import org.jclouds.cloudwatch.domain.MetricDatum;
+import org.jclouds.cloudwatch.domain.StatisticValues;
+import org.jclouds.cloudwatch.domain.Unit;
+import org.jclouds.cloudwatch.features.MetricApi;
+import org.jclouds.logging.Logger;
+
+import com.google.common.annotations.Beta;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Objects;
+import com.google.common.base.Utf8;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Publishes metrics asynchronously, aggregating the values recorded for each metric name, dimensions and unit into
+ * {@link StatisticValues} over a flush interval.
+ * <p/>
+ * Recording a value only updates an in-memory aggregate. A background thread sends the aggregates of each interval in
+ * as few {@code PutMetricData} requests as the datum count and payload size limits allow. Memory is bounded by the
+ * number of distinct metrics per interval; values for further metrics are dropped and counted in
+ * {@link #getDroppedCount}.
+ * 
+ * <h4>Example usage</h4>
+ * 
+ * <pre>
+ * MetricPublisher publisher = MetricPublisher.builder(cloudWatchApi.getMetricApiForRegion(region), "MyService")
+ *       .flushInterval(1, TimeUnit.MINUTES).build().start();
+ * publisher.record("Latency", elapsedMillis, Unit.MILLISECONDS, new Dimension("Operation", "get"));
+ * ...
+ * publisher.close();
+ * </pre>
+ */
+@Beta
+public class MetricPublisher implements Closeable {
+
+   public static Builder builder(MetricApi api, String namespace) {
+      return new Builder(api, namespace);
+   }
+
+   public static class Builder {
+      private final MetricApi api;
+      private final String namespace;
+      private long flushIntervalMillis = TimeUnit.MINUTES.toMillis(1);
+      private int maxMetrics = 10000;
+      private ScheduledExecutorService scheduler;
+      private Logger logger = Logger.NULL;
+
+      private Builder(MetricApi api, String namespace) {
+         this.api = checkNotNull(api, "metric api");
+         this.namespace = checkNotNull(namespace, "namespace");
+      }
+
+      /**
+       * how often aggregates are sent. defaults to one minute, the finest resolution CloudWatch stores.
+       */
+      public Builder flushInterval(long interval, TimeUnit unit) {
+         checkArgument(interval > 0, "interval must be positive");
+         this.flushIntervalMillis = unit.toMillis(interval);
+         return this;
+      }
+
+      /**
+       * most distinct metrics aggregated per interval. defaults to 10000.
+       */
+      public Builder maxMetrics(int maxMetrics) {
+         checkArgument(maxMetrics > 0, "maxMetrics must be positive");
+         this.maxMetrics = maxMetrics;
+         return this;
+      }
+
+      /**
+       * scheduler sending the aggregates. defaults to a single thread owned by the publisher.
+       */
+      public Builder scheduler(ScheduledExecutorService scheduler) {
+         this.scheduler = checkNotNull(scheduler, "scheduler");
+         return this;
+      }
+
+      public Builder logger(Logger logger) {
+         this.logger = checkNotNull(logger, "logger");
+         return this;
+      }
+
+      public MetricPublisher build() {
+         return new MetricPublisher(this);
+      }
+   }
+
+   /** most datums accepted by a single {@code PutMetricData} request. */
+   static final int MAX_DATUMS = 20;
+
+   /** payload limit of {@code PutMetricData}, less room for the action, namespace and signature parameters. */
+   static final int MAX_PAYLOAD_BYTES = 40 * 1024 - 1024;
+
+   private final MetricApi api;
+   private final String namespace;
+   private final long flushIntervalMillis;
+   private final int maxMetrics;
+   private final ScheduledExecutorService scheduler;
+   private final boolean ownsScheduler;
+   private final Logger logger;
+
+   private final AtomicReference<ConcurrentMap<Key, Aggregate>> aggregates =
+         new AtomicReference<ConcurrentMap<Key, Aggregate>>(Maps.<Key, Aggregate> newConcurrentMap());
+   /** held shared to add metrics to the current interval and exclusively to start a new one. */
+   private final ReadWriteLock intervalLock = new ReentrantReadWriteLock();
+   private final AtomicLong dropped = new AtomicLong();
+   private final AtomicLong failed = new AtomicLong();
+   private final AtomicLong published = new AtomicLong();
+   private ScheduledFuture<?> flushing;
+
+   private MetricPublisher(Builder builder) {
+      this.api = builder.api;
+      this.namespace = builder.namespace;
+      this.flushIntervalMillis = builder.flushIntervalMillis;
+      this.maxMetrics = builder.maxMetrics;
+      this.ownsScheduler = builder.scheduler == null;
+      this.scheduler = builder.scheduler != null ? builder.scheduler : Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("cloudwatch-publisher-%d").setDaemon(true).build());
+      this.logger = builder.logger;
+   }
+
+   /**
+    * starts sending aggregates every flush interval.
+    */
+   public synchronized MetricPublisher start() {
+      if (flushing == null)
+         flushing = scheduler.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+               flush();
+            }
+         }, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+      return this;
+   }
+
+   /**
+    * adds a value to the aggregate of the current interval.
+    * 
+    * @throws IllegalArgumentException
+    *            if the value is NaN or infinite, which CloudWatch rejects along with the rest of the request
+    */
+   public void record(String metricName, double value, Unit unit, Dimension... dimensions) {
+      record(new Key(metricName, ImmutableSet.copyOf(dimensions), unit), value);
+   }
+
+   /**
+    * @see #record(String, double, Unit, Dimension...)
+    */
+   public void record(String metricName, Iterable<Dimension> dimensions, Unit unit, double value) {
+      record(new Key(metricName, ImmutableSet.copyOf(dimensions), unit), value);
+   }
+
+   private void record(Key key, double value) {
+      checkArgument(!Double.isNaN(value) && !Double.isInfinite(value), "value must be finite, was %s", value);
+      while (true) {
+         Aggregate aggregate = aggregateFor(key);
+         if (aggregate == null) {
+            dropped.incrementAndGet();
+            return;
+         }
+         // false when a flush took this interval's aggregates in the meantime
+         if (aggregate.add(value))
+            return;
+      }
+   }
+
+   /**
+    * @return the aggregate of the key in the current interval, or null if the interval is full
+    */
+   private Aggregate aggregateFor(Key key) {
+      ConcurrentMap<Key, Aggregate> current = aggregates.get();
+      Aggregate aggregate = current.get(key);
+      if (aggregate != null)
+         return aggregate;
+      // an aggregate added once flush swapped the map out would never be sent
+      intervalLock.readLock().lock();
+      try {
+         current = aggregates.get();
+         aggregate = current.get(key);
+         if (aggregate == null) {
+            if (current.size() >= maxMetrics)
+               return null;
+            Aggregate created = new Aggregate();
+            aggregate = current.putIfAbsent(key, created);
+            if (aggregate == null)
+               aggregate = created;
+         }
+         return aggregate;
+      } finally {
+         intervalLock.readLock().unlock();
+      }
+   }
+
+   /**
+    * sends the aggregates recorded since the last flush.
+    */
+   public synchronized void flush() {
+      ConcurrentMap<Key, Aggregate> interval;
+      intervalLock.writeLock().lock();
+      try {
+         interval = aggregates.getAndSet(Maps.<Key, Aggregate> newConcurrentMap());
+      } finally {
+         intervalLock.writeLock().unlock();
+      }
+      Date timestamp = new Date();
+      List<MetricDatum> datums = Lists.newArrayListWithCapacity(interval.size());
+      for (Map.Entry<Key, Aggregate> entry : interval.entrySet()) {
+         StatisticValues statistics = entry.getValue().close();
+         if (statistics != null)
+            datums.add(entry.getKey().toDatum(statistics, timestamp));
+      }
+      for (List<MetricDatum> request : pack(datums)) {
+         try {
+            api.putMetricsInNamespace(request, namespace);
+            published.addAndGet(request.size());
+         } catch (RuntimeException e) {
+            failed.addAndGet(request.size());
+            logger.warn(e, "<< error publishing %d metrics to %s", request.size(), namespace);
+         }
+      }
+   }
+
+   /**
+    * splits datums into requests within the datum count and payload size limits.
+    */
+   @VisibleForTesting
+   static List<List<MetricDatum>> pack(List<MetricDatum> datums) {
+      ImmutableList.Builder<List<MetricDatum>> requests = ImmutableList.builder();
+      List<MetricDatum> request = Lists.newArrayList();
+      int requestBytes = 0;
+      for (MetricDatum datum : datums) {
+         int bytes = estimateSize(datum);
+         if (request.size() == MAX_DATUMS || (!request.isEmpty() && requestBytes + bytes > MAX_PAYLOAD_BYTES)) {
+            requests.add(request);
+            request = Lists.newArrayList();
+            requestBytes = 0;
+         }
+         request.add(datum);
+         requestBytes += bytes;
+      }
+      if (!request.isEmpty())
+         requests.add(request);
+      return requests.build();
+   }
+
+   /**
+    * upper bound of the form encoded size of a datum bound by {@code MetricDataBinder}, assuming every character of
+    * names and values needs percent encoding.
+    */
+   @VisibleForTesting
+   static int estimateSize(MetricDatum datum) {
+      int parameter = "&MetricData.member.20.=".length();
+      int size = parameter + "MetricName".length() + 3 * Utf8.encodedLength(datum.getMetricName());
+      size += parameter + "Unit".length() + 3 * datum.getUnit().toString().length();
+      size += parameter + "Timestamp".length() + 3 * "2009-11-08T15:54:08Z".length();
+      size += 4 * (parameter + "StatisticValues.SampleCount".length() + 3 * "-1.7976931348623157E308".length());
+      for (Dimension dimension : datum.getDimensions()) {
+         size += 2 * (parameter + "Dimensions.member.10.Value".length());
+         size += 3 * (Utf8.encodedLength(dimension.getName()) + Utf8.encodedLength(dimension.getValue()));
+      }
+      return size;
+   }
+
+   /**
+    * @return count of values not recorded because the interval already held the maximum number of metrics
+    */
+   public long getDroppedCount() {
+      return dropped.get();
+   }
+
+   /**
+    * @return count of aggregated datums whose request failed
+    */
+   public long getFailedCount() {
+      return failed.get();
+   }
+
+   /**
+    * @return count of aggregated datums sent
+    */
+   public long getPublishedCount() {
+      return published.get();
+   }
+
+   /**
+    * stops the periodic flush and sends what was recorded since the last one.
+    */
+   @Override
+   public void close() {
+      synchronized (this) {
+         if (flushing != null)
+            flushing.cancel(false);
+      }
+      flush();
+      if (ownsScheduler)
+         scheduler.shutdownNow();
+   }
+
+   @Override
+   public String toString() {
+      return Objects.toStringHelper(this).add("namespace", namespace).add("flushIntervalMillis", flushIntervalMillis)
+            .add("published", published).add("dropped", dropped).add("failed", failed).toString();
+   }
+
+   private static final class Key {
+      private final String metricName;
+      private final Set<Dimension> dimensions;
+      private final Unit unit;
+      private final int hashCode;
+
+      private Key(String metricName, Set<Dimension> dimensions, Unit unit) {
+         this.metricName = checkNotNull(metricName, "metricName");
+         this.dimensions = dimensions;
+         this.unit = checkNotNull(unit, "unit");
+         this.hashCode = Objects.hashCode(metricName, dimensions, unit);
+      }
+
+      private MetricDatum toDatum(StatisticValues statistics, Date timestamp) {
+         return MetricDatum.builder().metricName(metricName).dimensions(dimensions).unit(unit)
+               .statisticValues(statistics).timestamp(timestamp).build();
+      }
+
+      @Override
+      public int hashCode() {
+         return hashCode;
+      }
+
+      @Override
+      public boolean equals(Object obj) {
+         if (this == obj)
+            return true;
+         if (!(obj instanceof Key))
+            return false;
+         Key that = Key.class.cast(obj);
+         return metricName.equals(that.metricName) && unit == that.unit && dimensions.equals(that.dimensions);
+      }
+   }
+
+   private static final class Aggregate {
+      private double sum;
+      private double minimum = Double.POSITIVE_INFINITY;
+      private double maximum = Double.NEGATIVE_INFINITY;
+      private long count;
+      private boolean closed;
+
+      private synchronized boolean add(double value) {
+         if (closed)
+            return false;
+         sum += value;
+         minimum = Math.min(minimum, value);
+         maximum = Math.max(maximum, value);
+         count++;
+         return true;
+      }
+
+      private synchronized StatisticValues close() {
+         closed = true;
+         return count == 0 ? null : new StatisticValues(maximum, minimum, count, sum);
+      }
+   }
+}
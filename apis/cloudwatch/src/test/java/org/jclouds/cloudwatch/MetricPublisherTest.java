@@ -0,0 +1,246 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.cloudwatch;
+
+import static org.easymock.EasyMock.capture;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.eq;
+import static org.easymock.EasyMock.expectLastCall;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.easymock.Capture;
+import org.easymock.CaptureType;
+import org.jclouds.cloudwatch.domain.Dimension;
+import org.jclouds.cloudwatch.domain.MetricDatum;
+import org.jclouds.cloudwatch.domain.StatisticValues;
+import org.jclouds.cloudwatch.domain.Unit;
+import org.jclouds.cloudwatch.features.MetricApi;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Tests behavior of {@code MetricPublisher}.
+ */
+@Test(groups = "unit", testName = "MetricPublisherTest")
+public class MetricPublisherTest {
+
+   private static Map<String, MetricDatum> byName(Iterable<MetricDatum> datums) {
+      Map<String, MetricDatum> byName = Maps.newHashMap();
+      for (MetricDatum datum : datums)
+         byName.put(datum.getMetricName() + datum.getDimensions(), datum);
+      return byName;
+   }
+
+   public void testAggregatesValuesPerMetricDimensionsAndUnit() {
+      MetricApi api = createMock(MetricApi.class);
+      Capture<Iterable<MetricDatum>> sent = new Capture<Iterable<MetricDatum>>();
+      api.putMetricsInNamespace(capture(sent), eq("MyService"));
+      replay(api);
+
+      MetricPublisher publisher = MetricPublisher.builder(api, "MyService").build();
+      Dimension get = new Dimension("Operation", "get");
+      publisher.record("Latency", 3, Unit.MILLISECONDS, get);
+      publisher.record("Latency", 7, Unit.MILLISECONDS, get);
+      publisher.record("Latency", 5, Unit.MILLISECONDS, get);
+      publisher.record("Latency", 100, Unit.MILLISECONDS, new Dimension("Operation", "put"));
+      publisher.close();
+      verify(api);
+
+      Map<String, MetricDatum> datums = byName(sent.getValue());
+      assertEquals(datums.size(), 2);
+      MetricDatum latency = datums.get("Latency[" + get + "]");
+      assertEquals(latency.getUnit(), Unit.MILLISECONDS);
+      StatisticValues statistics = latency.getStatisticValues().get();
+      assertEquals(statistics.getMaximum(), 7.0);
+      assertEquals(statistics.getMinimum(), 3.0);
+      assertEquals(statistics.getSampleCount(), 3.0);
+      assertEquals(statistics.getSum(), 15.0);
+      assertTrue(latency.getTimestamp().isPresent());
+      assertEquals(publisher.getPublishedCount(), 2);
+   }
+
+   public void testDropsNewMetricsBeyondTheLimit() {
+      MetricApi api = createMock(MetricApi.class);
+      Capture<Iterable<MetricDatum>> sent = new Capture<Iterable<MetricDatum>>();
+      api.putMetricsInNamespace(capture(sent), eq("MyService"));
+      replay(api);
+
+      MetricPublisher publisher = MetricPublisher.builder(api, "MyService").maxMetrics(2).build();
+      publisher.record("Requests", 1, Unit.COUNT);
+      publisher.record("Errors", 1, Unit.COUNT);
+      publisher.record("Retries", 1, Unit.COUNT);
+      publisher.record("Requests", 1, Unit.COUNT);
+      publisher.close();
+      verify(api);
+
+      assertEquals(publisher.getDroppedCount(), 1);
+      assertEquals(byName(sent.getValue()).get("Requests[]").getStatisticValues().get().getSampleCount(), 2.0);
+   }
+
+   public void testPacksRequestsWithinTheDatumLimit() {
+      MetricApi api = createMock(MetricApi.class);
+      Capture<Iterable<MetricDatum>> sent = new Capture<Iterable<MetricDatum>>(CaptureType.ALL);
+      api.putMetricsInNamespace(capture(sent), eq("MyService"));
+      expectLastCall().times(3);
+      replay(api);
+
+      MetricPublisher publisher = MetricPublisher.builder(api, "MyService").build();
+      for (int i = 0; i < 45; i++)
+         publisher.record("Metric" + i, i, Unit.COUNT);
+      publisher.close();
+      verify(api);
+
+      List<Integer> sizes = Lists.newArrayList();
+      for (Iterable<MetricDatum> request : sent.getValues())
+         sizes.add(Iterables.size(request));
+      assertEquals(sizes, Lists.newArrayList(20, 20, 5));
+      assertEquals(publisher.getPublishedCount(), 45);
+   }
+
+   public void testPacksRequestsWithinThePayloadLimit() {
+      List<MetricDatum> datums = Lists.newArrayList();
+      for (int i = 0; i < 20; i++)
+         datums.add(MetricDatum.builder().metricName("Metric" + i).unit(Unit.COUNT)
+               .dimension(new Dimension("Tag", Strings.repeat("x", 1000))).value(1.0).build());
+      List<List<MetricDatum>> requests = MetricPublisher.pack(datums);
+      assertTrue(requests.size() > 1, requests.size() + "");
+      for (List<MetricDatum> request : requests) {
+         int bytes = 0;
+         for (MetricDatum datum : request)
+            bytes += MetricPublisher.estimateSize(datum);
+         assertTrue(bytes <= MetricPublisher.MAX_PAYLOAD_BYTES, bytes + "");
+      }
+   }
+
+   public void testCountsFailedDatums() {
+      MetricApi api = createMock(MetricApi.class);
+      api.putMetricsInNamespace(capture(new Capture<Iterable<MetricDatum>>()), eq("MyService"));
+      expectLastCall().andThrow(new IllegalStateException("throttled"));
+      replay(api);
+
+      MetricPublisher publisher = MetricPublisher.builder(api, "MyService").build();
+      publisher.record("Requests", 1, Unit.COUNT);
+      publisher.record("Errors", 1, Unit.COUNT);
+      publisher.close();
+      verify(api);
+
+      assertEquals(publisher.getFailedCount(), 2);
+      assertEquals(publisher.getPublishedCount(), 0);
+   }
+
+   @Test(expectedExceptions = IllegalArgumentException.class)
+   public void testRejectsNaN() {
+      MetricPublisher.builder(createMock(MetricApi.class), "MyService").build()
+            .record("Latency", Double.NaN, Unit.MILLISECONDS);
+   }
+
+   @Test(expectedExceptions = IllegalArgumentException.class)
+   public void testRejectsInfiniteValues() {
+      MetricPublisher.builder(createMock(MetricApi.class), "MyService").build()
+            .record("Latency", Double.POSITIVE_INFINITY, Unit.MILLISECONDS);
+   }
+
+   public void testNewMetricsRecordedWhileFlushingArePublishedOrDropped() throws Exception {
+      MetricApi api = createMock(MetricApi.class);
+      Capture<Iterable<MetricDatum>> sent = new Capture<Iterable<MetricDatum>>(CaptureType.ALL);
+      api.putMetricsInNamespace(capture(sent), eq("MyService"));
+      expectLastCall().anyTimes();
+      replay(api);
+
+      final MetricPublisher publisher = MetricPublisher.builder(api, "MyService").maxMetrics(1000).build();
+      final int threads = 4;
+      final int values = 50000;
+      final CountDownLatch done = new CountDownLatch(threads);
+      ExecutorService executor = Executors.newFixedThreadPool(threads);
+      for (int t = 0; t < threads; t++) {
+         final int thread = t;
+         executor.execute(new Runnable() {
+            @Override
+            public void run() {
+               // mostly new metrics, so that values race flush on inserting their aggregate
+               for (int i = 0; i < values; i++)
+                  publisher.record("Requests" + thread + "-" + i, 1, Unit.COUNT);
+               done.countDown();
+            }
+         });
+      }
+      while (done.getCount() > 0)
+         publisher.flush();
+      executor.shutdown();
+      publisher.close();
+
+      double samples = 0;
+      for (Iterable<MetricDatum> request : sent.getValues()) {
+         for (MetricDatum datum : request)
+            samples += datum.getStatisticValues().get().getSampleCount();
+      }
+      assertEquals(samples + publisher.getDroppedCount(), (double) threads * values);
+   }
+
+   public void testNoValueIsLostWhileFlushingConcurrently() throws Exception {
+      MetricApi api = createMock(MetricApi.class);
+      Capture<Iterable<MetricDatum>> sent = new Capture<Iterable<MetricDatum>>(CaptureType.ALL);
+      api.putMetricsInNamespace(capture(sent), eq("MyService"));
+      expectLastCall().anyTimes();
+      replay(api);
+
+      final MetricPublisher publisher = MetricPublisher.builder(api, "MyService").build();
+      final int threads = 4;
+      final int values = 20000;
+      final CountDownLatch done = new CountDownLatch(threads);
+      ExecutorService executor = Executors.newFixedThreadPool(threads);
+      for (int t = 0; t < threads; t++) {
+         executor.execute(new Runnable() {
+            @Override
+            public void run() {
+               for (int i = 0; i < values; i++)
+                  publisher.record("Requests", 1, Unit.COUNT, new Dimension("Shard", String.valueOf(i % 3)));
+               done.countDown();
+            }
+         });
+      }
+      while (!done.await(1, TimeUnit.MILLISECONDS))
+         publisher.flush();
+      executor.shutdown();
+      publisher.close();
+
+      double samples = 0;
+      double sum = 0;
+      for (Iterable<MetricDatum> request : sent.getValues()) {
+         for (MetricDatum datum : request) {
+            samples += datum.getStatisticValues().get().getSampleCount();
+            sum += datum.getStatisticValues().get().getSum();
+         }
+      }
+      assertEquals(samples, (double) threads * values);
+      assertEquals(sum, (double) threads * values);
+   }
+}
@@ -20,6 +20,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Predicates.and;
 import static com.google.common.base.Predicates.in;
 import static com.google.common.base.Predicates.notNull;
+import static com.google.common.base.Throwables.propagate;
 import static com.google.common.collect.Iterables.concat;
 import static com.google.common.collect.Iterables.filter;
 import static com.google.common.collect.Iterables.toArray;
@@ -27,8 +28,16 @@ import static com.google.common.collect.Iterables.transform;
 import static com.google.common.collect.Multimaps.filterKeys;
 import static com.google.common.collect.Multimaps.index;
 import static com.google.common.collect.Multimaps.transformValues;
+import static com.google.common.util.concurrent.Futures.getUnchecked;
+import static org.jclouds.util.Throwables2.propagateAuthorizationOrOriginalException;
 
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import javax.annotation.Resource;
 import javax.inject.Named;
@@ -38,10 +47,15 @@ import org.jclouds.Constants;
 import org.jclouds.aws.util.AWSUtils;
 import org.jclouds.compute.domain.ComputeMetadata;
 import org.jclouds.compute.domain.NodeMetadata;
+import org.jclouds.compute.domain.NodeMetadata.Status;
+import org.jclouds.compute.functions.GroupNamingConvention;
+import org.jclouds.compute.predicates.NodeFilter;
 import org.jclouds.compute.predicates.NodePredicates;
 import org.jclouds.compute.reference.ComputeServiceConstants;
 import org.jclouds.compute.strategy.ListNodesStrategy;
+import org.jclouds.concurrent.TransformParallelException;
 import org.jclouds.ec2.EC2Api;
+import org.jclouds.ec2.domain.InstanceState;
 import org.jclouds.ec2.domain.Reservation;
 import org.jclouds.ec2.domain.RunningInstance;
 import org.jclouds.location.Region;
@@ -50,8 +64,11 @@ import org.jclouds.logging.Logger;
 import com.google.common.base.Function;
 import com.google.common.base.Predicate;
 import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
+import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.inject.Inject;
 
@@ -70,15 +87,20 @@ public class EC2ListNodesStrategy implements ListNodesStrategy {
    protected final Supplier<Set<String>> regions;
    protected final Function<RunningInstance, NodeMetadata> runningInstanceToNodeMetadata;
    protected final ListeningExecutorService userExecutor;
+   protected final Map<InstanceState, Status> instanceToNodeStatus;
+   protected final GroupNamingConvention.Factory namingConvention;
 
    @Inject
    protected EC2ListNodesStrategy(EC2Api client, @Region Supplier<Set<String>> regions,
             Function<RunningInstance, NodeMetadata> runningInstanceToNodeMetadata,
-            @Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService userExecutor) {
+            @Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService userExecutor,
+            Map<InstanceState, Status> instanceToNodeStatus, GroupNamingConvention.Factory namingConvention) {
       this.client =  checkNotNull(client, "client");
       this.regions =  checkNotNull(regions, "regions");
       this.runningInstanceToNodeMetadata = checkNotNull(runningInstanceToNodeMetadata, "runningInstanceToNodeMetadata");
       this.userExecutor =  checkNotNull(userExecutor, "userExecutor");
+      this.instanceToNodeStatus = checkNotNull(instanceToNodeStatus, "instanceToNodeStatus");
+      this.namingConvention = checkNotNull(namingConvention, "namingConvention");
    }
 
    @Override
@@ -104,7 +126,66 @@ public class EC2ListNodesStrategy implements ListNodesStrategy {
 
    @Override
    public Set<? extends NodeMetadata> listDetailsOnNodesMatching(Predicate<ComputeMetadata> filter) {
-      Iterable<? extends RunningInstance> instances = pollRunningInstances();
+      if (filter instanceof NodeFilter)
+         return listDetailsOnNodesMatchingNodeFilter(((NodeFilter<?>) filter).forComputeMetadata());
+      return toNodes(pollRunningInstances(), filter);
+   }
+
+   /**
+    * Translates the criteria of the node filter into {@code DescribeInstances} calls, so that only the matching
+    * instances are fetched:
+    * <ul>
+    * <li>ids are looked up directly, in their regions</li>
+    * <li>statuses become {@code instance-state-name}, tags {@code tag-key} and the location
+    * {@code availability-zone}</li>
+    * <li>as the group of an instance is read from its security groups or, failing that, its key pair, the group is
+    * looked up by {@code instance.group-name} and by {@code key-name}, and the results merged</li>
+    * </ul>
+    */
+   protected Set<? extends NodeMetadata> listDetailsOnNodesMatchingNodeFilter(NodeFilter<ComputeMetadata> filter) {
+      if (!filter.getIds().isEmpty())
+         return ImmutableSet.copyOf(filter(listNodesByIds(filter.getIds()), filter));
+      ImmutableMultimap.Builder<String, String> instanceFilter = ImmutableMultimap.builder();
+      for (Map.Entry<InstanceState, Status> entry : instanceToNodeStatus.entrySet()) {
+         if (entry.getKey() != InstanceState.UNRECOGNIZED && filter.getStatuses().contains(entry.getValue()))
+            instanceFilter.put("instance-state-name", entry.getKey().value());
+      }
+      // values of the same filter name are or'ed, so this only narrows down to any of the tags
+      instanceFilter.putAll("tag-key", filter.getTags());
+      if (filter.getLocationId() != null && !regions.get().contains(filter.getLocationId()))
+         instanceFilter.put("availability-zone", filter.getLocationId());
+      if (filter.getGroup() == null)
+         return listDetailsOnNodesMatching(instanceFilter.build(), filter);
+
+      // the group is encoded as a prefix of the security group or key pair name
+      String groupPrefix = namingConvention.create().sharedNameForGroup(filter.getGroup()) + "*";
+      Multimap<String, String> bySecurityGroup = ImmutableMultimap.<String, String> builder()
+            .putAll(instanceFilter.build()).put("instance.group-name", groupPrefix).build();
+      Multimap<String, String> byKeyPair = ImmutableMultimap.<String, String> builder()
+            .putAll(instanceFilter.build()).put("key-name", groupPrefix).build();
+      Map<String, RunningInstance> instances = Maps.newLinkedHashMap();
+      for (RunningInstance instance : concat(pollRunningInstancesByFilter(bySecurityGroup),
+            pollRunningInstancesByFilter(byKeyPair))) {
+         if (instance != null && !instances.containsKey(instance.getId()))
+            instances.put(instance.getId(), instance);
+      }
+      return toNodes(instances.values(), filter);
+   }
+
+   /**
+    * Like {@link #listDetailsOnNodesMatching(Predicate)}, except that only instances matching the given
+    * {@code DescribeInstances} filter (ex. {@code instance-state-name}, {@code instance.group-name} or
+    * {@code tag:Name}) are fetched from each region. The predicate is still applied to the result.
+    */
+   public Set<? extends NodeMetadata> listDetailsOnNodesMatching(Multimap<String, String> instanceFilter,
+            Predicate<ComputeMetadata> filter) {
+      if (instanceFilter.isEmpty())
+         return listDetailsOnNodesMatching(filter);
+      return toNodes(pollRunningInstancesByFilter(instanceFilter), filter);
+   }
+
+   private Set<? extends NodeMetadata> toNodes(Iterable<? extends RunningInstance> instances,
+            Predicate<ComputeMetadata> filter) {
       Iterable<? extends NodeMetadata> nodes = filter(transform(filter(instances, notNull()),
                runningInstanceToNodeMetadata), and(notNull(), filter));
       return ImmutableSet.copyOf(nodes);
@@ -112,18 +193,87 @@ public class EC2ListNodesStrategy implements ListNodesStrategy {
 
    protected Iterable<? extends RunningInstance> pollRunningInstances() {
       Iterable<? extends Set<? extends Reservation<? extends RunningInstance>>> reservations
-         = transform(regions.get(), allInstancesInRegion());
+         = transformParallelByRegion(regions.get(), allInstancesInRegion(), "describeInstances");
       
       return concat(concat(reservations));
    }
 
+   protected Iterable<? extends RunningInstance> pollRunningInstancesByFilter(Multimap<String, String> instanceFilter) {
+      Iterable<? extends Set<? extends Reservation<? extends RunningInstance>>> reservations
+         = transformParallelByRegion(regions.get(), instancesMatchingFilterInRegion(instanceFilter),
+                  "describeInstances(" + instanceFilter + ")");
+
+      return concat(concat(reservations));
+   }
+
    protected Iterable<? extends RunningInstance> pollRunningInstancesByRegionsAndIds(final Multimap<String, String> idsByRegions) {
       Iterable<? extends Set<? extends Reservation<? extends RunningInstance>>> reservations
-         = transform(idsByRegions.keySet(), instancesByIdInRegion(idsByRegions));
+         = transformParallelByRegion(idsByRegions.keySet(), instancesByIdInRegion(idsByRegions), "describeInstancesById");
       
       return concat(concat(reservations));
    }
 
+   /**
+    * Calls {@code perRegion} for every region concurrently on the user executor, each call bounded by
+    * {@link Constants#PROPERTY_REQUEST_TIMEOUT}, if set.
+    * 
+    * @throws TransformParallelException
+    *            if any region failed or timed out; it holds the results of the regions that succeeded and the
+    *            failure of each region that did not. An {@link org.jclouds.rest.AuthorizationException} is
+    *            rethrown as-is.
+    */
+   protected <T> Iterable<T> transformParallelByRegion(Iterable<String> regions, final Function<String, T> perRegion,
+            String logPrefix) {
+      Map<String, ListenableFuture<T>> responses = Maps.newLinkedHashMap();
+      for (final String region : regions) {
+         responses.put(region, userExecutor.submit(new Callable<T>() {
+            @Override
+            public T call() {
+               return perRegion.apply(region);
+            }
+
+            @Override
+            public String toString() {
+               return perRegion + "(" + region + ")";
+            }
+         }));
+      }
+      Long timeout = maxTime;
+      long deadline = timeout != null ? System.currentTimeMillis() + timeout : Long.MAX_VALUE;
+      Map<String, Future<?>> success = Maps.newLinkedHashMap();
+      Map<String, Exception> exceptions = Maps.newLinkedHashMap();
+      for (Map.Entry<String, ListenableFuture<T>> response : responses.entrySet()) {
+         try {
+            if (timeout != null)
+               response.getValue().get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            else
+               response.getValue().get();
+            success.put(response.getKey(), response.getValue());
+         } catch (ExecutionException e) {
+            exceptions.put(response.getKey(), e.getCause() instanceof Exception ? (Exception) e.getCause() : e);
+         } catch (TimeoutException e) {
+            response.getValue().cancel(true);
+            exceptions.put(response.getKey(), e);
+         } catch (InterruptedException e) {
+            for (Future<?> future : responses.values())
+               future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw propagate(e);
+         }
+      }
+      if (!exceptions.isEmpty()) {
+         logger.error("error %s in regions %s; succeeded in %s", logPrefix, exceptions.keySet(), success.keySet());
+         return propagateAuthorizationOrOriginalException(new TransformParallelException(success, exceptions,
+                  logPrefix));
+      }
+      return transform(responses.values(), new Function<ListenableFuture<T>, T>() {
+         @Override
+         public T apply(ListenableFuture<T> input) {
+            return getUnchecked(input);
+         }
+      });
+   }
+
    protected Function<String, String> splitHandle(final int pos) {
       return new Function<String, String>() {
 
@@ -145,6 +295,18 @@ public class EC2ListNodesStrategy implements ListNodesStrategy {
       };
    }
 
+   protected Function<String, Set<? extends Reservation<? extends RunningInstance>>>
+                                                   instancesMatchingFilterInRegion(final Multimap<String, String> instanceFilter) {
+      return new Function<String, Set<? extends Reservation<? extends RunningInstance>>>() {
+
+         @Override
+         public Set<? extends Reservation<? extends RunningInstance>> apply(String from) {
+            return client.getInstanceApi().get().describeInstancesInRegionWithFilter(from, instanceFilter);
+         }
+
+      };
+   }
+
    protected Function<String, Set<? extends Reservation<? extends RunningInstance>>>
                                                                   instancesByIdInRegion(final Multimap<String, String> idsByRegions) {
       return new Function<String, Set<? extends Reservation<? extends RunningInstance>>>() {
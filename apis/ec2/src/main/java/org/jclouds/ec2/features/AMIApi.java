@@ -27,6 +27,7 @@ import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 
 import org.jclouds.Fallbacks.EmptySetOnNotFoundOr404;
+import org.jclouds.Fallbacks.VoidOnNotFoundOr404;
 import org.jclouds.aws.filters.FormSigner;
 import org.jclouds.ec2.binders.BindFiltersToIndexedFormParams;
 import org.jclouds.ec2.binders.BindUserGroupsToIndexedFormParams;
@@ -42,6 +43,7 @@ import org.jclouds.ec2.xml.BlockDeviceMappingHandler;
 import org.jclouds.ec2.xml.DescribeImagesResponseHandler;
 import org.jclouds.ec2.xml.ImageIdHandler;
 import org.jclouds.ec2.xml.PermissionHandler;
+import org.jclouds.http.functions.ParseSax.ElementCallback;
 import org.jclouds.javax.annotation.Nullable;
 import org.jclouds.location.functions.RegionToEndpointOrProviderIfNull;
 import org.jclouds.rest.annotations.BinderParam;
@@ -86,6 +88,27 @@ public interface AMIApi {
             @EndpointParam(parser = RegionToEndpointOrProviderIfNull.class) @Nullable String region,
             DescribeImagesOptions... options);
 
+   /**
+    * Like {@link #describeImagesInRegion}, except that each image is passed to {@code callback} as soon as it is
+    * parsed, instead of being collected. Use this to filter the images of a busy region while the response is read,
+    * without holding all of them in memory.
+    * 
+    * @param region
+    *           AMIs are tied to the Region where its files are located within Amazon S3.
+    * @param callback
+    *           receives the images in the order of the response
+    * @see DescribeImagesOptions
+    */
+   @Named("DescribeImages")
+   @POST
+   @Path("/")
+   @FormParams(keys = ACTION, values = "DescribeImages")
+   @XMLResponseParser(DescribeImagesResponseHandler.class)
+   @Fallback(VoidOnNotFoundOr404.class)
+   void streamImagesInRegion(
+            @EndpointParam(parser = RegionToEndpointOrProviderIfNull.class) @Nullable String region,
+            ElementCallback<? super Image> callback, DescribeImagesOptions... options);
+
    /**
     * Returns information about AMIs, AKIs, and ARIs. This includes image type, product codes,
     * architecture, and kernel and RAM disk IDs. Images available to you include public images,
@@ -37,6 +37,8 @@ import org.jclouds.ec2.domain.Image.ImageType;
 import org.jclouds.ec2.domain.RootDeviceType;
 import org.jclouds.ec2.domain.VirtualizationType;
 import org.jclouds.http.functions.ParseSax;
+import org.jclouds.http.functions.ParseSax.ElementCallback;
+import org.jclouds.http.functions.ParseSax.StreamingHandler;
 import org.jclouds.location.Region;
 import org.jclouds.logging.Logger;
 import org.xml.sax.Attributes;
@@ -49,7 +51,8 @@ import org.xml.sax.Attributes;
  * @see <a href="http://docs.amazonwebservices.com/AWSEC2/latest/APIReference/ApiReference-query-DescribeImages.html"
  *      />
  */
-public class DescribeImagesResponseHandler extends ParseSax.HandlerForGeneratedRequestWithResult<Set<Image>> {
+public class DescribeImagesResponseHandler extends ParseSax.HandlerForGeneratedRequestWithResult<Set<Image>>
+      implements StreamingHandler<Image> {
 
    @Inject
    public DescribeImagesResponseHandler(@Region Supplier<String> defaultRegion, TagSetHandler tagSetHandler) {
@@ -64,6 +67,7 @@ public class DescribeImagesResponseHandler extends ParseSax.HandlerForGeneratedR
    private StringBuilder currentText = new StringBuilder();
    private final Supplier<String> defaultRegion;
    private final TagSetHandler tagSetHandler;
+   private ElementCallback<? super Image> callback;
 
    private Architecture architecture;
    private String name;
@@ -101,6 +105,11 @@ public class DescribeImagesResponseHandler extends ParseSax.HandlerForGeneratedR
       return contents;
    }
 
+   @Override
+   public void setCallback(ElementCallback<? super Image> callback) {
+      this.callback = callback;
+   }
+
    public void startElement(String uri, String name, String qName, Attributes attrs) {
       if (qName.equals("productCodes")) {
          inProductCodes = true;
@@ -187,16 +196,23 @@ public class DescribeImagesResponseHandler extends ParseSax.HandlerForGeneratedR
             this.volumeType = null;
             this.iops = null;
          } else if (!inTagSet && !inProductCodes) {
+            Image image = null;
             try {
                String region = getRequest() != null ? AWSUtils.findRegionInArgsOrNull(getRequest()) : null;
                if (region == null)
                   region = defaultRegion.get();
-               contents.add(new Image(region, architecture, this.name, description, imageId, imageLocation,
+               image = new Image(region, architecture, this.name, description, imageId, imageLocation,
                         imageOwnerId, imageState, rawState, imageType, isPublic, productCodes, kernelId, platform,
-                        ramdiskId, rootDeviceType, rootDeviceName, ebsBlockDevices, tags, virtualizationType, hypervisor));
+                        ramdiskId, rootDeviceType, rootDeviceName, ebsBlockDevices, tags, virtualizationType, hypervisor);
             } catch (NullPointerException e) {
                logger.warn(e, "malformed image: %s", imageId);
             }
+            if (image != null) {
+               if (callback != null)
+                  callback.onElement(image);
+               else
+                  contents.add(image);
+            }
             this.name = null;
             this.description = null;
             this.architecture = null;
@@ -25,6 +25,8 @@ import javax.inject.Inject;
 import org.jclouds.date.DateCodecFactory;
 import org.jclouds.ec2.domain.Reservation;
 import org.jclouds.ec2.domain.RunningInstance;
+import org.jclouds.http.functions.ParseSax.ElementCallback;
+import org.jclouds.http.functions.ParseSax.StreamingHandler;
 import org.jclouds.location.Region;
 import org.xml.sax.Attributes;
 
@@ -40,8 +42,10 @@ import com.google.common.collect.ImmutableSet.Builder;
  * @see <a href="http: />
  */
 public class DescribeInstancesResponseHandler extends
-      BaseReservationHandler<Set<Reservation<? extends RunningInstance>>> {
+      BaseReservationHandler<Set<Reservation<? extends RunningInstance>>> implements
+      StreamingHandler<Reservation<? extends RunningInstance>> {
    private final TagSetHandler tagSetHandler;
+   private ElementCallback<? super Reservation<? extends RunningInstance>> callback;
    private Builder<Reservation<? extends RunningInstance>> reservations = ImmutableSet
          .<Reservation<? extends RunningInstance>> builder();
    private boolean inTagSet;
@@ -89,6 +93,11 @@ public class DescribeInstancesResponseHandler extends
       return reservations.build();
    }
 
+   @Override
+   public void setCallback(ElementCallback<? super Reservation<? extends RunningInstance>> callback) {
+      this.callback = callback;
+   }
+
    protected boolean endOfReservationItem() {
       return itemDepth == 1;
    }
@@ -96,7 +105,11 @@ public class DescribeInstancesResponseHandler extends
    @Override
    protected void inItem() {
       if (endOfReservationItem()) {
-         reservations.add(super.newReservation());
+         Reservation<? extends RunningInstance> reservation = super.newReservation();
+         if (callback != null)
+            callback.onElement(reservation);
+         else
+            reservations.add(reservation);
       } else {
          super.inItem();
       }
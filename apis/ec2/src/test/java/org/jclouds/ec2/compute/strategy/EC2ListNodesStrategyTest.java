@@ -0,0 +1,248 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.ec2.compute.strategy;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.makeThreadSafe;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.reset;
+import static org.easymock.EasyMock.verify;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.easymock.IAnswer;
+import org.jclouds.compute.domain.ComputeMetadata;
+import org.jclouds.compute.domain.NodeMetadata;
+import org.jclouds.compute.domain.NodeMetadata.Status;
+import org.jclouds.compute.functions.GroupNamingConvention;
+import org.jclouds.compute.predicates.NodeFilter;
+import org.jclouds.compute.predicates.NodePredicates;
+import org.jclouds.concurrent.TransformParallelException;
+import org.jclouds.domain.LocationBuilder;
+import org.jclouds.domain.LocationScope;
+import org.jclouds.ec2.EC2Api;
+import org.jclouds.ec2.EC2ApiMetadata;
+import org.jclouds.ec2.compute.config.EC2ComputeServiceDependenciesModule;
+import org.jclouds.ec2.domain.Reservation;
+import org.jclouds.ec2.domain.RunningInstance;
+import org.jclouds.ec2.features.InstanceApi;
+import org.jclouds.rest.AuthorizationException;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Functions;
+import com.google.common.base.Optional;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Multimap;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.name.Names;
+
+@Test(groups = "unit", singleThreaded = true, testName = "EC2ListNodesStrategyTest")
+public class EC2ListNodesStrategyTest {
+
+   private final ListeningExecutorService userExecutor = MoreExecutors.listeningDecorator(Executors
+         .newCachedThreadPool());
+
+   private final RunningInstance east = createMock(RunningInstance.class);
+   private final RunningInstance west = createMock(RunningInstance.class);
+   private final NodeMetadata eastNode = createMock(NodeMetadata.class);
+   private final NodeMetadata westNode = createMock(NodeMetadata.class);
+   private final Map<RunningInstance, NodeMetadata> nodes = ImmutableMap.of(east, eastNode, west, westNode);
+
+   @BeforeMethod
+   void resetInstancesAndNodes() {
+      reset(east, west, eastNode, westNode);
+   }
+
+   @AfterClass
+   void shutdown() {
+      userExecutor.shutdownNow();
+   }
+
+   private EC2ListNodesStrategy strategy(EC2Api client) {
+      GroupNamingConvention.Factory namingConvention = Guice.createInjector(new AbstractModule() {
+
+         @Override
+         protected void configure() {
+            Names.bindProperties(binder(), new EC2ApiMetadata().getDefaultProperties());
+         }
+
+      }).getInstance(GroupNamingConvention.Factory.class);
+      return new EC2ListNodesStrategy(client, Suppliers.<Set<String>> ofInstance(ImmutableSet.of("us-east-1",
+            "us-west-1")), Functions.forMap(nodes), userExecutor,
+            EC2ComputeServiceDependenciesModule.toPortableNodeStatus, namingConvention);
+   }
+
+   private static Set reservation(String region, RunningInstance instance) {
+      return ImmutableSet.of(Reservation.<RunningInstance> builder().region(region).ownerId("993194456877")
+            .reservationId("r-" + region).instance(instance).build());
+   }
+
+   @SuppressWarnings("unchecked")
+   public void testRegionsAreDescribedConcurrently() {
+      EC2Api client = createMock(EC2Api.class);
+      InstanceApi instanceApi = createMock(InstanceApi.class);
+      // calls to thread-safe mocks are serialized
+      makeThreadSafe(instanceApi, false);
+      final CountDownLatch bothRegionsCalled = new CountDownLatch(2);
+
+      expect(client.getInstanceApi()).andReturn((Optional) Optional.of(instanceApi)).atLeastOnce();
+      expect((Set) instanceApi.describeInstancesInRegion("us-east-1")).andAnswer(new IAnswer<Set>() {
+         @Override
+         public Set answer() throws Throwable {
+            bothRegionsCalled.countDown();
+            assertTrue(bothRegionsCalled.await(5, TimeUnit.SECONDS), "us-west-1 was not called concurrently");
+            return reservation("us-east-1", east);
+         }
+      });
+      expect((Set) instanceApi.describeInstancesInRegion("us-west-1")).andAnswer(new IAnswer<Set>() {
+         @Override
+         public Set answer() throws Throwable {
+            bothRegionsCalled.countDown();
+            assertTrue(bothRegionsCalled.await(5, TimeUnit.SECONDS), "us-east-1 was not called concurrently");
+            return reservation("us-west-1", west);
+         }
+      });
+      replay(client, instanceApi);
+
+      assertEquals(strategy(client).listNodes(), ImmutableSet.of(eastNode, westNode));
+
+      verify(client, instanceApi);
+   }
+
+   @SuppressWarnings("unchecked")
+   public void testFailedRegionIsReportedWithPartialResults() {
+      EC2Api client = createMock(EC2Api.class);
+      InstanceApi instanceApi = createMock(InstanceApi.class);
+      IllegalStateException failure = new IllegalStateException("us-west-1 is down");
+
+      expect(client.getInstanceApi()).andReturn((Optional) Optional.of(instanceApi)).atLeastOnce();
+      expect(instanceApi.describeInstancesInRegion("us-east-1")).andReturn(reservation("us-east-1", east));
+      expect(instanceApi.describeInstancesInRegion("us-west-1")).andThrow(failure);
+      replay(client, instanceApi);
+
+      try {
+         strategy(client).listNodes();
+         fail("expected a TransformParallelException");
+      } catch (TransformParallelException e) {
+         assertEquals(e.getFromToException(), ImmutableMap.of("us-west-1", failure));
+         assertEquals(e.getSuccessfulToValue().keySet(), ImmutableSet.of("us-east-1"));
+      }
+
+      verify(client, instanceApi);
+   }
+
+   @SuppressWarnings("unchecked")
+   @Test(expectedExceptions = AuthorizationException.class)
+   public void testAuthorizationExceptionIsPropagated() {
+      EC2Api client = createMock(EC2Api.class);
+      InstanceApi instanceApi = createMock(InstanceApi.class);
+
+      expect(client.getInstanceApi()).andReturn((Optional) Optional.of(instanceApi)).atLeastOnce();
+      expect(instanceApi.describeInstancesInRegion("us-east-1")).andReturn(reservation("us-east-1", east));
+      expect(instanceApi.describeInstancesInRegion("us-west-1")).andThrow(new AuthorizationException());
+      replay(client, instanceApi);
+
+      strategy(client).listNodes();
+   }
+
+   @SuppressWarnings("unchecked")
+   public void testInstanceFilterIsSentToEachRegion() {
+      EC2Api client = createMock(EC2Api.class);
+      InstanceApi instanceApi = createMock(InstanceApi.class);
+      Multimap<String, String> filter = ImmutableMultimap.of("instance-state-name", "running");
+
+      expect(client.getInstanceApi()).andReturn((Optional) Optional.of(instanceApi)).atLeastOnce();
+      expect(instanceApi.describeInstancesInRegionWithFilter("us-east-1", filter)).andReturn(
+            reservation("us-east-1", east));
+      expect(instanceApi.describeInstancesInRegionWithFilter("us-west-1", filter)).andReturn((Set) ImmutableSet.of());
+      replay(client, instanceApi);
+
+      assertEquals(strategy(client).listDetailsOnNodesMatching(filter, NodePredicates.all()),
+            ImmutableSet.of(eastNode));
+
+      verify(client, instanceApi);
+   }
+
+   @SuppressWarnings("unchecked")
+   public void testNodeFilterIsTranslatedToInstanceFilter() {
+      EC2Api client = createMock(EC2Api.class);
+      InstanceApi instanceApi = createMock(InstanceApi.class);
+      Multimap<String, String> filter = ImmutableMultimap.of("instance-state-name", "stopped", "tag-key", "blue",
+            "availability-zone", "us-east-1a");
+
+      expect(client.getInstanceApi()).andReturn((Optional) Optional.of(instanceApi)).atLeastOnce();
+      expect(instanceApi.describeInstancesInRegionWithFilter("us-east-1", filter)).andReturn(
+            reservation("us-east-1", east));
+      expect(instanceApi.describeInstancesInRegionWithFilter("us-west-1", filter)).andReturn((Set) ImmutableSet.of());
+      expect(eastNode.getStatus()).andReturn(Status.SUSPENDED).anyTimes();
+      expect(eastNode.getTags()).andReturn(ImmutableSet.of("blue")).anyTimes();
+      expect(eastNode.getLocation()).andReturn(
+            new LocationBuilder().scope(LocationScope.ZONE).id("us-east-1a").description("us-east-1a").build())
+            .anyTimes();
+      replay(client, instanceApi, eastNode);
+
+      assertEquals(strategy(client).listDetailsOnNodesMatching(NodeFilter.builder()
+            .statuses(ImmutableSet.of(Status.SUSPENDED)).tags(ImmutableSet.of("blue")).locationId("us-east-1a")
+            .<ComputeMetadata> build()), ImmutableSet.of(eastNode));
+
+      verify(client, instanceApi);
+   }
+
+   @SuppressWarnings("unchecked")
+   public void testGroupIsLookedUpBySecurityGroupAndKeyPair() {
+      EC2Api client = createMock(EC2Api.class);
+      InstanceApi instanceApi = createMock(InstanceApi.class);
+      Multimap<String, String> bySecurityGroup = ImmutableMultimap.of("instance.group-name", "jclouds#web*");
+      Multimap<String, String> byKeyPair = ImmutableMultimap.of("key-name", "jclouds#web*");
+
+      expect(client.getInstanceApi()).andReturn((Optional) Optional.of(instanceApi)).atLeastOnce();
+      expect(instanceApi.describeInstancesInRegionWithFilter("us-east-1", bySecurityGroup)).andReturn(
+            reservation("us-east-1", east));
+      expect(instanceApi.describeInstancesInRegionWithFilter("us-west-1", bySecurityGroup)).andReturn(
+            (Set) ImmutableSet.of());
+      expect(instanceApi.describeInstancesInRegionWithFilter("us-east-1", byKeyPair)).andReturn(
+            reservation("us-east-1", east));
+      expect(instanceApi.describeInstancesInRegionWithFilter("us-west-1", byKeyPair)).andReturn(
+            reservation("us-west-1", west));
+      expect(east.getId()).andReturn("i-east").anyTimes();
+      expect(west.getId()).andReturn("i-west").anyTimes();
+      expect(eastNode.getGroup()).andReturn("web").anyTimes();
+      expect(westNode.getGroup()).andReturn("web").anyTimes();
+      replay(client, instanceApi, east, west, eastNode, westNode);
+
+      assertEquals(strategy(client).listDetailsOnNodesMatching(NodeFilter.builder().group("web").<ComputeMetadata> build()),
+            ImmutableSet.of(eastNode, westNode));
+
+      verify(client, instanceApi);
+   }
+}
@@ -19,15 +19,20 @@ package org.jclouds.ec2.features;
 import static com.google.common.collect.Iterables.getOnlyElement;
 import static org.testng.Assert.assertEquals;
 
+import java.util.List;
+
 import org.jclouds.ec2.EC2Api;
 import org.jclouds.ec2.domain.Image;
 import org.jclouds.ec2.internal.BaseEC2ApiExpectTest;
 import org.jclouds.http.HttpRequest;
 import org.jclouds.http.HttpResponse;
+import org.jclouds.http.functions.ParseSax.ElementCallback;
 import org.testng.annotations.Test;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
 
 @Test(groups = "unit", testName = "AMIApiExpectTest")
 public class AMIApiExpectTest extends BaseEC2ApiExpectTest<EC2Api> {
@@ -45,6 +50,52 @@ public class AMIApiExpectTest extends BaseEC2ApiExpectTest<EC2Api> {
            .addFormParam("Version", "2010-08-31")
            .addFormParam("AWSAccessKeyId", "identity").build();
 
+   HttpRequest describeImages = HttpRequest.builder().method("POST")
+           .endpoint("https://ec2.us-east-1.amazonaws.com/")
+           .addHeader("Host", "ec2.us-east-1.amazonaws.com")
+           .addFormParam("Action", "DescribeImages")
+           .addFormParam("Signature", "EHvwWff7qvRo1rvyAqBLHsttZVdfyu1IUI1Xo6jmv%2BQ%3D")
+           .addFormParam("SignatureMethod", "HmacSHA256")
+           .addFormParam("SignatureVersion", "2")
+           .addFormParam("Timestamp", "2012-04-16T15%3A54%3A08.897Z")
+           .addFormParam("Version", "2010-08-31")
+           .addFormParam("AWSAccessKeyId", "identity").build();
+
+   public void testStreamImagesWhenResponseIs2xx() {
+      HttpResponse describeImagesResponse = HttpResponse.builder().statusCode(200)
+              .payload(payloadFromResourceWithContentType("/describe_images.xml", "text/xml")).build();
+
+      EC2Api apiWhenExist = requestsSendResponses(describeRegionsRequest, describeRegionsResponse, describeImages,
+              describeImagesResponse);
+
+      final List<Image> streamed = Lists.newArrayList();
+      apiWhenExist.getAMIApi().get().streamImagesInRegion("us-east-1", new ElementCallback<Image>() {
+         @Override
+         public void onElement(Image image) {
+            streamed.add(image);
+         }
+      });
+
+      assertEquals(getOnlyElement(streamed).getId(), "ami-be3adfd7");
+   }
+
+   public void testStreamImagesWhenResponseIs404() {
+      HttpResponse describeImagesResponse = HttpResponse.builder().statusCode(404).build();
+
+      EC2Api apiWhenNotExist = requestsSendResponses(describeRegionsRequest, describeRegionsResponse, describeImages,
+              describeImagesResponse);
+
+      final List<Image> streamed = Lists.newArrayList();
+      apiWhenNotExist.getAMIApi().get().streamImagesInRegion("us-east-1", new ElementCallback<Image>() {
+         @Override
+         public void onElement(Image image) {
+            streamed.add(image);
+         }
+      });
+
+      assertEquals(streamed, ImmutableList.of());
+   }
+
    public void testFilterWhenResponseIs2xx() {
       HttpResponse filterResponse = HttpResponse.builder().statusCode(200)
               .payload(payloadFromResourceWithContentType("/describe_images.xml", "text/xml")).build();
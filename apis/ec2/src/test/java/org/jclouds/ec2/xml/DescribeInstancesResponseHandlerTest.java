@@ -21,6 +21,7 @@ import static org.testng.Assert.assertEquals;
 
 import java.io.InputStream;
 import java.net.UnknownHostException;
+import java.util.List;
 import java.util.Set;
 
 import org.jclouds.date.DateService;
@@ -32,6 +33,7 @@ import org.jclouds.ec2.domain.Reservation;
 import org.jclouds.ec2.domain.RootDeviceType;
 import org.jclouds.ec2.domain.RunningInstance;
 import org.jclouds.http.functions.ParseSax;
+import org.jclouds.http.functions.ParseSax.ElementCallback;
 import org.jclouds.http.functions.config.SaxParserModule;
 import org.jclouds.location.Region;
 import org.testng.annotations.BeforeTest;
@@ -41,6 +43,7 @@ import com.google.common.base.Supplier;
 import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
 import com.google.inject.AbstractModule;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
@@ -148,6 +151,24 @@ public class DescribeInstancesResponseHandlerTest extends BaseEC2HandlerTest {
       assertEquals(get(get(result, 0), 0).getRawState(), "running");
    }
 
+   public void testCallbackReceivesReservationsInsteadOfResult() {
+      final List<Reservation<? extends RunningInstance>> streamed = Lists.newArrayList();
+      ParseSax<Set<Reservation<? extends RunningInstance>>> parser = createParser();
+      ((DescribeInstancesResponseHandler) parser.getHandler()).setCallback(
+            new ElementCallback<Reservation<? extends RunningInstance>>() {
+               @Override
+               public void onElement(Reservation<? extends RunningInstance> reservation) {
+                  streamed.add(reservation);
+               }
+            });
+
+      Set<Reservation<? extends RunningInstance>> result = parser.parse(getClass().getResourceAsStream(
+            "/describe_instances.xml"));
+
+      assertEquals(result, ImmutableSet.of());
+      assertEquals(streamed.toString(), parseRunningInstances("/describe_instances.xml").toString());
+   }
+
    static ParseSax<Set<Reservation<? extends RunningInstance>>> createParser() {
       Injector injector = Guice.createInjector(new SaxParserModule(), new AbstractModule() {
 
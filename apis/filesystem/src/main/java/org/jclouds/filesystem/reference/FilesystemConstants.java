@@ -24,6 +24,30 @@ public final class FilesystemConstants {
     /** Specify the base directory where provider starts its file operations - must exists */
     public static final String PROPERTY_BASEDIR = "jclouds.filesystem.basedir";
 
+    /**
+     * When blob content is forced to disk: {@link #FSYNC_NONE} (the default) leaves it to the operating system,
+     * {@link #FSYNC_FILE} syncs the content before it replaces the previous version and {@link #FSYNC_DIRECTORY}
+     * additionally syncs the directory entry of the replaced blob.
+     */
+    public static final String PROPERTY_FSYNC = "jclouds.filesystem.fsync";
+
+    public static final String FSYNC_NONE = "none";
+    public static final String FSYNC_FILE = "file";
+    public static final String FSYNC_DIRECTORY = "directory";
+
+    /**
+     * How blobs are laid out on disk: {@link #LAYOUT_FLAT} (the default) maps each key to the same path under the
+     * container, while {@link #LAYOUT_SHARDED} stores each blob under two levels of directories derived from a hash
+     * of its key, keeping the key in a file alongside, so that no directory grows beyond a few hundred entries even
+     * with tens of millions of blobs. The layout cannot be changed for an existing base directory. Directory
+     * operations in the sharded layout use an index of the keys kept in memory, so the base directory must only be
+     * written to by this JVM.
+     */
+    public static final String PROPERTY_LAYOUT = "jclouds.filesystem.layout";
+
+    public static final String LAYOUT_FLAT = "flat";
+    public static final String LAYOUT_SHARDED = "sharded";
+
     private FilesystemConstants() {
         throw new AssertionError("intentionally unimplemented");
     }
@@ -0,0 +1,305 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.filesystem.strategy.internal;
+
+import static java.nio.file.Files.move;
+import static java.nio.file.Files.readAttributes;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.Maps;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.Striped;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+/**
+ * Keeps blob metadata in a log file at the root of each container, for file systems without extended attributes.
+ * <p/>
+ * Every put appends one JSON line holding the MD5, size, modification time, content metadata and user metadata of the
+ * blob, and every removal appends a tombstone. The log of a container is read once into memory and then followed as
+ * it grows, so lookups never touch the blob content. Once most lines are superseded, the log is rewritten with only
+ * the live entries.
+ * <p/>
+ * Appends and compactions hold an exclusive lock on a separate lock file, so that writers in other processes neither
+ * interleave with them nor append to a log that is being replaced. Readers notice a replaced log by its file key.
+ * <p/>
+ * An entry is only trusted while the size and modification time of the blob file match those recorded; anything
+ * changed behind our back is treated as unknown, so a stale entry is never returned. A torn last line, as left by a
+ * crash, is ignored.
+ */
+final class BlobMetadataLog {
+
+   static final String FILE_NAME = ".jclouds-metadata";
+   static final String LOCK_FILE_NAME = ".jclouds-metadata.lock";
+
+   /** Rewrite the log when it has this many lines and more than half of them are superseded. */
+   private static final int COMPACTION_THRESHOLD = 1000;
+
+   static final class Entry {
+      String key;
+      boolean deleted;
+      String md5;
+      long size;
+      long lastModified;
+      String contentDisposition;
+      String contentEncoding;
+      String contentLanguage;
+      String contentType;
+      Long expires;
+      Map<String, String> userMetadata;
+   }
+
+   /**
+    * A JVM may only hold one lock on a file, so writers of the same container in this JVM, even through different
+    * instances, take turns before taking the file lock.
+    */
+   private static final Striped<Lock> LOCKS = Striped.lock(64);
+
+   private final Gson gson = new Gson();
+   private final ConcurrentMap<String, ContainerLog> logs = Maps.newConcurrentMap();
+
+   /**
+    * @return the entry of {@code key}, or null if there is none or {@code blobFile} no longer matches it
+    */
+   Entry get(File containerDirectory, String key, File blobFile) throws IOException {
+      Entry entry = log(containerDirectory).get(key);
+      if (entry == null || entry.size != blobFile.length() || entry.lastModified != blobFile.lastModified()) {
+         return null;
+      }
+      return entry;
+   }
+
+   void put(File containerDirectory, Entry entry) throws IOException {
+      log(containerDirectory).append(entry);
+   }
+
+   /**
+    * Records the removal of {@code key}, if the container has an entry for it.
+    */
+   void remove(File containerDirectory, String key) throws IOException {
+      ContainerLog log = log(containerDirectory);
+      if (log.get(key) != null) {
+         Entry tombstone = new Entry();
+         tombstone.key = key;
+         tombstone.deleted = true;
+         log.append(tombstone);
+      }
+   }
+
+   /**
+    * Forgets what was read of a container whose log may have been deleted, such as when it was cleared.
+    */
+   void invalidate(File containerDirectory) {
+      logs.remove(containerDirectory.getAbsolutePath());
+   }
+
+   private ContainerLog log(File containerDirectory) {
+      String path = containerDirectory.getAbsolutePath();
+      ContainerLog log = logs.get(path);
+      if (log == null) {
+         ContainerLog created = new ContainerLog(new File(containerDirectory, FILE_NAME),
+               new File(containerDirectory, LOCK_FILE_NAME));
+         log = logs.putIfAbsent(path, created);
+         if (log == null) {
+            log = created;
+         }
+      }
+      return log;
+   }
+
+   private final class ContainerLog {
+      private final File file;
+      private final File lockFile;
+      private final Map<String, Entry> entries = Maps.newHashMap();
+      private Object fileKey;
+      private long position;
+      private int lines;
+
+      private ContainerLog(File file, File lockFile) {
+         this.file = file;
+         this.lockFile = lockFile;
+      }
+
+      synchronized Entry get(String key) throws IOException {
+         refresh();
+         return entries.get(key);
+      }
+
+      synchronized void append(Entry entry) throws IOException {
+         Lock lock = LOCKS.get(lockFile.getAbsolutePath());
+         lock.lock();
+         try {
+            FileChannel channel = FileChannel.open(lockFile.toPath(), StandardOpenOption.CREATE,
+                  StandardOpenOption.WRITE);
+            try {
+               // released when the channel is closed
+               channel.lock();
+               refresh();
+               OutputStream out = new FileOutputStream(file, true);
+               try {
+                  out.write((gson.toJson(entry) + "\n").getBytes(StandardCharsets.UTF_8));
+               } finally {
+                  out.close();
+               }
+               refresh();
+               if (lines >= COMPACTION_THRESHOLD && lines > 2 * entries.size()) {
+                  compact();
+               }
+            } finally {
+               channel.close();
+            }
+         } finally {
+            lock.unlock();
+         }
+      }
+
+      /**
+       * Reads whatever was appended since the last read, including by other processes.
+       */
+      private void refresh() throws IOException {
+         InputStream in;
+         BasicFileAttributes attributes;
+         while (true) {
+            BasicFileAttributes before = attributes();
+            if (before == null) {
+               // deleted, such as when the container was cleared
+               reset(null);
+               return;
+            }
+            try {
+               in = new FileInputStream(file);
+            } catch (FileNotFoundException e) {
+               continue;
+            }
+            attributes = attributes();
+            // the same file key before and after opening means the stream reads the file the attributes describe
+            if (attributes != null && Objects.equal(before.fileKey(), attributes.fileKey())) {
+               break;
+            }
+            in.close();
+         }
+         Object key = attributes.fileKey();
+         long length = attributes.size();
+         if (key != null ? !key.equals(fileKey) : length < position) {
+            // replaced by a compaction elsewhere, or deleted and recreated
+            reset(key);
+         }
+         byte[] bytes;
+         try {
+            if (length == position) {
+               return;
+            }
+            ByteStreams.skipFully(in, position);
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            ByteStreams.copy(in, buffer);
+            bytes = buffer.toByteArray();
+         } finally {
+            in.close();
+         }
+         int start = 0;
+         for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] != '\n') {
+               continue;
+            }
+            apply(new String(bytes, start, i - start, StandardCharsets.UTF_8));
+            start = i + 1;
+         }
+         // leave an incomplete last line for the next read
+         position += start;
+      }
+
+      private BasicFileAttributes attributes() throws IOException {
+         try {
+            return readAttributes(file.toPath(), BasicFileAttributes.class);
+         } catch (NoSuchFileException e) {
+            return null;
+         }
+      }
+
+      private void reset(Object fileKey) {
+         this.fileKey = fileKey;
+         entries.clear();
+         position = 0;
+         lines = 0;
+      }
+
+      private void apply(String line) {
+         lines++;
+         Entry entry;
+         try {
+            entry = gson.fromJson(line, Entry.class);
+         } catch (JsonParseException e) {
+            return;
+         }
+         if (entry == null || entry.key == null) {
+            return;
+         }
+         if (entry.deleted) {
+            entries.remove(entry.key);
+         } else {
+            entries.put(entry.key, entry);
+         }
+      }
+
+      private void compact() throws IOException {
+         File temp = File.createTempFile(".jclouds-", ".tmp", file.getParentFile());
+         try {
+            OutputStream out = new FileOutputStream(temp);
+            try {
+               for (Entry entry : entries.values()) {
+                  out.write((gson.toJson(entry) + "\n").getBytes(StandardCharsets.UTF_8));
+               }
+            } finally {
+               out.close();
+            }
+            try {
+               move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE,
+                     StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+               move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+         } finally {
+            if (temp.exists() && !temp.delete()) {
+               temp.deleteOnExit();
+            }
+         }
+         BasicFileAttributes attributes = attributes();
+         fileKey = attributes != null ? attributes.fileKey() : null;
+         position = attributes != null ? attributes.size() : 0;
+         lines = entries.size();
+      }
+   }
+}
@@ -16,11 +16,13 @@
  */
 package org.jclouds.filesystem.strategy.internal;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Strings.isNullOrEmpty;
 import static com.google.common.io.BaseEncoding.base16;
 import static java.nio.file.Files.getFileAttributeView;
 import static java.nio.file.Files.getPosixFilePermissions;
+import static java.nio.file.Files.move;
 import static java.nio.file.Files.readAttributes;
 import static java.nio.file.Files.setPosixFilePermissions;
 import static org.jclouds.filesystem.util.Utils.isPrivate;
@@ -30,16 +32,28 @@ import static org.jclouds.filesystem.util.Utils.setPublic;
 import static org.jclouds.util.Closeables2.closeQuietly;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.nio.file.attribute.PosixFilePermission;
 import java.nio.file.attribute.UserDefinedFileAttributeView;
 import java.util.Date;
+import java.util.List;
 import java.util.Map;
+import java.util.NavigableSet;
 import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.Lock;
 
 import javax.annotation.Resource;
 import javax.inject.Inject;
@@ -68,19 +82,24 @@ import org.jclouds.io.Payload;
 import org.jclouds.logging.Logger;
 import org.jclouds.rest.annotations.ParamValidators;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.google.common.hash.HashCode;
 import com.google.common.hash.Hashing;
 import com.google.common.hash.HashingInputStream;
 import com.google.common.io.ByteSource;
+import com.google.common.io.ByteStreams;
 import com.google.common.io.Files;
 import com.google.common.primitives.Longs;
+import com.google.common.util.concurrent.Striped;
 
 /**
  * FilesystemStorageStrategyImpl implements a blob store that stores objects
@@ -88,6 +107,13 @@ import com.google.common.primitives.Longs;
  * extended attributes if the file system supports them. Directory blobs
  * (blobs that end with a /) cannot have content, but otherwise appear in
  * LIST like normal blobs.
+ * <p/>
+ * Content is written to a temporary file next to the blob and renamed over it
+ * once complete, so readers never see a partially written blob and a crash
+ * leaves the previous version in place. See
+ * {@link FilesystemConstants#PROPERTY_FSYNC} and
+ * {@link FilesystemConstants#PROPERTY_LAYOUT} for durability and on-disk
+ * layout options.
  */
 public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
 
@@ -103,6 +129,22 @@ public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
 
    private static final String BACK_SLASH = "\\";
 
+   /** Temporary files are hidden from listings by this prefix and suffix. */
+   private static final String TEMP_FILE_PREFIX = ".jclouds-";
+   private static final String TEMP_FILE_SUFFIX = ".tmp";
+
+   /** In the sharded layout, the key of a blob is kept in a file with this suffix next to its content. */
+   private static final String KEY_FILE_SUFFIX = ".key";
+
+   /**
+    * Sorted keys of each sharded container by absolute path, loaded from the key files on first use and kept current by
+    * every instance writing to it, so that directory operations are range scans rather than reads of every key file.
+    */
+   private static final ConcurrentMap<String, NavigableSet<String>> SHARD_INDEXES = Maps.newConcurrentMap();
+
+   /** Serializes putting and removing the same sharded blob, so that its content, key file and index entry agree. */
+   private static final Striped<Lock> SHARD_LOCKS = Striped.lock(64);
+
    @Resource
    protected Logger logger = Logger.NULL;
 
@@ -111,6 +153,16 @@ public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
    protected final FilesystemContainerNameValidator filesystemContainerNameValidator;
    protected final FilesystemBlobKeyValidator filesystemBlobKeyValidator;
 
+   protected String fsync = FilesystemConstants.FSYNC_NONE;
+
+   protected String layout = FilesystemConstants.LAYOUT_FLAT;
+
+   private final BlobMetadataLog metadataLog = new BlobMetadataLog();
+
+   /** Cleared by tests to exercise the metadata log on file systems that support xattrs. */
+   @VisibleForTesting
+   boolean xattrsEnabled = true;
+
    @Inject
    protected FilesystemStorageStrategyImpl(Provider<BlobBuilder> blobBuilders,
          @Named(FilesystemConstants.PROPERTY_BASEDIR) String baseDir,
@@ -123,6 +175,21 @@ public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
       this.filesystemBlobKeyValidator = checkNotNull(filesystemBlobKeyValidator, "filesystem blob key validator");
    }
 
+   @com.google.inject.Inject(optional = true)
+   void setFsync(@Named(FilesystemConstants.PROPERTY_FSYNC) String fsync) {
+      checkArgument(ImmutableSet.of(FilesystemConstants.FSYNC_NONE, FilesystemConstants.FSYNC_FILE,
+            FilesystemConstants.FSYNC_DIRECTORY).contains(fsync), "unknown %s: %s", FilesystemConstants.PROPERTY_FSYNC,
+            fsync);
+      this.fsync = fsync;
+   }
+
+   @com.google.inject.Inject(optional = true)
+   void setLayout(@Named(FilesystemConstants.PROPERTY_LAYOUT) String layout) {
+      checkArgument(ImmutableSet.of(FilesystemConstants.LAYOUT_FLAT, FilesystemConstants.LAYOUT_SHARDED)
+            .contains(layout), "unknown %s: %s", FilesystemConstants.PROPERTY_LAYOUT, layout);
+      this.layout = layout;
+   }
+
    @Override
    public boolean containerExists(String container) {
       filesystemContainerNameValidator.validate(container);
@@ -151,6 +218,7 @@ public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
       filesystemContainerNameValidator.validate(container);
       boolean created = createDirectoryWithResult(container, null);
       if (created) {
+         forgetShardIndex(container);
          setContainerAccess(container, options.isPublicRead() ? ContainerAccess.PUBLIC_READ : ContainerAccess.PRIVATE);
       }
       return created;
@@ -229,7 +297,18 @@ public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
    @Override
    public void clearContainer(String container, ListContainerOptions options) {
       filesystemContainerNameValidator.validate(container);
-      if (options.getDir() != null) {
+      if (isSharded() && options.getDir() != null) {
+         removeBlobsWithPrefix(container, options.getDir(), options.isRecursive(), false);
+         return;
+      }
+      if (isSharded() && !options.isRecursive()) {
+         removeBlobsWithPrefix(container, "", false, false);
+         return;
+      }
+      if (options.getDir() == null) {
+         metadataLog.invalidate(new File(buildPathStartingFromBaseDir(container)));
+         forgetShardIndex(container);
+      } else {
          container += denormalize("/" + options.getDir());
       }
       try {
@@ -294,6 +373,10 @@ public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
          return blobNames;
       }
 
+      if (isSharded()) {
+         blobNames.addAll(shardIndex(container));
+         return blobNames;
+      }
       File containerFile = openFolder(container);
       final int containerPathLength = containerFile.getAbsolutePath().length() + 1;
       populateBlobKeysInContainer(containerFile, blobNames, new Function<String, String>() {
@@ -302,6 +385,8 @@ public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
             return string.substring(containerPathLength);
          }
       });
+      blobNames.remove(BlobMetadataLog.FILE_NAME);
+      blobNames.remove(BlobMetadataLog.LOCK_FILE_NAME);
       return blobNames;
    }
 
@@ -328,8 +413,22 @@ public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
          ImmutableMap.Builder<String, String> userMetadata = ImmutableMap.builder();
 
          UserDefinedFileAttributeView view = getUserDefinedFileAttributeView(file.toPath());
-         if (view != null) {
-            Set<String> attributes = ImmutableSet.copyOf(view.list());
+         Set<String> attributes = listAttributes(view);
+         BlobMetadataLog.Entry entry = null;
+         if (!attributes.contains(XATTR_CONTENT_MD5) && getDirectoryBlobSuffix(key) == null) {
+            entry = metadataLog.get(new File(buildPathStartingFromBaseDir(container)), key, file);
+         }
+         if (entry != null) {
+            builder.payload(byteSource)
+               .contentDisposition(entry.contentDisposition)
+               .contentEncoding(entry.contentEncoding)
+               .contentLanguage(entry.contentLanguage)
+               .contentLength(byteSource.size())
+               .contentMD5(HashCode.fromString(entry.md5))
+               .contentType(entry.contentType)
+               .expires(entry.expires != null ? new Date(entry.expires) : null)
+               .userMetadata(entry.userMetadata != null ? entry.userMetadata : ImmutableMap.<String, String>of());
+         } else if (view != null) {
 
             contentDisposition = readStringAttributeIfPresent(view, attributes, XATTR_CONTENT_DISPOSITION);
             contentEncoding = readStringAttributeIfPresent(view, attributes, XATTR_CONTENT_ENCODING);
@@ -397,6 +496,30 @@ public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
       }
    }
 
+   private static BlobMetadataLog.Entry newMetadataLogEntry(Blob blob, HashCode hashCode, File file) {
+      ContentMetadata metadata = blob.getMetadata().getContentMetadata();
+      BlobMetadataLog.Entry entry = new BlobMetadataLog.Entry();
+      entry.key = blob.getMetadata().getName();
+      entry.md5 = hashCode.toString();
+      entry.size = file.length();
+      entry.lastModified = file.lastModified();
+      entry.contentDisposition = metadata.getContentDisposition();
+      entry.contentEncoding = metadata.getContentEncoding();
+      entry.contentLanguage = metadata.getContentLanguage();
+      entry.contentType = metadata.getContentType();
+      entry.expires = metadata.getExpires() != null ? metadata.getExpires().getTime() : null;
+      entry.userMetadata = ImmutableMap.copyOf(blob.getMetadata().getUserMetadata());
+      return entry;
+   }
+
+   private void removeFromMetadataLog(String container, String blobKey) {
+      try {
+         metadataLog.remove(new File(buildPathStartingFromBaseDir(container)), blobKey);
+      } catch (IOException e) {
+         logger.debug("Could not record the removal of %s in %s", blobKey, container);
+      }
+   }
+
    private String putDirectoryBlob(final String containerName, final Blob blob) throws IOException {
       String blobKey = blob.getMetadata().getName();
       ContentMetadata metadata = blob.getMetadata().getContentMetadata();
@@ -406,7 +529,7 @@ public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
                  "Directory blob cannot have content: " + blobKey);
       }
       File outputFile = getFileForBlobKey(containerName, blobKey);
-      Path outputPath = outputFile.toPath();
+      Path outputPath = toBlobPath(outputFile, blobKey);
       if (!outputFile.isDirectory() && !outputFile.mkdirs()) {
          throw new IOException("Unable to mkdir: " + outputPath);
       }
@@ -433,44 +556,65 @@ public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
       filesystemContainerNameValidator.validate(containerName);
       filesystemBlobKeyValidator.validate(blobKey);
       if (getDirectoryBlobSuffix(blobKey) != null) {
-         return putDirectoryBlob(containerName, blob);
+         if (!isSharded()) {
+            return putDirectoryBlob(containerName, blob);
+         }
+         // in the sharded layout a directory blob is an empty file like any other
+         Long contentLength = blob.getMetadata().getContentMetadata().getContentLength();
+         if (contentLength != null && contentLength != 0) {
+            throw new IllegalArgumentException("Directory blob cannot have content: " + blobKey);
+         }
       }
       File outputFile = getFileForBlobKey(containerName, blobKey);
-      Path outputPath = outputFile.toPath();
+      // fail before writing anything if the key has no file name, which moving into place needs
+      toBlobPath(outputFile, blobKey);
+      File tempFile = null;
       HashingInputStream his = null;
       try {
          Files.createParentDirs(outputFile);
-         his = new HashingInputStream(Hashing.md5(), payload.openStream());
-         outputFile.delete();
-         Files.asByteSink(outputFile).writeFrom(his);
+         tempFile = File.createTempFile(TEMP_FILE_PREFIX, TEMP_FILE_SUFFIX, outputFile.getParentFile());
+         Path tempPath = tempFile.toPath();
+         his = new HashingInputStream(Hashing.md5(),
+               payload != null ? payload.openStream() : ByteSource.empty().openStream());
+         writeAndSync(his, tempFile);
          HashCode actualHashCode = his.hash();
-         HashCode expectedHashCode = payload.getContentMetadata().getContentMD5AsHashCode();
+         HashCode expectedHashCode = payload != null ? payload.getContentMetadata().getContentMD5AsHashCode() : null;
          if (expectedHashCode != null && !actualHashCode.equals(expectedHashCode)) {
             throw new IOException("MD5 hash code mismatch, actual: " + actualHashCode +
                   " expected: " + expectedHashCode);
          }
-         payload.getContentMetadata().setContentMD5(actualHashCode);
+         if (payload != null) {
+            payload.getContentMetadata().setContentMD5(actualHashCode);
+         }
 
-         UserDefinedFileAttributeView view = getUserDefinedFileAttributeView(outputPath);
+         boolean xattrsWritten = false;
+         UserDefinedFileAttributeView view = getUserDefinedFileAttributeView(tempPath);
          if (view != null) {
             try {
                view.write(XATTR_CONTENT_MD5, ByteBuffer.wrap(actualHashCode.asBytes()));
                writeCommonMetadataAttr(view, blob);
+               xattrsWritten = true;
             } catch (IOException e) {
-               logger.debug("xattrs not supported on %s", outputPath);
+               logger.debug("xattrs not supported on %s", tempPath);
             }
          }
-         setBlobAccess(containerName, blobKey, BlobAccess.PRIVATE);
-         return base16().lowerCase().encode(actualHashCode.asBytes());
-      } catch (IOException ex) {
-         if (outputFile != null) {
-            if (!outputFile.delete()) {
-               logger.debug("Could not delete %s", outputFile);
-            }
+         setBlobAccess(tempPath, BlobAccess.PRIVATE);
+         if (isSharded()) {
+            moveShardedBlobIntoPlace(containerName, blobKey, tempFile, outputFile);
+         } else {
+            moveIntoPlace(tempFile, outputFile);
          }
-         throw ex;
+         tempFile = null;
+         if (!xattrsWritten) {
+            metadataLog.put(new File(buildPathStartingFromBaseDir(containerName)),
+                  newMetadataLogEntry(blob, actualHashCode, outputFile));
+         }
+         return base16().lowerCase().encode(actualHashCode.asBytes());
       } finally {
          closeQuietly(his);
+         if (tempFile != null && !tempFile.delete()) {
+            logger.debug("Could not delete %s", tempFile);
+         }
          if (payload != null) {
             payload.release();
          }
@@ -481,6 +625,11 @@ public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
    public void removeBlob(final String container, final String blobKey) {
       filesystemContainerNameValidator.validate(container);
       filesystemBlobKeyValidator.validate(blobKey);
+      removeFromMetadataLog(container, blobKey);
+      if (isSharded()) {
+         removeShardedBlob(container, blobKey);
+         return;
+      }
       String fileName = buildPathStartingFromBaseDir(container, blobKey);
       logger.debug("Deleting blob %s", fileName);
       File fileToBeDeleted = new File(fileName);
@@ -508,7 +657,7 @@ public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
 
    @Override
    public BlobAccess getBlobAccess(String containerName, String blobName) {
-      Path path = new File(buildPathStartingFromBaseDir(containerName, blobName)).toPath();
+      Path path = getFileForBlobKey(containerName, blobName).toPath();
 
       if ( isWindows() ) {
          try {
@@ -534,7 +683,10 @@ public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
 
    @Override
    public void setBlobAccess(String container, String name, BlobAccess access) {
-      Path path = new File(buildPathStartingFromBaseDir(container, name)).toPath();
+      setBlobAccess(getFileForBlobKey(container, name).toPath(), access);
+   }
+
+   private void setBlobAccess(Path path, BlobAccess access) {
       if ( isWindows() ) {
          try {
             if (access == BlobAccess.PRIVATE) {
@@ -591,24 +743,49 @@ public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
    public File getFileForBlobKey(String container, String blobKey) {
       filesystemContainerNameValidator.validate(container);
       filesystemBlobKeyValidator.validate(blobKey);
+      if (isSharded()) {
+         String hash = Hashing.sha256().hashString(blobKey, StandardCharsets.UTF_8).toString();
+         return new File(buildPathStartingFromBaseDir(container, hash.substring(0, 2), hash.substring(2, 4), hash));
+      }
       String fileName = buildPathStartingFromBaseDir(container, blobKey);
       File blobFile = new File(fileName);
       return blobFile;
    }
 
    public boolean directoryExists(String container, String directory) {
+      if (isSharded() && directory != null) {
+         String prefix = directoryPrefix(directory);
+         String first = shardIndex(container).ceiling(prefix);
+         return first != null && first.startsWith(prefix);
+      }
       return buildPathAndChecksIfDirectoryExists(container, directory);
    }
 
    public void createDirectory(String container, String directory) {
+      if (isSharded() && directory != null) {
+         try {
+            putBlob(container, blobBuilders.get().name(directoryPrefix(directory)).payload(new byte[0]).build());
+         } catch (IOException e) {
+            throw Throwables.propagate(e);
+         }
+         return;
+      }
       createDirectoryWithResult(container, directory);
    }
 
    public void deleteDirectory(String container, String directory) {
+      if (isSharded() && directory != null) {
+         removeBlobsWithPrefix(container, directory, true, true);
+         return;
+      }
       // create complete dir path
       String fullDirPath = buildPathStartingFromBaseDir(container, directory);
       try {
          Utils.deleteRecursively(new File(fullDirPath));
+         if (directory == null) {
+            metadataLog.invalidate(new File(fullDirPath));
+            forgetShardIndex(container);
+         }
       } catch (IOException ex) {
          logger.error("An error occurred removing directory %s.", fullDirPath);
          Throwables.propagate(ex);
@@ -627,6 +804,9 @@ public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
    // ---------------------------------------------------------- Private methods
 
    private boolean buildPathAndChecksIfBlobExists(String... tokens) throws IOException {
+      if (isSharded()) {
+         return getFileForBlobKey(tokens[0], tokens[1]).isFile();
+      }
       String path = buildPathStartingFromBaseDir(tokens);
       File file = new File(path);
       boolean exists = file.exists() && file.isFile();
@@ -659,7 +839,19 @@ public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
    }
 
    private UserDefinedFileAttributeView getUserDefinedFileAttributeView(Path path) throws IOException {
-      return getFileAttributeView(path, UserDefinedFileAttributeView.class);
+      return xattrsEnabled ? getFileAttributeView(path, UserDefinedFileAttributeView.class) : null;
+   }
+
+   private static Set<String> listAttributes(UserDefinedFileAttributeView view) {
+      if (view == null) {
+         return ImmutableSet.of();
+      }
+      try {
+         return ImmutableSet.copyOf(view.list());
+      } catch (IOException e) {
+         // file systems without xattr support may only fail once asked
+         return ImmutableSet.of();
+      }
    }
 
    /**
@@ -802,6 +994,9 @@ public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
       }
       for (File child : children) {
          if (child.isFile()) {
+            if (isTempFile(child)) {
+               continue;
+            }
             blobNames.add( function.apply(child.getAbsolutePath()) );
          } else if (child.isDirectory()) {
             blobNames.add(function.apply(child.getAbsolutePath()) + File.separator); // TODO: undo if failures
@@ -810,6 +1005,207 @@ public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
       }
    }
 
+   private static boolean isTempFile(File file) {
+      return file.getName().startsWith(TEMP_FILE_PREFIX) && file.getName().endsWith(TEMP_FILE_SUFFIX);
+   }
+
+   private boolean isSharded() {
+      return FilesystemConstants.LAYOUT_SHARDED.equals(layout);
+   }
+
+   private static File keyFileFor(File blobFile) {
+      return new File(blobFile.getPath() + KEY_FILE_SUFFIX);
+   }
+
+   private static String directoryPrefix(String directory) {
+      String prefix = directory.replace(BACK_SLASH, "/");
+      return prefix.endsWith("/") ? prefix : prefix + "/";
+   }
+
+   /**
+    * @return the keys of a sharded container, loading them from its key files unless already indexed
+    */
+   private NavigableSet<String> shardIndex(String container) {
+      String path = new File(buildPathStartingFromBaseDir(container)).getAbsolutePath();
+      if (!new File(path).isDirectory()) {
+         // removed behind our back; its index must not outlive it
+         SHARD_INDEXES.remove(path);
+         return new ConcurrentSkipListSet<String>();
+      }
+      NavigableSet<String> keys = SHARD_INDEXES.get(path);
+      if (keys != null) {
+         return keys;
+      }
+      NavigableSet<String> loaded = new ConcurrentSkipListSet<String>();
+      try {
+         populateBlobKeysInShards(new File(path), loaded);
+      } catch (IOException e) {
+         throw Throwables.propagate(e);
+      }
+      keys = SHARD_INDEXES.putIfAbsent(path, loaded);
+      return keys != null ? keys : loaded;
+   }
+
+   private void forgetShardIndex(String container) {
+      SHARD_INDEXES.remove(new File(buildPathStartingFromBaseDir(container)).getAbsolutePath());
+   }
+
+   /**
+    * Moves the content of a sharded blob into place, then records its key, so that a key file only ever refers to
+    * content that was written.
+    */
+   private void moveShardedBlobIntoPlace(String container, String blobKey, File tempFile, File blobFile)
+         throws IOException {
+      NavigableSet<String> index = shardIndex(container);
+      Lock lock = SHARD_LOCKS.get(blobFile.getPath());
+      lock.lock();
+      try {
+         moveIntoPlace(tempFile, blobFile);
+         writeKeyFile(blobFile, blobKey);
+         index.add(blobKey);
+      } finally {
+         lock.unlock();
+      }
+   }
+
+   private void removeShardedBlob(String container, String blobKey) {
+      NavigableSet<String> index = shardIndex(container);
+      File file = getFileForBlobKey(container, blobKey);
+      logger.debug("Deleting blob %s", file);
+      Lock lock = SHARD_LOCKS.get(file.getPath());
+      lock.lock();
+      try {
+         // content first, so that existing content always has its key file
+         if (!file.delete()) {
+            logger.debug("Could not delete %s", file);
+         }
+         File keyFile = keyFileFor(file);
+         if (!keyFile.delete()) {
+            logger.debug("Could not delete %s", keyFile);
+         }
+         index.remove(blobKey);
+      } finally {
+         lock.unlock();
+      }
+   }
+
+   /**
+    * Removes the blobs under {@code directory}; unless {@code recursive}, only those directly under it. The directory
+    * blob of {@code directory} itself is only removed if {@code includeDirectory}.
+    */
+   private void removeBlobsWithPrefix(String container, String directory, boolean recursive,
+         boolean includeDirectory) {
+      String prefix = directory.isEmpty() ? "" : directoryPrefix(directory);
+      List<String> keys = Lists.newArrayList();
+      for (String key : shardIndex(container).tailSet(prefix)) {
+         if (!key.startsWith(prefix)) {
+            break;
+         }
+         keys.add(key);
+      }
+      for (String key : keys) {
+         String relative = key.substring(prefix.length());
+         if (relative.isEmpty() ? includeDirectory : recursive || relative.indexOf('/') == -1) {
+            removeBlob(container, key);
+         }
+      }
+   }
+
+   /**
+    * Records the key of a blob stored in the sharded layout, replacing any previous key file atomically.
+    */
+   private void writeKeyFile(File blobFile, String blobKey) throws IOException {
+      File keyFile = keyFileFor(blobFile);
+      File tempFile = File.createTempFile(TEMP_FILE_PREFIX, TEMP_FILE_SUFFIX, blobFile.getParentFile());
+      try {
+         writeAndSync(ByteSource.wrap(blobKey.getBytes(StandardCharsets.UTF_8)).openStream(), tempFile);
+         moveIntoPlace(tempFile, keyFile);
+      } finally {
+         if (tempFile.exists() && !tempFile.delete()) {
+            logger.debug("Could not delete %s", tempFile);
+         }
+      }
+   }
+
+   private static void populateBlobKeysInShards(File containerFile, Set<String> blobNames) throws IOException {
+      File[] firstLevel = containerFile.listFiles();
+      if (firstLevel == null) {
+         return;
+      }
+      for (File first : firstLevel) {
+         File[] secondLevel = first.listFiles();
+         if (secondLevel == null) {
+            continue;
+         }
+         for (File second : secondLevel) {
+            File[] files = second.listFiles();
+            if (files == null) {
+               continue;
+            }
+            for (File file : files) {
+               String name = file.getName();
+               // only list blobs whose content has been moved into place
+               if (name.endsWith(KEY_FILE_SUFFIX)
+                     && new File(second, name.substring(0, name.length() - KEY_FILE_SUFFIX.length())).isFile()) {
+                  blobNames.add(Files.toString(file, StandardCharsets.UTF_8));
+               }
+            }
+         }
+      }
+   }
+
+   private void writeAndSync(InputStream in, File file) throws IOException {
+      FileOutputStream out = new FileOutputStream(file);
+      try {
+         ByteStreams.copy(in, out);
+         if (!FilesystemConstants.FSYNC_NONE.equals(fsync)) {
+            out.getFD().sync();
+         }
+      } finally {
+         out.close();
+      }
+   }
+
+   /**
+    * @throws IllegalArgumentException
+    *            if the blob key cannot be encoded in the file names of this platform, for example a non-ASCII key
+    *            when the JVM does not use UTF-8 for file names
+    */
+   private static Path toBlobPath(File file, String blobKey) {
+      try {
+         return file.toPath();
+      } catch (InvalidPathException e) {
+         throw new IllegalArgumentException("Blob key '" + blobKey + "' is not a valid file name on this platform: "
+               + e.getReason(), e);
+      }
+   }
+
+   /**
+    * Atomically replaces {@code target} with {@code source}, which must be in the same directory.
+    */
+   private void moveIntoPlace(File source, File target) throws IOException {
+      try {
+         move(source.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE,
+               StandardCopyOption.REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException e) {
+         logger.debug("atomic rename not supported for %s", target);
+         move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      }
+      if (FilesystemConstants.FSYNC_DIRECTORY.equals(fsync)) {
+         try {
+            FileChannel channel = FileChannel.open(target.getParentFile().toPath(), StandardOpenOption.READ);
+            try {
+               channel.force(true);
+            } finally {
+               channel.close();
+            }
+         } catch (IOException e) {
+            // not every platform allows opening a directory, e.g. Windows
+            logger.debug("Could not sync directory of %s", target);
+         }
+      }
+   }
+
    /**
     * Creates a directory and returns the result
     *
@@ -0,0 +1,197 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.filesystem.strategy.internal;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.jclouds.filesystem.utils.TestUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.io.Files;
+import com.google.gson.Gson;
+
+@Test(groups = "unit", testName = "BlobMetadataLogTest", singleThreaded = true)
+public class BlobMetadataLogTest {
+   private final File container = new File(TestUtils.TARGET_BASE_DIR, "metadata-log-test");
+   private final File log = new File(container, BlobMetadataLog.FILE_NAME);
+
+   @BeforeMethod
+   protected void setUp() throws IOException {
+      TestUtils.cleanDirectoryContent(TestUtils.TARGET_BASE_DIR);
+      assertTrue(container.mkdirs());
+   }
+
+   @AfterMethod
+   protected void tearDown() throws IOException {
+      TestUtils.cleanDirectoryContent(TestUtils.TARGET_BASE_DIR);
+   }
+
+   public void testPutAndGet() throws IOException {
+      BlobMetadataLog metadataLog = new BlobMetadataLog();
+      File blob = write("a", "content");
+      metadataLog.put(container, entry("a", blob));
+
+      BlobMetadataLog.Entry entry = metadataLog.get(container, "a", blob);
+      assertNotNull(entry);
+      assertEquals(entry.md5, "9a0364b9e99bb480dd25e1f0284c8555");
+      assertEquals(entry.contentType, "text/plain");
+      assertEquals(entry.userMetadata, ImmutableMap.of("key1", "value1"));
+      assertNull(metadataLog.get(container, "b", blob));
+   }
+
+   public void testModifiedFileIsNotTrusted() throws IOException {
+      BlobMetadataLog metadataLog = new BlobMetadataLog();
+      File blob = write("a", "content");
+      metadataLog.put(container, entry("a", blob));
+
+      write("a", "other content");
+      assertNull(metadataLog.get(container, "a", blob));
+   }
+
+   public void testRemove() throws IOException {
+      BlobMetadataLog metadataLog = new BlobMetadataLog();
+      File blob = write("a", "content");
+      metadataLog.put(container, entry("a", blob));
+      metadataLog.remove(container, "a");
+      assertNull(metadataLog.get(container, "a", blob));
+
+      // a fresh reader replays the tombstone
+      assertNull(new BlobMetadataLog().get(container, "a", blob));
+      // nothing is appended for keys without an entry
+      long length = log.length();
+      metadataLog.remove(container, "b");
+      assertEquals(log.length(), length);
+   }
+
+   public void testTornLastLineIsIgnored() throws IOException {
+      BlobMetadataLog metadataLog = new BlobMetadataLog();
+      File blob = write("a", "content");
+      metadataLog.put(container, entry("a", blob));
+      Files.append("{\"key\":\"b\",\"md5\":", log, Charsets.UTF_8);
+
+      BlobMetadataLog reader = new BlobMetadataLog();
+      assertNotNull(reader.get(container, "a", blob));
+      assertNull(reader.get(container, "b", blob));
+   }
+
+   public void testFollowsAppendsFromOtherInstances() throws IOException {
+      BlobMetadataLog reader = new BlobMetadataLog();
+      File a = write("a", "content");
+      File b = write("b", "content");
+      reader.put(container, entry("a", a));
+
+      new BlobMetadataLog().put(container, entry("b", b));
+      assertNotNull(reader.get(container, "a", a));
+      assertNotNull(reader.get(container, "b", b));
+   }
+
+   public void testCompaction() throws IOException {
+      BlobMetadataLog metadataLog = new BlobMetadataLog();
+      File blob = write("a", "content");
+      for (int i = 0; i < 1000; i++) {
+         metadataLog.put(container, entry("a", blob));
+      }
+      assertEquals(Files.readLines(log, Charsets.UTF_8).size(), 1);
+      assertNotNull(metadataLog.get(container, "a", blob));
+      assertNotNull(new BlobMetadataLog().get(container, "a", blob));
+   }
+
+   public void testReplacedLogIsReadFromTheStart() throws IOException {
+      BlobMetadataLog reader = new BlobMetadataLog();
+      File a = write("a", "content");
+      File b = write("b", "content");
+      reader.put(container, entry("a", a));
+
+      // a compaction by another process leaves a log at least as long, holding other entries
+      BlobMetadataLog.Entry longer = entry("b", b);
+      longer.contentType = "application/x-a-content-type-long-enough-to-outgrow-the-previous-log";
+      File replacement = new File(container, "replacement");
+      Files.write(new Gson().toJson(longer) + "\n", replacement, Charsets.UTF_8);
+      assertTrue(replacement.length() >= log.length());
+      java.nio.file.Files.move(replacement.toPath(), log.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+      assertNull(reader.get(container, "a", a));
+      assertEquals(reader.get(container, "b", b).contentType, longer.contentType);
+   }
+
+   public void testConcurrentAppendsFromSeveralInstances() throws Exception {
+      final File blob = write("a", "content");
+      ExecutorService executor = Executors.newFixedThreadPool(4);
+      try {
+         List<Future<Void>> writers = Lists.newArrayList();
+         for (int i = 0; i < 4; i++) {
+            final int writer = i;
+            writers.add(executor.submit(new Callable<Void>() {
+               @Override
+               public Void call() throws IOException {
+                  BlobMetadataLog metadataLog = new BlobMetadataLog();
+                  for (int j = 0; j < 50; j++) {
+                     metadataLog.put(container, entry("blob-" + writer + "-" + j, blob));
+                  }
+                  return null;
+               }
+            }));
+         }
+         for (Future<Void> writer : writers) {
+            writer.get();
+         }
+      } finally {
+         executor.shutdown();
+      }
+      BlobMetadataLog reader = new BlobMetadataLog();
+      for (int i = 0; i < 4; i++) {
+         for (int j = 0; j < 50; j++) {
+            assertNotNull(reader.get(container, "blob-" + i + "-" + j, blob));
+         }
+      }
+      assertEquals(Files.readLines(log, Charsets.UTF_8).size(), 200);
+   }
+
+   private File write(String key, String content) throws IOException {
+      File file = new File(container, key);
+      Files.write(content, file, Charsets.UTF_8);
+      return file;
+   }
+
+   private static BlobMetadataLog.Entry entry(String key, File file) {
+      BlobMetadataLog.Entry entry = new BlobMetadataLog.Entry();
+      entry.key = key;
+      entry.md5 = "9a0364b9e99bb480dd25e1f0284c8555";
+      entry.size = file.length();
+      entry.lastModified = file.lastModified();
+      entry.contentType = "text/plain";
+      entry.userMetadata = ImmutableMap.of("key1", "value1");
+      return entry;
+   }
+}
@@ -27,6 +27,7 @@ import static org.testng.Assert.fail;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Paths;
 import java.nio.file.attribute.UserDefinedFileAttributeView;
 import java.util.Iterator;
@@ -41,6 +42,7 @@ import org.jclouds.blobstore.domain.internal.BlobBuilderImpl;
 import org.jclouds.blobstore.options.ListContainerOptions;
 import org.jclouds.filesystem.predicates.validators.internal.FilesystemBlobKeyValidatorImpl;
 import org.jclouds.filesystem.predicates.validators.internal.FilesystemContainerNameValidatorImpl;
+import org.jclouds.filesystem.reference.FilesystemConstants;
 import org.jclouds.filesystem.utils.TestUtils;
 import org.jclouds.io.payloads.FilePayload;
 import org.jclouds.io.payloads.InputStreamPayload;
@@ -51,9 +53,14 @@ import org.testng.SkipException;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
+import com.google.common.hash.Hashing;
 import com.google.common.io.ByteSource;
 import com.google.common.io.Files;
 
@@ -619,6 +626,147 @@ public class FilesystemStorageStrategyImplTest {
       assertFalse(blob.getMetadata().getUserMetadata().containsKey("key1"));
    }
 
+   public void testFailedWriteKeepsPreviousContent() throws IOException {
+      String blobKey = TestUtils.createRandomBlobKey("atomic-", ".txt");
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(blobKey).payload("previous").build());
+
+      InputStream failing = new InputStream() {
+         private int count;
+
+         @Override
+         public int read() throws IOException {
+            if (count++ > 100)
+               throw new IOException("connection reset");
+            return 'x';
+         }
+      };
+      try {
+         storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(blobKey)
+               .payload(new InputStreamPayload(failing)).build());
+         fail("expected the failing payload to surface");
+      } catch (IOException expected) {
+      }
+
+      assertEquals(Files.toString(new File(TARGET_CONTAINER_NAME, blobKey), Charsets.UTF_8), "previous");
+      assertEquals(new File(TARGET_CONTAINER_NAME).list().length, 1, "temporary file left behind");
+   }
+
+   public void testTemporaryFilesAreNotListed() throws IOException {
+      String blobKey = TestUtils.createRandomBlobKey("listed-", ".txt");
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(blobKey).payload("content").build());
+      // as left behind by a crash during a write
+      Files.write(new byte[1], new File(TARGET_CONTAINER_NAME, ".jclouds-12345.tmp"));
+
+      assertEquals(ImmutableSet.copyOf(storageStrategy.getBlobKeysInsideContainer(CONTAINER_NAME)),
+            ImmutableSet.of(blobKey));
+   }
+
+   public void testWriteWithFsync() throws IOException {
+      storageStrategy.fsync = FilesystemConstants.FSYNC_DIRECTORY;
+      String blobKey = TestUtils.createRandomBlobKey("fsync-", ".txt");
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(blobKey).payload("content").build());
+      assertEquals(Files.toString(new File(TARGET_CONTAINER_NAME, blobKey), Charsets.UTF_8), "content");
+   }
+
+   public void testShardedLayout() throws IOException {
+      storageStrategy.layout = FilesystemConstants.LAYOUT_SHARDED;
+      storageStrategy.createContainer(CONTAINER_NAME);
+      for (String key : ImmutableList.of("a", "dir/b", "dir/sub/c")) {
+         storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name(key).payload(key).build());
+      }
+
+      File file = storageStrategy.getFileForBlobKey(CONTAINER_NAME, "dir/b");
+      assertEquals(file.getParentFile().getParentFile().getParentFile(), new File(TARGET_CONTAINER_NAME));
+      assertFalse(new File(TARGET_CONTAINER_NAME, "dir").exists());
+      assertEquals(Files.toString(file, Charsets.UTF_8), "dir/b");
+
+      assertEquals(ImmutableSet.copyOf(storageStrategy.getBlobKeysInsideContainer(CONTAINER_NAME)),
+            ImmutableSet.of("a", "dir/b", "dir/sub/c"));
+      assertTrue(storageStrategy.blobExists(CONTAINER_NAME, "dir/sub/c"));
+      assertFalse(storageStrategy.blobExists(CONTAINER_NAME, "dir/sub"));
+      assertTrue(storageStrategy.directoryExists(CONTAINER_NAME, "dir/sub"));
+      Blob blob = storageStrategy.getBlob(CONTAINER_NAME, "a");
+      assertEquals(blob.getPayload().getContentMetadata().getContentLength(), Long.valueOf(1));
+      assertEquals(blob.getMetadata().getName(), "a");
+
+      storageStrategy.clearContainer(CONTAINER_NAME, ListContainerOptions.Builder.inDirectory("dir"));
+      assertEquals(ImmutableSet.copyOf(storageStrategy.getBlobKeysInsideContainer(CONTAINER_NAME)),
+            ImmutableSet.of("a", "dir/sub/c"));
+
+      storageStrategy.createDirectory(CONTAINER_NAME, "empty");
+      assertTrue(storageStrategy.directoryExists(CONTAINER_NAME, "empty"));
+      assertTrue(storageStrategy.blobExists(CONTAINER_NAME, "empty/"));
+
+      storageStrategy.deleteDirectory(CONTAINER_NAME, "dir");
+      storageStrategy.removeBlob(CONTAINER_NAME, "a");
+      assertEquals(ImmutableSet.copyOf(storageStrategy.getBlobKeysInsideContainer(CONTAINER_NAME)),
+            ImmutableSet.of("empty/"));
+      assertFalse(storageStrategy.directoryExists(CONTAINER_NAME, "dir"));
+   }
+
+   public void testShardedLayoutRewritesKeyFile() throws IOException {
+      storageStrategy.layout = FilesystemConstants.LAYOUT_SHARDED;
+      storageStrategy.createContainer(CONTAINER_NAME);
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name("dir/a").payload("a").build());
+      File keyFile = new File(storageStrategy.getFileForBlobKey(CONTAINER_NAME, "dir/a").getPath() + ".key");
+      assertTrue(keyFile.delete());
+
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name("dir/a").payload("b").build());
+      assertEquals(Files.toString(keyFile, Charsets.UTF_8), "dir/a");
+      assertTrue(storageStrategy.directoryExists(CONTAINER_NAME, "dir"));
+
+      storageStrategy.removeBlob(CONTAINER_NAME, "dir/a");
+      assertFalse(keyFile.exists());
+      assertFalse(storageStrategy.directoryExists(CONTAINER_NAME, "dir"));
+   }
+
+   @Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = "Blob key 'a.b' .*")
+   public void testBlobKeyWithoutFileNameIsRejected() throws IOException {
+      storageStrategy.createContainer(CONTAINER_NAME);
+      storageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl().name("a\u0000b").payload("content").build());
+   }
+
+   @Test(expectedExceptions = IllegalArgumentException.class)
+   public void testUnknownLayoutIsRejected() {
+      storageStrategy.setLayout("nested");
+   }
+
+   @Test(expectedExceptions = IllegalArgumentException.class)
+   public void testUnknownFsyncIsRejected() {
+      storageStrategy.setFsync("always");
+   }
+
+   public void testMetadataLogWithoutXattrs() throws IOException {
+      FilesystemStorageStrategyImpl withoutXattrs = storageStrategy;
+      withoutXattrs.xattrsEnabled = false;
+      String blobKey = TestUtils.createRandomBlobKey("metadata-log-", ".txt");
+      Blob blob = new BlobBuilderImpl()
+            .name(blobKey)
+            .payload("content")
+            .contentType("text/plain")
+            .userMetadata(ImmutableMap.of("key1", "value1"))
+            .build();
+      String eTag = withoutXattrs.putBlob(CONTAINER_NAME, blob);
+
+      blob = withoutXattrs.getBlob(CONTAINER_NAME, blobKey);
+      assertEquals(blob.getMetadata().getETag(), eTag);
+      assertEquals(blob.getMetadata().getContentMetadata().getContentType(), "text/plain");
+      assertEquals(blob.getMetadata().getUserMetadata(), ImmutableMap.of("key1", "value1"));
+      assertEquals(ImmutableSet.copyOf(withoutXattrs.getBlobKeysInsideContainer(CONTAINER_NAME)),
+            ImmutableSet.of(blobKey));
+
+      // modified behind our back, so the recorded metadata no longer applies
+      File file = new File(TARGET_CONTAINER_NAME, blobKey);
+      Files.write("changed content", file, Charsets.UTF_8);
+      blob = withoutXattrs.getBlob(CONTAINER_NAME, blobKey);
+      assertEquals(blob.getMetadata().getETag(),
+            Hashing.md5().hashString("changed content", Charsets.UTF_8).toString());
+      assertTrue(blob.getMetadata().getUserMetadata().isEmpty());
+
+      withoutXattrs.removeBlob(CONTAINER_NAME, blobKey);
+      assertTrue(Iterables.isEmpty(withoutXattrs.getBlobKeysInsideContainer(CONTAINER_NAME)));
+   }
+
    // ---------------------------------------------------------- Private methods
 
    /**
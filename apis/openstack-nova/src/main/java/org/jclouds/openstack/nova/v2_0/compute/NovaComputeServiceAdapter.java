@@ -30,7 +30,9 @@ import javax.inject.Inject;
 import javax.inject.Named;
 
 import org.jclouds.compute.ComputeServiceAdapter;
+import org.jclouds.compute.ComputeServiceAdapter.ListsNodesMatchingFilter;
 import org.jclouds.compute.domain.Template;
+import org.jclouds.compute.predicates.NodeFilter;
 import org.jclouds.compute.reference.ComputeServiceConstants;
 import org.jclouds.domain.Location;
 import org.jclouds.domain.LoginCredentials;
@@ -68,7 +70,8 @@ import com.google.common.collect.ImmutableSet.Builder;
  * model to the computeService generic domain model.
  */
 public class NovaComputeServiceAdapter implements
-         ComputeServiceAdapter<ServerInRegion, FlavorInRegion, ImageInRegion, Location> {
+         ComputeServiceAdapter<ServerInRegion, FlavorInRegion, ImageInRegion, Location>,
+         ListsNodesMatchingFilter<ServerInRegion> {
 
    @Resource
    @Named(ComputeServiceConstants.COMPUTE_LOGGER)
@@ -200,8 +203,37 @@ public class NovaComputeServiceAdapter implements
 
    @Override
    public Iterable<ServerInRegion> listNodes() {
+      return listNodesInRegions(regionIds.get());
+   }
+
+   /**
+    * Servers are looked up by id when the filter has ids, and only the region the filter is scoped to, if any, is
+    * listed otherwise.
+    */
+   @Override
+   public Iterable<ServerInRegion> listNodesMatching(NodeFilter<?> filter) {
+      if (!filter.getIds().isEmpty()) {
+         Builder<ServerInRegion> builder = ImmutableSet.builder();
+         for (String id : filter.getIds()) {
+            if (id.indexOf('/') == -1 || id.indexOf('/') != id.lastIndexOf('/'))
+               continue;
+            RegionAndId regionAndId = RegionAndId.fromSlashEncoded(id);
+            if (!regionIds.get().contains(regionAndId.getRegion()))
+               continue;
+            Server server = novaApi.getServerApi(regionAndId.getRegion()).get(regionAndId.getId());
+            if (server != null)
+               builder.add(new ServerInRegion(server, regionAndId.getRegion()));
+         }
+         return builder.build();
+      }
+      if (filter.getLocationId() != null && regionIds.get().contains(filter.getLocationId()))
+         return listNodesInRegions(ImmutableSet.of(filter.getLocationId()));
+      return listNodes();
+   }
+
+   private Iterable<ServerInRegion> listNodesInRegions(Set<String> regions) {
       Builder<ServerInRegion> builder = ImmutableSet.builder();
-      for (final String regionId : regionIds.get()) {
+      for (final String regionId : regions) {
          builder.addAll(novaApi.getServerApi(regionId).listInDetail().concat()
                   .transform(new Function<Server, ServerInRegion>() {
 
@@ -0,0 +1,54 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.openstack.nova.v2_0.parse;
+
+import java.util.Set;
+
+import org.jclouds.json.BaseGeneratedDeserializerPerformanceTest;
+import org.jclouds.json.config.GsonModule;
+import org.jclouds.openstack.nova.v2_0.config.NovaParserModule;
+import org.jclouds.openstack.nova.v2_0.domain.Server;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.inject.Module;
+import com.google.inject.TypeLiteral;
+
+@Test(groups = "performance", singleThreaded = true, testName = "ParseServerDetailsPerformanceTest")
+public class ParseServerDetailsPerformanceTest extends BaseGeneratedDeserializerPerformanceTest<Set<Server>> {
+
+   @Override
+   protected String resource() {
+      return "/server_list_details_essex.json";
+   }
+
+   @Override
+   protected String selectJson() {
+      return "servers";
+   }
+
+   @Override
+   protected TypeLiteral<Set<Server>> type() {
+      return new TypeLiteral<Set<Server>>() {
+      };
+   }
+
+   @Override
+   protected Iterable<Module> modules() {
+      return ImmutableList.<Module> of(new NovaParserModule(), new GsonModule());
+   }
+}
@@ -16,8 +16,13 @@
  */
 package org.jclouds.rackspace.cloudloadbalancers.v1.loadbalancer.strategy;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 import javax.annotation.Resource;
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -28,19 +33,30 @@ import org.jclouds.domain.Location;
 import org.jclouds.loadbalancer.domain.LoadBalancerMetadata;
 import org.jclouds.loadbalancer.reference.LoadBalancerConstants;
 import org.jclouds.loadbalancer.strategy.GetLoadBalancerMetadataStrategy;
-import org.jclouds.loadbalancer.strategy.LoadBalanceNodesStrategy;
+import org.jclouds.loadbalancer.strategy.UpdateLoadBalancerNodesStrategy;
 import org.jclouds.logging.Logger;
 import org.jclouds.rackspace.cloudloadbalancers.v1.CloudLoadBalancersApi;
 import org.jclouds.rackspace.cloudloadbalancers.v1.domain.LoadBalancer;
 import org.jclouds.rackspace.cloudloadbalancers.v1.domain.CreateLoadBalancer;
 import org.jclouds.rackspace.cloudloadbalancers.v1.domain.AddNode;
+import org.jclouds.rackspace.cloudloadbalancers.v1.domain.Node;
 import org.jclouds.rackspace.cloudloadbalancers.v1.domain.VirtualIP.Type;
+import org.jclouds.rackspace.cloudloadbalancers.v1.features.LoadBalancerApi;
+import org.jclouds.rackspace.cloudloadbalancers.v1.features.NodeApi;
+import org.jclouds.rackspace.cloudloadbalancers.v1.predicates.LoadBalancerPredicates;
 
 import com.google.common.base.Function;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.net.HostAndPort;
 
 @Singleton
-public class CloudLoadBalancersLoadBalanceNodesStrategy implements LoadBalanceNodesStrategy {
+public class CloudLoadBalancersLoadBalanceNodesStrategy implements UpdateLoadBalancerNodesStrategy {
+   /** The batch removal of nodes accepts at most this many ids. */
+   static final int MAX_NODES_PER_REMOVE = 10;
+
    @Resource
    @Named(LoadBalancerConstants.LOADBALANCER_LOGGER)
    protected Logger logger = Logger.NULL;
@@ -76,4 +92,56 @@ public class CloudLoadBalancersLoadBalanceNodesStrategy implements LoadBalanceNo
                                  })).build());
       return getLB.getLoadBalancer(region + "/" + lb.getId());
    }
+
+   @Override
+   public LoadBalancerMetadata updateLoadBalancerNodes(String id, int instancePort,
+            Iterable<? extends NodeMetadata> nodes) {
+      String[] parts = checkNotNull(id, "id").split("/");
+      String region = parts[0];
+      int lbId = Integer.parseInt(parts[1]);
+      LoadBalancerApi lbApi = client.getLoadBalancerApi(region);
+      LoadBalancer lb = lbApi.get(lbId);
+      checkArgument(lb != null, "load balancer %s not found", id);
+
+      Map<HostAndPort, Node> current = Maps.newLinkedHashMap();
+      for (Node node : lb.getNodes()) {
+         current.put(HostAndPort.fromParts(node.getAddress(), node.getPort()), node);
+      }
+      Set<HostAndPort> target = Sets.newLinkedHashSet();
+      for (NodeMetadata node : nodes) {
+         target.add(HostAndPort.fromParts(Iterables.get(node.getPrivateAddresses(), 0), instancePort));
+      }
+
+      List<AddNode> toAdd = Lists.newArrayList();
+      for (HostAndPort address : Sets.difference(target, current.keySet())) {
+         toAdd.add(AddNode.builder().address(address.getHostText()).port(address.getPort()).build());
+      }
+      List<Integer> toRemove = Lists.newArrayList();
+      for (HostAndPort address : Sets.difference(current.keySet(), target)) {
+         toRemove.add(current.get(address).getId());
+      }
+      logger.debug(">> adding %d and removing %d nodes of load balancer %s", toAdd.size(), toRemove.size(), id);
+
+      // the load balancer is immutable while an update is pending, including one started elsewhere, so every call
+      // waits for it to be active. Adding first never leaves it with fewer members than requested, nor without any.
+      NodeApi nodeApi = client.getNodeApi(region, lbId);
+      if (!toAdd.isEmpty()) {
+         awaitActive(lbApi, lb);
+         nodeApi.add(toAdd);
+      }
+      for (List<Integer> batch : Lists.partition(toRemove, MAX_NODES_PER_REMOVE)) {
+         awaitActive(lbApi, lb);
+         nodeApi.remove(batch);
+      }
+      if (!toAdd.isEmpty() || !toRemove.isEmpty()) {
+         awaitActive(lbApi, lb);
+      }
+      return getLB.getLoadBalancer(id);
+   }
+
+   private static void awaitActive(LoadBalancerApi lbApi, LoadBalancer lb) {
+      if (!LoadBalancerPredicates.awaitAvailable(lbApi).apply(lb)) {
+         throw new IllegalStateException("Timeout waiting for load balancer " + lb.getId() + " to become active");
+      }
+   }
 }
@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.rackspace.cloudloadbalancers.v1.loadbalancer.strategy;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.testng.Assert.assertSame;
+
+import java.util.Date;
+import java.util.List;
+
+import org.jclouds.compute.domain.NodeMetadata;
+import org.jclouds.compute.domain.NodeMetadata.Status;
+import org.jclouds.compute.domain.NodeMetadataBuilder;
+import org.jclouds.loadbalancer.domain.LoadBalancerMetadata;
+import org.jclouds.loadbalancer.strategy.GetLoadBalancerMetadataStrategy;
+import org.jclouds.rackspace.cloudloadbalancers.v1.CloudLoadBalancersApi;
+import org.jclouds.rackspace.cloudloadbalancers.v1.domain.AddNode;
+import org.jclouds.rackspace.cloudloadbalancers.v1.domain.LoadBalancer;
+import org.jclouds.rackspace.cloudloadbalancers.v1.domain.Node;
+import org.jclouds.rackspace.cloudloadbalancers.v1.domain.VirtualIPWithId;
+import org.jclouds.rackspace.cloudloadbalancers.v1.features.LoadBalancerApi;
+import org.jclouds.rackspace.cloudloadbalancers.v1.features.NodeApi;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+
+@Test(groups = "unit", singleThreaded = true, testName = "CloudLoadBalancersLoadBalanceNodesStrategyTest")
+public class CloudLoadBalancersLoadBalanceNodesStrategyTest {
+
+   private CloudLoadBalancersApi client;
+   private LoadBalancerApi lbApi;
+   private NodeApi nodeApi;
+   private GetLoadBalancerMetadataStrategy getLB;
+   private LoadBalancerMetadata metadata;
+
+   @BeforeMethod
+   public void setUp() {
+      client = createMock(CloudLoadBalancersApi.class);
+      lbApi = createMock(LoadBalancerApi.class);
+      nodeApi = createMock(NodeApi.class);
+      getLB = createMock(GetLoadBalancerMetadataStrategy.class);
+      metadata = createMock(LoadBalancerMetadata.class);
+      expect(client.getLoadBalancerApi("DFW")).andReturn(lbApi);
+      expect(client.getNodeApi("DFW", 2000)).andReturn(nodeApi);
+      expect(getLB.getLoadBalancer("DFW/2000")).andReturn(metadata);
+   }
+
+   public void testAppliesOnlyTheDifference() {
+      LoadBalancer lb = loadBalancer(node(1, "10.0.0.1"), node(2, "10.0.0.2"));
+      // once to read the members, then once before the add, once before the removal and once at the end
+      expect(lbApi.get(2000)).andReturn(lb).times(4);
+      expect(nodeApi.add(ImmutableList.of(AddNode.builder().address("10.0.0.3").port(80).build())))
+            .andReturn(ImmutableSet.<Node> of());
+      nodeApi.remove(ImmutableList.of(1));
+      replay(client, lbApi, nodeApi, getLB);
+
+      assertSame(newStrategy().updateLoadBalancerNodes("DFW/2000", 80,
+            ImmutableList.of(nodeMetadata("10.0.0.2"), nodeMetadata("10.0.0.3"))), metadata);
+      verify(client, lbApi, nodeApi, getLB);
+   }
+
+   public void testRemovesInBatches() {
+      List<Node> nodes = Lists.newArrayList();
+      for (int i = 1; i <= 12; i++) {
+         nodes.add(node(i, "10.0.1." + (10 + i)));
+      }
+      LoadBalancer lb = loadBalancer(nodes.toArray(new Node[nodes.size()]));
+      expect(lbApi.get(2000)).andReturn(lb).times(4);
+      nodeApi.remove(ImmutableList.of(2, 3, 4, 5, 6, 7, 8, 9, 10, 11));
+      nodeApi.remove(ImmutableList.of(12));
+      replay(client, lbApi, nodeApi, getLB);
+
+      newStrategy().updateLoadBalancerNodes("DFW/2000", 80, ImmutableList.of(nodeMetadata("10.0.1.11")));
+      verify(client, lbApi, nodeApi, getLB);
+   }
+
+   public void testNoChangesWhenMembersMatch() {
+      LoadBalancer lb = loadBalancer(node(1, "10.0.0.1"));
+      expect(lbApi.get(2000)).andReturn(lb);
+      replay(client, lbApi, nodeApi, getLB);
+
+      newStrategy().updateLoadBalancerNodes("DFW/2000", 80, ImmutableList.of(nodeMetadata("10.0.0.1")));
+      verify(client, lbApi, nodeApi, getLB);
+   }
+
+   public void testMembersOnAnotherPortAreReplaced() {
+      LoadBalancer lb = loadBalancer(node(1, "10.0.0.1"));
+      expect(lbApi.get(2000)).andReturn(lb).times(4);
+      expect(nodeApi.add(ImmutableList.of(AddNode.builder().address("10.0.0.1").port(8080).build())))
+            .andReturn(ImmutableSet.<Node> of());
+      nodeApi.remove(ImmutableList.of(1));
+      replay(client, lbApi, nodeApi, getLB);
+
+      newStrategy().updateLoadBalancerNodes("DFW/2000", 8080, ImmutableList.of(nodeMetadata("10.0.0.1")));
+      verify(client, lbApi, nodeApi, getLB);
+   }
+
+   private CloudLoadBalancersLoadBalanceNodesStrategy newStrategy() {
+      return new CloudLoadBalancersLoadBalanceNodesStrategy(client, getLB);
+   }
+
+   private static Node node(int id, String address) {
+      return Node.builder().id(id).address(address).port(80).condition(Node.Condition.ENABLED)
+            .status(Node.Status.ONLINE).build();
+   }
+
+   private static NodeMetadata nodeMetadata(String privateAddress) {
+      return new NodeMetadataBuilder().id(privateAddress).status(Status.RUNNING)
+            .privateAddresses(ImmutableSet.of(privateAddress)).build();
+   }
+
+   private static LoadBalancer loadBalancer(Node... nodes) {
+      return LoadBalancer.builder().region("DFW").id(2000).name("lb").protocol("HTTP").port(80)
+            .status(LoadBalancer.Status.ACTIVE).virtualIPs(ImmutableSet.<VirtualIPWithId> of())
+            .created(new Date()).updated(new Date()).nodes(ImmutableSet.copyOf(nodes)).build();
+   }
+}
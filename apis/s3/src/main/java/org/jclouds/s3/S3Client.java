@@ -44,6 +44,7 @@ import org.jclouds.blobstore.BlobStoreFallbacks.ThrowContainerNotFoundOn404;
 import org.jclouds.blobstore.BlobStoreFallbacks.ThrowKeyNotFoundOn404;
 import org.jclouds.blobstore.attr.BlobScope;
 import org.jclouds.http.functions.ParseETagHeader;
+import org.jclouds.http.functions.ParseSax.ElementCallback;
 import org.jclouds.http.options.GetOptions;
 import org.jclouds.io.Payload;
 import org.jclouds.javax.annotation.Nullable;
@@ -341,6 +342,24 @@ public interface S3Client extends Closeable {
          BindAsHostPrefixIfConfigured.class) @ParamValidators(BucketNameValidator.class) String bucketName,
          ListBucketOptions... options);
 
+   /**
+    * Like {@link #listBucket}, except that the metadata of each object is passed to {@code callback} as soon as it is
+    * parsed. The returned listing has no contents, but still carries the common prefixes and the marker of the next
+    * page, so that very large buckets can be walked without holding a page of objects in memory.
+    * 
+    * @param bucketName namespace of the objects you wish to list
+    * @param callback receives the object metadata in key order
+    * @return the listing, without its contents
+    * @see ListBucketOptions
+    */
+   @Named("ListBucket")
+   @GET
+   @Path("/")
+   @XMLResponseParser(ListBucketHandler.class)
+   ListBucketResponse streamBucket(@Bucket @EndpointParam(parser = AssignCorrectHostnameForBucket.class) @BinderParam(
+         BindAsHostPrefixIfConfigured.class) @ParamValidators(BucketNameValidator.class) String bucketName,
+         ElementCallback<? super ObjectMetadata> callback, ListBucketOptions... options);
+
    /**
     * Returns a list of all of the buckets owned by the authenticated sender of the request.
     * 
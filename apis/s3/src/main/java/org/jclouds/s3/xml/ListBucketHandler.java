@@ -27,6 +27,8 @@ import javax.inject.Inject;
 
 import org.jclouds.date.DateService;
 import org.jclouds.http.functions.ParseSax;
+import org.jclouds.http.functions.ParseSax.ElementCallback;
+import org.jclouds.http.functions.ParseSax.StreamingHandler;
 import org.jclouds.s3.domain.CanonicalUser;
 import org.jclouds.s3.domain.ListBucketResponse;
 import org.jclouds.s3.domain.ObjectMetadata;
@@ -42,8 +44,10 @@ import com.google.common.collect.ImmutableSet.Builder;
  * <p/>
  * ListBucketResult xmlns="http://s3.amazonaws.com/doc/2006-03-01"
  */
-public class ListBucketHandler extends ParseSax.HandlerWithResult<ListBucketResponse> {
+public class ListBucketHandler extends ParseSax.HandlerWithResult<ListBucketResponse> implements
+      StreamingHandler<ObjectMetadata> {
    private Builder<ObjectMetadata> contents = ImmutableSet.builder();
+   private ElementCallback<? super ObjectMetadata> callback;
    private Builder<String> commonPrefixes = ImmutableSet.builder();
    private CanonicalUser currentOwner;
    private StringBuilder currentText = new StringBuilder();
@@ -73,6 +77,11 @@ public class ListBucketHandler extends ParseSax.HandlerWithResult<ListBucketResp
                commonPrefixes.build());
    }
 
+   @Override
+   public void setCallback(ElementCallback<? super ObjectMetadata> callback) {
+      this.callback = callback;
+   }
+
    private boolean inCommonPrefixes;
    private String currentKey;
    private String nextMarker;
@@ -110,7 +119,10 @@ public class ListBucketHandler extends ParseSax.HandlerWithResult<ListBucketResp
       } else if (qName.equals("StorageClass")) {
          builder.storageClass(ObjectMetadata.StorageClass.valueOf(currentOrNull(currentText)));
       } else if (qName.equals("Contents")) {
-         contents.add(builder.build());
+         if (callback != null)
+            callback.onElement(builder.build());
+         else
+            contents.add(builder.build());
          builder = new ObjectMetadataBuilder().bucket(bucketName);
       } else if (qName.equals("Name")) {
          this.bucketName = currentOrNull(currentText);
@@ -22,17 +22,23 @@ import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotNull;
 
 import java.net.URI;
+import java.util.List;
 
 import org.jclouds.http.HttpRequest;
 import org.jclouds.http.HttpResponse;
+import org.jclouds.http.functions.ParseSax.ElementCallback;
 import org.jclouds.io.Payload;
 import org.jclouds.io.Payloads;
 import org.jclouds.s3.domain.DeleteResult;
+import org.jclouds.s3.domain.ListBucketResponse;
+import org.jclouds.s3.domain.ObjectMetadata;
 import org.jclouds.s3.internal.BaseS3ClientExpectTest;
+import org.jclouds.s3.xml.ListBucketHandlerTest;
 import org.testng.annotations.Test;
 
 import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
 
 @Test(groups = "unit", testName = "S3ClientExpectTest")
 public class S3ClientExpectTest extends BaseS3ClientExpectTest {
@@ -55,6 +61,33 @@ public class S3ClientExpectTest extends BaseS3ClientExpectTest {
       
    }
 
+   @Test
+   public void testStreamBucketPassesObjectsToCallback() {
+      HttpRequest listFoo = HttpRequest.builder().method("GET").endpoint(
+               URI.create("http://localhost/foo")).headers(
+               ImmutableMultimap.<String, String> builder()
+                  .put("Date", CONSTANT_DATE)
+                  .put("Authorization", "AWS identity:p32RsBr2inawMBeCkkiA228BT2w=")
+                  .build()).build();
+      Payload listing = Payloads.newStringPayload(ListBucketHandlerTest.listBucketWithPrefixAppsSlash);
+      listing.getContentMetadata().setContentType("application/xml");
+
+      S3Client client = requestSendsResponse(listFoo, HttpResponse.builder().statusCode(200).payload(listing).build());
+
+      final List<String> keys = Lists.newArrayList();
+      ListBucketResponse response = client.streamBucket("foo", new ElementCallback<ObjectMetadata>() {
+         @Override
+         public void onElement(ObjectMetadata metadata) {
+            keys.add(metadata.getKey());
+         }
+      });
+
+      assertEquals(keys.size(), 10);
+      assertEquals(keys.get(0), "apps/0");
+      assertEquals(response.size(), 0);
+      assertEquals(response.getPrefix(), "apps/");
+   }
+
    @Test
    public void testDeleteMultipleObjects() {
       final String request = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
@@ -21,6 +21,7 @@ import static org.testng.Assert.assertEquals;
 
 import java.io.InputStream;
 import java.net.URI;
+import java.util.List;
 import java.util.TreeSet;
 
 import org.jclouds.date.DateService;
@@ -29,6 +30,7 @@ import org.jclouds.http.HttpException;
 import org.jclouds.http.HttpRequest;
 import org.jclouds.http.functions.BaseHandlerTest;
 import org.jclouds.http.functions.ParseSax;
+import org.jclouds.http.functions.ParseSax.ElementCallback;
 import org.jclouds.s3.domain.CanonicalUser;
 import org.jclouds.s3.domain.ListBucketResponse;
 import org.jclouds.s3.domain.ObjectMetadata;
@@ -39,6 +41,7 @@ import org.jclouds.util.Strings2;
 import org.testng.annotations.Test;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
 
 /**
  * Tests behavior of {@code ListBucketHandler}
@@ -61,6 +64,23 @@ public class ListBucketHandlerTest extends BaseHandlerTest {
       assertEquals(result.toString(), expected.toString());
    }
 
+   public void testCallbackReceivesObjectsInsteadOfContents() {
+      final List<ObjectMetadata> streamed = Lists.newArrayList();
+      ParseSax<ListBucketResponse> parser = createParser();
+      ((ListBucketHandler) parser.getHandler()).setCallback(new ElementCallback<ObjectMetadata>() {
+         @Override
+         public void onElement(ObjectMetadata metadata) {
+            streamed.add(metadata);
+         }
+      });
+
+      ListBucketResponse result = parser.parse(getClass().getResourceAsStream("/list_bucket.xml"));
+
+      assertEquals(streamed.toString(), ImmutableList.copyOf(expected()).toString());
+      assertEquals(result.size(), 0);
+      assertEquals(result.getPrefix(), "apps/");
+   }
+
    public ListBucketResponse expected() {
       CanonicalUser owner = new CanonicalUser("e1a5f66a480ca99a4fdfe8e318c3020446c9989d7004e7778029fbcc5d990fa0",
                "ferncam");
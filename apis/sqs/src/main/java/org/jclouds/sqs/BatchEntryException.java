@@ -0,0 +1,43 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.sqs;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import org.jclouds.sqs.domain.BatchError;
+
+import com.google.common.annotations.Beta;
+
+/**
+ * Thrown for an entry of a batch request that failed, while the rest of the batch may have succeeded.
+ */
+@Beta
+public class BatchEntryException extends RuntimeException {
+
+   private static final long serialVersionUID = 1L;
+
+   private final BatchError error;
+
+   public BatchEntryException(BatchError error) {
+      super(checkNotNull(error, "error").getCode() + ": " + error.getMessage());
+      this.error = error;
+   }
+
+   public BatchError getError() {
+      return error;
+   }
+}
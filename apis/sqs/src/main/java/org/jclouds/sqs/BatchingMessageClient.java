@@ -0,0 +1,348 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.sqs;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.jclouds.sqs.domain.BatchError;
+import org.jclouds.sqs.domain.BatchResult;
+import org.jclouds.sqs.domain.MessageIdAndMD5;
+import org.jclouds.sqs.features.MessageApi;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Objects;
+import com.google.common.base.Utf8;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableTable;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Coalesces individual send, delete and change visibility calls into the batch actions of {@link MessageApi}.
+ * <p/>
+ * A batch is sent once it holds 10 entries, once adding a message would exceed the request size limit, or when the
+ * linger time has passed since its first entry. Each call returns a future for its own entry, which fails with a
+ * {@link BatchEntryException} when the batch rejected that entry.
+ * 
+ * <h4>Example usage</h4>
+ * 
+ * <pre>
+ * BatchingMessageClient client = BatchingMessageClient.builder(sqsApi.getMessageApiForQueue(queue)).build();
+ * for (String body : bodies)
+ *    futures.add(client.send(body));
+ * ...
+ * client.close();
+ * </pre>
+ */
+@Beta
+public class BatchingMessageClient implements Closeable {
+
+   public static Builder builder(MessageApi api) {
+      return new Builder(api);
+   }
+
+   public static class Builder {
+      private final MessageApi api;
+      private long lingerMillis = 50;
+      private int maxBatchBytes = 256 * 1024;
+      private ExecutorService executor;
+      private ScheduledExecutorService scheduler;
+
+      private Builder(MessageApi api) {
+         this.api = checkNotNull(api, "message api");
+      }
+
+      /**
+       * longest time an entry waits for others to join its batch. defaults to 50 milliseconds.
+       */
+      public Builder linger(long linger, TimeUnit unit) {
+         checkArgument(linger >= 0, "linger must not be negative");
+         this.lingerMillis = unit.toMillis(linger);
+         return this;
+      }
+
+      /**
+       * largest total size in bytes of the message bodies sent in one batch. defaults to 256KB, the limit of SQS.
+       */
+      public Builder maxBatchBytes(int maxBatchBytes) {
+         checkArgument(maxBatchBytes > 0, "maxBatchBytes must be positive");
+         this.maxBatchBytes = maxBatchBytes;
+         return this;
+      }
+
+      /**
+       * executor sending the batches. defaults to a cached thread pool owned by the client.
+       */
+      public Builder executor(ExecutorService executor) {
+         this.executor = checkNotNull(executor, "executor");
+         return this;
+      }
+
+      /**
+       * scheduler flushing batches when they linger. defaults to a single thread owned by the client.
+       */
+      public Builder scheduler(ScheduledExecutorService scheduler) {
+         this.scheduler = checkNotNull(scheduler, "scheduler");
+         return this;
+      }
+
+      public BatchingMessageClient build() {
+         return new BatchingMessageClient(this);
+      }
+   }
+
+   /** most entries a batch action accepts. */
+   static final int MAX_BATCH = 10;
+
+   private final MessageApi api;
+   private final long lingerMillis;
+   private final ExecutorService executor;
+   private final ScheduledExecutorService scheduler;
+   private final boolean ownsExecutors;
+   private volatile boolean closed;
+
+   private final Batcher<String, MessageIdAndMD5> sends;
+   private final Batcher<String, Void> deletes;
+   private final Batcher<Map.Entry<String, Integer>, Void> visibilityChanges;
+
+   private BatchingMessageClient(Builder builder) {
+      this.api = builder.api;
+      this.lingerMillis = builder.lingerMillis;
+      this.ownsExecutors = builder.executor == null;
+      this.executor = builder.executor != null ? builder.executor : Executors.newCachedThreadPool(
+            new ThreadFactoryBuilder().setNameFormat("sqs-batch-%d").setDaemon(true).build());
+      this.scheduler = builder.scheduler != null ? builder.scheduler : Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("sqs-batch-linger-%d").setDaemon(true).build());
+      this.sends = new Batcher<String, MessageIdAndMD5>(builder.maxBatchBytes) {
+         @Override
+         BatchResult<?> call(Map<String, String> idMessageBody) {
+            return api.send(idMessageBody);
+         }
+
+         @Override
+         MessageIdAndMD5 result(Object value) {
+            return MessageIdAndMD5.class.cast(value);
+         }
+      };
+      this.deletes = new Batcher<String, Void>(Integer.MAX_VALUE) {
+         @Override
+         BatchResult<?> call(Map<String, String> idReceiptHandle) {
+            return api.delete(idReceiptHandle);
+         }
+
+         @Override
+         Void result(Object value) {
+            return null;
+         }
+      };
+      this.visibilityChanges = new Batcher<Map.Entry<String, Integer>, Void>(Integer.MAX_VALUE) {
+         @Override
+         BatchResult<?> call(Map<String, Map.Entry<String, Integer>> idReceiptHandleVisibilityTimeout) {
+            ImmutableTable.Builder<String, String, Integer> table = ImmutableTable.builder();
+            for (Map.Entry<String, Map.Entry<String, Integer>> entry : idReceiptHandleVisibilityTimeout.entrySet())
+               table.put(entry.getKey(), entry.getValue().getKey(), entry.getValue().getValue());
+            return api.changeVisibility(table.build());
+         }
+
+         @Override
+         Void result(Object value) {
+            return null;
+         }
+      };
+   }
+
+   /**
+    * @see MessageApi#send(String)
+    */
+   public ListenableFuture<MessageIdAndMD5> send(String message) {
+      return sends.add(checkNotNull(message, "message"), Utf8.encodedLength(message));
+   }
+
+   /**
+    * @see MessageApi#delete(String)
+    */
+   public ListenableFuture<Void> delete(String receiptHandle) {
+      return deletes.add(checkNotNull(receiptHandle, "receiptHandle"), 0);
+   }
+
+   /**
+    * @see MessageApi#changeVisibility(String, int)
+    */
+   public ListenableFuture<Void> changeVisibility(String receiptHandle, int visibilityTimeout) {
+      return visibilityChanges.add(
+            Maps.immutableEntry(checkNotNull(receiptHandle, "receiptHandle"), visibilityTimeout), 0);
+   }
+
+   /**
+    * sends all pending entries without waiting for their batches to fill.
+    */
+   public void flush() {
+      sends.flush();
+      deletes.flush();
+      visibilityChanges.flush();
+   }
+
+   /**
+    * sends all pending entries and stops accepting new ones. Executors owned by this client finish the batches in
+    * progress before shutting down.
+    */
+   @Override
+   public void close() {
+      closed = true;
+      flush();
+      if (ownsExecutors) {
+         executor.shutdown();
+         scheduler.shutdownNow();
+      }
+   }
+
+   @Override
+   public String toString() {
+      return Objects.toStringHelper(this).add("lingerMillis", lingerMillis).add("sends", sends)
+            .add("deletes", deletes).add("visibilityChanges", visibilityChanges).toString();
+   }
+
+   private static class Entry<V, R> {
+      private final V value;
+      private final int size;
+      private final SettableFuture<R> future = SettableFuture.create();
+
+      private Entry(V value, int size) {
+         this.value = value;
+         this.size = size;
+      }
+   }
+
+   /**
+    * accumulates entries of one batch action.
+    */
+   private abstract class Batcher<V, R> {
+      private final int maxBytes;
+      private List<Entry<V, R>> pending = Lists.newArrayList();
+      private int pendingBytes;
+      private ScheduledFuture<?> lingering;
+
+      private Batcher(int maxBytes) {
+         this.maxBytes = maxBytes;
+      }
+
+      abstract BatchResult<?> call(Map<String, V> idValue);
+
+      abstract R result(Object value);
+
+      ListenableFuture<R> add(V value, int size) {
+         checkState(!closed, "client is closed");
+         Entry<V, R> entry = new Entry<V, R>(value, size);
+         List<Entry<V, R>> full = null;
+         List<Entry<V, R>> overflowed = null;
+         synchronized (this) {
+            if (!pending.isEmpty() && pendingBytes + size > maxBytes)
+               overflowed = drain();
+            pending.add(entry);
+            pendingBytes += size;
+            if (pending.size() == MAX_BATCH || pendingBytes >= maxBytes)
+               full = drain();
+            else if (pending.size() == 1)
+               lingering = scheduler.schedule(new Runnable() {
+                  @Override
+                  public void run() {
+                     flush();
+                  }
+               }, lingerMillis, TimeUnit.MILLISECONDS);
+         }
+         if (overflowed != null)
+            submit(overflowed);
+         if (full != null)
+            submit(full);
+         return entry.future;
+      }
+
+      void flush() {
+         List<Entry<V, R>> batch;
+         synchronized (this) {
+            batch = drain();
+         }
+         if (!batch.isEmpty())
+            submit(batch);
+      }
+
+      private List<Entry<V, R>> drain() {
+         if (lingering != null) {
+            lingering.cancel(false);
+            lingering = null;
+         }
+         List<Entry<V, R>> batch = pending;
+         pending = Lists.newArrayList();
+         pendingBytes = 0;
+         return batch;
+      }
+
+      private void submit(final List<Entry<V, R>> batch) {
+         executor.execute(new Runnable() {
+            @Override
+            public void run() {
+               send(batch);
+            }
+         });
+      }
+
+      private void send(List<Entry<V, R>> batch) {
+         ImmutableMap.Builder<String, V> idValue = ImmutableMap.builder();
+         for (int i = 0; i < batch.size(); i++)
+            idValue.put(String.valueOf(i + 1), batch.get(i).value);
+         BatchResult<?> result;
+         try {
+            result = call(idValue.build());
+         } catch (RuntimeException e) {
+            for (Entry<V, R> entry : batch)
+               entry.future.setException(e);
+            return;
+         }
+         Map<String, BatchError> errors = result.getErrors();
+         for (int i = 0; i < batch.size(); i++) {
+            String id = String.valueOf(i + 1);
+            Entry<V, R> entry = batch.get(i);
+            if (result.containsKey(id))
+               entry.future.set(result(result.get(id)));
+            else if (errors.containsKey(id))
+               entry.future.setException(new BatchEntryException(errors.get(id)));
+            else
+               entry.future.setException(new IllegalStateException("no result for entry " + id + " in " + result));
+         }
+      }
+
+      @Override
+      public synchronized String toString() {
+         return Objects.toStringHelper(this).add("pending", pending.size()).add("pendingBytes", pendingBytes)
+               .toString();
+      }
+   }
+}
@@ -0,0 +1,464 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.sqs;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.util.concurrent.Uninterruptibles.getUninterruptibly;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.jclouds.logging.Logger;
+import org.jclouds.sqs.domain.BatchError;
+import org.jclouds.sqs.domain.BatchResult;
+import org.jclouds.sqs.domain.Message;
+import org.jclouds.sqs.features.MessageApi;
+import org.jclouds.sqs.options.ReceiveMessageOptions;
+
+import com.google.common.annotations.Beta;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Consumes a queue with concurrent long-poll receive loops, which fill a bounded buffer of prefetched messages.
+ * <p/>
+ * Received messages are in flight until they are {@link #delete deleted} or {@link #release released}. While in
+ * flight, whether still buffered or handed out, their visibility timeout is periodically extended in batches, so slow
+ * processing does not make them visible to other consumers.
+ * 
+ * <h4>Example usage</h4>
+ * 
+ * <pre>
+ * MessageConsumer consumer = MessageConsumer.builder(sqsApi.getMessageApiForQueue(queue)).receiveLoops(4).build();
+ * consumer.start();
+ * Message message = consumer.take();
+ * process(message);
+ * consumer.delete(message);
+ * ...
+ * consumer.close();
+ * </pre>
+ * 
+ * By default each receive uses the wait time configured on the queue, and an empty response is retried after a
+ * second. Long polling with {@link Builder#waitTimeSeconds} requires API version {@code 2012-11-05} or later, set with
+ * {@link org.jclouds.Constants#PROPERTY_API_VERSION}; the default version predates it.
+ */
+@Beta
+public class MessageConsumer implements Closeable {
+
+   /**
+    * Receives messages {@link MessageConsumer#consume consumed} from the queue.
+    */
+   public interface Listener {
+
+      /**
+       * Processes a message. The message is deleted when this returns normally, and released for redelivery when it
+       * throws.
+       */
+      void onMessage(Message message) throws Exception;
+   }
+
+   public static Builder builder(MessageApi api) {
+      return new Builder(api);
+   }
+
+   public static class Builder {
+      private final MessageApi api;
+      private int receiveLoops = 2;
+      private int prefetch = 20;
+      private Integer waitTimeSeconds;
+      private int visibilityTimeout = 30;
+      private ReceiveMessageOptions options = new ReceiveMessageOptions();
+      private ExecutorService executor;
+      private ScheduledExecutorService scheduler;
+      private Logger logger = Logger.NULL;
+
+      private Builder(MessageApi api) {
+         this.api = checkNotNull(api, "message api");
+      }
+
+      /**
+       * number of concurrent receive requests kept outstanding against the queue. defaults to 2.
+       */
+      public Builder receiveLoops(int receiveLoops) {
+         checkArgument(receiveLoops > 0, "receiveLoops must be positive");
+         this.receiveLoops = receiveLoops;
+         return this;
+      }
+
+      /**
+       * maximum count of received messages not yet taken from the consumer. defaults to 20.
+       */
+      public Builder prefetch(int prefetch) {
+         checkArgument(prefetch > 0, "prefetch must be positive");
+         this.prefetch = prefetch;
+         return this;
+      }
+
+      /**
+       * long-poll wait time sent with each receive. unset by default, as the default API version does not support
+       * it.
+       * 
+       * @see ReceiveMessageOptions#waitTimeSeconds
+       */
+      public Builder waitTimeSeconds(int waitTimeSeconds) {
+         checkArgument(waitTimeSeconds >= 0 && waitTimeSeconds <= 20, "waitTimeSeconds must be between 0 and 20");
+         this.waitTimeSeconds = waitTimeSeconds;
+         return this;
+      }
+
+      /**
+       * visibility timeout in seconds requested on receive and renewed every half of that while a message is in
+       * flight. defaults to 30.
+       */
+      public Builder visibilityTimeout(int visibilityTimeout) {
+         checkArgument(visibilityTimeout > 1, "visibilityTimeout must be at least 2 seconds");
+         this.visibilityTimeout = visibilityTimeout;
+         return this;
+      }
+
+      /**
+       * base options for each receive, such as attributes to return. visibility timeout and wait time are set by the
+       * consumer.
+       */
+      public Builder options(ReceiveMessageOptions options) {
+         this.options = checkNotNull(options, "options");
+         return this;
+      }
+
+      /**
+       * executor running the receive loops and listeners. defaults to a cached thread pool owned by the consumer.
+       */
+      public Builder executor(ExecutorService executor) {
+         this.executor = checkNotNull(executor, "executor");
+         return this;
+      }
+
+      /**
+       * scheduler extending visibility of in-flight messages. defaults to a single thread owned by the consumer.
+       */
+      public Builder scheduler(ScheduledExecutorService scheduler) {
+         this.scheduler = checkNotNull(scheduler, "scheduler");
+         return this;
+      }
+
+      public Builder logger(Logger logger) {
+         this.logger = checkNotNull(logger, "logger");
+         return this;
+      }
+
+      public MessageConsumer build() {
+         return new MessageConsumer(this);
+      }
+   }
+
+   /** most messages a single request can receive or change the visibility of. */
+   static final int MAX_BATCH = 10;
+
+   private final MessageApi api;
+   private final int receiveLoops;
+   private final int visibilityTimeout;
+   private final boolean longPolling;
+   private final ReceiveMessageOptions options;
+   private final ExecutorService executor;
+   private final ScheduledExecutorService scheduler;
+   private final boolean ownsExecutors;
+   private final Logger logger;
+
+   private final BlockingQueue<Message> buffer = new LinkedBlockingQueue<Message>();
+   private final Semaphore capacity;
+   private final ConcurrentMap<String, Message> inFlight = Maps.newConcurrentMap();
+   private final AtomicBoolean started = new AtomicBoolean();
+   private final List<Future<?>> receivers = Lists.newCopyOnWriteArrayList();
+   private final List<Future<?>> listeners = Lists.newCopyOnWriteArrayList();
+   private volatile Future<?> visibilityExtension;
+   private volatile boolean running;
+
+   private MessageConsumer(Builder builder) {
+      this.api = builder.api;
+      this.receiveLoops = builder.receiveLoops;
+      this.visibilityTimeout = builder.visibilityTimeout;
+      this.longPolling = builder.waitTimeSeconds != null;
+      this.options = builder.options.clone().visibilityTimeout(builder.visibilityTimeout)
+            .waitTimeSeconds(builder.waitTimeSeconds);
+      this.capacity = new Semaphore(builder.prefetch);
+      this.ownsExecutors = builder.executor == null;
+      this.executor = builder.executor != null ? builder.executor : Executors.newCachedThreadPool(
+            new ThreadFactoryBuilder().setNameFormat("sqs-consumer-%d").setDaemon(true).build());
+      this.scheduler = builder.scheduler != null ? builder.scheduler : Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder().setNameFormat("sqs-consumer-visibility-%d").setDaemon(true).build());
+      this.logger = builder.logger;
+   }
+
+   /**
+    * starts the receive loops and visibility extension.
+    */
+   public MessageConsumer start() {
+      checkState(started.compareAndSet(false, true), "already started");
+      running = true;
+      for (int i = 0; i < receiveLoops; i++) {
+         receivers.add(executor.submit(new Runnable() {
+            @Override
+            public void run() {
+               receiveLoop();
+            }
+         }));
+      }
+      long period = visibilityTimeout / 2;
+      visibilityExtension = scheduler.scheduleWithFixedDelay(new Runnable() {
+         @Override
+         public void run() {
+            extendVisibility();
+         }
+      }, period, period, TimeUnit.SECONDS);
+      return this;
+   }
+
+   /**
+    * starts {@code threads} tasks that take messages and pass them to {@code listener}, deleting each message
+    * processed successfully and releasing the others.
+    */
+   public MessageConsumer consume(final Listener listener, int threads) {
+      checkNotNull(listener, "listener");
+      checkState(running, "please call start() before consume");
+      for (int i = 0; i < threads; i++) {
+         listeners.add(executor.submit(new Runnable() {
+            @Override
+            public void run() {
+               while (running) {
+                  Message message;
+                  try {
+                     // polls rather than takes, so that close() can stop listeners without interrupting them
+                     message = poll(1, TimeUnit.SECONDS);
+                  } catch (InterruptedException e) {
+                     Thread.currentThread().interrupt();
+                     return;
+                  }
+                  if (message != null)
+                     dispatch(listener, message);
+               }
+            }
+         }));
+      }
+      return this;
+   }
+
+   private void dispatch(Listener listener, Message message) {
+      try {
+         listener.onMessage(message);
+      } catch (Exception e) {
+         logger.warn(e, "<< error processing message %s, releasing it", message.getId());
+         release(message);
+         return;
+      }
+      delete(message);
+   }
+
+   /**
+    * @return the next message, waiting until one is received
+    */
+   public Message take() throws InterruptedException {
+      Message message = buffer.take();
+      capacity.release();
+      return message;
+   }
+
+   /**
+    * @return the next message, or null if none was received within the timeout
+    */
+   public Message poll(long timeout, TimeUnit unit) throws InterruptedException {
+      Message message = buffer.poll(timeout, unit);
+      if (message != null)
+         capacity.release();
+      return message;
+   }
+
+   /**
+    * deletes a message taken from this consumer.
+    */
+   public void delete(Message message) {
+      inFlight.remove(message.getReceiptHandle());
+      api.delete(message.getReceiptHandle());
+   }
+
+   /**
+    * makes a message taken from this consumer visible to other consumers again.
+    */
+   public void release(Message message) {
+      inFlight.remove(message.getReceiptHandle());
+      api.changeVisibility(message.getReceiptHandle(), 0);
+   }
+
+   /**
+    * @return count of messages received and neither deleted nor released
+    */
+   public int getInFlightCount() {
+      return inFlight.size();
+   }
+
+   private void receiveLoop() {
+      while (running) {
+         try {
+            capacity.acquire();
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+         }
+         if (!running) {
+            capacity.release();
+            return;
+         }
+         int permits = 1 + drainPermits(MAX_BATCH - 1);
+         int received = 0;
+         try {
+            // buffered even when closing, as close() waits for this receive and then releases what is left
+            for (Message message : api.receive(permits, options)) {
+               inFlight.put(message.getReceiptHandle(), message);
+               buffer.add(message);
+               received++;
+            }
+            if (received == 0 && !longPolling && running && !sleep(1000))
+               return;
+         } catch (RuntimeException e) {
+            if (!running)
+               return;
+            logger.warn(e, "<< error receiving messages, retrying");
+            if (!sleep(1000))
+               return;
+         } finally {
+            capacity.release(permits - received);
+         }
+      }
+   }
+
+   private int drainPermits(int max) {
+      int acquired = 0;
+      while (acquired < max && capacity.tryAcquire())
+         acquired++;
+      return acquired;
+   }
+
+   private static boolean sleep(long millis) {
+      try {
+         Thread.sleep(millis);
+         return true;
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         return false;
+      }
+   }
+
+   @VisibleForTesting
+   void extendVisibility() {
+      changeVisibility(ImmutableList.copyOf(inFlight.keySet()), visibilityTimeout);
+   }
+
+   private void changeVisibility(Iterable<String> receiptHandles, int timeout) {
+      for (List<String> batch : Iterables.partition(receiptHandles, MAX_BATCH)) {
+         ImmutableMap.Builder<String, String> idReceiptHandle = ImmutableMap.builder();
+         for (int i = 0; i < batch.size(); i++)
+            idReceiptHandle.put(String.valueOf(i + 1), batch.get(i));
+         Map<String, String> ids = idReceiptHandle.build();
+         BatchResult<String> result;
+         try {
+            result = api.changeVisibility(ids, timeout);
+         } catch (RuntimeException e) {
+            logger.warn(e, "<< error changing visibility of %d messages", batch.size());
+            continue;
+         }
+         // a failed entry usually means the receipt handle expired, so there is nothing left to extend
+         for (Map.Entry<String, BatchError> error : result.getErrors().entrySet()) {
+            String receiptHandle = ids.get(error.getKey());
+            logger.debug("<< could not change visibility of %s: %s", receiptHandle, error.getValue());
+            if (receiptHandle != null && timeout > 0)
+               inFlight.remove(receiptHandle);
+         }
+      }
+   }
+
+   /**
+    * stops receiving and shuts down the executors owned by this consumer.
+    * <p/>
+    * Receives already sent are not interrupted: close waits for them to return, and for listeners to finish the
+    * message they are processing. Messages received but not taken are then released. Messages already taken stay in
+    * flight until they are deleted or released.
+    */
+   @Override
+   public void close() {
+      running = false;
+      // wakes receive loops waiting for buffer space, which then see they should stop
+      capacity.release(receiveLoops);
+      awaitAll(receivers);
+      awaitAll(listeners);
+      if (visibilityExtension != null)
+         visibilityExtension.cancel(false);
+      List<String> unprocessed = Lists.newArrayList();
+      for (Message message; (message = buffer.poll()) != null;) {
+         inFlight.remove(message.getReceiptHandle());
+         unprocessed.add(message.getReceiptHandle());
+      }
+      changeVisibility(unprocessed, 0);
+      if (ownsExecutors) {
+         executor.shutdown();
+         scheduler.shutdown();
+      }
+   }
+
+   private void awaitAll(List<Future<?>> tasks) {
+      for (Future<?> task : tasks) {
+         try {
+            getUninterruptibly(task);
+         } catch (ExecutionException e) {
+            logger.warn(e.getCause(), "<< error in consumer task");
+         } catch (CancellationException e) {
+            continue;
+         }
+      }
+      tasks.clear();
+   }
+
+   @Override
+   public String toString() {
+      return Objects.toStringHelper(this).add("receiveLoops", receiveLoops).add("options", options)
+            .add("buffered", buffer.size()).add("inFlight", inFlight.size()).toString();
+   }
+
+   @VisibleForTesting
+   int getBufferedCount() {
+      return buffer.size();
+   }
+}
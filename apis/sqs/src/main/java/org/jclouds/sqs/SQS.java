@@ -39,6 +39,11 @@ public class SQS {
    /**
     * Returns an iterable that lazy fetches messages until there are none left.
     * Note that this method will make multiple network calls.
+    * <p/>
+    * Iteration stops at the first empty response. Set
+    * {@link ReceiveMessageOptions#waitTimeSeconds} so that an empty response
+    * means the queue stayed empty for that long; to keep consuming, use a
+    * {@link MessageConsumer} instead.
     * 
     * @param api
     *           api targeted at the queue in question
@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.sqs;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.fail;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.easymock.EasyMock;
+import org.jclouds.sqs.domain.BatchError;
+import org.jclouds.sqs.domain.BatchResult;
+import org.jclouds.sqs.domain.MessageIdAndMD5;
+import org.jclouds.sqs.features.MessageApi;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableTable;
+import com.google.common.collect.Lists;
+import com.google.common.hash.HashCode;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+
+@Test(groups = "unit", testName = "BatchingMessageClientTest")
+public class BatchingMessageClientTest {
+
+   private static BatchingMessageClient.Builder client(MessageApi api) {
+      return BatchingMessageClient.builder(api).executor(MoreExecutors.sameThreadExecutor()).linger(1, TimeUnit.HOURS);
+   }
+
+   private static BatchResult<MessageIdAndMD5> sent(int count) {
+      BatchResult.Builder<MessageIdAndMD5> result = BatchResult.builder();
+      for (int i = 1; i <= count; i++)
+         result.put(String.valueOf(i), messageId("id" + i));
+      return result.build();
+   }
+
+   private static MessageIdAndMD5 messageId(String id) {
+      return MessageIdAndMD5.builder().id(id).md5(HashCode.fromInt(1)).build();
+   }
+
+   private static Map<String, String> bodies(int from, int count) {
+      ImmutableMap.Builder<String, String> bodies = ImmutableMap.builder();
+      for (int i = 1; i <= count; i++)
+         bodies.put(String.valueOf(i), "message" + (from + i));
+      return bodies.build();
+   }
+
+   public void testSendsFullBatchesAndFlushesTheRest() throws Exception {
+      MessageApi api = createMock(MessageApi.class);
+      EasyMock.<BatchResult<? extends MessageIdAndMD5>> expect(api.send(bodies(0, 10))).andReturn(sent(10));
+      EasyMock.<BatchResult<? extends MessageIdAndMD5>> expect(api.send(bodies(10, 10))).andReturn(sent(10));
+      EasyMock.<BatchResult<? extends MessageIdAndMD5>> expect(api.send(bodies(20, 5))).andReturn(sent(5));
+      replay(api);
+
+      BatchingMessageClient client = client(api).build();
+      List<ListenableFuture<MessageIdAndMD5>> futures = Lists.newArrayList();
+      for (int i = 1; i <= 25; i++)
+         futures.add(client.send("message" + i));
+      assertEquals(futures.get(9).get().getId(), "id10");
+      assertEquals(futures.get(19).get().getId(), "id10");
+      assertFalse(futures.get(20).isDone());
+
+      client.flush();
+      assertEquals(futures.get(24).get().getId(), "id5");
+      client.close();
+      verify(api);
+   }
+
+   public void testFailedEntriesFailTheirFuturesOnly() throws Exception {
+      MessageApi api = createMock(MessageApi.class);
+      BatchError error = BatchError.builder().id("2").code("InvalidMessageContents").message("bad").senderFault(true)
+            .build();
+      EasyMock.<BatchResult<? extends MessageIdAndMD5>> expect(api.send(bodies(0, 3))).andReturn(
+            BatchResult.<MessageIdAndMD5> builder().put("1", messageId("id1")).put("3", messageId("id3"))
+                  .addError(error).build());
+      replay(api);
+
+      BatchingMessageClient client = client(api).build();
+      ListenableFuture<MessageIdAndMD5> first = client.send("message1");
+      ListenableFuture<MessageIdAndMD5> second = client.send("message2");
+      ListenableFuture<MessageIdAndMD5> third = client.send("message3");
+      client.close();
+
+      assertEquals(first.get().getId(), "id1");
+      assertEquals(third.get().getId(), "id3");
+      try {
+         second.get();
+         fail("expected the rejected entry to fail");
+      } catch (ExecutionException e) {
+         assertEquals(BatchEntryException.class.cast(e.getCause()).getError(), error);
+      }
+      verify(api);
+   }
+
+   public void testRequestFailureFailsEveryEntry() throws Exception {
+      MessageApi api = createMock(MessageApi.class);
+      IllegalStateException failure = new IllegalStateException("unavailable");
+      expect(api.delete(ImmutableMap.of("1", "handle1", "2", "handle2"))).andThrow(failure);
+      replay(api);
+
+      BatchingMessageClient client = client(api).build();
+      List<ListenableFuture<Void>> futures = Lists.newArrayList(client.delete("handle1"), client.delete("handle2"));
+      client.close();
+
+      for (ListenableFuture<Void> future : futures) {
+         try {
+            future.get();
+            fail("expected the request failure");
+         } catch (ExecutionException e) {
+            assertEquals(e.getCause(), failure);
+         }
+      }
+      verify(api);
+   }
+
+   public void testSendsBeforeExceedingTheByteLimit() throws Exception {
+      MessageApi api = createMock(MessageApi.class);
+      EasyMock.<BatchResult<? extends MessageIdAndMD5>> expect(api.send(ImmutableMap.of("1", "12345", "2", "6789")))
+            .andReturn(sent(2));
+      EasyMock.<BatchResult<? extends MessageIdAndMD5>> expect(api.send(ImmutableMap.of("1", "abcdef")))
+            .andReturn(sent(1));
+      replay(api);
+
+      BatchingMessageClient client = client(api).maxBatchBytes(10).build();
+      client.send("12345");
+      client.send("6789");
+      ListenableFuture<MessageIdAndMD5> overflow = client.send("abcdef");
+      assertFalse(overflow.isDone());
+      client.close();
+      assertEquals(overflow.get().getId(), "id1");
+      verify(api);
+   }
+
+   public void testLingeringBatchIsSent() throws Exception {
+      MessageApi api = createMock(MessageApi.class);
+      expect(api.changeVisibility(ImmutableTable.of("1", "handle1", 60))).andReturn(
+            BatchResult.<String> builder().put("1", "1").build());
+      replay(api);
+
+      BatchingMessageClient client = client(api).linger(10, TimeUnit.MILLISECONDS).build();
+      try {
+         assertNull(client.changeVisibility("handle1", 60).get(5, TimeUnit.SECONDS));
+      } finally {
+         client.close();
+      }
+      verify(api);
+   }
+
+   @Test(expectedExceptions = IllegalStateException.class)
+   public void testClosedClientRejectsEntries() {
+      BatchingMessageClient client = client(createMock(MessageApi.class)).build();
+      client.close();
+      client.delete("handle1");
+   }
+}
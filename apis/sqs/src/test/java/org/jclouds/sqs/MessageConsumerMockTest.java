@@ -0,0 +1,336 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.sqs;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.jclouds.Constants;
+import org.jclouds.ContextBuilder;
+import org.jclouds.sqs.domain.Message;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Predicate;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.hash.Hashing;
+import com.squareup.okhttp.mockwebserver.Dispatcher;
+import com.squareup.okhttp.mockwebserver.MockResponse;
+import com.squareup.okhttp.mockwebserver.MockWebServer;
+import com.squareup.okhttp.mockwebserver.RecordedRequest;
+
+/**
+ * Runs {@link MessageConsumer} against a {@link MockWebServer} that behaves like a long-polling queue.
+ */
+@Test(groups = "unit", singleThreaded = true, testName = "MessageConsumerMockTest")
+public class MessageConsumerMockTest {
+
+   /**
+    * Serves receives from {@link #pending}, holding them for up to {@code WaitTimeSeconds} when the queue is empty.
+    */
+   static class LongPollingQueue extends Dispatcher {
+      final BlockingQueue<String> pending = new LinkedBlockingQueue<String>();
+      final List<ListMultimap<String, String>> requests = Lists.newCopyOnWriteArrayList();
+      volatile boolean failVisibilityChanges;
+
+      @Override
+      public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+         ListMultimap<String, String> params = parseForm(request.getUtf8Body());
+         requests.add(params);
+         String action = params.get("Action").get(0);
+         if (action.equals("ReceiveMessage"))
+            return receive(params);
+         if (action.equals("ChangeMessageVisibilityBatch"))
+            return changeVisibility(params);
+         return new MockResponse().setBody("<" + action + "Response><ResponseMetadata><RequestId>1</RequestId>"
+               + "</ResponseMetadata></" + action + "Response>");
+      }
+
+      private MockResponse receive(ListMultimap<String, String> params) throws InterruptedException {
+         int max = Integer.parseInt(Iterables.getOnlyElement(params.get("MaxNumberOfMessages"), "1"));
+         int wait = Integer.parseInt(Iterables.getOnlyElement(params.get("WaitTimeSeconds"), "0"));
+         List<String> bodies = Lists.newArrayList();
+         String first = pending.poll(wait, TimeUnit.SECONDS);
+         if (first != null) {
+            bodies.add(first);
+            pending.drainTo(bodies, max - 1);
+         }
+         StringBuilder xml = new StringBuilder("<ReceiveMessageResponse><ReceiveMessageResult>");
+         for (String body : bodies) {
+            xml.append("<Message><MessageId>").append(body).append("</MessageId>");
+            xml.append("<ReceiptHandle>handle-").append(body).append("</ReceiptHandle>");
+            xml.append("<MD5OfBody>").append(Hashing.md5().hashString(body, UTF_8)).append("</MD5OfBody>");
+            xml.append("<Body>").append(body).append("</Body></Message>");
+         }
+         xml.append("</ReceiveMessageResult></ReceiveMessageResponse>");
+         return new MockResponse().setBody(xml.toString());
+      }
+
+      private MockResponse changeVisibility(ListMultimap<String, String> params) {
+         StringBuilder xml = new StringBuilder("<ChangeMessageVisibilityBatchResponse>"
+               + "<ChangeMessageVisibilityBatchResult>");
+         for (int i = 1; params.containsKey("ChangeMessageVisibilityBatchRequestEntry." + i + ".Id"); i++) {
+            String id = params.get("ChangeMessageVisibilityBatchRequestEntry." + i + ".Id").get(0);
+            if (failVisibilityChanges)
+               xml.append("<BatchResultErrorEntry><Id>").append(id).append("</Id>")
+                     .append("<Code>ReceiptHandleIsInvalid</Code><Message>expired</Message>")
+                     .append("<SenderFault>true</SenderFault></BatchResultErrorEntry>");
+            else
+               xml.append("<ChangeMessageVisibilityBatchResultEntry><Id>").append(id)
+                     .append("</Id></ChangeMessageVisibilityBatchResultEntry>");
+         }
+         xml.append("</ChangeMessageVisibilityBatchResult></ChangeMessageVisibilityBatchResponse>");
+         return new MockResponse().setBody(xml.toString());
+      }
+
+      List<ListMultimap<String, String>> requests(final String action) {
+         return Lists.newArrayList(Iterables.filter(requests, new Predicate<ListMultimap<String, String>>() {
+            @Override
+            public boolean apply(ListMultimap<String, String> input) {
+               return input.get("Action").contains(action);
+            }
+         }));
+      }
+   }
+
+   private LongPollingQueue queue;
+   private MockWebServer server;
+   private SQSApi api;
+
+   @BeforeMethod
+   public void setUp() throws IOException {
+      queue = new LongPollingQueue();
+      server = new MockWebServer();
+      server.setDispatcher(queue);
+      server.play();
+      Properties overrides = new Properties();
+      overrides.setProperty(Constants.PROPERTY_API_VERSION, "2012-11-05");
+      api = ContextBuilder.newBuilder("sqs").credentials("identity", "credential")
+            .endpoint(server.getUrl("/").toString()).overrides(overrides).buildApi(SQSApi.class);
+   }
+
+   @AfterMethod(alwaysRun = true)
+   public void tearDown() throws IOException {
+      api.close();
+      server.shutdown();
+   }
+
+   private MessageConsumer.Builder consumer() {
+      return MessageConsumer.builder(api.getMessageApiForQueue(URI.create(server.getUrl("/123/queue").toString())))
+            .waitTimeSeconds(1);
+   }
+
+   public void testLongPollsUntilAllMessagesAreTaken() throws Exception {
+      MessageConsumer consumer = consumer().receiveLoops(3).prefetch(5).build().start();
+      try {
+         Set<String> expected = Sets.newHashSet();
+         for (int i = 0; i < 25; i++) {
+            expected.add("message" + i);
+            queue.pending.add("message" + i);
+         }
+         Set<String> taken = Sets.newHashSet();
+         for (int i = 0; i < 25; i++) {
+            Message message = consumer.poll(5, TimeUnit.SECONDS);
+            taken.add(message.getBody());
+            consumer.delete(message);
+         }
+         assertEquals(taken, expected);
+         assertEquals(consumer.getInFlightCount(), 0);
+         assertEquals(queue.requests("DeleteMessage").size(), 25);
+      } finally {
+         consumer.close();
+      }
+      ListMultimap<String, String> receive = queue.requests("ReceiveMessage").get(0);
+      assertEquals(receive.get("WaitTimeSeconds").get(0), "1");
+      assertEquals(receive.get("VisibilityTimeout").get(0), "30");
+      assertEquals(receive.get("Version").get(0), "2012-11-05");
+   }
+
+   public void testPrefetchIsBounded() throws Exception {
+      for (int i = 0; i < 50; i++)
+         queue.pending.add("message" + i);
+      MessageConsumer consumer = consumer().receiveLoops(4).prefetch(5).build().start();
+      try {
+         while (consumer.getBufferedCount() < 5)
+            Thread.sleep(10);
+         Thread.sleep(200);
+         assertEquals(consumer.getBufferedCount(), 5);
+         assertEquals(queue.pending.size(), 45);
+         for (ListMultimap<String, String> receive : queue.requests("ReceiveMessage"))
+            assertTrue(Integer.parseInt(receive.get("MaxNumberOfMessages").get(0)) <= 5, receive.toString());
+      } finally {
+         consumer.close();
+      }
+   }
+
+   public void testExtendsVisibilityOfInFlightMessagesInBatches() throws Exception {
+      for (int i = 0; i < 12; i++)
+         queue.pending.add("message" + i);
+      MessageConsumer consumer = consumer().receiveLoops(1).prefetch(12).visibilityTimeout(60).build().start();
+      try {
+         for (int i = 0; i < 12; i++)
+            consumer.poll(5, TimeUnit.SECONDS);
+         consumer.extendVisibility();
+
+         List<ListMultimap<String, String>> changes = queue.requests("ChangeMessageVisibilityBatch");
+         assertEquals(changes.size(), 2);
+         Set<String> handles = Sets.newHashSet();
+         for (ListMultimap<String, String> change : changes) {
+            for (Map.Entry<String, String> param : change.entries()) {
+               if (param.getKey().endsWith(".ReceiptHandle"))
+                  handles.add(param.getValue());
+               if (param.getKey().endsWith(".VisibilityTimeout"))
+                  assertEquals(param.getValue(), "60");
+            }
+         }
+         assertEquals(handles.size(), 12);
+         assertEquals(consumer.getInFlightCount(), 12);
+
+         queue.failVisibilityChanges = true;
+         consumer.extendVisibility();
+         assertEquals(consumer.getInFlightCount(), 0);
+      } finally {
+         consumer.close();
+      }
+   }
+
+   public void testListenerDeletesProcessedAndReleasesFailedMessages() throws Exception {
+      queue.pending.addAll(ImmutableSet.of("ok1", "fail", "ok2"));
+      MessageConsumer consumer = consumer().receiveLoops(2).build().start();
+      try {
+         consumer.consume(new MessageConsumer.Listener() {
+            @Override
+            public void onMessage(Message message) {
+               if (message.getBody().equals("fail"))
+                  throw new IllegalStateException("failed to process " + message.getBody());
+            }
+         }, 2);
+         long deadline = System.currentTimeMillis() + 5000;
+         while ((queue.requests("DeleteMessage").size() < 2 || queue.requests("ChangeMessageVisibility").isEmpty())
+               && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+      } finally {
+         consumer.close();
+      }
+      Set<String> deleted = Sets.newHashSet();
+      for (ListMultimap<String, String> delete : queue.requests("DeleteMessage"))
+         deleted.addAll(delete.get("ReceiptHandle"));
+      assertEquals(deleted, ImmutableSet.of("handle-ok1", "handle-ok2"));
+      ListMultimap<String, String> release = Iterables.getOnlyElement(queue.requests("ChangeMessageVisibility"));
+      assertEquals(release.get("ReceiptHandle").get(0), "handle-fail");
+      assertEquals(release.get("VisibilityTimeout").get(0), "0");
+      assertEquals(consumer.getInFlightCount(), 0);
+   }
+
+   public void testCloseReleasesBufferedMessages() throws Exception {
+      queue.pending.addAll(ImmutableSet.of("message1", "message2", "message3"));
+      MessageConsumer consumer = consumer().receiveLoops(1).prefetch(3).build().start();
+      while (consumer.getBufferedCount() < 3)
+         Thread.sleep(10);
+      Message taken = consumer.take();
+      consumer.close();
+
+      assertNull(consumer.poll(0, TimeUnit.SECONDS));
+      assertEquals(consumer.getInFlightCount(), 1);
+      Set<String> released = Sets.newHashSet();
+      for (ListMultimap<String, String> change : queue.requests("ChangeMessageVisibilityBatch")) {
+         for (Map.Entry<String, String> param : change.entries()) {
+            if (param.getKey().endsWith(".ReceiptHandle"))
+               released.add(param.getValue());
+            if (param.getKey().endsWith(".VisibilityTimeout"))
+               assertEquals(param.getValue(), "0");
+         }
+      }
+      assertEquals(released.size(), 2);
+      assertFalse(released.contains(taken.getReceiptHandle()), released.toString());
+   }
+
+   public void testCloseWaitsForReceivesInProgressAndReleasesWhatTheyReturn() throws Exception {
+      MessageConsumer consumer = consumer().receiveLoops(1).build().start();
+      while (queue.requests("ReceiveMessage").isEmpty())
+         Thread.sleep(10);
+      new Thread() {
+         @Override
+         public void run() {
+            try {
+               Thread.sleep(200);
+            } catch (InterruptedException e) {
+               return;
+            }
+            queue.pending.add("late");
+         }
+      }.start();
+      consumer.close();
+
+      assertEquals(consumer.getInFlightCount(), 0);
+      ListMultimap<String, String> release = Iterables.getOnlyElement(queue.requests("ChangeMessageVisibilityBatch"));
+      assertEquals(release.get("ChangeMessageVisibilityBatchRequestEntry.1.ReceiptHandle").get(0), "handle-late");
+      assertEquals(release.get("ChangeMessageVisibilityBatchRequestEntry.1.VisibilityTimeout").get(0), "0");
+   }
+
+   public void testDoesNotLongPollUnlessAsked() throws Exception {
+      queue.pending.add("message");
+      MessageConsumer consumer = MessageConsumer.builder(
+            api.getMessageApiForQueue(URI.create(server.getUrl("/123/queue").toString()))).receiveLoops(1).build()
+            .start();
+      try {
+         consumer.delete(consumer.poll(5, TimeUnit.SECONDS));
+      } finally {
+         consumer.close();
+      }
+      assertFalse(queue.requests("ReceiveMessage").get(0).containsKey("WaitTimeSeconds"));
+   }
+
+   static ListMultimap<String, String> parseForm(String body) {
+      ImmutableListMultimap.Builder<String, String> params = ImmutableListMultimap.builder();
+      for (String pair : Splitter.on('&').omitEmptyStrings().split(body)) {
+         List<String> keyValue = Lists.newArrayList(Splitter.on('=').limit(2).split(pair));
+         params.put(decode(keyValue.get(0)), keyValue.size() > 1 ? decode(keyValue.get(1)) : "");
+      }
+      return params.build();
+   }
+
+   private static String decode(String in) {
+      try {
+         return URLDecoder.decode(in, "UTF-8");
+      } catch (UnsupportedEncodingException e) {
+         throw new AssertionError(e);
+      }
+   }
+}
@@ -16,12 +16,15 @@
  */
 package org.jclouds.blobstore;
 
+import java.io.OutputStream;
 import java.util.Iterator;
 
+import org.jclouds.blobstore.domain.BlobMetadata;
 import org.jclouds.blobstore.domain.PageSet;
 import org.jclouds.blobstore.domain.StorageMetadata;
 import org.jclouds.blobstore.options.ListAllOptions;
 import org.jclouds.blobstore.options.ListContainerOptions;
+import org.jclouds.blobstore.util.BlobOutputStream;
 
 import com.google.common.annotations.Beta;
 import com.google.common.collect.AbstractIterator;
@@ -102,4 +105,16 @@ public class BlobStores {
       };
    }
 
+   /**
+    * Opens a stream that stores everything written to it as the blob described by {@code metadata}, for content whose
+    * length is not known up front. Large content is sent as a multipart upload; the blob is only visible once the
+    * stream is closed.
+    * 
+    * @see BlobOutputStream
+    */
+   @Beta
+   public static OutputStream newOutputStream(BlobStore blobStore, String container, BlobMetadata metadata) {
+      return BlobOutputStream.builder(blobStore, container, metadata).build();
+   }
+
 }
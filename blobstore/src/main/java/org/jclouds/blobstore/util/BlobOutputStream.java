@@ -0,0 +1,366 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkPositionIndexes;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.jclouds.blobstore.BlobStore;
+import org.jclouds.blobstore.domain.Blob;
+import org.jclouds.blobstore.domain.BlobMetadata;
+import org.jclouds.blobstore.domain.MultipartPart;
+import org.jclouds.blobstore.domain.MultipartUpload;
+import org.jclouds.http.HttpUtils;
+import org.jclouds.io.Payload;
+import org.jclouds.io.Payloads;
+import org.jclouds.logging.Logger;
+
+import com.google.common.annotations.Beta;
+import com.google.common.collect.Lists;
+import com.google.common.hash.HashCode;
+import com.google.common.io.ByteSource;
+import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * An {@link OutputStream} that uploads whatever is written to it as a single blob, without knowing the content length
+ * up front.
+ * <p/>
+ * Written bytes are collected in fixed-size part buffers. Once a buffer is full it is uploaded as a part of a multipart
+ * upload on the executor, while the caller keeps writing into the next buffer. Buffers are recycled from a pool of
+ * {@code parallelism + 1}, so writers block rather than allocate when uploads fall behind, and memory use never exceeds
+ * {@code partSize * (parallelism + 1)}.
+ * <p/>
+ * {@link #close()} completes the multipart upload. If everything written fits in a single part, no multipart upload is
+ * started at all and the content is stored with a plain {@link BlobStore#putBlob}. If any upload fails, the multipart
+ * upload is aborted and the failure is rethrown from the next {@code write} or from {@code close}.
+ * 
+ * <pre>
+ * OutputStream out = BlobOutputStream.builder(blobStore, container, metadata).partSize(16 * 1024 * 1024).build();
+ * try {
+ *    dump(out);
+ * } finally {
+ *    out.close();
+ * }
+ * </pre>
+ */
+@Beta
+public class BlobOutputStream extends OutputStream {
+
+   public static final long DEFAULT_PART_SIZE = 8 * 1024 * 1024;
+   public static final int DEFAULT_PARALLELISM = 4;
+
+   public static Builder builder(BlobStore blobStore, String container, BlobMetadata metadata) {
+      return new Builder(blobStore, container, metadata);
+   }
+
+   public static class Builder {
+      private final BlobStore blobStore;
+      private final String container;
+      private final BlobMetadata metadata;
+      private long partSize = DEFAULT_PART_SIZE;
+      private int parallelism = DEFAULT_PARALLELISM;
+      private ExecutorService executor;
+      private Logger logger = Logger.NULL;
+
+      private Builder(BlobStore blobStore, String container, BlobMetadata metadata) {
+         this.blobStore = checkNotNull(blobStore, "blobStore");
+         this.container = checkNotNull(container, "container");
+         this.metadata = checkNotNull(metadata, "metadata");
+      }
+
+      /**
+       * Size of each uploaded part, adjusted to the minimum and maximum part size of the blob store. Defaults to
+       * {@link #DEFAULT_PART_SIZE}.
+       */
+      public Builder partSize(long partSize) {
+         checkArgument(partSize > 0, "partSize must be positive");
+         this.partSize = partSize;
+         return this;
+      }
+
+      /**
+       * Maximum number of parts uploaded concurrently. Defaults to {@link #DEFAULT_PARALLELISM}.
+       */
+      public Builder parallelism(int parallelism) {
+         checkArgument(parallelism > 0, "parallelism must be positive");
+         this.parallelism = parallelism;
+         return this;
+      }
+
+      /**
+       * Executor used to upload parts. When not set, a pool of {@code parallelism} threads is created and shut down
+       * when the stream is closed.
+       */
+      public Builder executor(ExecutorService executor) {
+         this.executor = checkNotNull(executor, "executor");
+         return this;
+      }
+
+      public Builder logger(Logger logger) {
+         this.logger = checkNotNull(logger, "logger");
+         return this;
+      }
+
+      public BlobOutputStream build() {
+         long size = Math.max(partSize, blobStore.getMinimumMultipartPartSize());
+         size = Math.min(size, blobStore.getMaximumMultipartPartSize());
+         return new BlobOutputStream(this, Ints.checkedCast(size));
+      }
+   }
+
+   private final BlobStore blobStore;
+   private final String container;
+   private final BlobMetadata metadata;
+   private final int partSize;
+   private final int maxBuffers;
+   private final ExecutorService executor;
+   private final boolean ownsExecutor;
+   private final Logger logger;
+
+   private final BlockingQueue<byte[]> freeBuffers;
+   private final List<Future<MultipartPart>> parts = Lists.newArrayList();
+   private final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+   private int allocatedBuffers;
+   private byte[] buffer;
+   private int count;
+   private MultipartUpload mpu;
+   private boolean closed;
+
+   private BlobOutputStream(Builder builder, int partSize) {
+      this.blobStore = builder.blobStore;
+      this.container = builder.container;
+      this.metadata = builder.metadata;
+      this.partSize = partSize;
+      this.maxBuffers = builder.parallelism + 1;
+      this.freeBuffers = new ArrayBlockingQueue<byte[]>(maxBuffers);
+      this.ownsExecutor = builder.executor == null;
+      this.executor = ownsExecutor ? Executors.newFixedThreadPool(builder.parallelism, new ThreadFactoryBuilder()
+            .setNameFormat("blob-upload-" + metadata.getName().replace("%", "%%") + "-%d").setDaemon(true).build())
+            : builder.executor;
+      this.logger = builder.logger;
+   }
+
+   /**
+    * @return the part size in use, after adjusting for the limits of the blob store
+    */
+   public int getPartSize() {
+      return partSize;
+   }
+
+   @Override
+   public void write(int b) throws IOException {
+      ensureBuffer();
+      buffer[count++] = (byte) b;
+   }
+
+   @Override
+   public void write(byte[] b, int off, int len) throws IOException {
+      checkPositionIndexes(off, off + len, b.length);
+      while (len > 0) {
+         ensureBuffer();
+         int n = Math.min(len, partSize - count);
+         System.arraycopy(b, off, buffer, count, n);
+         count += n;
+         off += n;
+         len -= n;
+      }
+   }
+
+   /**
+    * Makes sure there is room in the current buffer, handing a full one over to the uploader first.
+    */
+   private void ensureBuffer() throws IOException {
+      checkState();
+      if (buffer == null) {
+         buffer = nextBuffer();
+      } else if (count == partSize) {
+         uploadPart();
+         buffer = nextBuffer();
+      }
+   }
+
+   private byte[] nextBuffer() throws IOException {
+      byte[] free = freeBuffers.poll();
+      if (free != null)
+         return free;
+      if (allocatedBuffers < maxBuffers) {
+         allocatedBuffers++;
+         return new byte[partSize];
+      }
+      try {
+         // every buffer is queued or in flight; wait for an upload to hand one back
+         return freeBuffers.take();
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         throw new InterruptedIOException("interrupted waiting for a part upload to finish");
+      }
+   }
+
+   private void uploadPart() throws IOException {
+      if (mpu == null) {
+         mpu = blobStore.initiateMultipartUpload(container, metadata);
+         logger.debug(">> started multipart upload of %s/%s", container, metadata.getName());
+      }
+      final int partNumber = parts.size() + 1;
+      if (partNumber > blobStore.getMaximumNumberOfParts()) {
+         throw fail(new IOException(String.format("%s/%s exceeds the maximum of %d parts of %d bytes", container,
+               metadata.getName(), blobStore.getMaximumNumberOfParts(), partSize)));
+      }
+      final byte[] part = buffer;
+      final int length = count;
+      final MultipartUpload upload = mpu;
+      buffer = null;
+      count = 0;
+      parts.add(executor.submit(new Callable<MultipartPart>() {
+         @Override
+         public MultipartPart call() {
+            try {
+               if (failure.get() != null)
+                  throw new IllegalStateException("upload already failed", failure.get());
+               MultipartPart uploaded = blobStore.uploadMultipartPart(upload, partNumber, payload(part, length));
+               logger.trace("<< uploaded part %d (%d bytes) of %s/%s", partNumber, length, container,
+                     metadata.getName());
+               return uploaded;
+            } catch (RuntimeException e) {
+               failure.compareAndSet(null, e);
+               throw e;
+            } finally {
+               freeBuffers.offer(part);
+            }
+         }
+      }));
+   }
+
+   @Override
+   public void close() throws IOException {
+      if (closed)
+         return;
+      closed = true;
+      try {
+         checkFailure();
+         if (mpu == null) {
+            putSingleBlob();
+         } else {
+            if (count > 0)
+               uploadPart();
+            completeUpload();
+         }
+      } catch (IOException e) {
+         throw fail(e);
+      } catch (RuntimeException e) {
+         throw fail(e);
+      } finally {
+         buffer = null;
+         freeBuffers.clear();
+         if (ownsExecutor)
+            executor.shutdown();
+      }
+   }
+
+   private void putSingleBlob() {
+      Payload payload = payload(buffer == null ? new byte[0] : buffer, count);
+      HttpUtils.copy(metadata.getContentMetadata(), payload.getContentMetadata());
+      payload.getContentMetadata().setContentLength((long) count);
+      // the multipart path cannot honour a digest of the whole content either
+      payload.getContentMetadata().setContentMD5((HashCode) null);
+      Blob blob = blobStore.blobBuilder(metadata.getName()).userMetadata(metadata.getUserMetadata())
+            .payload(payload).build();
+      blobStore.putBlob(container, blob);
+      logger.debug("<< stored %s/%s (%d bytes) in a single request", container, metadata.getName(), count);
+   }
+
+   private void completeUpload() throws IOException {
+      List<MultipartPart> uploaded = Lists.newArrayListWithCapacity(parts.size());
+      for (Future<MultipartPart> part : parts) {
+         try {
+            uploaded.add(part.get());
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted waiting for part uploads to finish");
+         } catch (ExecutionException e) {
+            throw new IOException("error uploading a part of " + container + "/" + metadata.getName(), e.getCause());
+         }
+      }
+      Collections.sort(uploaded, new Comparator<MultipartPart>() {
+         @Override
+         public int compare(MultipartPart left, MultipartPart right) {
+            return Ints.compare(left.partNumber(), right.partNumber());
+         }
+      });
+      blobStore.completeMultipartUpload(mpu, uploaded);
+      logger.debug("<< completed multipart upload of %s/%s in %d parts", container, metadata.getName(),
+            uploaded.size());
+   }
+
+   private static Payload payload(byte[] bytes, int length) {
+      Payload payload = Payloads.newByteSourcePayload(ByteSource.wrap(bytes).slice(0, length));
+      payload.getContentMetadata().setContentLength((long) length);
+      return payload;
+   }
+
+   private void checkState() throws IOException {
+      if (closed)
+         throw new IOException("stream closed");
+      checkFailure();
+   }
+
+   private void checkFailure() throws IOException {
+      Throwable cause = failure.get();
+      if (cause != null)
+         throw fail(new IOException("error uploading a part of " + container + "/" + metadata.getName(), cause));
+   }
+
+   /**
+    * Records the failure, cancels outstanding parts and aborts the multipart upload, if one was started.
+    */
+   private <T extends Exception> T fail(T e) {
+      failure.compareAndSet(null, e);
+      closed = true;
+      for (Future<MultipartPart> part : parts)
+         part.cancel(false);
+      if (mpu != null) {
+         MultipartUpload toAbort = mpu;
+         mpu = null;
+         try {
+            blobStore.abortMultipartUpload(toAbort);
+            logger.debug("<< aborted multipart upload of %s/%s", container, metadata.getName());
+         } catch (RuntimeException abortFailure) {
+            logger.warn(abortFailure, "error aborting multipart upload of %s/%s", container, metadata.getName());
+         }
+      }
+      if (ownsExecutor)
+         executor.shutdown();
+      return e;
+   }
+}
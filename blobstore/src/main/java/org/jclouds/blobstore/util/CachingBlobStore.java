@@ -0,0 +1,389 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.jclouds.blobstore.BlobStore;
+import org.jclouds.blobstore.domain.Blob;
+import org.jclouds.blobstore.domain.BlobMetadata;
+import org.jclouds.blobstore.domain.MultipartPart;
+import org.jclouds.blobstore.domain.MultipartUpload;
+import org.jclouds.blobstore.domain.PageSet;
+import org.jclouds.blobstore.domain.StorageMetadata;
+import org.jclouds.blobstore.domain.StorageType;
+import org.jclouds.blobstore.options.CopyOptions;
+import org.jclouds.blobstore.options.ListContainerOptions;
+import org.jclouds.blobstore.options.PutOptions;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Objects;
+import com.google.common.base.Optional;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+
+/**
+ * A {@link BlobStore} that remembers the results of {@link #blobMetadata} and {@link #blobExists}, including the
+ * absence of a blob, so that repeated checks of the same blob do not each cost a request.
+ * <p/>
+ * Entries are bounded in number and expire a fixed time after they were loaded. Writes made through this instance
+ * ({@code putBlob}, {@code copyBlob}, {@code removeBlob}, completing a multipart upload, clearing or deleting
+ * containers and directories) invalidate the affected entries. Changes made by other clients are only seen once the
+ * entry expires, or after one of the {@code invalidate} methods is called, so the expiry is the upper bound on how
+ * stale a result can be. A lookup that overlaps a write through this instance is returned but not cached, so it
+ * cannot overwrite the invalidation with what it read before the write completed.
+ * <p/>
+ * When {@link Builder#warmFromListings} is enabled, blobs returned by {@code list} are cached as well. Most providers
+ * return only part of the metadata in listings (user metadata and content type are typically missing), so only
+ * enable this when callers rely on fields such as size, ETag and last modified date.
+ * 
+ * <pre>
+ * BlobStore cached = CachingBlobStore.builder(blobStore).maximumSize(10000).expireAfterWrite(30, TimeUnit.SECONDS)
+ *       .build();
+ * </pre>
+ */
+@Beta
+public final class CachingBlobStore extends ForwardingBlobStore {
+
+   public static Builder builder(BlobStore blobStore) {
+      return new Builder(blobStore);
+   }
+
+   public static class Builder {
+      private final BlobStore blobStore;
+      private long maximumSize = 10000;
+      private long expireAfterWriteNanos = TimeUnit.SECONDS.toNanos(60);
+      private boolean warmFromListings;
+      private Ticker ticker = Ticker.systemTicker();
+
+      private Builder(BlobStore blobStore) {
+         this.blobStore = checkNotNull(blobStore, "blobStore");
+      }
+
+      /**
+       * Maximum number of blobs, present or absent, to remember. Defaults to 10000.
+       */
+      public Builder maximumSize(long maximumSize) {
+         checkArgument(maximumSize >= 0, "maximumSize must not be negative");
+         this.maximumSize = maximumSize;
+         return this;
+      }
+
+      /**
+       * How long a result is trusted after it was loaded. Defaults to 60 seconds.
+       */
+      public Builder expireAfterWrite(long duration, TimeUnit unit) {
+         checkArgument(duration >= 0, "duration must not be negative");
+         this.expireAfterWriteNanos = unit.toNanos(duration);
+         return this;
+      }
+
+      /**
+       * Whether blobs returned by {@code list} populate the cache. Defaults to false.
+       */
+      public Builder warmFromListings(boolean warmFromListings) {
+         this.warmFromListings = warmFromListings;
+         return this;
+      }
+
+      /**
+       * Time source used for expiry, for testing.
+       */
+      public Builder ticker(Ticker ticker) {
+         this.ticker = checkNotNull(ticker, "ticker");
+         return this;
+      }
+
+      public CachingBlobStore build() {
+         return new CachingBlobStore(this);
+      }
+   }
+
+   /** number of generation counters keys are spread over; a shared counter only costs a missed cache fill. */
+   private static final int GENERATION_STRIPES = 64;
+
+   private final Cache<Key, Optional<BlobMetadata>> cache;
+   private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+   private final boolean warmFromListings;
+
+   private CachingBlobStore(Builder builder) {
+      super(builder.blobStore);
+      this.cache = CacheBuilder.newBuilder().maximumSize(builder.maximumSize)
+            .expireAfterWrite(builder.expireAfterWriteNanos, TimeUnit.NANOSECONDS).ticker(builder.ticker)
+            .recordStats().build();
+      this.warmFromListings = builder.warmFromListings;
+   }
+
+   /**
+    * @return hit and miss counts of {@link #blobMetadata} and {@link #blobExists} lookups
+    */
+   public CacheStats stats() {
+      return cache.stats();
+   }
+
+   /**
+    * @return the number of blobs currently remembered
+    */
+   public long size() {
+      return cache.size();
+   }
+
+   public void invalidate(String container, String name) {
+      Key key = new Key(container, name);
+      generations.incrementAndGet(key.stripe());
+      cache.invalidate(key);
+   }
+
+   /**
+    * Forgets every blob in {@code container} whose name starts with {@code prefix}.
+    */
+   public void invalidatePrefix(String container, String prefix) {
+      checkNotNull(container, "container");
+      checkNotNull(prefix, "prefix");
+      for (int i = 0; i < GENERATION_STRIPES; i++)
+         generations.incrementAndGet(i);
+      for (Iterator<Key> keys = cache.asMap().keySet().iterator(); keys.hasNext();) {
+         Key key = keys.next();
+         if (key.container.equals(container) && key.name.startsWith(prefix))
+            keys.remove();
+      }
+   }
+
+   public void invalidateContainer(String container) {
+      invalidatePrefix(container, "");
+   }
+
+   public void invalidateAll() {
+      for (int i = 0; i < GENERATION_STRIPES; i++)
+         generations.incrementAndGet(i);
+      cache.invalidateAll();
+   }
+
+   /**
+    * Caches a result read since {@code generation} was taken, unless the key was invalidated in the meantime. The
+    * generation is checked again after the put, as an invalidation between the check and the put could otherwise be
+    * overwritten.
+    */
+   private void cacheIfUnchanged(Key key, long generation, Optional<BlobMetadata> value) {
+      if (generations.get(key.stripe()) != generation)
+         return;
+      cache.put(key, value);
+      if (generations.get(key.stripe()) != generation)
+         cache.invalidate(key);
+   }
+
+   @Override
+   public BlobMetadata blobMetadata(String container, String name) {
+      Key key = new Key(container, name);
+      Optional<BlobMetadata> cached = cache.getIfPresent(key);
+      if (cached != null)
+         return cached.orNull();
+      long generation = generations.get(key.stripe());
+      BlobMetadata metadata = delegate().blobMetadata(container, name);
+      cacheIfUnchanged(key, generation, Optional.fromNullable(metadata));
+      return metadata;
+   }
+
+   /**
+    * Answered from {@link #blobMetadata}, so that the check also loads the metadata a subsequent call is likely to ask
+    * for.
+    */
+   @Override
+   public boolean blobExists(String container, String name) {
+      return blobMetadata(container, name) != null;
+   }
+
+   @Override
+   public Blob getBlob(String container, String name) {
+      Key key = new Key(container, name);
+      long generation = generations.get(key.stripe());
+      Blob blob = delegate().getBlob(container, name);
+      if (blob == null)
+         cacheIfUnchanged(key, generation, Optional.<BlobMetadata> absent());
+      return blob;
+   }
+
+   @Override
+   public PageSet<? extends StorageMetadata> list(String container) {
+      long[] snapshot = snapshotGenerations();
+      return warm(container, delegate().list(container), snapshot);
+   }
+
+   @Override
+   public PageSet<? extends StorageMetadata> list(String container, ListContainerOptions options) {
+      long[] snapshot = snapshotGenerations();
+      return warm(container, delegate().list(container, options), snapshot);
+   }
+
+   private long[] snapshotGenerations() {
+      long[] snapshot = new long[GENERATION_STRIPES];
+      for (int i = 0; i < GENERATION_STRIPES; i++)
+         snapshot[i] = generations.get(i);
+      return snapshot;
+   }
+
+   private PageSet<? extends StorageMetadata> warm(String container, PageSet<? extends StorageMetadata> page,
+         long[] snapshot) {
+      if (warmFromListings) {
+         for (StorageMetadata metadata : page) {
+            if (metadata.getType() == StorageType.BLOB && metadata instanceof BlobMetadata) {
+               Key key = new Key(container, metadata.getName());
+               cacheIfUnchanged(key, snapshot[key.stripe()], Optional.of(BlobMetadata.class.cast(metadata)));
+            }
+         }
+      }
+      return page;
+   }
+
+   @Override
+   public String putBlob(String container, Blob blob) {
+      try {
+         return delegate().putBlob(container, blob);
+      } finally {
+         invalidate(container, blob.getMetadata().getName());
+      }
+   }
+
+   @Override
+   public String putBlob(String container, Blob blob, PutOptions options) {
+      try {
+         return delegate().putBlob(container, blob, options);
+      } finally {
+         invalidate(container, blob.getMetadata().getName());
+      }
+   }
+
+   @Override
+   public String copyBlob(String fromContainer, String fromName, String toContainer, String toName,
+         CopyOptions options) {
+      try {
+         return delegate().copyBlob(fromContainer, fromName, toContainer, toName, options);
+      } finally {
+         invalidate(toContainer, toName);
+      }
+   }
+
+   @Override
+   public String completeMultipartUpload(MultipartUpload mpu, List<MultipartPart> parts) {
+      try {
+         return delegate().completeMultipartUpload(mpu, parts);
+      } finally {
+         invalidate(mpu.containerName(), mpu.blobName());
+      }
+   }
+
+   @Override
+   public void removeBlob(String container, String name) {
+      try {
+         delegate().removeBlob(container, name);
+      } finally {
+         invalidate(container, name);
+      }
+   }
+
+   @Override
+   public void removeBlobs(String container, Iterable<String> names) {
+      try {
+         delegate().removeBlobs(container, names);
+      } finally {
+         for (String name : names)
+            invalidate(container, name);
+      }
+   }
+
+   @Override
+   public void deleteDirectory(String container, String directory) {
+      try {
+         delegate().deleteDirectory(container, directory);
+      } finally {
+         invalidatePrefix(container, directory);
+      }
+   }
+
+   @Override
+   public void clearContainer(String container) {
+      try {
+         delegate().clearContainer(container);
+      } finally {
+         invalidateContainer(container);
+      }
+   }
+
+   @Override
+   public void clearContainer(String container, ListContainerOptions options) {
+      try {
+         delegate().clearContainer(container, options);
+      } finally {
+         invalidatePrefix(container, options.getDir() != null ? options.getDir() : "");
+      }
+   }
+
+   @Override
+   public void deleteContainer(String container) {
+      try {
+         delegate().deleteContainer(container);
+      } finally {
+         invalidateContainer(container);
+      }
+   }
+
+   @Override
+   public boolean deleteContainerIfEmpty(String container) {
+      try {
+         return delegate().deleteContainerIfEmpty(container);
+      } finally {
+         invalidateContainer(container);
+      }
+   }
+
+   private static final class Key {
+      private final String container;
+      private final String name;
+
+      private Key(String container, String name) {
+         this.container = checkNotNull(container, "container");
+         this.name = checkNotNull(name, "name");
+      }
+
+      @Override
+      public boolean equals(Object obj) {
+         if (this == obj)
+            return true;
+         if (!(obj instanceof Key))
+            return false;
+         Key that = (Key) obj;
+         return container.equals(that.container) && name.equals(that.name);
+      }
+
+      @Override
+      public int hashCode() {
+         return Objects.hashCode(container, name);
+      }
+
+      private int stripe() {
+         return (hashCode() & Integer.MAX_VALUE) % GENERATION_STRIPES;
+      }
+   }
+}
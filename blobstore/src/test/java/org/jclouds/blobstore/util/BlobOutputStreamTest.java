@@ -0,0 +1,235 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.util;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jclouds.ContextBuilder;
+import org.jclouds.blobstore.BlobStore;
+import org.jclouds.blobstore.BlobStoreContext;
+import org.jclouds.blobstore.domain.Blob;
+import org.jclouds.blobstore.domain.BlobMetadata;
+import org.jclouds.blobstore.domain.MultipartPart;
+import org.jclouds.blobstore.domain.MultipartUpload;
+import org.jclouds.blobstore.domain.MutableBlobMetadata;
+import org.jclouds.blobstore.domain.internal.MutableBlobMetadataImpl;
+import org.jclouds.io.Payload;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.io.ByteStreams;
+
+@Test(groups = "unit", singleThreaded = true, testName = "BlobOutputStreamTest")
+public class BlobOutputStreamTest {
+
+   private static final String CONTAINER = "container";
+
+   private BlobStoreContext context;
+   private RecordingBlobStore blobStore;
+
+   @BeforeMethod
+   public void setUp() {
+      context = ContextBuilder.newBuilder("transient").build(BlobStoreContext.class);
+      blobStore = new RecordingBlobStore(context.getBlobStore());
+      blobStore.createContainerInLocation(null, CONTAINER);
+   }
+
+   @AfterMethod(alwaysRun = true)
+   public void tearDown() {
+      context.close();
+   }
+
+   public void testSmallOutputIsStoredWithSinglePut() throws IOException {
+      byte[] content = randomBytes(100);
+      OutputStream out = BlobOutputStream.builder(blobStore, CONTAINER, metadata("small")).partSize(1024).build();
+      out.write(content);
+      out.close();
+
+      assertEquals(blobStore.initiated.get(), 0);
+      assertEquals(blobStore.puts.get(), 1);
+      assertEquals(read("small"), content);
+   }
+
+   public void testOutputOfExactlyOnePartIsStoredWithSinglePut() throws IOException {
+      byte[] content = randomBytes(1024);
+      OutputStream out = BlobOutputStream.builder(blobStore, CONTAINER, metadata("exact")).partSize(1024).build();
+      out.write(content);
+      out.close();
+
+      assertEquals(blobStore.initiated.get(), 0);
+      assertEquals(read("exact"), content);
+   }
+
+   public void testEmptyOutput() throws IOException {
+      OutputStream out = BlobOutputStream.builder(blobStore, CONTAINER, metadata("empty")).build();
+      out.close();
+
+      assertEquals(read("empty"), new byte[0]);
+   }
+
+   public void testLargeOutputIsUploadedInParts() throws IOException {
+      byte[] content = randomBytes(10 * 1024 + 17);
+      OutputStream out = BlobOutputStream.builder(blobStore, CONTAINER, metadata("large")).partSize(1024)
+            .parallelism(3).build();
+      // mix single byte and bulk writes that straddle part boundaries
+      out.write(content[0]);
+      int offset = 1;
+      while (offset < content.length) {
+         int length = Math.min(700, content.length - offset);
+         out.write(content, offset, length);
+         offset += length;
+      }
+      out.close();
+
+      assertEquals(blobStore.initiated.get(), 1);
+      assertEquals(blobStore.parts.get(), 11);
+      assertEquals(blobStore.completed.get(), 1);
+      assertEquals(blobStore.puts.get(), 0);
+      assertEquals(read("large"), content);
+      assertTrue(blobStore.maxConcurrentParts.get() <= 3, "concurrent uploads: " + blobStore.maxConcurrentParts);
+   }
+
+   public void testNameWithPercentSign() throws IOException {
+      byte[] content = randomBytes(2500);
+      OutputStream out = BlobOutputStream.builder(blobStore, CONTAINER, metadata("a%7Eb")).partSize(1024)
+            .build();
+      out.write(content);
+      out.close();
+
+      assertEquals(blobStore.initiated.get(), 1);
+      assertEquals(read("a%7Eb"), content);
+   }
+
+   public void testPartSizeIsAdjustedToBlobStoreLimits() {
+      BlobOutputStream out = BlobOutputStream.builder(blobStore, CONTAINER, metadata("limits"))
+            .partSize(Long.MAX_VALUE).build();
+      assertEquals(out.getPartSize(), blobStore.getMaximumMultipartPartSize());
+   }
+
+   public void testFailedPartAbortsUpload() throws IOException {
+      blobStore.failPart = 2;
+      OutputStream out = BlobOutputStream.builder(blobStore, CONTAINER, metadata("failed")).partSize(1024).build();
+      try {
+         out.write(randomBytes(4 * 1024 + 1));
+         out.close();
+         fail("expected the failed part to surface");
+      } catch (IOException expected) {
+         assertEquals(expected.getCause().getMessage(), "part 2 failed");
+      }
+      assertEquals(blobStore.aborted.get(), 1);
+      assertEquals(blobStore.completed.get(), 0);
+      assertFalse(blobStore.blobExists(CONTAINER, "failed"));
+   }
+
+   @Test(expectedExceptions = IOException.class)
+   public void testWriteAfterCloseFails() throws IOException {
+      OutputStream out = BlobOutputStream.builder(blobStore, CONTAINER, metadata("closed")).build();
+      out.close();
+      out.write(1);
+   }
+
+   private static BlobMetadata metadata(String name) {
+      MutableBlobMetadata metadata = new MutableBlobMetadataImpl();
+      metadata.setName(name);
+      return metadata;
+   }
+
+   private byte[] read(String name) throws IOException {
+      Blob blob = blobStore.getBlob(CONTAINER, name);
+      InputStream in = blob.getPayload().openStream();
+      try {
+         return ByteStreams.toByteArray(in);
+      } finally {
+         in.close();
+      }
+   }
+
+   private static byte[] randomBytes(int length) {
+      byte[] bytes = new byte[length];
+      new Random(length).nextBytes(bytes);
+      return bytes;
+   }
+
+   private static class RecordingBlobStore extends ForwardingBlobStore {
+      private final AtomicInteger puts = new AtomicInteger();
+      private final AtomicInteger initiated = new AtomicInteger();
+      private final AtomicInteger parts = new AtomicInteger();
+      private final AtomicInteger completed = new AtomicInteger();
+      private final AtomicInteger aborted = new AtomicInteger();
+      private final AtomicInteger concurrentParts = new AtomicInteger();
+      private final AtomicInteger maxConcurrentParts = new AtomicInteger();
+      private volatile int failPart = -1;
+
+      RecordingBlobStore(BlobStore blobStore) {
+         super(blobStore);
+      }
+
+      @Override
+      public String putBlob(String container, Blob blob) {
+         puts.incrementAndGet();
+         return super.putBlob(container, blob);
+      }
+
+      @Override
+      public MultipartUpload initiateMultipartUpload(String container, BlobMetadata blobMetadata) {
+         initiated.incrementAndGet();
+         return super.initiateMultipartUpload(container, blobMetadata);
+      }
+
+      @Override
+      public MultipartPart uploadMultipartPart(MultipartUpload mpu, int partNumber, Payload payload) {
+         int concurrent = concurrentParts.incrementAndGet();
+         try {
+            while (true) {
+               int max = maxConcurrentParts.get();
+               if (concurrent <= max || maxConcurrentParts.compareAndSet(max, concurrent))
+                  break;
+            }
+            if (partNumber == failPart)
+               throw new IllegalStateException("part " + partNumber + " failed");
+            parts.incrementAndGet();
+            // the transient store implements parts as regular blobs
+            return delegate().uploadMultipartPart(mpu, partNumber, payload);
+         } finally {
+            concurrentParts.decrementAndGet();
+         }
+      }
+
+      @Override
+      public String completeMultipartUpload(MultipartUpload mpu, List<MultipartPart> parts) {
+         completed.incrementAndGet();
+         return super.completeMultipartUpload(mpu, parts);
+      }
+
+      @Override
+      public void abortMultipartUpload(MultipartUpload mpu) {
+         aborted.incrementAndGet();
+         super.abortMultipartUpload(mpu);
+      }
+   }
+}
@@ -0,0 +1,213 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.util;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jclouds.ContextBuilder;
+import org.jclouds.blobstore.BlobStore;
+import org.jclouds.blobstore.BlobStoreContext;
+import org.jclouds.blobstore.domain.BlobMetadata;
+import org.jclouds.blobstore.options.CopyOptions;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableList;
+
+@Test(groups = "unit", singleThreaded = true, testName = "CachingBlobStoreTest")
+public class CachingBlobStoreTest {
+
+   private static final String CONTAINER = "container";
+
+   private BlobStoreContext context;
+   private CountingBlobStore counting;
+   private FakeTicker ticker;
+   private CachingBlobStore blobStore;
+
+   @BeforeMethod
+   public void setUp() {
+      context = ContextBuilder.newBuilder("transient").build(BlobStoreContext.class);
+      counting = new CountingBlobStore(context.getBlobStore());
+      counting.createContainerInLocation(null, CONTAINER);
+      ticker = new FakeTicker();
+      blobStore = CachingBlobStore.builder(counting).expireAfterWrite(10, TimeUnit.SECONDS).ticker(ticker).build();
+   }
+
+   @AfterMethod(alwaysRun = true)
+   public void tearDown() {
+      context.close();
+   }
+
+   public void testMetadataIsCached() {
+      put("blob");
+      BlobMetadata first = blobStore.blobMetadata(CONTAINER, "blob");
+      assertNotNull(first);
+      assertTrue(blobStore.blobExists(CONTAINER, "blob"));
+      assertEquals(blobStore.blobMetadata(CONTAINER, "blob"), first);
+
+      assertEquals(counting.metadataRequests.get(), 1);
+      assertEquals(blobStore.stats().missCount(), 1);
+      assertEquals(blobStore.stats().hitCount(), 2);
+   }
+
+   public void testAbsenceIsCached() {
+      assertFalse(blobStore.blobExists(CONTAINER, "missing"));
+      assertNull(blobStore.blobMetadata(CONTAINER, "missing"));
+      assertNull(blobStore.getBlob(CONTAINER, "missing"));
+      assertFalse(blobStore.blobExists(CONTAINER, "missing"));
+
+      assertEquals(counting.metadataRequests.get(), 1);
+   }
+
+   public void testEntriesExpire() {
+      assertFalse(blobStore.blobExists(CONTAINER, "blob"));
+      put("blob");
+      ticker.advance(9, TimeUnit.SECONDS);
+      assertFalse(blobStore.blobExists(CONTAINER, "blob"), "stale result within the expiry");
+      ticker.advance(1, TimeUnit.SECONDS);
+      assertTrue(blobStore.blobExists(CONTAINER, "blob"));
+      assertEquals(counting.metadataRequests.get(), 2);
+   }
+
+   public void testWritesInvalidate() {
+      assertFalse(blobStore.blobExists(CONTAINER, "blob"));
+      blobStore.putBlob(CONTAINER, blobStore.blobBuilder("blob").payload("content").build());
+      assertTrue(blobStore.blobExists(CONTAINER, "blob"));
+
+      assertFalse(blobStore.blobExists(CONTAINER, "copy"));
+      blobStore.copyBlob(CONTAINER, "blob", CONTAINER, "copy", CopyOptions.NONE);
+      assertTrue(blobStore.blobExists(CONTAINER, "copy"));
+
+      blobStore.removeBlob(CONTAINER, "blob");
+      assertFalse(blobStore.blobExists(CONTAINER, "blob"));
+
+      blobStore.removeBlobs(CONTAINER, ImmutableList.of("copy"));
+      assertFalse(blobStore.blobExists(CONTAINER, "copy"));
+      assertEquals(counting.metadataRequests.get(), 6);
+   }
+
+   public void testLookupOverlappingAWriteIsNotCached() {
+      put("blob");
+      final AtomicInteger lookups = new AtomicInteger();
+      final CachingBlobStore[] caching = new CachingBlobStore[1];
+      caching[0] = CachingBlobStore.builder(new ForwardingBlobStore(counting) {
+         @Override
+         public BlobMetadata blobMetadata(String container, String name) {
+            BlobMetadata metadata = super.blobMetadata(container, name);
+            // the blob is removed through the cache while this lookup is still in flight
+            if (lookups.incrementAndGet() == 1)
+               caching[0].removeBlob(container, name);
+            return metadata;
+         }
+      }).build();
+
+      assertNotNull(caching[0].blobMetadata(CONTAINER, "blob"));
+      assertEquals(caching[0].size(), 0);
+      assertFalse(caching[0].blobExists(CONTAINER, "blob"));
+      assertEquals(lookups.get(), 2);
+   }
+
+   public void testClearContainerInvalidates() {
+      put("blob");
+      assertTrue(blobStore.blobExists(CONTAINER, "blob"));
+      blobStore.clearContainer(CONTAINER);
+      assertEquals(blobStore.size(), 0);
+      assertFalse(blobStore.blobExists(CONTAINER, "blob"));
+   }
+
+   public void testInvalidatePrefix() {
+      put("logs/a");
+      put("logs/b");
+      put("data/c");
+      for (String name : ImmutableList.of("logs/a", "logs/b", "data/c"))
+         assertTrue(blobStore.blobExists(CONTAINER, name));
+      assertEquals(blobStore.size(), 3);
+
+      blobStore.invalidatePrefix(CONTAINER, "logs/");
+      assertEquals(blobStore.size(), 1);
+      blobStore.invalidate(CONTAINER, "data/c");
+      assertEquals(blobStore.size(), 0);
+   }
+
+   public void testListingsWarmCacheWhenEnabled() {
+      put("a");
+      put("b");
+      blobStore.list(CONTAINER);
+      assertEquals(blobStore.size(), 0);
+
+      CachingBlobStore warming = CachingBlobStore.builder(counting).warmFromListings(true).build();
+      warming.list(CONTAINER);
+      assertEquals(warming.size(), 2);
+      assertTrue(warming.blobExists(CONTAINER, "a"));
+      assertTrue(warming.blobExists(CONTAINER, "b"));
+      assertEquals(counting.metadataRequests.get(), 0);
+   }
+
+   public void testMaximumSize() {
+      CachingBlobStore small = CachingBlobStore.builder(counting).maximumSize(2).build();
+      for (int i = 0; i < 5; i++)
+         small.blobExists(CONTAINER, "blob" + i);
+      assertTrue(small.size() <= 2);
+   }
+
+   private void put(String name) {
+      counting.putBlob(CONTAINER, counting.blobBuilder(name).payload(name).build());
+   }
+
+   private static class CountingBlobStore extends ForwardingBlobStore {
+      private final AtomicInteger metadataRequests = new AtomicInteger();
+
+      CountingBlobStore(BlobStore blobStore) {
+         super(blobStore);
+      }
+
+      @Override
+      public BlobMetadata blobMetadata(String container, String name) {
+         metadataRequests.incrementAndGet();
+         return super.blobMetadata(container, name);
+      }
+
+      @Override
+      public boolean blobExists(String container, String name) {
+         metadataRequests.incrementAndGet();
+         return super.blobExists(container, name);
+      }
+   }
+
+   private static class FakeTicker extends Ticker {
+      private final AtomicLong nanos = new AtomicLong();
+
+      void advance(long duration, TimeUnit unit) {
+         nanos.addAndGet(unit.toNanos(duration));
+      }
+
+      @Override
+      public long read() {
+         return nanos.get();
+      }
+   }
+}
@@ -19,6 +19,7 @@ package org.jclouds.compute;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import org.jclouds.compute.domain.Template;
+import org.jclouds.compute.predicates.NodeFilter;
 import org.jclouds.domain.LoginCredentials;
 import org.jclouds.javax.annotation.Nullable;
 
@@ -142,4 +143,19 @@ public interface ComputeServiceAdapter<N, H, I, L> {
    Iterable<N> listNodes();
 
    Iterable<N> listNodesByIds(Iterable<String> ids);
+
+   /**
+    * Optionally implemented by adapters whose cloud can filter the node listing server-side.
+    * 
+    * @see NodeFilter
+    */
+   public interface ListsNodesMatchingFilter<N> {
+
+      /**
+       * Lists the nodes that may match the filter, using whichever of its criteria the cloud can query by.
+       * The result must include every node that matches, but may include nodes that do not; the filter is
+       * applied again to the converted nodes.
+       */
+      Iterable<N> listNodesMatching(NodeFilter<?> filter);
+   }
 }
@@ -30,6 +30,7 @@ import com.google.inject.Inject;
 @Singleton
 public class InitScriptConfigurationForTasks {
    public static final String PROPERTY_INIT_SCRIPT_PATTERN = "jclouds.compute.init-script-pattern";
+   public static final String PROPERTY_INIT_SCRIPT_COMPRESSION_THRESHOLD = "jclouds.compute.init-script-compression-threshold";
 
    public static InitScriptConfigurationForTasks create() {
       return new InitScriptConfigurationForTasks();
@@ -38,6 +39,7 @@ public class InitScriptConfigurationForTasks {
    private String basedir = "/tmp";
    private String initScriptPattern = basedir + "/init-%s";
    private Supplier<String> suffixSupplier;
+   private int compressionThreshold = 32 * 1024;
 
    protected InitScriptConfigurationForTasks() {
       appendCurrentTimeMillisToAnonymousTaskNames();
@@ -51,6 +53,13 @@ public class InitScriptConfigurationForTasks {
       return this;
    }
 
+   @Inject(optional = true)
+   public InitScriptConfigurationForTasks compressionThreshold(
+            @Named(PROPERTY_INIT_SCRIPT_COMPRESSION_THRESHOLD) int compressionThreshold) {
+      this.compressionThreshold = compressionThreshold;
+      return this;
+   }
+
    public InitScriptConfigurationForTasks appendCurrentTimeMillisToAnonymousTaskNames() {
       this.suffixSupplier = new Supplier<String>() {
 
@@ -103,6 +112,15 @@ public class InitScriptConfigurationForTasks {
       return initScriptPattern;
    }
 
+   /**
+    * @return size in bytes above which rendered init scripts are uploaded in compressed, self-extracting form. defaults
+    *         to 32KB, negative disables compression.
+    * @see org.jclouds.scriptbuilder.SelfExtractingScript
+    */
+   public int getCompressionThreshold() {
+      return compressionThreshold;
+   }
+
    /**
     * @return suffix where the taskName isn't set. by default this is
     *         {@link System#currentTimeMillis}
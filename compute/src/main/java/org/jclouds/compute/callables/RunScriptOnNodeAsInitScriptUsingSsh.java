@@ -28,6 +28,7 @@ import org.jclouds.compute.events.StatementOnNodeFailure;
 import org.jclouds.compute.options.RunScriptOptions;
 import org.jclouds.domain.LoginCredentials;
 import org.jclouds.scriptbuilder.InitScript;
+import org.jclouds.scriptbuilder.SelfExtractingScript;
 import org.jclouds.scriptbuilder.domain.AdminAccessVisitor;
 import org.jclouds.scriptbuilder.domain.AppendFile;
 import org.jclouds.scriptbuilder.domain.OsFamily;
@@ -40,6 +41,7 @@ import org.jclouds.ssh.SshException;
 import com.google.common.base.Function;
 import com.google.common.base.Splitter;
 import com.google.common.base.Throwables;
+import com.google.common.base.Utf8;
 import com.google.common.eventbus.EventBus;
 import com.google.inject.assistedinject.Assisted;
 import com.google.inject.assistedinject.AssistedInject;
@@ -47,6 +49,7 @@ import com.google.inject.assistedinject.AssistedInject;
 public class RunScriptOnNodeAsInitScriptUsingSsh extends SudoAwareInitManager implements RunScriptOnNode {
 
    protected final EventBus eventBus;
+   protected final int compressionThreshold;
 
    @AssistedInject
    public RunScriptOnNodeAsInitScriptUsingSsh(Function<NodeMetadata, SshClient> sshFactory, EventBus eventBus,
@@ -57,6 +60,7 @@ public class RunScriptOnNodeAsInitScriptUsingSsh extends SudoAwareInitManager im
                         : createInitScript(checkNotNull(initScriptConfiguration, "initScriptConfiguration"), options
                                  .getTaskName(), script));
       this.eventBus = checkNotNull(eventBus, "eventBus");
+      this.compressionThreshold = initScriptConfiguration.getCompressionThreshold();
    }
 
    @Override
@@ -98,10 +102,16 @@ public class RunScriptOnNodeAsInitScriptUsingSsh extends SudoAwareInitManager im
    }
 
    protected ExecResponse doCall() {
-      eventBus.post(new InitScriptOnNodeSubmission(init, node));
       try {
+         String rendered = init.render(OsFamily.UNIX);
+         String upload = SelfExtractingScript.compressIfLargerThan(compressionThreshold, rendered);
+         int renderedSize = Utf8.encodedLength(rendered);
+         int uploadSize = Utf8.encodedLength(upload);
+         eventBus.post(new InitScriptOnNodeSubmission(init, node, renderedSize, uploadSize));
+         if (uploadSize != renderedSize)
+            logger.debug(">> compressed %s from %d to %d bytes", initFile, renderedSize, uploadSize);
          try {
-            ssh.put(initFile, init.render(OsFamily.UNIX));
+            ssh.put(initFile, upload);
          } catch (SshException e) {
             // If there's a problem with the sftp configuration, we can try via
             // ssh exec
@@ -112,7 +122,7 @@ public class RunScriptOnNodeAsInitScriptUsingSsh extends SudoAwareInitManager im
             ssh.disconnect();
             ssh.connect();
             ssh.exec("rm " + initFile);
-            ssh.exec(Statements.appendFile(initFile, Splitter.on('\n').split(init.render(OsFamily.UNIX)),
+            ssh.exec(Statements.appendFile(initFile, Splitter.on('\n').split(upload),
                   AppendFile.DELIMITER + "_" + init.getInstanceName()).render(OsFamily.UNIX));
          }
 
@@ -38,6 +38,7 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
 import com.google.common.base.Objects;
 import com.google.common.base.Throwables;
+import com.google.common.base.Utf8;
 import com.google.common.eventbus.EventBus;
 import com.google.inject.assistedinject.Assisted;
 import com.google.inject.assistedinject.AssistedInject;
@@ -73,9 +74,10 @@ public class RunScriptOnNodeUsingSsh implements RunScriptOnNode {
       try {
          ssh.connect();
          ExecResponse returnVal;
-         eventBus.post(new StatementOnNodeSubmission(statement, node));
-         String command = runAsRoot ? execAsRoot(statement.render(OsFamily.UNIX)) : execScriptAsDefaultUser(statement
-               .render(OsFamily.UNIX));
+         String rendered = statement.render(OsFamily.UNIX);
+         String command = runAsRoot ? execAsRoot(rendered) : execScriptAsDefaultUser(rendered);
+         eventBus.post(new StatementOnNodeSubmission(statement, node, Utf8.encodedLength(rendered), Utf8
+               .encodedLength(command)));
          try {
             returnVal = runCommand(command);
          } catch (Throwable e) {
@@ -54,6 +54,7 @@ import org.jclouds.compute.reference.ComputeServiceConstants;
 import org.jclouds.compute.strategy.CustomizeNodeAndAddToGoodMapOrPutExceptionIntoBadMap;
 import org.jclouds.compute.strategy.InitializeRunScriptOnNodeOrPlaceInBadMap;
 import org.jclouds.compute.suppliers.ImageCacheSupplier;
+import org.jclouds.compute.suppliers.ImagesSnapshotCodec;
 import org.jclouds.config.ValueOfConfigurationKeyOrNull;
 import org.jclouds.domain.LoginCredentials;
 import org.jclouds.json.Json;
@@ -63,6 +64,7 @@ import org.jclouds.rest.suppliers.MemoizedRetryOnTimeOutButNotOnAuthorizationExc
 import org.jclouds.scriptbuilder.domain.Statement;
 import org.jclouds.scriptbuilder.statements.login.AdminAccess;
 import org.jclouds.ssh.SshClient;
+import org.jclouds.suppliers.CatalogSnapshots;
 
 import com.google.common.base.Function;
 import com.google.common.base.Optional;
@@ -237,7 +239,9 @@ public abstract class BaseComputeServiceContextModule extends AbstractModule {
    protected Supplier<Set<? extends Image>> supplyImageCache(AtomicReference<AuthorizationException> authException, @Named(PROPERTY_SESSION_INTERVAL) long seconds,
          final Supplier<Set<? extends Image>> imageSupplier, Injector injector) {
       if (shouldEagerlyParseImages(injector)) {
-         return supplyImageCache(authException, seconds, imageSupplier);
+         // only a fully parsed catalog is worth persisting
+         return injector.getInstance(CatalogSnapshots.class).backing("images",
+               injector.getInstance(ImagesSnapshotCodec.class), supplyImageCache(authException, seconds, imageSupplier));
       } else {
          return supplyNonParsingImageCache(authException, seconds, imageSupplier, injector);
       }
@@ -32,6 +32,10 @@ public class InitScriptOnNodeSubmission extends StatementOnNodeSubmission {
    public InitScriptOnNodeSubmission(InitScript statement, NodeMetadata node) {
       super(statement, node);
    }
+
+   public InitScriptOnNodeSubmission(InitScript statement, NodeMetadata node, long renderedSize, long transferSize) {
+      super(statement, node, renderedSize, transferSize);
+   }
    
    public InitScript getStatement() {
       return InitScript.class.cast(statement);
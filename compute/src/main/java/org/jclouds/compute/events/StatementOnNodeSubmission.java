@@ -20,6 +20,7 @@ import org.jclouds.compute.domain.NodeMetadata;
 import org.jclouds.scriptbuilder.domain.Statement;
 
 import com.google.common.annotations.Beta;
+import com.google.common.base.Objects.ToStringHelper;
 
 /**
  * A statement was submitted to a node for execution.
@@ -29,9 +30,37 @@ import com.google.common.annotations.Beta;
  */
 @Beta
 public class StatementOnNodeSubmission extends StatementOnNode {
+   protected final long renderedSize;
+   protected final long transferSize;
 
    public StatementOnNodeSubmission(Statement statement, NodeMetadata node) {
+      this(statement, node, -1, -1);
+   }
+
+   public StatementOnNodeSubmission(Statement statement, NodeMetadata node, long renderedSize, long transferSize) {
       super(statement, node);
+      this.renderedSize = renderedSize;
+      this.transferSize = transferSize;
+   }
+
+   /**
+    * @return size in bytes of the rendered statement, or -1 if unknown
+    */
+   public long getRenderedSize() {
+      return renderedSize;
+   }
+
+   /**
+    * @return size in bytes sent to the node, which is smaller than {@link #getRenderedSize} when the statement was
+    *         compressed, or -1 if unknown
+    */
+   public long getTransferSize() {
+      return transferSize;
+   }
+
+   @Override
+   protected ToStringHelper string() {
+      return super.string().add("renderedSize", renderedSize).add("transferSize", transferSize);
    }
 
 }
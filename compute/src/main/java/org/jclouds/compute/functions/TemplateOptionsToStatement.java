@@ -26,22 +26,40 @@ import org.jclouds.compute.options.TemplateOptions;
 import org.jclouds.scriptbuilder.InitScript;
 import org.jclouds.scriptbuilder.domain.Statement;
 import org.jclouds.scriptbuilder.domain.StatementList;
+import org.jclouds.scriptbuilder.domain.Statements;
 import org.jclouds.scriptbuilder.statements.ssh.AuthorizeRSAPublicKeys;
 import org.jclouds.scriptbuilder.statements.ssh.InstallRSAPrivateKey;
 
 import com.google.common.base.Function;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableSet;
 
 @Singleton
 public class TemplateOptionsToStatement implements Function<TemplateOptions, Statement> {
 
+   /**
+    * Nodes created together share the same run script, which is rendered once for all of them. Keys are weak, and
+    * so compared by identity. Values are weak as well, since a memoized script refers to its key: an entry is only
+    * kept while some node still holds the memoized script.
+    */
+   private final LoadingCache<Statement, Statement> memoizedRunScripts = CacheBuilder.newBuilder().weakKeys()
+         .weakValues().build(new CacheLoader<Statement, Statement>() {
+            @Override
+            public Statement load(Statement runScript) {
+               return Statements.memoize(runScript);
+            }
+         });
+
    @Override
    public Statement apply(TemplateOptions options) {
       List<Statement> bootstrap = newArrayList();
       if (options.getPublicKey() != null)
          bootstrap.add(new AuthorizeRSAPublicKeys(ImmutableSet.of(options.getPublicKey())));
       if (options.getRunScript() != null)
-         bootstrap.add(options.getRunScript());
+         bootstrap.add(options.getRunScript() instanceof InitScript ? options.getRunScript() : memoizedRunScripts
+               .getUnchecked(options.getRunScript()));
       if (options.getPrivateKey() != null)
          bootstrap.add(new InstallRSAPrivateKey(options.getPrivateKey()));
       if (bootstrap.size() >= 1) {
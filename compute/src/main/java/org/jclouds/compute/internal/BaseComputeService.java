@@ -68,6 +68,7 @@ import org.jclouds.compute.extensions.ImageExtension;
 import org.jclouds.compute.extensions.SecurityGroupExtension;
 import org.jclouds.compute.options.RunScriptOptions;
 import org.jclouds.compute.options.TemplateOptions;
+import org.jclouds.compute.predicates.NodeFilter;
 import org.jclouds.compute.reference.ComputeServiceConstants;
 import org.jclouds.compute.reference.ComputeServiceConstants.Timeouts;
 import org.jclouds.compute.strategy.CreateNodesInGroupThenAddToSet;
@@ -311,7 +312,14 @@ public class BaseComputeService implements ComputeService {
    }
 
    Iterable<? extends NodeMetadata> nodesMatchingFilterAndNotTerminated(Predicate<NodeMetadata> filter) {
-      return filter(detailsOnAllNodes(), and(checkNotNull(filter, "filter"), not(TERMINATED)));
+      checkNotNull(filter, "filter");
+      if (filter instanceof NodeFilter) {
+         // let the provider narrow the listing, instead of fetching the details of every node
+         Set<? extends NodeMetadata> candidates = newLinkedHashSet(listNodesStrategy
+               .listDetailsOnNodesMatching(((NodeFilter<?>) filter).forComputeMetadata()));
+         return filter(candidates, and(filter, not(TERMINATED)));
+      }
+      return filter(detailsOnAllNodes(), and(filter, not(TERMINATED)));
    }
 
    /**
@@ -0,0 +1,208 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.compute.predicates;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Set;
+
+import org.jclouds.compute.domain.ComputeMetadata;
+import org.jclouds.compute.domain.NodeMetadata;
+import org.jclouds.compute.domain.NodeMetadata.Status;
+import org.jclouds.javax.annotation.Nullable;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * A node filter whose criteria can be inspected, so that a {@link org.jclouds.compute.strategy.ListNodesStrategy}
+ * can translate them into the query parameters of the provider's list call instead of listing every node.
+ * <p/>
+ * All criteria that are set must match. Strategies that cannot translate a criterion still apply the filter to the
+ * nodes they list, so translation is only ever an optimization; it is fine for the provider to return more nodes
+ * than match, but never fewer.
+ * <p/>
+ * The group and status criteria only match {@link NodeMetadata}.
+ * 
+ * @see NodePredicates
+ */
+public class NodeFilter<T extends ComputeMetadata> implements Predicate<T> {
+
+   public static Builder builder() {
+      return new Builder();
+   }
+
+   public Builder toBuilder() {
+      return builder().ids(ids).group(group).statuses(statuses).tags(tags).locationId(locationId);
+   }
+
+   public static class Builder {
+      private Set<String> ids = ImmutableSet.of();
+      private String group;
+      private Set<Status> statuses = ImmutableSet.of();
+      private Set<String> tags = ImmutableSet.of();
+      private String locationId;
+
+      /**
+       * @see NodeFilter#getIds()
+       */
+      public Builder ids(Iterable<String> ids) {
+         this.ids = ImmutableSet.copyOf(checkNotNull(ids, "ids"));
+         return this;
+      }
+
+      /**
+       * @see NodeFilter#getGroup()
+       */
+      public Builder group(@Nullable String group) {
+         this.group = group;
+         return this;
+      }
+
+      /**
+       * @see NodeFilter#getStatuses()
+       */
+      public Builder statuses(Iterable<Status> statuses) {
+         this.statuses = ImmutableSet.copyOf(checkNotNull(statuses, "statuses"));
+         return this;
+      }
+
+      /**
+       * @see NodeFilter#getTags()
+       */
+      public Builder tags(Iterable<String> tags) {
+         this.tags = ImmutableSet.copyOf(checkNotNull(tags, "tags"));
+         return this;
+      }
+
+      /**
+       * @see NodeFilter#getLocationId()
+       */
+      public Builder locationId(@Nullable String locationId) {
+         this.locationId = locationId;
+         return this;
+      }
+
+      public <T extends ComputeMetadata> NodeFilter<T> build() {
+         return new NodeFilter<T>(ids, group, statuses, tags, locationId);
+      }
+   }
+
+   private final Set<String> ids;
+   private final String group;
+   private final Set<Status> statuses;
+   private final Set<String> tags;
+   private final String locationId;
+
+   protected NodeFilter(Set<String> ids, @Nullable String group, Set<Status> statuses, Set<String> tags,
+            @Nullable String locationId) {
+      this.ids = checkNotNull(ids, "ids");
+      this.group = group;
+      this.statuses = checkNotNull(statuses, "statuses");
+      this.tags = checkNotNull(tags, "tags");
+      this.locationId = locationId;
+   }
+
+   /**
+    * @return the node must have one of these ids, or any id if empty
+    */
+   public Set<String> getIds() {
+      return ids;
+   }
+
+   /**
+    * @return the node must be in this group, or any group if null
+    */
+   @Nullable
+   public String getGroup() {
+      return group;
+   }
+
+   /**
+    * @return the node must be in one of these states, or any state if empty
+    */
+   public Set<Status> getStatuses() {
+      return statuses;
+   }
+
+   /**
+    * @return the node must have all of these tags
+    */
+   public Set<String> getTags() {
+      return tags;
+   }
+
+   /**
+    * @return the id of the location the node must be in, or any location if null
+    */
+   @Nullable
+   public String getLocationId() {
+      return locationId;
+   }
+
+   /**
+    * @return this filter, typed for {@link org.jclouds.compute.strategy.ListNodesStrategy}
+    */
+   @SuppressWarnings("unchecked")
+   public NodeFilter<ComputeMetadata> forComputeMetadata() {
+      // apply only reads ComputeMetadata, checking the type before reading NodeMetadata fields
+      return (NodeFilter<ComputeMetadata>) (NodeFilter<?>) this;
+   }
+
+   @Override
+   public boolean apply(T input) {
+      if (!ids.isEmpty() && !ids.contains(input.getId()))
+         return false;
+      if (locationId != null && (input.getLocation() == null || !locationId.equals(input.getLocation().getId())))
+         return false;
+      if (!tags.isEmpty() && !input.getTags().containsAll(tags))
+         return false;
+      if (group == null && statuses.isEmpty())
+         return true;
+      if (!(input instanceof NodeMetadata))
+         return false;
+      NodeMetadata node = NodeMetadata.class.cast(input);
+      if (group != null && !group.equals(node.getGroup()))
+         return false;
+      return statuses.isEmpty() || statuses.contains(node.getStatus());
+   }
+
+   @Override
+   public int hashCode() {
+      return Objects.hashCode(ids, group, statuses, tags, locationId);
+   }
+
+   @Override
+   public boolean equals(Object obj) {
+      if (this == obj)
+         return true;
+      if (obj == null || getClass() != obj.getClass())
+         return false;
+      NodeFilter<?> that = NodeFilter.class.cast(obj);
+      return Objects.equal(this.ids, that.ids) && Objects.equal(this.group, that.group)
+               && Objects.equal(this.statuses, that.statuses) && Objects.equal(this.tags, that.tags)
+               && Objects.equal(this.locationId, that.locationId);
+   }
+
+   @Override
+   public String toString() {
+      return Objects.toStringHelper("nodeFilter").omitNullValues().add("ids", ids.isEmpty() ? null : ids)
+               .add("group", group).add("statuses", statuses.isEmpty() ? null : statuses)
+               .add("tags", tags.isEmpty() ? null : tags).add("locationId", locationId).toString();
+   }
+}
@@ -19,8 +19,6 @@ package org.jclouds.compute.predicates;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Strings.emptyToNull;
 
-import java.util.Set;
-
 import org.jclouds.compute.domain.ComputeMetadata;
 import org.jclouds.compute.domain.NodeMetadata;
 import org.jclouds.compute.domain.NodeMetadata.Status;
@@ -33,7 +31,8 @@ import com.google.common.collect.ImmutableSet;
  * Container for node filters (predicates).
  * 
  * This class has static methods that create customized predicates to use with
- * {@link org.jclouds.compute.ComputeService}.
+ * {@link org.jclouds.compute.ComputeService}. Where possible, these are {@link NodeFilter node filters}, which
+ * providers can evaluate server-side.
  */
 public class NodePredicates {
 
@@ -82,49 +81,6 @@ public class NodePredicates {
       }
    }
 
-   private static class LocationId implements Predicate<ComputeMetadata> {
-      @Override
-      public int hashCode() {
-         final int prime = 31;
-         int result = 1;
-         result = prime * result + ((id == null) ? 0 : id.hashCode());
-         return result;
-      }
-
-      @Override
-      public boolean equals(Object obj) {
-         if (this == obj)
-            return true;
-         if (obj == null)
-            return false;
-         if (getClass() != obj.getClass())
-            return false;
-         LocationId other = (LocationId) obj;
-         if (id == null) {
-            if (other.id != null)
-               return false;
-         } else if (!id.equals(other.id))
-            return false;
-         return true;
-      }
-
-      private final String id;
-
-      private LocationId(String id) {
-         this.id = id;
-      }
-
-      @Override
-      public boolean apply(ComputeMetadata nodeMetadata) {
-         return id.equals(nodeMetadata.getLocation().getId());
-      }
-
-      @Override
-      public String toString() {
-         return "locationId(" + id + ")";
-      }
-   }
-
    /**
     * Return nodes in the specified location.
     * 
@@ -134,7 +90,7 @@ public class NodePredicates {
     */
    public static Predicate<ComputeMetadata> locationId(final String id) {
       checkNotNull(id, "id must be defined");
-      return new LocationId(id);
+      return NodeFilter.builder().locationId(id).build();
    }
 
    /**
@@ -158,18 +114,19 @@ public class NodePredicates {
     */
    public static <T extends ComputeMetadata> Predicate<T> withIds(String... ids) {
       checkNotNull(ids, "ids must be defined");
-      final Set<String> search = ImmutableSet.copyOf(ids);
-      return new Predicate<T>() {
-         @Override
-         public boolean apply(T nodeMetadata) {
-            return search.contains(nodeMetadata.getId());
-         }
+      return NodeFilter.builder().ids(ImmutableSet.copyOf(ids)).build();
+   }
 
-         @Override
-         public String toString() {
-            return "withIds(" + search + ")";
-         }
-      };
+   /**
+    * Return nodes with all of the specified tags. Note: returns all nodes, regardless of the state.
+    * 
+    * @param tags
+    *           tags the resources must have
+    * @return predicate
+    */
+   public static <T extends ComputeMetadata> Predicate<T> withTags(String... tags) {
+      checkNotNull(tags, "tags must be defined");
+      return NodeFilter.builder().tags(ImmutableSet.copyOf(tags)).build();
    }
 
    /**
@@ -188,17 +145,7 @@ public class NodePredicates {
     */
    public static Predicate<NodeMetadata> inGroup(final String group) {
       checkNotNull(emptyToNull(group), "group must be defined");
-      return new Predicate<NodeMetadata>() {
-         @Override
-         public boolean apply(NodeMetadata nodeMetadata) {
-            return group.equals(nodeMetadata.getGroup());
-         }
-
-         @Override
-         public String toString() {
-            return "inGroup(" + group + ")";
-         }
-      };
+      return NodeFilter.builder().group(group).build();
    }
    
    /**
@@ -228,17 +175,7 @@ public class NodePredicates {
     */
    public static Predicate<NodeMetadata> runningInGroup(final String group) {
       checkNotNull(emptyToNull(group), "group must be defined");
-      return new Predicate<NodeMetadata>() {
-         @Override
-         public boolean apply(NodeMetadata nodeMetadata) {
-            return group.equals(nodeMetadata.getGroup()) && nodeMetadata.getStatus() == Status.RUNNING;
-         }
-
-         @Override
-         public String toString() {
-            return "runningInGroup(" + group + ")";
-         }
-      };
+      return NodeFilter.builder().group(group).statuses(ImmutableSet.of(Status.RUNNING)).build();
    }
 
    /**
@@ -33,6 +33,7 @@ import javax.inject.Named;
 import javax.inject.Singleton;
 
 import org.jclouds.compute.ComputeServiceAdapter;
+import org.jclouds.compute.ComputeServiceAdapter.ListsNodesMatchingFilter;
 import org.jclouds.compute.ComputeServiceAdapter.NodeAndInitialCredentials;
 import org.jclouds.compute.config.ComputeServiceAdapterContextModule.AddDefaultCredentialsToImage;
 import org.jclouds.compute.domain.ComputeMetadata;
@@ -41,6 +42,7 @@ import org.jclouds.compute.domain.NodeMetadata;
 import org.jclouds.compute.domain.NodeMetadataBuilder;
 import org.jclouds.compute.domain.Template;
 import org.jclouds.compute.domain.NodeMetadata.Status;
+import org.jclouds.compute.predicates.NodeFilter;
 import org.jclouds.compute.predicates.NodePredicates;
 import org.jclouds.compute.reference.ComputeServiceConstants;
 import org.jclouds.compute.strategy.CreateNodeWithGroupEncodedIntoName;
@@ -119,7 +121,19 @@ public class AdaptingComputeServiceStrategies<N, H, I, L> implements CreateNodeW
 
    @Override
    public Iterable<? extends NodeMetadata> listDetailsOnNodesMatching(Predicate<ComputeMetadata> filter) {
-      return filter(transform(client.listNodes(), nodeMetadataAdapter), filter);
+      return filter(transform(listNodesThatMayMatch(filter), nodeMetadataAdapter), filter);
+   }
+
+   @SuppressWarnings("unchecked")
+   private Iterable<N> listNodesThatMayMatch(Predicate<ComputeMetadata> filter) {
+      if (!(filter instanceof NodeFilter))
+         return client.listNodes();
+      NodeFilter<?> nodeFilter = (NodeFilter<?>) filter;
+      if (client instanceof ListsNodesMatchingFilter)
+         return ((ListsNodesMatchingFilter<N>) client).listNodesMatching(nodeFilter);
+      if (!nodeFilter.getIds().isEmpty())
+         return client.listNodesByIds(nodeFilter.getIds());
+      return client.listNodes();
    }
    
    @Override
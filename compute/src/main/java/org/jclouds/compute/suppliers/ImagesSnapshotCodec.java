@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.compute.suppliers;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.inject.Singleton;
+
+import org.jclouds.compute.domain.Image;
+import org.jclouds.compute.domain.ImageBuilder;
+import org.jclouds.compute.domain.OperatingSystem;
+import org.jclouds.compute.domain.OsFamily;
+import org.jclouds.domain.Location;
+import org.jclouds.domain.LoginCredentials;
+import org.jclouds.location.suppliers.LocationsSnapshotCodec;
+import org.jclouds.suppliers.SnapshotCodec;
+
+import com.google.common.base.Function;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+
+/**
+ * Persists the image catalog, with locations stored once in a shared table.
+ * <p/>
+ * Default credentials are reduced to the login user and sudo flag: passwords and private keys are never written to a
+ * snapshot.
+ */
+@Singleton
+public class ImagesSnapshotCodec extends SnapshotCodec<Set<? extends Image>> {
+
+   @Override
+   public int version() {
+      return 1;
+   }
+
+   @Override
+   public void write(Set<? extends Image> value, DataOutput out) throws IOException {
+      Iterable<Location> locations = Optional.presentInstances(Iterables.transform(value,
+            new Function<Image, Optional<Location>>() {
+               @Override
+               public Optional<Location> apply(Image input) {
+                  return Optional.<Location> fromNullable(input.getLocation());
+               }
+            }));
+      Map<Location, Integer> table = LocationsSnapshotCodec.writeTable(locations, out);
+      out.writeInt(value.size());
+      for (Image image : value) {
+         writeString(image.getId(), out);
+         writeString(image.getProviderId(), out);
+         writeString(image.getName(), out);
+         out.writeInt(image.getLocation() == null ? -1 : table.get(image.getLocation()));
+         writeString(image.getUri() == null ? null : image.getUri().toString(), out);
+         writeStringMap(image.getUserMetadata(), out);
+         writeStrings(image.getTags(), out);
+         writeOperatingSystem(image.getOperatingSystem(), out);
+         writeEnum(image.getStatus(), out);
+         writeString(image.getBackendStatus(), out);
+         writeString(image.getDescription(), out);
+         writeString(image.getVersion(), out);
+         LoginCredentials credentials = image.getDefaultCredentials();
+         out.writeBoolean(credentials != null);
+         if (credentials != null) {
+            writeString(credentials.getUser(), out);
+            out.writeBoolean(credentials.shouldAuthenticateSudo());
+         }
+      }
+   }
+
+   @Override
+   public Set<? extends Image> read(DataInput in) throws IOException {
+      List<Location> table = LocationsSnapshotCodec.readTable(in);
+      int size = in.readInt();
+      ImmutableSet.Builder<Image> images = ImmutableSet.builder();
+      for (int i = 0; i < size; i++) {
+         ImageBuilder builder = new ImageBuilder().id(readString(in)).providerId(readString(in)).name(readString(in));
+         int location = in.readInt();
+         if (location != -1)
+            builder.location(table.get(location));
+         String uri = readString(in);
+         if (uri != null)
+            builder.uri(URI.create(uri));
+         builder.userMetadata(readStringMap(in)).tags(readStrings(in));
+         builder.operatingSystem(readOperatingSystem(in));
+         builder.status(readEnum(Image.Status.class, Image.Status.UNRECOGNIZED, in));
+         builder.backendStatus(readString(in)).description(readString(in)).version(readString(in));
+         if (in.readBoolean()) {
+            builder.defaultCredentials(LoginCredentials.builder().user(readString(in))
+                  .authenticateSudo(in.readBoolean()).build());
+         }
+         images.add(builder.build());
+      }
+      return images.build();
+   }
+
+   private static void writeOperatingSystem(OperatingSystem os, DataOutput out) throws IOException {
+      writeEnum(os.getFamily(), out);
+      writeString(os.getName(), out);
+      writeString(os.getVersion(), out);
+      writeString(os.getArch(), out);
+      writeString(os.getDescription(), out);
+      out.writeBoolean(os.is64Bit());
+   }
+
+   private static OperatingSystem readOperatingSystem(DataInput in) throws IOException {
+      return OperatingSystem.builder().family(readEnum(OsFamily.class, OsFamily.UNRECOGNIZED, in))
+            .name(readString(in)).version(readString(in)).arch(readString(in)).description(readString(in))
+            .is64Bit(in.readBoolean()).build();
+   }
+}
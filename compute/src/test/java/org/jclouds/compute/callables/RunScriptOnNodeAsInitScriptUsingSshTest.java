@@ -20,24 +20,33 @@ import static org.easymock.EasyMock.createMock;
 import static org.easymock.EasyMock.expect;
 import static org.easymock.EasyMock.replay;
 import static org.easymock.EasyMock.verify;
+import static org.jclouds.scriptbuilder.domain.Statements.appendFile;
 import static org.jclouds.scriptbuilder.domain.Statements.exec;
 import static org.testng.Assert.assertEquals;
 
+import java.util.List;
+
 import org.jclouds.compute.domain.ExecResponse;
 import org.jclouds.compute.domain.NodeMetadata;
 import org.jclouds.compute.domain.NodeMetadataBuilder;
 import org.jclouds.compute.domain.NodeMetadata.Status;
+import org.jclouds.compute.events.InitScriptOnNodeSubmission;
 import org.jclouds.compute.options.RunScriptOptions;
 import org.jclouds.domain.LoginCredentials;
 import org.jclouds.scriptbuilder.InitScript;
+import org.jclouds.scriptbuilder.SelfExtractingScript;
 import org.jclouds.scriptbuilder.domain.OsFamily;
 import org.jclouds.scriptbuilder.domain.Statement;
 import org.jclouds.ssh.SshClient;
 import org.testng.annotations.Test;
 
 import com.google.common.base.Functions;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
 import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
 
 @Test(groups = "unit", singleThreaded = true, testName = "RunScriptOnNodeAsInitScriptUsingSshTest")
 public class RunScriptOnNodeAsInitScriptUsingSshTest {
@@ -181,4 +190,50 @@ public class RunScriptOnNodeAsInitScriptUsingSshTest {
       testMe.call();
       verify(sshClient);
    }
+
+   public void testLargeScriptIsUploadedCompressed() {
+      Statement command = appendFile("/etc/chef/client.rb", ImmutableList.of(Strings.repeat("log_level :info\n", 1000)));
+      NodeMetadata node = new NodeMetadataBuilder().ids("id").status(Status.RUNNING).credentials(
+            LoginCredentials.builder().user("root").password("notalot").build()).build();
+
+      SshClient sshClient = createMock(SshClient.class);
+
+      InitScript init = InitScript.builder().name("jclouds-script-0").home("/tmp/jclouds-script-0").run(command)
+            .build();
+      String rendered = init.render(OsFamily.UNIX);
+      String compressed = SelfExtractingScript.compress(rendered);
+
+      sshClient.connect();
+      sshClient.put("/tmp/init-jclouds-script-0", compressed);
+      expect(sshClient.getUsername()).andReturn("root").atLeastOnce();
+      expect(sshClient.getHostAddress()).andReturn("somewhere.example.com").atLeastOnce();
+      expect(sshClient.exec("chmod 755 /tmp/init-jclouds-script-0")).andReturn(new ExecResponse("", "", 0));
+      expect(sshClient.exec("ln -fs /tmp/init-jclouds-script-0 jclouds-script-0")).andReturn(new ExecResponse("", "", 0));
+      expect(sshClient.exec("/tmp/init-jclouds-script-0 init")).andReturn(new ExecResponse("", "", 0));
+      expect(sshClient.exec("/tmp/init-jclouds-script-0 start")).andReturn(new ExecResponse("", "", 0));
+      sshClient.disconnect();
+      replay(sshClient);
+
+      final List<InitScriptOnNodeSubmission> submissions = Lists.newArrayList();
+      EventBus eventBus = new EventBus();
+      eventBus.register(new Object() {
+         @Subscribe
+         public void onSubmission(InitScriptOnNodeSubmission submission) {
+            submissions.add(submission);
+         }
+      });
+
+      RunScriptOnNodeAsInitScriptUsingSsh testMe = new RunScriptOnNodeAsInitScriptUsingSsh(Functions
+               .forMap(ImmutableMap.of(node, sshClient)), eventBus, InitScriptConfigurationForTasks.create()
+               .appendIncrementingNumberToAnonymousTaskNames().compressionThreshold(1024), node, command,
+               new RunScriptOptions());
+
+      testMe.init();
+      testMe.call();
+      verify(sshClient);
+
+      assertEquals(submissions.size(), 1);
+      assertEquals(submissions.get(0).getRenderedSize(), rendered.length());
+      assertEquals(submissions.get(0).getTransferSize(), compressed.length());
+   }
 }
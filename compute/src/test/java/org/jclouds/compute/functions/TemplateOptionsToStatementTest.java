@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.compute.functions;
+
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+
+import java.lang.ref.WeakReference;
+
+import org.jclouds.compute.options.TemplateOptions;
+import org.jclouds.scriptbuilder.domain.Statement;
+import org.jclouds.scriptbuilder.domain.Statements;
+import org.testng.annotations.Test;
+
+@Test(groups = "unit", testName = "TemplateOptionsToStatementTest")
+public class TemplateOptionsToStatementTest {
+
+   public void testNodesSharingARunScriptShareTheMemoizedScript() {
+      TemplateOptionsToStatement function = new TemplateOptionsToStatement();
+      Statement runScript = Statements.exec("echo hello");
+
+      Statement first = function.apply(TemplateOptions.Builder.runScript(runScript));
+      Statement second = function.apply(TemplateOptions.Builder.runScript(runScript));
+
+      assertNotSame(first, runScript);
+      assertSame(second, first);
+   }
+
+   public void testUnreferencedRunScriptCanBeCollected() throws InterruptedException {
+      TemplateOptionsToStatement function = new TemplateOptionsToStatement();
+      WeakReference<Statement> runScript = applyToNewRunScript(function);
+
+      for (int i = 0; i < 50 && runScript.get() != null; i++) {
+         System.gc();
+         Thread.sleep(20);
+      }
+      assertNull(runScript.get(), "run script is still reachable from the memoized scripts");
+   }
+
+   private static WeakReference<Statement> applyToNewRunScript(TemplateOptionsToStatement function) {
+      Statement runScript = Statements.exec("echo hello");
+      function.apply(TemplateOptions.Builder.runScript(runScript));
+      return new WeakReference<Statement>(runScript);
+   }
+}
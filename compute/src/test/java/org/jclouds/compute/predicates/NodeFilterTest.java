@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.compute.predicates;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import org.jclouds.compute.domain.ComputeMetadata;
+import org.jclouds.compute.domain.ComputeType;
+import org.jclouds.compute.domain.NodeMetadata;
+import org.jclouds.compute.domain.NodeMetadata.Status;
+import org.jclouds.compute.domain.NodeMetadataBuilder;
+import org.jclouds.compute.domain.internal.ComputeMetadataImpl;
+import org.jclouds.domain.Location;
+import org.jclouds.domain.LocationBuilder;
+import org.jclouds.domain.LocationScope;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+@Test(groups = "unit", testName = "NodeFilterTest")
+public class NodeFilterTest {
+
+   private final Location zone = new LocationBuilder().scope(LocationScope.ZONE).id("us-east-1a")
+         .description("us-east-1a").build();
+
+   private final NodeMetadata node = new NodeMetadataBuilder().id("us-east-1/i-1").providerId("i-1").group("web")
+         .status(Status.RUNNING).tags(ImmutableSet.of("blue", "canary")).location(zone).build();
+
+   public void testEmptyFilterMatchesEverything() {
+      assertTrue(NodeFilter.builder().<NodeMetadata> build().apply(node));
+   }
+
+   public void testAllCriteriaMustMatch() {
+      NodeFilter<NodeMetadata> filter = NodeFilter.builder().ids(ImmutableSet.of("us-east-1/i-1", "us-east-1/i-2"))
+            .group("web").statuses(ImmutableSet.of(Status.RUNNING, Status.PENDING))
+            .tags(ImmutableSet.of("blue")).locationId("us-east-1a").build();
+      assertTrue(filter.apply(node));
+
+      assertFalse(filter.toBuilder().ids(ImmutableSet.of("us-east-1/i-2")).<NodeMetadata> build().apply(node));
+      assertFalse(filter.toBuilder().group("db").<NodeMetadata> build().apply(node));
+      assertFalse(filter.toBuilder().statuses(ImmutableSet.of(Status.SUSPENDED)).<NodeMetadata> build().apply(node));
+      assertFalse(filter.toBuilder().tags(ImmutableSet.of("blue", "green")).<NodeMetadata> build().apply(node));
+      assertFalse(filter.toBuilder().locationId("us-east-1b").<NodeMetadata> build().apply(node));
+   }
+
+   public void testGroupAndStatusOnlyMatchNodes() {
+      ComputeMetadata metadata = new ComputeMetadataImpl(ComputeType.NODE, "i-1", null, "us-east-1/i-1", zone, null,
+            ImmutableMap.<String, String> of(), ImmutableSet.<String> of());
+
+      assertTrue(NodeFilter.builder().locationId("us-east-1a").<ComputeMetadata> build().apply(metadata));
+      assertFalse(NodeFilter.builder().group("web").<ComputeMetadata> build().apply(metadata));
+      assertFalse(NodeFilter.builder().statuses(ImmutableSet.of(Status.RUNNING)).<ComputeMetadata> build()
+            .apply(metadata));
+   }
+
+   public void testNodePredicatesAreNodeFilters() {
+      assertEquals(NodePredicates.inGroup("web"), NodeFilter.builder().group("web").build());
+      assertEquals(NodePredicates.runningInGroup("web"),
+            NodeFilter.builder().group("web").statuses(ImmutableSet.of(Status.RUNNING)).build());
+      assertEquals(NodePredicates.withIds("a", "b"), NodeFilter.builder().ids(ImmutableSet.of("a", "b")).build());
+      assertEquals(NodePredicates.withTags("blue"), NodeFilter.builder().tags(ImmutableSet.of("blue")).build());
+      assertEquals(NodePredicates.locationId("us-east-1a"), NodeFilter.builder().locationId("us-east-1a").build());
+   }
+
+   public void testNodePredicatesStillMatch() {
+      Predicate<NodeMetadata> inGroup = NodePredicates.inGroup("web");
+      assertTrue(inGroup.apply(node));
+      assertTrue(NodePredicates.runningInGroup("web").apply(node));
+      assertFalse(NodePredicates.runningInGroup("web").apply(
+            NodeMetadataBuilder.fromNodeMetadata(node).status(Status.SUSPENDED).build()));
+      assertTrue(NodePredicates.<NodeMetadata> withIds("us-east-1/i-1").apply(node));
+      assertTrue(NodePredicates.locationId("us-east-1a").apply(node));
+   }
+}
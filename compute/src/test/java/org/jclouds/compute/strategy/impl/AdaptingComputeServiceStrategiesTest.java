@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.compute.strategy.impl;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.testng.Assert.assertEquals;
+
+import org.jclouds.compute.ComputeServiceAdapter;
+import org.jclouds.compute.ComputeServiceAdapter.ListsNodesMatchingFilter;
+import org.jclouds.compute.config.ComputeServiceAdapterContextModule.AddDefaultCredentialsToImage;
+import org.jclouds.compute.domain.Image;
+import org.jclouds.compute.domain.NodeMetadata;
+import org.jclouds.compute.domain.NodeMetadata.Status;
+import org.jclouds.compute.domain.NodeMetadataBuilder;
+import org.jclouds.compute.predicates.NodeFilter;
+import org.jclouds.compute.predicates.NodePredicates;
+import org.jclouds.compute.strategy.PrioritizeCredentialsFromTemplate;
+import org.jclouds.domain.Credentials;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Function;
+import com.google.common.base.Functions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+@Test(groups = "unit", testName = "AdaptingComputeServiceStrategiesTest")
+public class AdaptingComputeServiceStrategiesTest {
+
+   private interface FilteringAdapter extends ComputeServiceAdapter<String, Object, Object, Object>,
+         ListsNodesMatchingFilter<String> {
+   }
+
+   private final NodeMetadata web = new NodeMetadataBuilder().id("1").group("web").status(Status.RUNNING).build();
+   private final NodeMetadata db = new NodeMetadataBuilder().id("2").group("db").status(Status.RUNNING).build();
+   private final Function<String, NodeMetadata> toNode = Functions.forMap(ImmutableMap.of("1", web, "2", db));
+
+   private AdaptingComputeServiceStrategies<String, Object, Object, Object> strategies(
+         ComputeServiceAdapter<String, Object, Object, Object> adapter) {
+      return new AdaptingComputeServiceStrategies<String, Object, Object, Object>(
+            ImmutableMap.<String, Credentials> of(), createMock(PrioritizeCredentialsFromTemplate.class), adapter,
+            toNode, Functions.<Image> constant(null), createMock(AddDefaultCredentialsToImage.class));
+   }
+
+   public void testNodeFilterIsPassedToAdapter() {
+      FilteringAdapter adapter = createMock(FilteringAdapter.class);
+      expect(adapter.listNodesMatching(NodeFilter.builder().group("web").build())).andReturn(
+            ImmutableList.of("1", "2"));
+      replay(adapter);
+
+      assertEquals(ImmutableSet.copyOf(strategies(adapter).listDetailsOnNodesMatching(
+            NodeFilter.builder().group("web").<NodeMetadata> build().forComputeMetadata())), ImmutableSet.of(web));
+
+      verify(adapter);
+   }
+
+   @SuppressWarnings("unchecked")
+   public void testIdsAreListedByIdWhenAdapterCannotFilter() {
+      ComputeServiceAdapter<String, Object, Object, Object> adapter = createMock(ComputeServiceAdapter.class);
+      expect(adapter.listNodesByIds(ImmutableSet.of("2"))).andReturn(ImmutableList.of("2"));
+      replay(adapter);
+
+      assertEquals(ImmutableSet.copyOf(strategies(adapter).listDetailsOnNodesMatching(
+            NodePredicates.withIds("2"))), ImmutableSet.of(db));
+
+      verify(adapter);
+   }
+
+   public void testOpaquePredicatesListEverything() {
+      FilteringAdapter adapter = createMock(FilteringAdapter.class);
+      expect(adapter.listNodes()).andReturn(ImmutableList.of("1", "2"));
+      replay(adapter);
+
+      assertEquals(ImmutableSet.copyOf(strategies(adapter).listDetailsOnNodesMatching(NodePredicates.all())),
+            ImmutableSet.of(web, db));
+
+      verify(adapter);
+   }
+}
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.compute.suppliers;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.util.Set;
+
+import org.jclouds.compute.domain.Image;
+import org.jclouds.compute.domain.ImageBuilder;
+import org.jclouds.compute.domain.OperatingSystem;
+import org.jclouds.compute.domain.OsFamily;
+import org.jclouds.domain.Location;
+import org.jclouds.domain.LocationBuilder;
+import org.jclouds.domain.LocationScope;
+import org.jclouds.domain.LoginCredentials;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+
+@Test(groups = "unit", testName = "ImagesSnapshotCodecTest")
+public class ImagesSnapshotCodecTest {
+
+   private final Location provider = new LocationBuilder().scope(LocationScope.PROVIDER).id("aws-ec2")
+         .description("aws-ec2").build();
+   private final Location region = new LocationBuilder().scope(LocationScope.REGION).id("us-east-1")
+         .description("us-east-1").parent(provider).build();
+
+   private final OperatingSystem os = OperatingSystem.builder().family(OsFamily.UBUNTU).name("ubuntu")
+         .version("12.04").description("ubuntu-precise-12.04-amd64-server").arch("paravirtual").is64Bit(true).build();
+
+   private final Image image = new ImageBuilder().id("us-east-1/ami-1").providerId("ami-1").name("precise")
+         .description("ubuntu-precise").version("20140227").operatingSystem(os).status(Image.Status.AVAILABLE)
+         .backendStatus("available").location(region).uri(URI.create("https://ec2.us-east-1.amazonaws.com/ami-1"))
+         .userMetadata(ImmutableMap.of("owner", "099720109477")).tags(ImmutableSet.of("ubuntu"))
+         .defaultCredentials(LoginCredentials.builder().user("ubuntu").password("secret").authenticateSudo(true)
+               .build()).build();
+
+   private final Image withoutLocation = new ImageBuilder().id("global").providerId("global").name("global")
+         .operatingSystem(os).status(Image.Status.PENDING).build();
+
+   private Set<? extends Image> roundTrip(Set<? extends Image> images) throws IOException {
+      ImagesSnapshotCodec codec = new ImagesSnapshotCodec();
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      codec.write(images, new DataOutputStream(bytes));
+      return codec.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+   }
+
+   public void testRoundTrip() throws IOException {
+      Set<? extends Image> images = roundTrip(ImmutableSet.of(image, withoutLocation));
+      assertEquals(images, ImmutableSet.of(image, withoutLocation));
+
+      Image restored = Iterables.get(images, 0);
+      assertEquals(restored.toString(), image.toString());
+      assertEquals(restored.getLocation().getParent(), provider);
+      assertEquals(restored.getOperatingSystem(), os);
+      assertEquals(restored.getUserMetadata(), image.getUserMetadata());
+      assertEquals(restored.getTags(), image.getTags());
+      assertEquals(restored.getUri(), image.getUri());
+
+      assertNull(Iterables.get(images, 1).getLocation());
+   }
+
+   public void testDoesNotPersistSecrets() throws IOException {
+      LoginCredentials credentials = Iterables.getOnlyElement(roundTrip(ImmutableSet.of(image)))
+            .getDefaultCredentials();
+      assertEquals(credentials.getUser(), "ubuntu");
+      assertEquals(credentials.shouldAuthenticateSudo(), true);
+      assertNull(credentials.getOptionalPassword().orNull());
+      assertNull(credentials.getOptionalPrivateKey().orNull());
+   }
+}
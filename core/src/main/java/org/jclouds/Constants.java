@@ -30,6 +30,41 @@ public final class Constants {
     */
    public static final String PROPERTY_USER_THREADS = "jclouds.user-threads";
 
+   /**
+    * String property. default (SCALING)
+    * <p/>
+    * How the executor servicing the user requests and transformations creates its threads: one of {@code SCALING},
+    * {@code BOUNDED} or {@code VIRTUAL}.
+    *
+    * @see org.jclouds.concurrent.ExecutorStrategy
+    */
+   public static final String PROPERTY_USER_EXECUTOR = "jclouds.user-executor";
+
+   /**
+    * Integer property. default (1000)
+    * <p/>
+    * Maximum number of tasks waiting for a user thread when {@link #PROPERTY_USER_EXECUTOR} is {@code BOUNDED}.
+    */
+   public static final String PROPERTY_USER_QUEUE_SIZE = "jclouds.user-queue-size";
+
+   /**
+    * String property. default (CALLER_RUNS)
+    * <p/>
+    * What happens to a task submitted to the user executor when it has no room for it: one of {@code CALLER_RUNS} or
+    * {@code ABORT}.
+    *
+    * @see org.jclouds.concurrent.RejectionPolicy
+    */
+   public static final String PROPERTY_USER_REJECTION_POLICY = "jclouds.user-rejection-policy";
+
+   /**
+    * Integer property. default (1)
+    * <p/>
+    * The stack trace of one in this many submissions to the user executor is kept, and appended to the stack trace of
+    * any exception the task fails with. Set to 0 to never capture it.
+    */
+   public static final String PROPERTY_SUBMISSION_TRACE_SAMPLING = "jclouds.submission-trace-sampling";
+
    /**
     * Integer property. default (20)
     * <p/>
@@ -305,6 +340,66 @@ public final class Constants {
     */
    public static final String PROPERTY_MAX_PARALLEL_DELETES = "jclouds.max-parallel-deletes";
 
+   /**
+    * String property. default (unset, snapshots disabled)
+    * <p/>
+    * Directory in which memoized provider catalogs (ex. locations and images) are persisted. When
+    * set, a new context serves the last persisted catalog immediately and revalidates it against
+    * the provider in the background. Snapshots are keyed by provider, endpoint and identity.
+    *
+    * @see org.jclouds.suppliers.CatalogSnapshots
+    */
+   public static final String PROPERTY_CATALOG_SNAPSHOT_DIR = "jclouds.catalog-snapshot-dir";
+
+   /**
+    * Boolean property. default (false)
+    * <p/>
+    * When true, singletons are created on first use instead of when the context is built. This suits short lived
+    * processes that only use a small part of the context.
+    *
+    * @see org.jclouds.ContextBuilder#lazy()
+    * @see org.jclouds.lifecycle.InitializationCosts
+    */
+   public static final String PROPERTY_LAZY_INITIALIZATION = "jclouds.lazy-initialization";
+
+   /**
+    * Integer property. default (the number of available processors)
+    * <p/>
+    * Amount of threads delivering the events posted to the asynchronous event bus. They are not shared with
+    * {@link #PROPERTY_USER_THREADS}.
+    *
+    * @see org.jclouds.events.BoundedAsyncEventBus
+    */
+   public static final String PROPERTY_EVENT_THREADS = "jclouds.event-threads";
+
+   /**
+    * Integer property. default (1000)
+    * <p/>
+    * Maximum number of events waiting for each subscriber of the asynchronous event bus.
+    */
+   public static final String PROPERTY_EVENT_QUEUE_SIZE = "jclouds.event-queue-size";
+
+   /**
+    * String property. default (BLOCK)
+    * <p/>
+    * What happens to events posted to a subscriber of the asynchronous event bus whose queue is full: one of
+    * {@code BLOCK}, {@code DISCARD_NEWEST} or {@code DISCARD_OLDEST}.
+    *
+    * @see org.jclouds.events.OverflowPolicy
+    */
+   public static final String PROPERTY_EVENT_OVERFLOW_POLICY = "jclouds.event-overflow-policy";
+
+   /**
+    * Boolean property. default (true)
+    * <p/>
+    * When true, types with a deserializer generated at compile time by {@code jclouds-json-processor} are read
+    * through it instead of through their annotated constructor or factory method. Set to false to fall back to
+    * reflection everywhere.
+    *
+    * @see org.jclouds.json.internal.GeneratedTypeAdapterFactory
+    */
+   public static final String PROPERTY_JSON_GENERATED_DESERIALIZERS = "jclouds.json.generated-deserializers";
+
    private Constants() {
       throw new AssertionError("intentionally unimplemented");
    }
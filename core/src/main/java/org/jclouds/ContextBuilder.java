@@ -17,6 +17,7 @@
 package org.jclouds;
 
 import static com.google.common.base.Objects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Predicates.containsPattern;
 import static com.google.common.base.Predicates.instanceOf;
@@ -39,7 +40,9 @@ import static org.jclouds.Constants.PROPERTY_CREDENTIAL;
 import static org.jclouds.Constants.PROPERTY_ENDPOINT;
 import static org.jclouds.Constants.PROPERTY_IDENTITY;
 import static org.jclouds.Constants.PROPERTY_ISO3166_CODES;
+import static org.jclouds.Constants.PROPERTY_LAZY_INITIALIZATION;
 import static org.jclouds.Constants.PROPERTY_PROVIDER;
+import static org.jclouds.providers.config.BindProviderMetadataContextAndCredentials.propertiesToBind;
 import static org.jclouds.reflect.Reflection2.typeToken;
 import static org.jclouds.rest.config.BinderUtils.bindHttpApi;
 import static org.jclouds.util.Throwables2.propagateAuthorizationOrOriginalException;
@@ -65,6 +68,7 @@ import org.jclouds.events.config.EventBusModule;
 import org.jclouds.http.config.ConfiguresHttpCommandExecutorService;
 import org.jclouds.http.config.JavaUrlHttpCommandExecutorServiceModule;
 import org.jclouds.javax.annotation.Nullable;
+import org.jclouds.lifecycle.InitializationCosts;
 import org.jclouds.lifecycle.config.LifeCycleModule;
 import org.jclouds.logging.config.LoggingModule;
 import org.jclouds.logging.jdk.config.JDKLoggingModule;
@@ -91,10 +95,13 @@ import com.google.common.base.Predicate;
 import com.google.common.base.Splitter;
 import com.google.common.base.Supplier;
 import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.ImmutableMultimap.Builder;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.MapDifference;
+import com.google.common.collect.Maps;
 import com.google.common.reflect.TypeToken;
 import com.google.common.util.concurrent.ExecutionList;
 import com.google.inject.AbstractModule;
@@ -150,6 +157,15 @@ public class ContextBuilder {
 
    private static final Stage GUICE_STAGE = Stage.PRODUCTION;
 
+   private static final Set<String> KEYS_TO_RESOLVE = ImmutableSet.of(PROPERTY_IDENTITY, PROPERTY_CREDENTIAL,
+         PROPERTY_ENDPOINT, PROPERTY_API, PROPERTY_API_VERSION, PROPERTY_BUILD_VERSION);
+
+   /**
+    * properties that may differ between contexts sharing a {@link SharedContextParent parent}
+    */
+   private static final Set<String> TENANT_KEYS = ImmutableSet.of(PROPERTY_IDENTITY, PROPERTY_CREDENTIAL,
+         PROPERTY_ENDPOINT);
+
    /**
     * looks up a provider or api with the given id
     * 
@@ -183,6 +199,15 @@ public class ContextBuilder {
       }
    }
 
+   /**
+    * builds contexts sharing the given parent, without looking up the provider again
+    * 
+    * @see #buildSharedParent()
+    */
+   public static ContextBuilder newBuilder(SharedContextParent parent) {
+      return new ContextBuilder(parent.getProviderMetadata().orNull(), parent.getApiMetadata()).parent(parent);
+   }
+
    public static ContextBuilder newBuilder(ProviderMetadata providerMetadata) {
       try {
          return new ContextBuilder(providerMetadata);
@@ -204,6 +229,8 @@ public class ContextBuilder {
    protected String buildVersion;
    protected Optional<Properties> overrides = Optional.absent();
    protected List<Module> modules = newArrayListWithCapacity(3);
+   protected Optional<SharedContextParent> parent = Optional.absent();
+   protected boolean lazy;
 
    @Override
    public String toString() {
@@ -284,6 +311,63 @@ public class ContextBuilder {
       return this;
    }
 
+   /**
+    * defers creating singletons until they are first used, rather than when the context is built. The time each
+    * singleton took to create can then be read with {@link InitializationCosts#measure(Injector)}.
+    * 
+    * @see Constants#PROPERTY_LAZY_INITIALIZATION
+    */
+   public ContextBuilder lazy() {
+      this.lazy = true;
+      return this;
+   }
+
+   /**
+    * builds the context as a child of a parent shared with other contexts of the same provider. Only the
+    * credentials, endpoint and modules of this builder apply; the provider properties and logging are those of the
+    * parent.
+    * 
+    * @see #buildSharedParent()
+    */
+   public ContextBuilder parent(SharedContextParent parent) {
+      checkArgument(checkNotNull(parent, "parent").getProviderId().equals(providerId),
+            "parent is for provider %s, not %s", parent.getProviderId(), providerId);
+      this.parent = Optional.of(parent);
+      return this;
+   }
+
+   /**
+    * builds a parent for many contexts of this provider, that differ only in credentials and endpoint. The parent
+    * uses the properties and logging module configured on this builder; credentials and other modules are ignored.
+    * 
+    * <pre>
+    * SharedContextParent parent = ContextBuilder.newBuilder("aws-s3").overrides(props).buildSharedParent();
+    * for (Tenant tenant : tenants)
+    *    contexts.put(tenant, ContextBuilder.newBuilder(parent)
+    *                                       .credentials(tenant.identity, tenant.credential)
+    *                                       .buildView(BlobStoreContext.class));
+    * </pre>
+    */
+   public SharedContextParent buildSharedParent() {
+      Properties resolved = resolveProperties(currentStateToUnexpandedProperties(), providerId, KEYS_TO_RESOLVE,
+            ImmutableSet.of(PROPERTY_IDENTITY, PROPERTY_CREDENTIAL));
+      Properties expanded = expandProperties(resolved);
+      for (String credentialKey : ImmutableSet.of(PROPERTY_IDENTITY, PROPERTY_CREDENTIAL))
+         expanded.remove(credentialKey);
+      ProviderMetadata providerMetadata = new UpdateProviderMetadataFromProperties(apiMetadata, this.providerMetadata)
+            .apply(expanded);
+      for (String tenantKey : TENANT_KEYS) {
+         resolved.remove(tenantKey);
+         expanded.remove(tenantKey);
+      }
+      List<Module> loggingModules = newArrayList(filter(modules, instanceOf(LoggingModule.class)));
+      addLoggingModuleIfNotPresent(loggingModules);
+      List<Module> httpModules = newArrayList(filter(modules, configuresHttpService));
+      addHttpModuleIfNeededAndNotPresent(httpModules);
+      return new SharedContextParent(apiMetadata, this.providerMetadata.orNull(), resolved, expanded,
+            propertiesToBind(providerMetadata), LoggingModule.class.cast(loggingModules.get(0)), httpModules.get(0));
+   }
+
    public static String searchPropertiesForProviderScopedProperty(Properties mutable, String prov, String key) throws NoSuchElementException {
       try {
          return find(newArrayList(mutable.getProperty(prov + "." + key), mutable.getProperty("jclouds." + key)),
@@ -300,9 +384,6 @@ public class ContextBuilder {
 
       Properties unexpanded = currentStateToUnexpandedProperties();
 
-      Set<String> keysToResolve = ImmutableSet.of(PROPERTY_IDENTITY, PROPERTY_CREDENTIAL, PROPERTY_ENDPOINT,
-            PROPERTY_API, PROPERTY_API_VERSION, PROPERTY_BUILD_VERSION);
-
       Set<String> optionalKeys;
       if (credentialsSupplierOption.isPresent()) {
          optionalKeys = ImmutableSet.of(PROPERTY_IDENTITY, PROPERTY_CREDENTIAL);
@@ -312,9 +393,10 @@ public class ContextBuilder {
          optionalKeys = ImmutableSet.of();
       }
 
-      Properties resolved = resolveProperties(unexpanded, providerId, keysToResolve, optionalKeys);
+      Properties resolved = resolveProperties(unexpanded, providerId, KEYS_TO_RESOLVE, optionalKeys);
 
-      Properties expanded = expandProperties(resolved);
+      Properties expanded = parent.isPresent() ? expandPropertiesOfTenant(resolved, parent.get())
+            : expandProperties(resolved);
 
       Supplier<Credentials> credentialsSupplier = buildCredentialsSupplier(expanded);
 
@@ -325,7 +407,7 @@ public class ContextBuilder {
       // is used to be something readable.
       return buildInjector(name.or(String.valueOf(Objects.hashCode(providerMetadata.getId(),
             providerMetadata.getEndpoint(), providerMetadata.getApiMetadata().getVersion(), credentialsSupplier))),
-            providerMetadata, credentialsSupplier, modules);
+            providerMetadata, credentialsSupplier, modules, parent);
    }
 
    protected Supplier<Credentials> buildCredentialsSupplier(Properties expanded) {
@@ -368,6 +450,8 @@ public class ContextBuilder {
          defaults.setProperty(PROPERTY_CREDENTIAL, credential);
       if (overrides.isPresent())
          defaults.putAll(checkNotNull(overrides.get(), "overrides"));
+      if (lazy)
+         defaults.setProperty(PROPERTY_LAZY_INITIALIZATION, "true");
       defaults.putAll(propertiesPrefixedWithJcloudsApiOrProviderId(getSystemProperties(), apiMetadata.getId(), providerId));
       return defaults;
    }
@@ -378,11 +462,57 @@ public class ContextBuilder {
    }
 
 
+   /**
+    * {@link Stage#PRODUCTION} creates all singletons up front, while {@link Stage#DEVELOPMENT} creates them on first
+    * use.
+    */
+   static Stage stage(Properties properties) {
+      return Boolean.parseBoolean(properties.getProperty(PROPERTY_LAZY_INITIALIZATION)) ? Stage.DEVELOPMENT
+            : GUICE_STAGE;
+   }
+
    private Properties expandProperties(final Properties resolved) {
       return Guice.createInjector(GUICE_STAGE, new BindPropertiesToExpandedValues(resolved)).getInstance(Properties.class);
    }
 
+   /**
+    * Expanding all properties takes an injector of its own. When only the credentials and endpoint differ from the
+    * parent, start from the parent's expanded properties and only expand those.
+    */
+   private Properties expandPropertiesOfTenant(Properties resolved, SharedContextParent parent) {
+      Properties shared = new Properties();
+      shared.putAll(resolved);
+      for (String tenantKey : TENANT_KEYS)
+         shared.remove(tenantKey);
+      if (!shared.equals(parent.getResolvedProperties()))
+         return expandProperties(resolved);
+      Properties expanded = new Properties();
+      expanded.putAll(parent.getExpandedProperties());
+      for (String tenantKey : TENANT_KEYS) {
+         if (!resolved.containsKey(tenantKey))
+            continue;
+         String value = resolved.getProperty(tenantKey);
+         // ex. an endpoint of http://${jclouds.identity}.service.com
+         if (value.indexOf("${") != -1)
+            return expandProperties(resolved);
+         expanded.setProperty(tenantKey, value);
+      }
+      return expanded;
+   }
+
    public static Injector buildInjector(String name, ProviderMetadata providerMetadata, Supplier<Credentials> creds, List<Module> inputModules) {
+      return buildInjector(name, providerMetadata, creds, inputModules, Optional.<SharedContextParent> absent());
+   }
+
+   /**
+    * @param parent
+    *           if present, the injector is a child of the parent's, which already binds the properties, logging,
+    *           user executor and the parts of the http transport that do not depend on the api
+    */
+   public static Injector buildInjector(String name, ProviderMetadata providerMetadata, Supplier<Credentials> creds,
+         List<Module> inputModules, Optional<SharedContextParent> parent) {
+      if (parent.isPresent())
+         checkConfiguredByParent(providerMetadata, inputModules, parent.get());
       List<Module> modules = newArrayList();
       modules.addAll(inputModules);
       boolean apiModuleSpecifiedByUser = apiModulePresent(inputModules);
@@ -391,19 +521,43 @@ public class ContextBuilder {
       addAll(modules, defaultModules);
       addClientModuleIfNotPresent(providerMetadata.getApiMetadata(), modules);
       addRestContextBinding(providerMetadata.getApiMetadata(), modules);
-      addLoggingModuleIfNotPresent(modules);
-      addHttpModuleIfNeededAndNotPresent(modules);
-      addExecutorServiceIfNotPresent(modules);
+      if (!parent.isPresent()) {
+         addLoggingModuleIfNotPresent(modules);
+         addHttpModuleIfNeededAndNotPresent(modules);
+         addExecutorServiceIfNotPresent(modules);
+      } else {
+         modules.add(parent.get().getApiDependentHttpModule());
+      }
       addEventBusIfNotPresent(modules);
       addCredentialStoreIfNotPresent(modules);
       modules.add(new LifeCycleModule());
-      modules.add(new BindProviderMetadataContextAndCredentials(providerMetadata, creds));
+      modules.add(new BindProviderMetadataContextAndCredentials(providerMetadata, creds, !parent.isPresent()));
       modules.add(new BindNameToContext(name));
-      Injector returnVal = Guice.createInjector(GUICE_STAGE, modules);
+      Stage stage = stage(providerMetadata.getDefaultProperties());
+      if (stage == Stage.DEVELOPMENT)
+         modules = ImmutableList.of(InitializationCosts.record(modules));
+      Injector returnVal = parent.isPresent() ? parent.get().getInjector().createChildInjector(modules) : Guice
+            .createInjector(stage, modules);
       returnVal.getInstance(ExecutionList.class).execute();
       return returnVal;
    }
 
+   private static void checkConfiguredByParent(ProviderMetadata providerMetadata, List<Module> inputModules,
+         SharedContextParent parent) {
+      MapDifference<Object, Object> difference = Maps.difference(parent.getProperties(),
+            propertiesToBind(providerMetadata));
+      checkArgument(difference.areEqual(), "properties of a context must match those of its parent: %s", difference);
+      checkArgument(!any(inputModules, instanceOf(LoggingModule.class)),
+            "logging is configured by the parent context");
+      checkArgument(!any(inputModules, new Predicate<Module>() {
+         public boolean apply(Module input) {
+            return input.getClass().isAnnotationPresent(ConfiguresExecutorService.class);
+         }
+      }), "the user executor is configured by the parent context");
+      checkArgument(!any(inputModules, configuresHttpService),
+            "the http transport is configured by the parent context");
+   }
+
    static Properties resolveProperties(Properties mutable, String providerId, Set<String> keys, Set<String> optionalKeys) throws NoSuchElementException {
       for (String key : keys) {
          String scopedProperty = Iterables.get(Splitter.on('.').split(key), 1);
@@ -469,14 +623,16 @@ public class ContextBuilder {
    }
 
    static boolean nothingConfiguresAnHttpService(List<Module> modules) {
-      return !any(modules, new Predicate<Module>() {
-         public boolean apply(Module input) {
-            return input.getClass().isAnnotationPresent(ConfiguresHttpCommandExecutorService.class);
-         }
-
-      });
+      return !any(modules, configuresHttpService);
    }
 
+   private static Predicate<Module> configuresHttpService = new Predicate<Module>() {
+      public boolean apply(Module input) {
+         return input.getClass().isAnnotationPresent(ConfiguresHttpCommandExecutorService.class);
+      }
+
+   };
+
    @VisibleForTesting
    static void addClientModuleIfNotPresent(ApiMetadata apiMetadata, List<Module> modules) {
       if (!apiModulePresent(modules)) {
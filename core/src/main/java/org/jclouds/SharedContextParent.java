@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Predicates.not;
+import static com.google.common.collect.Iterables.filter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+import java.util.Properties;
+
+import org.jclouds.apis.ApiMetadata;
+import org.jclouds.concurrent.config.ExecutorServiceModule;
+import org.jclouds.http.HttpCommandExecutorService;
+import org.jclouds.javax.annotation.Nullable;
+import org.jclouds.lifecycle.Closer;
+import org.jclouds.lifecycle.config.LifeCycleModule;
+import org.jclouds.logging.config.LoggingModule;
+import org.jclouds.providers.ProviderMetadata;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ExecutionList;
+import com.google.inject.AbstractModule;
+import com.google.inject.Binding;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.Module;
+import com.google.inject.PrivateModule;
+import com.google.inject.name.Names;
+import com.google.inject.spi.Element;
+import com.google.inject.spi.Elements;
+
+/**
+ * The parent of many contexts of the same provider, each with their own credentials and endpoint, as built by
+ * {@link ContextBuilder#buildSharedParent()}.
+ * <p/>
+ * The parent binds the provider's properties, the logger factory, the user executor and the parts of the http
+ * transport that do not depend on the api, such as connection pools and SSL contexts. Contexts built with
+ * {@link ContextBuilder#parent(SharedContextParent)} are child injectors of it, so those and the stateless singletons
+ * that only depend on them (ex. {@code Crypto}, {@code HttpUtils} or the {@code SAXParserFactory}) are created once,
+ * in the parent, and shared by every context. Bindings that depend on the api, such as the
+ * {@code HttpCommandExecutorService} and json parsing, stay in each context.
+ * <p/>
+ * Closing a child context does not shut down the shared executor or transport; close the parent once all of its
+ * contexts are closed.
+ */
+public final class SharedContextParent implements Closeable {
+
+   private final ApiMetadata apiMetadata;
+   private final Optional<ProviderMetadata> providerMetadata;
+   private final String providerId;
+   private final Properties resolvedProperties;
+   private final Properties expandedProperties;
+   private final Properties properties;
+   private final Module apiDependentHttpModule;
+   private final Closer closer = new Closer();
+   private final Injector injector;
+
+   SharedContextParent(ApiMetadata apiMetadata, @Nullable ProviderMetadata providerMetadata,
+         Properties resolvedProperties, Properties expandedProperties, final Properties properties,
+         final LoggingModule loggingModule, Module httpModule) {
+      this.apiMetadata = checkNotNull(apiMetadata, "apiMetadata");
+      this.providerMetadata = Optional.fromNullable(providerMetadata);
+      this.providerId = providerMetadata != null ? providerMetadata.getId() : apiMetadata.getId();
+      this.resolvedProperties = checkNotNull(resolvedProperties, "resolvedProperties");
+      this.expandedProperties = checkNotNull(expandedProperties, "expandedProperties");
+      this.properties = checkNotNull(properties, "properties");
+      List<Element> transport = Elements.getElements(checkNotNull(httpModule, "httpModule"));
+      this.apiDependentHttpModule = Elements.getModule(ImmutableList.copyOf(filter(transport,
+            isExecutorServiceBinding)));
+      final ExecutionList postConstruct = new ExecutionList();
+      this.injector = Guice.createInjector(ContextBuilder.stage(properties),
+            checkNotNull(loggingModule, "loggingModule"), new LifeCycleModule() {
+               @Override
+               protected void configure() {
+                  // the Closer and ExecutionList bindings belong to each child context
+                  bindPostInjectionInvoke(closer, postConstruct);
+               }
+            }, new AbstractModule() {
+               @Override
+               protected void configure() {
+                  // skip capturing a stack trace as the source of each property
+                  Names.bindProperties(binder().withSource(SharedContextParent.class), properties);
+               }
+            }, new SharedBindingsModule(closer, ImmutableList.<Element> builder()
+                  .addAll(Elements.getElements(new ExecutorServiceModule()))
+                  .addAll(filter(transport, not(isExecutorServiceBinding)))
+                  .build()));
+      postConstruct.execute();
+   }
+
+   private static final Predicate<Element> isExecutorServiceBinding = new Predicate<Element>() {
+      public boolean apply(Element input) {
+         return input instanceof Binding
+               && Binding.class.cast(input).getKey().equals(Key.get(HttpCommandExecutorService.class));
+      }
+   };
+
+   /**
+    * Installs the shared bindings and exposes them to the children. The parent's {@link Closer}, which shuts down
+    * the executor and transport when the parent is closed, is bound privately, as each child binds its own.
+    */
+   private static final class SharedBindingsModule extends PrivateModule {
+      private final Closer closer;
+      private final List<Element> elements;
+
+      private SharedBindingsModule(Closer closer, List<Element> elements) {
+         this.closer = closer;
+         this.elements = elements;
+      }
+
+      @Override
+      protected void configure() {
+         bind(Closer.class).toInstance(closer);
+         install(Elements.getModule(elements));
+         for (Element element : elements) {
+            if (element instanceof Binding)
+               expose(Binding.class.cast(element).getKey());
+         }
+      }
+   }
+
+   public String getProviderId() {
+      return providerId;
+   }
+
+   ApiMetadata getApiMetadata() {
+      return apiMetadata;
+   }
+
+   Optional<ProviderMetadata> getProviderMetadata() {
+      return providerMetadata;
+   }
+
+   /**
+    * @return the properties the parent was built from, before expansion, without credentials
+    */
+   Properties getResolvedProperties() {
+      return resolvedProperties;
+   }
+
+   /**
+    * @return the expanded form of {@link #getResolvedProperties()}
+    */
+   Properties getExpandedProperties() {
+      return expandedProperties;
+   }
+
+   /**
+    * @return the provider properties bound to the parent, which children may not override
+    */
+   Properties getProperties() {
+      return properties;
+   }
+
+   /**
+    * @return the binding of the {@code HttpCommandExecutorService}, which depends on the api, from the http transport
+    *         module the parent was built with
+    */
+   Module getApiDependentHttpModule() {
+      return apiDependentHttpModule;
+   }
+
+   public Injector getInjector() {
+      return injector;
+   }
+
+   /**
+    * shuts down the shared executor and transport, and invokes {@code PreDestroy} on the singletons created in the
+    * parent
+    */
+   @Override
+   public void close() throws IOException {
+      closer.close();
+   }
+}
@@ -17,6 +17,7 @@
 package org.jclouds.collect;
 
 import java.util.Iterator;
+import java.util.concurrent.Executor;
 
 import com.google.common.annotations.Beta;
 import com.google.common.collect.FluentIterable;
@@ -91,4 +92,22 @@ public abstract class PagedIterable<E> extends FluentIterable<IterableWithMarker
       };
    }
 
+   /**
+    * Fetches pages ahead of iteration on {@code executor}, so that the request for the next page overlaps with
+    * processing of the current one. ex.
+    * 
+    * <pre>
+    * for (Server server : serverApi.listInDetail().prefetch(userExecutor, 2).concat()) {
+    *     process(server);
+    * }
+    * </pre>
+    * 
+    * @param depth
+    *           number of pages to buffer ahead of the caller
+    * @see PagedIterables#prefetch
+    */
+   public PagedIterable<E> prefetch(Executor executor, int depth) {
+      return PagedIterables.prefetch(this, executor, depth);
+   }
+
 }
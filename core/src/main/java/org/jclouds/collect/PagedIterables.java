@@ -16,13 +16,18 @@
  */
 package org.jclouds.collect;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Iterator;
+import java.util.concurrent.Executor;
 
 import com.google.common.annotations.Beta;
 import com.google.common.base.Function;
 import com.google.common.base.Objects;
+import com.google.common.base.Throwables;
 import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableSet;
 
@@ -136,4 +141,143 @@ public class PagedIterables {
       }
       return new AdvancingIterator<T>(initial, markerToNext);
    }
+
+   /**
+    * Returns a view of {@code pages} that fetches pages ahead of the caller on {@code executor}.
+    * <p/>
+    * As soon as a page has been fetched, and thus its marker is known, the request for the following page is issued
+    * in the background, so that list latency overlaps with processing of the current page. At most {@code depth}
+    * pages are buffered ahead of the caller; fetching pauses once the buffer is full and resumes as pages are consumed,
+    * so an abandoned iteration costs at most {@code depth} extra requests.
+    * <p/>
+    * Pages are returned in order. A failure fetching a page is rethrown to the caller once the pages before it have
+    * been consumed. If the calling thread is interrupted while waiting for a page, no further pages are fetched and
+    * the interruption is propagated.
+    * 
+    * @param pages
+    *           the pages to fetch, each iteration of which is prefetched independently
+    * @param executor
+    *           runs the page requests; at most one task per iteration runs at a time
+    * @param depth
+    *           number of pages to fetch ahead of the caller
+    */
+   public static <T> PagedIterable<T> prefetch(final PagedIterable<T> pages, final Executor executor, final int depth) {
+      checkNotNull(pages, "pages");
+      checkNotNull(executor, "executor");
+      checkArgument(depth > 0, "depth must be positive");
+      return new PagedIterable<T>() {
+         public Iterator<IterableWithMarker<T>> iterator() {
+            return new PrefetchingIterator<T>(pages.iterator(), executor, depth);
+         }
+      };
+   }
+
+   private static class PrefetchingIterator<T> extends AbstractIterator<IterableWithMarker<T>> implements Runnable {
+
+      private final Iterator<IterableWithMarker<T>> pages;
+      private final Executor executor;
+      private final int depth;
+
+      // guarded by this
+      private final Deque<IterableWithMarker<T>> buffer = new ArrayDeque<IterableWithMarker<T>>();
+      private boolean fetching;
+      private boolean exhausted;
+      private boolean cancelled;
+      private Throwable failure;
+
+      private PrefetchingIterator(Iterator<IterableWithMarker<T>> pages, Executor executor, int depth) {
+         this.pages = pages;
+         this.executor = executor;
+         this.depth = depth;
+      }
+
+      @Override
+      protected IterableWithMarker<T> computeNext() {
+         synchronized (this) {
+            while (true) {
+               if (!buffer.isEmpty()) {
+                  IterableWithMarker<T> page = buffer.poll();
+                  fetchAhead();
+                  return page;
+               }
+               if (failure != null)
+                  throw Throwables.propagate(failure);
+               if (exhausted)
+                  return endOfData();
+               // the executor may run the fetch inline, so only wait if it did not already deliver
+               fetchAhead();
+               if (buffer.isEmpty() && !exhausted && failure == null) {
+                  try {
+                     wait();
+                  } catch (InterruptedException e) {
+                     cancelled = true;
+                     Thread.currentThread().interrupt();
+                     throw Throwables.propagate(e);
+                  }
+               }
+            }
+         }
+      }
+
+      /**
+       * Starts the fetch task unless it is already running or there is nothing left to fetch.
+       */
+      private void fetchAhead() {
+         if (fetching || exhausted || cancelled || failure != null || buffer.size() >= depth)
+            return;
+         fetching = true;
+         try {
+            executor.execute(this);
+         } catch (RuntimeException e) {
+            fetching = false;
+            failure = e;
+         }
+      }
+
+      /**
+       * Fetches pages until the buffer is full; the underlying iterator is only ever advanced from here.
+       */
+      @Override
+      public void run() {
+         while (true) {
+            synchronized (this) {
+               if (exhausted || cancelled || buffer.size() >= depth) {
+                  fetching = false;
+                  notifyAll();
+                  return;
+               }
+            }
+            IterableWithMarker<T> page = null;
+            Throwable error = null;
+            try {
+               if (pages.hasNext())
+                  page = pages.next();
+            } catch (Throwable t) {
+               error = t;
+            }
+            synchronized (this) {
+               if (error != null) {
+                  failure = error;
+                  fetching = false;
+               } else if (page == null) {
+                  exhausted = true;
+                  fetching = false;
+               } else {
+                  buffer.add(page);
+               }
+               notifyAll();
+               if (!fetching)
+                  return;
+            }
+         }
+      }
+
+      @Override
+      public String toString() {
+         synchronized (this) {
+            return Objects.toStringHelper("").add("buffered", buffer.size()).add("depth", depth)
+                  .add("fetching", fetching).add("exhausted", exhausted).toString();
+         }
+      }
+   }
 }
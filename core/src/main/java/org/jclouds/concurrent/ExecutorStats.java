@@ -0,0 +1,43 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.concurrent;
+
+/**
+ * A live view of the load on an executor.
+ */
+public interface ExecutorStats {
+
+   /**
+    * @return the number of tasks running right now
+    */
+   int getActiveCount();
+
+   /**
+    * @return the number of tasks submitted but not yet started
+    */
+   int getQueueDepth();
+
+   /**
+    * @return the number of tasks that finished, normally or not
+    */
+   long getCompletedCount();
+
+   /**
+    * @return the number of tasks the executor had no room for, whether they were then run by the caller or not
+    */
+   long getRejectedCount();
+}
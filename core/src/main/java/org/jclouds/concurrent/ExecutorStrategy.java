@@ -0,0 +1,39 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.concurrent;
+
+/**
+ * How the executor running user requests and transformations creates its threads.
+ */
+public enum ExecutorStrategy {
+   /**
+    * Grows from one thread up to {@link org.jclouds.Constants#PROPERTY_USER_THREADS} threads, queueing tasks beyond
+    * that without bound. When that property is 0, a new thread is created for every task nothing is idle for.
+    */
+   SCALING,
+   /**
+    * A fixed number of threads, {@link org.jclouds.Constants#PROPERTY_USER_THREADS}, in front of a queue holding at
+    * most {@link org.jclouds.Constants#PROPERTY_USER_QUEUE_SIZE} tasks. Tasks submitted while the queue is full are
+    * handled according to the {@link RejectionPolicy}.
+    */
+   BOUNDED,
+   /**
+    * A new virtual thread for every task. Virtual threads need JDK 21 or later; on older runtimes this falls back to
+    * {@link #SCALING}.
+    */
+   VIRTUAL;
+}
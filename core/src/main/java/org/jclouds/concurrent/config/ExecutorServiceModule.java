@@ -16,21 +16,34 @@
  */
 package org.jclouds.concurrent.config;
 
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Throwables.propagate;
 import static com.google.common.util.concurrent.MoreExecutors.listeningDecorator;
+import static org.jclouds.Constants.PROPERTY_SUBMISSION_TRACE_SAMPLING;
+import static org.jclouds.Constants.PROPERTY_USER_EXECUTOR;
+import static org.jclouds.Constants.PROPERTY_USER_QUEUE_SIZE;
+import static org.jclouds.Constants.PROPERTY_USER_REJECTION_POLICY;
 import static org.jclouds.Constants.PROPERTY_USER_THREADS;
 import static org.jclouds.concurrent.DynamicExecutors.newScalingThreadPool;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.Resource;
 import javax.inject.Named;
 import javax.inject.Singleton;
 
+import org.jclouds.concurrent.ExecutorStats;
+import org.jclouds.concurrent.ExecutorStrategy;
+import org.jclouds.concurrent.RejectionPolicy;
 import org.jclouds.lifecycle.Closer;
 import org.jclouds.logging.Logger;
 
@@ -39,6 +52,7 @@ import com.google.common.util.concurrent.SimpleTimeLimiter;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.common.util.concurrent.TimeLimiter;
 import com.google.inject.AbstractModule;
+import com.google.inject.Inject;
 import com.google.inject.Provides;
 
 /**
@@ -50,6 +64,14 @@ import com.google.inject.Provides;
  * This extends the underlying Future to expose a description (the task's toString) and the submission context (stack
  * trace). The submission stack trace is appended to relevant stack traces on exceptions that are returned, so the user
  * can see the logical chain of execution (in the executor, and where it was passed to the executor).
+ *
+ * <p>
+ * How the user executor creates threads, how many tasks it queues and what it does with those it has no room for are
+ * set with the {@link org.jclouds.Constants#PROPERTY_USER_EXECUTOR},
+ * {@link org.jclouds.Constants#PROPERTY_USER_QUEUE_SIZE} and
+ * {@link org.jclouds.Constants#PROPERTY_USER_REJECTION_POLICY} properties, and its load can be read from the
+ * {@link ExecutorStats} bound with the {@link org.jclouds.Constants#PROPERTY_USER_THREADS} name. An executor passed to
+ * the constructor is used as is; its rejections always fail the submission.
  */
 @ConfiguresExecutorService
 public class ExecutorServiceModule extends AbstractModule {
@@ -72,6 +94,27 @@ public class ExecutorServiceModule extends AbstractModule {
       }
    }
 
+   static class UserExecutorSettings {
+      @Resource
+      Logger logger = Logger.NULL;
+
+      @Inject(optional = true)
+      @Named(PROPERTY_USER_EXECUTOR)
+      ExecutorStrategy strategy = ExecutorStrategy.SCALING;
+
+      @Inject(optional = true)
+      @Named(PROPERTY_USER_QUEUE_SIZE)
+      int queueSize = 1000;
+
+      @Inject(optional = true)
+      @Named(PROPERTY_USER_REJECTION_POLICY)
+      RejectionPolicy rejectionPolicy = RejectionPolicy.CALLER_RUNS;
+
+      @Inject(optional = true)
+      @Named(PROPERTY_SUBMISSION_TRACE_SAMPLING)
+      int submissionTraceSampling = 1;
+   }
+
    final ListeningExecutorService userExecutorFromConstructor;
 
    public ExecutorServiceModule() {
@@ -103,7 +146,7 @@ public class ExecutorServiceModule extends AbstractModule {
    }
 
    public ExecutorServiceModule(@Named(PROPERTY_USER_THREADS) ListeningExecutorService userExecutor) {
-      this.userExecutorFromConstructor = WithSubmissionTrace.wrap(userExecutor);
+      this.userExecutorFromConstructor = userExecutor;
    }
 
    @Override
@@ -119,10 +162,27 @@ public class ExecutorServiceModule extends AbstractModule {
    @Provides
    @Singleton
    @Named(PROPERTY_USER_THREADS)
-   ListeningExecutorService provideListeningUserExecutorService(@Named(PROPERTY_USER_THREADS) int count, Closer closer) { // NO_UCD
+   MeteredExecutorService provideMeteredUserExecutorService(@Named(PROPERTY_USER_THREADS) int count, // NO_UCD
+         UserExecutorSettings settings, Closer closer) {
       if (userExecutorFromConstructor != null)
-         return userExecutorFromConstructor;
-      return shutdownOnClose(WithSubmissionTrace.wrap(newThreadPoolNamed("user thread %d", count)), closer);
+         return new MeteredExecutorService(userExecutorFromConstructor, RejectionPolicy.ABORT);
+      return shutdownOnClose(new MeteredExecutorService(newUserExecutor(count, settings), settings.rejectionPolicy),
+            closer);
+   }
+
+   @Provides
+   @Singleton
+   @Named(PROPERTY_USER_THREADS)
+   ListeningExecutorService provideListeningUserExecutorService( // NO_UCD
+         @Named(PROPERTY_USER_THREADS) MeteredExecutorService metered, UserExecutorSettings settings) {
+      return WithSubmissionTrace.wrap(metered, settings.submissionTraceSampling);
+   }
+
+   @Provides
+   @Singleton
+   @Named(PROPERTY_USER_THREADS)
+   ExecutorStats provideUserExecutorStats(@Named(PROPERTY_USER_THREADS) MeteredExecutorService metered) { // NO_UCD
+      return metered;
    }
 
    @Provides
@@ -137,6 +197,52 @@ public class ExecutorServiceModule extends AbstractModule {
       return service;
    }
 
+   private ExecutorService newUserExecutor(int count, UserExecutorSettings settings) {
+      switch (settings.strategy) {
+         case BOUNDED:
+            checkArgument(count > 0, "%s must be positive for a %s executor", PROPERTY_USER_THREADS, settings.strategy);
+            checkArgument(settings.queueSize > 0, "%s must be positive for a %s executor", PROPERTY_USER_QUEUE_SIZE,
+                  settings.strategy);
+            return newBoundedThreadPoolNamed("user thread %d", count, settings.queueSize);
+         case VIRTUAL:
+            ExecutorService virtual = newVirtualThreadPerTaskExecutor();
+            if (virtual != null)
+               return virtual;
+            settings.logger.warn("virtual threads are not available on java %s, using a scaling thread pool",
+                  System.getProperty("java.version"));
+            return newThreadPoolNamed("user thread %d", count);
+         default:
+            return newThreadPoolNamed("user thread %d", count);
+      }
+   }
+
+   /**
+    * Looks up {@code Executors.newVirtualThreadPerTaskExecutor()} reflectively, as it only exists from JDK 21 on.
+    *
+    * @return null if the running JDK cannot create virtual threads
+    */
+   private static ExecutorService newVirtualThreadPerTaskExecutor() {
+      try {
+         return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+      } catch (NoSuchMethodException e) {
+         return null;
+      } catch (IllegalAccessException e) {
+         throw propagate(e);
+      } catch (InvocationTargetException e) {
+         // preview releases throw this unless started with --enable-preview
+         if (e.getCause() instanceof UnsupportedOperationException)
+            return null;
+         throw propagate(e.getCause());
+      }
+   }
+
+   private ExecutorService newBoundedThreadPoolNamed(String name, int count, int queueSize) {
+      ThreadPoolExecutor executor = new ThreadPoolExecutor(count, count, 60L, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<Runnable>(queueSize), namedThreadFactory(name));
+      executor.allowCoreThreadTimeOut(true);
+      return executor;
+   }
+
    private ListeningExecutorService newCachedThreadPoolNamed(String name) {
       return listeningDecorator(Executors.newCachedThreadPool(namedThreadFactory(name)));
    }
@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.concurrent.config;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jclouds.concurrent.ExecutorStats;
+import org.jclouds.concurrent.RejectionPolicy;
+
+import com.google.common.base.Objects;
+import com.google.common.util.concurrent.AbstractListeningExecutorService;
+
+/**
+ * Counts the tasks passing through an executor and applies a {@link RejectionPolicy} to those it rejects.
+ */
+final class MeteredExecutorService extends AbstractListeningExecutorService implements ExecutorStats {
+
+   private final ExecutorService delegate;
+   private final RejectionPolicy rejectionPolicy;
+   private final AtomicInteger queued = new AtomicInteger();
+   private final AtomicInteger active = new AtomicInteger();
+   private final AtomicLong completed = new AtomicLong();
+   private final AtomicLong rejected = new AtomicLong();
+
+   MeteredExecutorService(ExecutorService delegate, RejectionPolicy rejectionPolicy) {
+      this.delegate = checkNotNull(delegate, "delegate");
+      this.rejectionPolicy = checkNotNull(rejectionPolicy, "rejectionPolicy");
+   }
+
+   @Override
+   public void execute(Runnable command) {
+      MeteredRunnable metered = new MeteredRunnable(checkNotNull(command, "command"));
+      queued.incrementAndGet();
+      try {
+         delegate.execute(metered);
+      } catch (RejectedExecutionException e) {
+         rejected.incrementAndGet();
+         // a shut down executor should not be worked around by running on the caller
+         if (rejectionPolicy == RejectionPolicy.CALLER_RUNS && !delegate.isShutdown()) {
+            metered.run();
+         } else {
+            queued.decrementAndGet();
+            throw e;
+         }
+      }
+   }
+
+   private final class MeteredRunnable implements Runnable {
+      private final Runnable command;
+
+      private MeteredRunnable(Runnable command) {
+         this.command = command;
+      }
+
+      @Override
+      public void run() {
+         queued.decrementAndGet();
+         active.incrementAndGet();
+         try {
+            command.run();
+         } finally {
+            active.decrementAndGet();
+            completed.incrementAndGet();
+         }
+      }
+
+      @Override
+      public String toString() {
+         return command.toString();
+      }
+   }
+
+   @Override
+   public int getActiveCount() {
+      return active.get();
+   }
+
+   @Override
+   public int getQueueDepth() {
+      return queued.get();
+   }
+
+   @Override
+   public long getCompletedCount() {
+      return completed.get();
+   }
+
+   @Override
+   public long getRejectedCount() {
+      return rejected.get();
+   }
+
+   @Override
+   public void shutdown() {
+      delegate.shutdown();
+   }
+
+   @Override
+   public List<Runnable> shutdownNow() {
+      List<Runnable> outstanding = delegate.shutdownNow();
+      queued.addAndGet(-outstanding.size());
+      return outstanding;
+   }
+
+   @Override
+   public boolean isShutdown() {
+      return delegate.isShutdown();
+   }
+
+   @Override
+   public boolean isTerminated() {
+      return delegate.isTerminated();
+   }
+
+   @Override
+   public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+      return delegate.awaitTermination(timeout, unit);
+   }
+
+   @Override
+   public String toString() {
+      return Objects.toStringHelper(this).add("delegate", delegate).add("rejectionPolicy", rejectionPolicy)
+            .add("active", getActiveCount()).add("queueDepth", getQueueDepth()).add("completed", getCompletedCount())
+            .add("rejected", getRejectedCount()).toString();
+   }
+}
@@ -16,6 +16,7 @@
  */
 package org.jclouds.concurrent.config;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.collect.Iterables.filter;
 import static com.google.common.collect.Iterables.toArray;
@@ -29,6 +30,7 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.google.common.base.Predicate;
 import com.google.common.collect.ImmutableSet;
@@ -42,15 +44,34 @@ public class WithSubmissionTrace {
    }
 
    public static ListeningExecutorService wrap(com.google.common.util.concurrent.ListeningExecutorService delegate) {
-      return new ListeningExecutorService(delegate);
+      return new ListeningExecutorService(delegate, 1);
+   }
+
+   /**
+    * Like {@link #wrap(com.google.common.util.concurrent.ListeningExecutorService)}, but only captures the submission
+    * trace of one in every {@code sampleInterval} submissions, as capturing it on every submission is costly under
+    * heavy fan-out. A {@code sampleInterval} of 0 never captures it.
+    */
+   public static com.google.common.util.concurrent.ListeningExecutorService wrap(
+         com.google.common.util.concurrent.ListeningExecutorService delegate, int sampleInterval) {
+      checkArgument(sampleInterval >= 0, "sampleInterval must not be negative");
+      return sampleInterval == 0 ? delegate : new ListeningExecutorService(delegate, sampleInterval);
    }
 
    private static class ListeningExecutorService extends ForwardingListeningExecutorService {
 
       private final com.google.common.util.concurrent.ListeningExecutorService delegate;
+      private final int sampleInterval;
+      private final AtomicLong submissions = new AtomicLong();
 
-      private ListeningExecutorService(com.google.common.util.concurrent.ListeningExecutorService delegate) {
+      private ListeningExecutorService(com.google.common.util.concurrent.ListeningExecutorService delegate,
+            int sampleInterval) {
          this.delegate = checkNotNull(delegate, "delegate");
+         this.sampleInterval = sampleInterval;
+      }
+
+      boolean sample() {
+         return sampleInterval == 1 || submissions.getAndIncrement() % sampleInterval == 0;
       }
 
       @Override
@@ -60,18 +81,18 @@ public class WithSubmissionTrace {
 
       @Override
       public <T> com.google.common.util.concurrent.ListenableFuture<T> submit(Callable<T> task) {
-         return new ListenableFuture<T>(delegate().submit(task));
+         return new ListenableFuture<T>(delegate().submit(task), sample());
       }
 
       @SuppressWarnings({ "unchecked", "rawtypes" })
       @Override
       public com.google.common.util.concurrent.ListenableFuture<?> submit(Runnable task) {
-         return new ListenableFuture(delegate().submit(task));
+         return new ListenableFuture(delegate().submit(task), sample());
       }
 
       @Override
       public <T> com.google.common.util.concurrent.ListenableFuture<T> submit(Runnable task, T result) {
-         return new ListenableFuture<T>(delegate().submit(task, result));
+         return new ListenableFuture<T>(delegate().submit(task, result), sample());
       }
    }
 
@@ -79,9 +100,9 @@ public class WithSubmissionTrace {
       private final com.google.common.util.concurrent.ListenableFuture<T> delegate;
       private final StackTraceElement[] submissionTrace;
 
-      ListenableFuture(com.google.common.util.concurrent.ListenableFuture<T> delegate) {
+      ListenableFuture(com.google.common.util.concurrent.ListenableFuture<T> delegate, boolean captureTrace) {
          this.delegate = checkNotNull(delegate, "delegate");
-         this.submissionTrace = getStackTraceHere();
+         this.submissionTrace = captureTrace ? getStackTraceHere() : null;
       }
 
       @Override
@@ -129,6 +150,9 @@ public class WithSubmissionTrace {
    }
 
    private static ExecutionException addSubmissionTrace(StackTraceElement[] submissionTrace, ExecutionException e) {
+      if (submissionTrace == null) {
+         return e;
+      }
       if (e.getCause() == null) {
          return filterTrace(e);
       }
@@ -154,7 +178,7 @@ public class WithSubmissionTrace {
 
       private ListeningScheduledExecutorService(
             com.google.common.util.concurrent.ListeningScheduledExecutorService delegate) {
-         super(delegate);
+         super(delegate, 1);
       }
 
       @Override
@@ -164,18 +188,18 @@ public class WithSubmissionTrace {
 
       @Override
       public <T> ListenableFuture<T> submit(Callable<T> task) {
-         return new ListenableFuture<T>(delegate().submit(task));
+         return new ListenableFuture<T>(delegate().submit(task), sample());
       }
 
       @SuppressWarnings({ "unchecked", "rawtypes" })
       @Override
       public ListenableFuture<?> submit(Runnable task) {
-         return new ListenableFuture(delegate().submit(task));
+         return new ListenableFuture(delegate().submit(task), sample());
       }
 
       @Override
       public <T> ListenableFuture<T> submit(Runnable task, T result) {
-         return new ListenableFuture<T>(delegate().submit(task, result));
+         return new ListenableFuture<T>(delegate().submit(task, result), sample());
       }
 
       @SuppressWarnings({ "rawtypes", "unchecked" })
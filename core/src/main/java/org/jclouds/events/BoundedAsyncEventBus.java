@@ -0,0 +1,395 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.events;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import javax.annotation.Resource;
+
+import org.jclouds.logging.Logger;
+
+import com.google.common.base.Objects;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.eventbus.AsyncEventBus;
+import com.google.common.eventbus.DeadEvent;
+import com.google.common.eventbus.Subscribe;
+import com.google.common.reflect.TypeToken;
+
+/**
+ * An {@link AsyncEventBus} that dispatches events on its own executor, through a bounded queue per subscriber.
+ * <p/>
+ * Each {@link Subscribe} method registered gets a queue of at most {@code queueCapacity} events. A queue is drained
+ * in order, by one executor thread at a time, so a slow subscriber delays only its own events. When a queue is
+ * full, the {@link OverflowPolicy} decides whether the poster waits or an event is discarded.
+ * <p/>
+ * The subscriber methods of a class are looked up once, and the subscribers of an event type are resolved once per
+ * change to the registrations, instead of on every post.
+ */
+public class BoundedAsyncEventBus extends AsyncEventBus implements Closeable {
+
+   @Resource
+   protected Logger logger = Logger.NULL;
+
+   private static final LoadingCache<Class<?>, ImmutableList<Method>> subscriberMethods = CacheBuilder.newBuilder()
+         .weakKeys().build(new CacheLoader<Class<?>, ImmutableList<Method>>() {
+            @Override
+            public ImmutableList<Method> load(Class<?> type) {
+               return findSubscriberMethods(type);
+            }
+         });
+
+   private static final LoadingCache<Class<?>, ImmutableSet<Class<?>>> eventTypes = CacheBuilder.newBuilder()
+         .weakKeys().build(new CacheLoader<Class<?>, ImmutableSet<Class<?>>>() {
+            @Override
+            public ImmutableSet<Class<?>> load(Class<?> type) {
+               return ImmutableSet.<Class<?>> copyOf(TypeToken.of(type).getTypes().rawTypes());
+            }
+         });
+
+   private final String identifier;
+   private final ExecutorService executor;
+   private final int queueCapacity;
+   private final OverflowPolicy overflowPolicy;
+   private final ThreadLocal<Boolean> dispatching = new ThreadLocal<Boolean>() {
+      @Override
+      protected Boolean initialValue() {
+         return false;
+      }
+   };
+
+   private final ReadWriteLock lock = new ReentrantReadWriteLock();
+   private final Map<Class<?>, List<SubscriberQueue>> subscribersByType = Maps.newHashMap();
+   private final ConcurrentMap<Class<?>, ImmutableList<SubscriberQueue>> subscribersByEventClass = Maps
+         .newConcurrentMap();
+
+   /**
+    * @param executor
+    *           dedicated to this bus, and shut down when it is closed
+    */
+   public BoundedAsyncEventBus(String identifier, ExecutorService executor, int queueCapacity,
+         OverflowPolicy overflowPolicy) {
+      super(identifier, executor);
+      checkArgument(queueCapacity > 0, "queueCapacity must be positive");
+      this.identifier = checkNotNull(identifier, "identifier");
+      this.executor = executor;
+      this.queueCapacity = queueCapacity;
+      this.overflowPolicy = checkNotNull(overflowPolicy, "overflowPolicy");
+   }
+
+   @Override
+   public void register(Object object) {
+      lock.writeLock().lock();
+      try {
+         for (Method method : subscriberMethods.getUnchecked(object.getClass())) {
+            Class<?> eventType = method.getParameterTypes()[0];
+            List<SubscriberQueue> subscribers = subscribersByType.get(eventType);
+            if (subscribers == null) {
+               subscribers = Lists.newArrayList();
+               subscribersByType.put(eventType, subscribers);
+            }
+            if (find(subscribers, object, method) == null)
+               subscribers.add(new SubscriberQueue(object, method));
+         }
+         subscribersByEventClass.clear();
+      } finally {
+         lock.writeLock().unlock();
+      }
+   }
+
+   @Override
+   public void unregister(Object object) {
+      lock.writeLock().lock();
+      try {
+         for (Method method : subscriberMethods.getUnchecked(object.getClass())) {
+            List<SubscriberQueue> subscribers = subscribersByType.get(method.getParameterTypes()[0]);
+            SubscriberQueue subscriber = subscribers != null ? find(subscribers, object, method) : null;
+            checkArgument(subscriber != null, "missing event subscriber for an annotated method. Is %s registered?",
+                  object);
+            subscribers.remove(subscriber);
+         }
+         subscribersByEventClass.clear();
+      } finally {
+         lock.writeLock().unlock();
+      }
+   }
+
+   @Override
+   public void post(Object event) {
+      List<SubscriberQueue> subscribers = subscribersOf(event.getClass());
+      if (subscribers.isEmpty() && !(event instanceof DeadEvent)) {
+         post(new DeadEvent(this, event));
+      }
+      for (SubscriberQueue subscriber : subscribers) {
+         subscriber.enqueue(event);
+      }
+   }
+
+   /**
+    * Returns the depth and counters of the queue of each registered subscriber method.
+    */
+   public List<SubscriberQueueStats> getQueueStats() {
+      ImmutableList.Builder<SubscriberQueueStats> stats = ImmutableList.builder();
+      lock.readLock().lock();
+      try {
+         for (List<SubscriberQueue> subscribers : subscribersByType.values()) {
+            for (SubscriberQueue subscriber : subscribers) {
+               stats.add(new SubscriberQueueStats(subscriber.toString(), subscriber.queue.size(),
+                     subscriber.delivered.get(), subscriber.discarded.get()));
+            }
+         }
+      } finally {
+         lock.readLock().unlock();
+      }
+      return stats.build();
+   }
+
+   /**
+    * Stops dispatching. Events still queued are discarded.
+    */
+   @Override
+   public void close() throws IOException {
+      List<Runnable> runnables = executor.shutdownNow();
+      if (!runnables.isEmpty())
+         logger.warn("when shutting down event bus %s, subscribers with events outstanding: %s", identifier,
+               runnables);
+   }
+
+   private ImmutableList<SubscriberQueue> subscribersOf(Class<?> eventClass) {
+      ImmutableList<SubscriberQueue> subscribers = subscribersByEventClass.get(eventClass);
+      if (subscribers != null)
+         return subscribers;
+      lock.readLock().lock();
+      try {
+         Set<SubscriberQueue> found = Sets.newLinkedHashSet();
+         for (Class<?> eventType : eventTypes.getUnchecked(eventClass)) {
+            List<SubscriberQueue> ofType = subscribersByType.get(eventType);
+            if (ofType != null)
+               found.addAll(ofType);
+         }
+         subscribers = ImmutableList.copyOf(found);
+         subscribersByEventClass.put(eventClass, subscribers);
+         return subscribers;
+      } finally {
+         lock.readLock().unlock();
+      }
+   }
+
+   private static SubscriberQueue find(List<SubscriberQueue> subscribers, Object target, Method method) {
+      for (SubscriberQueue subscriber : subscribers) {
+         if (subscriber.target == target && subscriber.method.equals(method))
+            return subscriber;
+      }
+      return null;
+   }
+
+   private static ImmutableList<Method> findSubscriberMethods(Class<?> type) {
+      Map<List<Object>, Method> bySignature = Maps.newLinkedHashMap();
+      for (Class<?> supertype : TypeToken.of(type).getTypes().rawTypes()) {
+         for (Method method : supertype.getDeclaredMethods()) {
+            if (!method.isAnnotationPresent(Subscribe.class) || method.isBridge())
+               continue;
+            Class<?>[] parameterTypes = method.getParameterTypes();
+            checkArgument(parameterTypes.length == 1, "Method %s has @Subscribe annotation, but requires %s "
+                  + "arguments. Event subscriber methods must require a single argument.", method,
+                  parameterTypes.length);
+            List<Object> signature = ImmutableList.<Object> builder().add(method.getName())
+                  .addAll(Arrays.asList(parameterTypes)).build();
+            if (!bySignature.containsKey(signature)) {
+               method.setAccessible(true);
+               bySignature.put(signature, method);
+            }
+         }
+      }
+      return ImmutableList.copyOf(bySignature.values());
+   }
+
+   /**
+    * The queue of one subscriber method. It is drained by at most one executor thread at a time, which delivers up
+    * to {@code queueCapacity} events before giving the thread to other subscribers.
+    */
+   private final class SubscriberQueue implements Runnable {
+      private final Object target;
+      private final Method method;
+      private final BlockingQueue<Object> queue = new ArrayBlockingQueue<Object>(queueCapacity);
+      private final AtomicBoolean scheduled = new AtomicBoolean();
+      private final AtomicLong delivered = new AtomicLong();
+      private final AtomicLong discarded = new AtomicLong();
+
+      private SubscriberQueue(Object target, Method method) {
+         this.target = target;
+         this.method = method;
+      }
+
+      private void enqueue(Object event) {
+         if (!offer(event)) {
+            discarded.incrementAndGet();
+            logger.debug("queue of %s is full, discarded event %s", this, event);
+         }
+         schedule();
+      }
+
+      private boolean offer(Object event) {
+         switch (overflowPolicy) {
+            case BLOCK:
+               if (queue.offer(event))
+                  return true;
+               if (dispatching.get())
+                  return false;
+               schedule();
+               try {
+                  queue.put(event);
+                  return true;
+               } catch (InterruptedException e) {
+                  Thread.currentThread().interrupt();
+                  return false;
+               }
+            case DISCARD_NEWEST:
+               return queue.offer(event);
+            case DISCARD_OLDEST:
+               while (!queue.offer(event)) {
+                  if (queue.poll() != null)
+                     discarded.incrementAndGet();
+               }
+               return true;
+            default:
+               throw new AssertionError(overflowPolicy);
+         }
+      }
+
+      private void schedule() {
+         if (queue.isEmpty() || !scheduled.compareAndSet(false, true))
+            return;
+         try {
+            executor.execute(this);
+         } catch (RejectedExecutionException e) {
+            scheduled.set(false);
+            logger.debug("event bus %s is closed, not dispatching to %s", identifier, this);
+         }
+      }
+
+      @Override
+      public void run() {
+         dispatching.set(true);
+         try {
+            for (int i = 0; i < queueCapacity; i++) {
+               Object event = queue.poll();
+               if (event == null)
+                  break;
+               dispatch(event);
+            }
+         } finally {
+            dispatching.remove();
+            scheduled.set(false);
+         }
+         // picks up events queued after the last poll, or left over from a full batch
+         schedule();
+      }
+
+      private void dispatch(Object event) {
+         try {
+            method.invoke(target, event);
+            delivered.incrementAndGet();
+         } catch (InvocationTargetException e) {
+            logger.error(e.getCause(), "could not dispatch event %s to %s", event, this);
+         } catch (IllegalAccessException e) {
+            logger.error(e, "could not dispatch event %s to %s", event, this);
+         }
+      }
+
+      @Override
+      public String toString() {
+         return target.getClass().getName() + "." + method.getName();
+      }
+   }
+
+   /**
+    * A snapshot of the queue of a subscriber method.
+    */
+   public static final class SubscriberQueueStats {
+      private final String subscriber;
+      private final int depth;
+      private final long delivered;
+      private final long discarded;
+
+      SubscriberQueueStats(String subscriber, int depth, long delivered, long discarded) {
+         this.subscriber = subscriber;
+         this.depth = depth;
+         this.delivered = delivered;
+         this.discarded = discarded;
+      }
+
+      /**
+       * The class and name of the subscriber method.
+       */
+      public String getSubscriber() {
+         return subscriber;
+      }
+
+      /**
+       * The number of events waiting to be delivered.
+       */
+      public int getDepth() {
+         return depth;
+      }
+
+      /**
+       * The number of events delivered, not counting those the subscriber failed on.
+       */
+      public long getDelivered() {
+         return delivered;
+      }
+
+      /**
+       * The number of events discarded because the queue was full.
+       */
+      public long getDiscarded() {
+         return discarded;
+      }
+
+      @Override
+      public String toString() {
+         return Objects.toStringHelper(this).add("subscriber", subscriber).add("depth", depth)
+               .add("delivered", delivered).add("discarded", discarded).toString();
+      }
+   }
+}
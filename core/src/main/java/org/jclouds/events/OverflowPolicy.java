@@ -0,0 +1,37 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.events;
+
+/**
+ * What a {@link BoundedAsyncEventBus} does with an event posted to a subscriber whose queue is full.
+ */
+public enum OverflowPolicy {
+   /**
+    * The posting thread waits until the subscriber has taken an event off its queue. This pushes back on producers
+    * that outpace their subscribers. Events posted from a dispatch thread are discarded instead, as waiting there
+    * could deadlock the bus.
+    */
+   BLOCK,
+   /**
+    * The event being posted is discarded.
+    */
+   DISCARD_NEWEST,
+   /**
+    * The oldest event waiting in the queue is discarded to make room for the one being posted.
+    */
+   DISCARD_OLDEST;
+}
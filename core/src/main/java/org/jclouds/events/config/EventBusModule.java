@@ -17,42 +17,74 @@
 package org.jclouds.events.config;
 
 import static com.google.inject.Scopes.SINGLETON;
-import static org.jclouds.Constants.PROPERTY_USER_THREADS;
+import static org.jclouds.Constants.PROPERTY_EVENT_OVERFLOW_POLICY;
+import static org.jclouds.Constants.PROPERTY_EVENT_QUEUE_SIZE;
+import static org.jclouds.Constants.PROPERTY_EVENT_THREADS;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import javax.inject.Named;
 import javax.inject.Singleton;
 
+import org.jclouds.events.BoundedAsyncEventBus;
+import org.jclouds.events.OverflowPolicy;
 import org.jclouds.events.config.annotations.AsyncBus;
 import org.jclouds.events.handlers.DeadEventLoggingHandler;
+import org.jclouds.lifecycle.Closer;
 
 import com.google.common.eventbus.AsyncEventBus;
 import com.google.common.eventbus.EventBus;
-import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.AbstractModule;
+import com.google.inject.Inject;
+import com.google.inject.Injector;
 import com.google.inject.Provides;
 
 /**
  * Configures the {@link EventBus} to be used in the platform.
  * <p>
  * This class will provide an {@link AsyncEventBus} to be used to provide a basic pub/sub system for asynchronous
- * operations.
+ * operations. It is a {@link BoundedAsyncEventBus}, which delivers events on its own threads, so that slow
+ * subscribers do not hold up the threads making api calls.
  * 
  * 
- * @see ExecutorServiceModule
+ * @see BoundedAsyncEventBus
  * @see AsyncEventBus
  * @see EventBus
  * @see AsyncBus
  */
 @ConfiguresEventBus
 public class EventBusModule extends AbstractModule {
+
+   static class AsyncEventBusSettings {
+      @Inject(optional = true)
+      @Named(PROPERTY_EVENT_THREADS)
+      int threads = Runtime.getRuntime().availableProcessors();
+
+      @Inject(optional = true)
+      @Named(PROPERTY_EVENT_QUEUE_SIZE)
+      int queueSize = 1000;
+
+      @Inject(optional = true)
+      @Named(PROPERTY_EVENT_OVERFLOW_POLICY)
+      OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+   }
+
    /**
-    * Provides an {@link AsyncEventBus} that will use the configured executor service to dispatch events to subscribers.
+    * Provides a {@link BoundedAsyncEventBus} with its own executor, which is shut down when the context is closed.
     */
    @Provides
    @Singleton
-   AsyncEventBus provideAsyncEventBus(@Named(PROPERTY_USER_THREADS) ListeningExecutorService userExecutor,
-         DeadEventLoggingHandler deadEventsHandler) {// NO_UCD
-      AsyncEventBus asyncBus = new AsyncEventBus("jclouds-async-event-bus", userExecutor);
+   BoundedAsyncEventBus provideAsyncEventBus(AsyncEventBusSettings settings, DeadEventLoggingHandler deadEventsHandler,
+         Closer closer, Injector injector) {// NO_UCD
+      BoundedAsyncEventBus asyncBus = new BoundedAsyncEventBus("jclouds-async-event-bus",
+            newEventExecutor(settings.threads), settings.queueSize, settings.overflowPolicy);
+      injector.injectMembers(asyncBus);
+      closer.addToClose(asyncBus);
       asyncBus.register(deadEventsHandler);
       return asyncBus;
    }
@@ -73,6 +105,15 @@ public class EventBusModule extends AbstractModule {
     */
    @Override
    protected void configure() {
+      bind(AsyncEventBus.class).to(BoundedAsyncEventBus.class);
       bind(EventBus.class).annotatedWith(AsyncBus.class).to(AsyncEventBus.class).in(SINGLETON);
    }
+
+   private static ExecutorService newEventExecutor(int threads) {
+      ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(), new ThreadFactoryBuilder().setNameFormat("event thread %d")
+                  .setThreadFactory(Executors.defaultThreadFactory()).build());
+      executor.allowCoreThreadTimeOut(true);
+      return executor;
+   }
 }
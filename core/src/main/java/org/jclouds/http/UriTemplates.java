@@ -20,8 +20,6 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.util.Map;
 
-import com.google.common.collect.Lists;
-
 public class UriTemplates {
 
    /**
@@ -37,32 +35,47 @@ public class UriTemplates {
       if (checkNotNull(template, "template").length() < 3)
          return template.toString(); // skip expansion if there's no valid variables set. ex. {a} is the first valid
       checkNotNull(variables, "variables for %s", template);
+      if (template.indexOf('{') == -1 && template.indexOf('}') == -1)
+         return template;
 
-      boolean inVar = false;
-      StringBuilder var = new StringBuilder();
-      StringBuilder builder = new StringBuilder();
-      for (char c : Lists.charactersOf(template)) {
+      int varStart = -1;
+      StringBuilder builder = new StringBuilder(template.length() + 16);
+      for (int i = 0; i < template.length(); i++) {
+         char c = template.charAt(i);
          switch (c) {
          case '{':
-            inVar = true;
+            if (varStart == -1)
+               varStart = i + 1;
             break;
          case '}':
-            inVar = false;
-            String key = var.toString();
-            Object value = variables.get(var.toString());
+            String key = varStart == -1 ? "" : withoutOpeningBraces(template, varStart, i);
+            Object value = variables.get(key);
             if (value != null)
                builder.append(value);
             else
                builder.append('{').append(key).append('}');
-            var.setLength(0);
+            varStart = -1;
             break;
          default:
-            if (inVar)
-               var.append(c);
-            else
+            if (varStart == -1)
                builder.append(c);
          }
       }
       return builder.toString();
    }
+
+   /**
+    * nested opening braces are not part of the variable name, ex. {@code {a{b}} refers to {@code ab}
+    */
+   private static String withoutOpeningBraces(String template, int start, int end) {
+      String key = template.substring(start, end);
+      if (key.indexOf('{') == -1)
+         return key;
+      StringBuilder builder = new StringBuilder(key.length());
+      for (int i = 0; i < key.length(); i++) {
+         if (key.charAt(i) != '{')
+            builder.append(key.charAt(i));
+      }
+      return builder.toString();
+   }
 }
@@ -220,12 +220,13 @@ public final class Uris {
 
       private static String escapeSpecialChars(CharSequence uri) {
          // skip encoding if there's no valid variables set. ex. {a} is the left valid
-         if (uri.length() < 3)
-            return uri.toString();
+         String in = uri.toString();
+         if (in.length() < 3 || (in.indexOf('{') == -1 && in.indexOf('}') == -1))
+            return in;
 
-         // duplicates memory even if there are no special characters, however only requires a single scan.
-         StringBuilder builder = new StringBuilder();
-         for (char c : Lists.charactersOf(uri)) {
+         StringBuilder builder = new StringBuilder(in.length() + 8);
+         for (int i = 0; i < in.length(); i++) {
+            char c = in.charAt(i);
             switch (c) {
             case '{':
                builder.append("((");
@@ -241,12 +242,15 @@ public final class Uris {
       }
 
       private static String unescapeSpecialChars(CharSequence uri) {
-         if (uri.length() < 5) // skip encoding if there's no valid variables set. ex. ((a)) is the left valid
-            return uri.toString();
-
-         char last = uri.charAt(0);  // duplicates even if there are no special characters, but only requires 1 scan
-         StringBuilder builder = new StringBuilder();
-         for (char c : Lists.charactersOf(uri)) {
+         String in = uri.toString();
+         // skip encoding if there's no valid variables set. ex. ((a)) is the left valid
+         if (in.length() < 5 || (in.indexOf("((") == -1 && in.indexOf("))") == -1))
+            return in;
+
+         char last = in.charAt(0);
+         StringBuilder builder = new StringBuilder(in.length());
+         for (int i = 0; i < in.length(); i++) {
+            char c = in.charAt(i);
             switch (c) {
             case '(':
                if (last == '(') {
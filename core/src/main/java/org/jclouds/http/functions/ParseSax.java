@@ -181,6 +181,26 @@ public class ParseSax<T> implements Function<HttpResponse, T>, InvocationContext
       return handler;
    }
 
+   /**
+    * Receives the elements of a listing one at a time, as soon as each has been parsed.
+    * 
+    * @see StreamingHandler
+    */
+   public interface ElementCallback<E> {
+      void onElement(E element);
+   }
+
+   /**
+    * Implemented by handlers of large listings. While a callback is set, each element is passed to it as the parser
+    * reaches its end tag, and is left out of the result, so the response is never held in memory as a whole.
+    * <p/>
+    * When the handler parses the response of a method invoked with an {@link ElementCallback} argument, that argument
+    * is set as the callback.
+    */
+   public interface StreamingHandler<E> {
+      void setCallback(@Nullable ElementCallback<? super E> callback);
+   }
+
    /**
     * Handler that produces a useable domain object accessible after parsing completes.
     * 
@@ -198,8 +218,20 @@ public class ParseSax<T> implements Function<HttpResponse, T>, InvocationContext
       @Override
       public HandlerWithResult<T> setContext(HttpRequest request) {
          this.request = request;
+         if (this instanceof StreamingHandler && request instanceof GeneratedHttpRequest)
+            setCallbackFromArgs(StreamingHandler.class.cast(this), GeneratedHttpRequest.class.cast(request));
          return this;
       }
+
+      @SuppressWarnings({ "unchecked", "rawtypes" })
+      private static void setCallbackFromArgs(StreamingHandler handler, GeneratedHttpRequest request) {
+         for (Object arg : request.getInvocation().getArgs()) {
+            if (arg instanceof ElementCallback) {
+               handler.setCallback((ElementCallback) arg);
+               return;
+            }
+         }
+      }
    }
 
    public abstract static class HandlerForGeneratedRequestWithResult<T> extends HandlerWithResult<T> {
@@ -67,12 +67,23 @@ public class SaxParserModule extends AbstractModule {
    }
 
    @Provides
+   SAXParserFactory provideSAXParserFactory(SharedSAXParserFactory shared) {
+      return shared.factory;
+   }
+
+   /**
+    * As it has no dependencies, Guice creates this in the root injector, so contexts built from a
+    * {@link org.jclouds.SharedContextParent} share one factory.
+    */
    @Singleton
-   SAXParserFactory provideSAXParserFactory() {
-      SAXParserFactory factory = SAXParserFactory.newInstance();
-      factory.setNamespaceAware(false);
-      factory.setValidating(false);
-      return factory;
+   static class SharedSAXParserFactory {
+      private final SAXParserFactory factory;
+
+      SharedSAXParserFactory() {
+         factory = SAXParserFactory.newInstance();
+         factory.setNamespaceAware(false);
+         factory.setValidating(false);
+      }
    }
 
 }
@@ -127,10 +127,12 @@ public class Queries {
    }
 
    private static class EncodeAndAppendParam extends AppendParam {
+      private static final Iterable<Character> DEFAULT_SKIPS = ImmutableList.of('/', ',');
+
       private Iterable<Character> skips;
 
       private EncodeAndAppendParam() {
-         this(ImmutableList.of('/', ','));
+         this(DEFAULT_SKIPS);
       }
 
       private EncodeAndAppendParam(Iterable<Character> skips) {
@@ -17,18 +17,25 @@
 package org.jclouds.io;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 
+import org.jclouds.io.payloads.BasePayload;
 import org.jclouds.io.payloads.ByteArrayPayload;
 import org.jclouds.io.payloads.ByteSourcePayload;
+import org.jclouds.io.payloads.DelegatingPayload;
 import org.jclouds.io.payloads.FilePayload;
 import org.jclouds.io.payloads.InputStreamPayload;
+import org.jclouds.io.payloads.ReplayableInputStreamPayload;
 import org.jclouds.io.payloads.StringPayload;
 import org.jclouds.io.payloads.UrlEncodedFormPayload;
 
 import com.google.common.collect.Multimap;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
 import com.google.common.io.ByteSource;
 
 public class Payloads {
@@ -58,6 +65,10 @@ public class Payloads {
       return new InputStreamPayload(checkNotNull(data, "data"));
    }
 
+   public static ReplayableInputStreamPayload newReplayableInputStreamPayload(InputStream data) {
+      return new ReplayableInputStreamPayload(checkNotNull(data, "data"));
+   }
+
    public static ByteArrayPayload newByteArrayPayload(byte[] data) {
       return new ByteArrayPayload(checkNotNull(data, "data"));
    }
@@ -77,4 +88,21 @@ public class Payloads {
    public static UrlEncodedFormPayload newUrlEncodedFormPayload(Multimap<String, String> formParams) {
       return new UrlEncodedFormPayload(formParams);
    }
+
+   /**
+    * Digest of the payload content, such as {@code Hashing.md5()} or {@code Hashing.sha256()}. Payloads extending
+    * {@link BasePayload} read their content at most once per hash function, so signing filters, retries and
+    * integrity checks of the same payload share the result.
+    * 
+    * @throws IllegalStateException
+    *            if the payload is not {@link Payload#isRepeatable() repeatable}, as reading it here would consume it
+    */
+   public static HashCode hash(Payload payload, HashFunction hashFunction) throws IOException {
+      if (payload instanceof BasePayload)
+         return BasePayload.class.cast(payload).hash(hashFunction);
+      if (payload instanceof DelegatingPayload)
+         return DelegatingPayload.class.cast(payload).hash(hashFunction);
+      checkState(payload.isRepeatable(), "cannot hash a payload that is not repeatable: %s", payload);
+      return ByteStreams2.hashAndClose(payload.openStream(), hashFunction);
+   }
 }
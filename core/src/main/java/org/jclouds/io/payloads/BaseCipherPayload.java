@@ -17,6 +17,7 @@
 package org.jclouds.io.payloads;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
 
 import java.io.IOException;
 import java.security.Key;
@@ -25,8 +26,12 @@ import javax.crypto.Cipher;
 import javax.crypto.CipherInputStream;
 
 import org.jclouds.crypto.Crypto;
+import org.jclouds.io.ByteStreams2;
 import org.jclouds.io.Payload;
 
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+
 public abstract class BaseCipherPayload extends DelegatingPayload {
 
    private final Key key;
@@ -45,4 +50,14 @@ public abstract class BaseCipherPayload extends DelegatingPayload {
    public CipherInputStream openStream() throws IOException {
       return new CipherInputStream(super.openStream(), initializeCipher(key));
    }
+
+   /**
+    * Hashes the output of the cipher rather than the delegate's content. It is not memoized, since ciphers such as
+    * RSA with random padding produce different output on each read.
+    */
+   @Override
+   public HashCode hash(HashFunction hashFunction) throws IOException {
+      checkState(isRepeatable(), "cannot hash a payload that is not repeatable: %s", this);
+      return ByteStreams2.hashAndClose(openStream(), hashFunction);
+   }
 }
@@ -17,12 +17,18 @@
 package org.jclouds.io.payloads;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import com.google.common.base.Throwables;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
 
+import org.jclouds.io.ByteStreams2;
 import org.jclouds.io.MutableContentMetadata;
 import org.jclouds.io.Payload;
 
@@ -30,6 +36,7 @@ public abstract class BasePayload<V> implements Payload {
    protected final V content;
    protected transient volatile boolean written;
    protected MutableContentMetadata contentMetadata;
+   private final ConcurrentMap<HashFunction, HashCode> hashes = new ConcurrentHashMap<HashFunction, HashCode>(2);
 
    protected BasePayload(V content) {
       this(content, new BaseMutableContentMetadata());
@@ -87,6 +94,29 @@ public abstract class BasePayload<V> implements Payload {
       return "[content=" + (content != null) + ", contentMetadata=" + contentMetadata + ", written=" + written + "]";
    }
 
+   /**
+    * Memoized per hash function, unless {@link #isContentMutable() the content can change}.
+    * 
+    * @see org.jclouds.io.Payloads#hash(Payload, HashFunction)
+    */
+   public HashCode hash(HashFunction hashFunction) throws IOException {
+      HashCode hash = hashes.get(checkNotNull(hashFunction, "hashFunction"));
+      if (hash == null) {
+         checkState(isRepeatable(), "cannot hash a payload that is not repeatable: %s", this);
+         hash = ByteStreams2.hashAndClose(openStream(), hashFunction);
+         if (!isContentMutable())
+            hashes.putIfAbsent(hashFunction, hash);
+      }
+      return hash;
+   }
+
+   /**
+    * Whether the content can change between reads, as that of a file can. The hash of such content is not memoized.
+    */
+   protected boolean isContentMutable() {
+      return false;
+   }
+
    /**
     * By default we are repeatable.
     */
@@ -22,9 +22,12 @@ import java.io.IOException;
 import java.io.InputStream;
 
 import com.google.common.base.Throwables;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
 
 import org.jclouds.io.MutableContentMetadata;
 import org.jclouds.io.Payload;
+import org.jclouds.io.Payloads;
 
 public class DelegatingPayload implements Payload {
 
@@ -87,6 +90,13 @@ public class DelegatingPayload implements Payload {
 
    }
 
+   /**
+    * @see Payloads#hash(Payload, HashFunction)
+    */
+   public HashCode hash(HashFunction hashFunction) throws IOException {
+      return Payloads.hash(delegate, hashFunction);
+   }
+
    public Payload getDelegate() {
       return delegate;
    }
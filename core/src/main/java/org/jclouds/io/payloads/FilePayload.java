@@ -40,4 +40,12 @@ public class FilePayload extends BasePayload<File> {
       return new FileInputStream(content);
    }
 
+   /**
+    * The file may be written to after the payload was created.
+    */
+   @Override
+   protected boolean isContentMutable() {
+      return true;
+   }
+
 }
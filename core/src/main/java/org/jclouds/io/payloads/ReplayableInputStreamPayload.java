@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.io.payloads;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static org.jclouds.util.Closeables2.closeQuietly;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+
+import com.google.common.io.FileBackedOutputStream;
+
+/**
+ * A repeatable payload for a stream that can only be read once, such as a pipe or socket.
+ * <p/>
+ * The first read streams from the source, copying what it reads into a buffer that holds up to
+ * {@code memoryThreshold} bytes in memory and spills the rest to a temporary file. Later streams replay the buffered
+ * bytes and then continue from the source, so a request can be retried or re-signed after a partial or complete
+ * read. The temporary file is deleted on {@link #release}, or when the payload is garbage collected.
+ */
+public class ReplayableInputStreamPayload extends BasePayload<InputStream> {
+
+   /** bytes buffered in memory before spilling to disk, unless specified. */
+   public static final int DEFAULT_MEMORY_THRESHOLD = 1024 * 1024;
+
+   private final FileBackedOutputStream buffer;
+   // guarded by this
+   private long buffered;
+   private boolean exhausted;
+   private boolean released;
+   private int generation;
+
+   public ReplayableInputStreamPayload(InputStream content) {
+      this(content, DEFAULT_MEMORY_THRESHOLD);
+   }
+
+   public ReplayableInputStreamPayload(InputStream content, int memoryThreshold) {
+      super(content);
+      checkArgument(memoryThreshold >= 0, "memoryThreshold must not be negative");
+      this.buffer = new FileBackedOutputStream(memoryThreshold, true);
+   }
+
+   /**
+    * Replays the bytes read so far, then continues reading from the source. Streams opened earlier fail on their next
+    * read, as the source can only be consumed by one of them.
+    */
+   @Override
+   public synchronized InputStream openStream() throws IOException {
+      checkState(!released, "payload was released: %s", this);
+      generation++;
+      buffer.flush();
+      InputStream replay = buffer.asByteSource().slice(0, buffered).openStream();
+      return exhausted ? replay : new SequenceInputStream(replay, new Tee(generation));
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public boolean isRepeatable() {
+      return true;
+   }
+
+   /**
+    * closes the source and deletes the temporary file, if any.
+    */
+   @Override
+   public synchronized void release() {
+      released = true;
+      closeQuietly(content);
+      try {
+         buffer.reset();
+      } catch (IOException e) {
+         // the file is deleted on finalization
+      }
+   }
+
+   /**
+    * @return count of bytes read from the source so far
+    */
+   public synchronized long getBufferedLength() {
+      return buffered;
+   }
+
+   /**
+    * reads the rest of the source, copying into the buffer.
+    */
+   private class Tee extends InputStream {
+      private final int generation;
+
+      private Tee(int generation) {
+         this.generation = generation;
+      }
+
+      @Override
+      public int read() throws IOException {
+         byte[] b = new byte[1];
+         int read = read(b, 0, 1);
+         return read == -1 ? -1 : b[0] & 0xff;
+      }
+
+      @Override
+      public int read(byte[] b, int off, int len) throws IOException {
+         synchronized (ReplayableInputStreamPayload.this) {
+            if (released)
+               throw new IOException("payload was released");
+            if (generation != ReplayableInputStreamPayload.this.generation)
+               throw new IOException("stream was superseded by a later call to openStream");
+            if (exhausted)
+               return -1;
+            int read = content.read(b, off, len);
+            if (read == -1) {
+               exhausted = true;
+            } else {
+               buffer.write(b, off, read);
+               buffered += read;
+            }
+            return read;
+         }
+      }
+
+      /**
+       * the source stays open for later replays, until the payload is released.
+       */
+      @Override
+      public void close() {
+      }
+   }
+}
@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.json.internal;
+
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.inject.Named;
+
+import org.jclouds.Constants;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.Maps;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.google.inject.Inject;
+
+/**
+ * Deserializes types using the code generated for them at compile time by the {@code jclouds-json-processor}
+ * annotation processor, instead of invoking their annotated constructor or factory method reflectively.
+ * <p/>
+ * The generated deserializer of {@code com.example.Outer.Inner} is {@code com.example.JsonDeserializer_Outer_Inner}.
+ * Types without one, and generic types, are left to the factories registered before this one, typically
+ * {@link DeserializationConstructorAndReflectiveTypeAdapterFactory}, which also serializes all types.
+ */
+public final class GeneratedTypeAdapterFactory implements TypeAdapterFactory {
+
+   /**
+    * Implemented by the generated deserializers, which have a public constructor taking the {@link Gson} instance
+    * whose adapters they delegate to for the values of their parameters.
+    */
+   public interface Deserializer<T> {
+      T read(JsonReader in) throws IOException;
+   }
+
+   static final String CLASS_NAME_PREFIX = "JsonDeserializer_";
+
+   @Inject(optional = true)
+   @Named(Constants.PROPERTY_JSON_GENERATED_DESERIALIZERS)
+   private boolean enabled = true;
+
+   private final ConcurrentMap<Class<?>, Optional<Constructor<?>>> constructors = Maps.newConcurrentMap();
+
+   @SuppressWarnings("unchecked")
+   @Override
+   public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+      if (!enabled || !(type.getType() instanceof Class)) {
+         return null;
+      }
+      Optional<Constructor<?>> constructor = generatedConstructor(type.getRawType());
+      if (!constructor.isPresent()) {
+         return null;
+      }
+      Deserializer<T> deserializer;
+      try {
+         deserializer = (Deserializer<T>) constructor.get().newInstance(gson);
+      } catch (InstantiationException e) {
+         throw new AssertionError(e);
+      } catch (IllegalAccessException e) {
+         throw new AssertionError(e);
+      } catch (InvocationTargetException e) {
+         if (e.getCause() instanceof RuntimeException)
+            throw RuntimeException.class.cast(e.getCause());
+         throw new AssertionError(e);
+      }
+      return new GeneratedTypeAdapter<T>(gson, this, type, deserializer);
+   }
+
+   private Optional<Constructor<?>> generatedConstructor(Class<?> type) {
+      Optional<Constructor<?>> constructor = constructors.get(type);
+      if (constructor == null) {
+         constructor = lookupGeneratedConstructor(type);
+         constructors.putIfAbsent(type, constructor);
+      }
+      return constructor;
+   }
+
+   private static Optional<Constructor<?>> lookupGeneratedConstructor(Class<?> type) {
+      if (type.isPrimitive() || type.isArray() || type.getPackage() == null || type.getClassLoader() == null) {
+         return Optional.absent();
+      }
+      String packageName = type.getPackage().getName();
+      String simpleNames = type.getName().substring(packageName.isEmpty() ? 0 : packageName.length() + 1);
+      String generatedName = (packageName.isEmpty() ? "" : packageName + ".") + CLASS_NAME_PREFIX
+            + simpleNames.replace('$', '_');
+      try {
+         Class<?> generated = Class.forName(generatedName, true, type.getClassLoader());
+         if (!Deserializer.class.isAssignableFrom(generated)) {
+            return Optional.absent();
+         }
+         return Optional.<Constructor<?>> of(generated.getConstructor(Gson.class));
+      } catch (ClassNotFoundException e) {
+         return Optional.absent();
+      } catch (NoSuchMethodException e) {
+         return Optional.absent();
+      }
+   }
+
+   private static final class GeneratedTypeAdapter<T> extends TypeAdapter<T> {
+      private final Gson gson;
+      private final TypeAdapterFactory skipPast;
+      private final TypeToken<T> type;
+      private final Deserializer<T> deserializer;
+      private volatile TypeAdapter<T> serializer;
+
+      private GeneratedTypeAdapter(Gson gson, TypeAdapterFactory skipPast, TypeToken<T> type,
+            Deserializer<T> deserializer) {
+         this.gson = gson;
+         this.skipPast = skipPast;
+         this.type = type;
+         this.deserializer = deserializer;
+      }
+
+      @Override
+      public T read(JsonReader in) throws IOException {
+         return deserializer.read(in);
+      }
+
+      /**
+       * Serialization is left to the next factory, looked up on first use as most types are only ever read.
+       */
+      @Override
+      public void write(JsonWriter out, T value) throws IOException {
+         TypeAdapter<T> delegate = serializer;
+         if (delegate == null) {
+            delegate = serializer = gson.getDelegateAdapter(skipPast, type);
+         }
+         delegate.write(out, value);
+      }
+   }
+}
@@ -0,0 +1,218 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.lifecycle;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.base.Functions;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Ordering;
+import com.google.inject.AbstractModule;
+import com.google.inject.Binder;
+import com.google.inject.Binding;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.Module;
+import com.google.inject.Provider;
+import com.google.inject.Scope;
+import com.google.inject.Scopes;
+import com.google.inject.Singleton;
+import com.google.inject.binder.ScopedBindingBuilder;
+import com.google.inject.spi.ConstructorBinding;
+import com.google.inject.spi.DefaultBindingScopingVisitor;
+import com.google.inject.spi.DefaultBindingTargetVisitor;
+import com.google.inject.spi.Element;
+import com.google.inject.spi.Elements;
+import com.google.inject.spi.LinkedKeyBinding;
+import com.google.inject.spi.ProviderInstanceBinding;
+import com.google.inject.spi.ProviderKeyBinding;
+import com.google.inject.spi.UntargettedBinding;
+
+/**
+ * Reports what the singletons of a context cost to create, so that expensive ones can be found when tuning startup
+ * of a context built with {@link org.jclouds.ContextBuilder#lazy()}.
+ * <p/>
+ * Ex.
+ * 
+ * <pre>
+ * Injector injector = ContextBuilder.newBuilder(&quot;aws-s3&quot;).lazy().buildInjector();
+ * // use the context
+ * for (Map.Entry&lt;Key&lt;?&gt;, Long&gt; cost : InitializationCosts.measure(injector).entrySet())
+ *    System.out.printf(&quot;%s took %dms%n&quot;, cost.getKey(), NANOSECONDS.toMillis(cost.getValue()));
+ * </pre>
+ */
+public final class InitializationCosts {
+
+   /**
+    * @return nanoseconds Guice took to create each singleton of the injector it created so far, most expensive
+    *         first. The time of a binding includes the dependencies it was the first to need.
+    * @throws IllegalStateException
+    *            if the injector was not built with {@link #record(Iterable)}, as lazy contexts are
+    */
+   public static Map<Key<?>, Long> measure(Injector injector) {
+      Binding<InitializationCosts> recorded = checkNotNull(injector, "injector").getExistingBinding(
+            Key.get(InitializationCosts.class));
+      checkState(recorded != null, "initialization costs are only recorded for lazy contexts");
+      Map<Key<?>, Long> costs = ImmutableMap.copyOf(recorded.getProvider().get().costs);
+      ImmutableMap.Builder<Key<?>, Long> mostExpensiveFirst = ImmutableMap.builder();
+      for (Key<?> key : Ordering.natural().onResultOf(Functions.forMap(costs)).reverse().sortedCopy(costs.keySet()))
+         mostExpensiveFirst.put(key, costs.get(key));
+      return mostExpensiveFirst.build();
+   }
+
+   /**
+    * @return a module binding the same as {@code modules}, except that their singletons are timed as Guice creates
+    *         them. Singletons Guice creates for classes no binding refers to are counted in the time of the binding
+    *         that first needed them. As in {@link com.google.inject.Stage#DEVELOPMENT}, singletons are only created
+    *         when first used.
+    */
+   public static Module record(Iterable<? extends Module> modules) {
+      final List<Element> elements = Elements.getElements(checkNotNull(modules, "modules"));
+      return new AbstractModule() {
+         @Override
+         protected void configure() {
+            InitializationCosts costs = new InitializationCosts();
+            bind(InitializationCosts.class).toInstance(costs);
+            for (Element element : elements) {
+               if (element instanceof Binding && isSingleton(Binding.class.cast(element)))
+                  rebind(binder(), Binding.class.cast(element), costs.timedSingleton);
+               else
+                  element.applyTo(binder());
+            }
+         }
+      };
+   }
+
+   private final Map<Key<?>, Long> costs = Maps.newConcurrentMap();
+
+   private final Scope timedSingleton = new Scope() {
+      public <T> Provider<T> scope(final Key<T> key, final Provider<T> unscoped) {
+         return Scopes.SINGLETON.scope(key, new Provider<T>() {
+            public T get() {
+               long start = System.nanoTime();
+               try {
+                  return unscoped.get();
+               } finally {
+                  costs.put(key, System.nanoTime() - start);
+               }
+            }
+         });
+      }
+
+      @Override
+      public String toString() {
+         return "InitializationCosts.timedSingleton";
+      }
+   };
+
+   private InitializationCosts() {
+   }
+
+   private static boolean isSingleton(final Binding<?> binding) {
+      return binding.acceptScopingVisitor(new DefaultBindingScopingVisitor<Boolean>() {
+         @Override
+         public Boolean visitScope(Scope scope) {
+            return scope == Scopes.SINGLETON;
+         }
+
+         @Override
+         public Boolean visitScopeAnnotation(Class<? extends Annotation> scopeAnnotation) {
+            return isSingleton(scopeAnnotation);
+         }
+
+         @Override
+         public Boolean visitNoScoping() {
+            // the scope of a class annotated @Singleton is only applied when the injector is created
+            Class<?> type = binding.acceptTargetVisitor(new DefaultBindingTargetVisitor<Object, Class<?>>() {
+               @Override
+               public Class<?> visit(UntargettedBinding<?> untargetted) {
+                  return untargetted.getKey().getTypeLiteral().getRawType();
+               }
+
+               @Override
+               public Class<?> visit(LinkedKeyBinding<?> linked) {
+                  return linked.getLinkedKey().getTypeLiteral().getRawType();
+               }
+            });
+            if (type == null)
+               return false;
+            for (Annotation annotation : type.getAnnotations()) {
+               if (isSingleton(annotation.annotationType()))
+                  return true;
+            }
+            return false;
+         }
+
+         @Override
+         protected Boolean visitOther() {
+            return false;
+         }
+      });
+   }
+
+   private static boolean isSingleton(Class<? extends Annotation> scopeAnnotation) {
+      return scopeAnnotation == Singleton.class || scopeAnnotation == javax.inject.Singleton.class;
+   }
+
+   /**
+    * binds the target of {@code binding} again, in {@code scope}. Other kinds of bindings are never scoped.
+    */
+   @SuppressWarnings({ "unchecked", "rawtypes" })
+   private static void rebind(Binder binder, final Binding binding, Scope scope) {
+      final Binder source = binder.withSource(binding.getSource());
+      ScopedBindingBuilder rebound = (ScopedBindingBuilder) binding.acceptTargetVisitor(
+            new DefaultBindingTargetVisitor<Object, ScopedBindingBuilder>() {
+               @Override
+               public ScopedBindingBuilder visit(UntargettedBinding untargetted) {
+                  return source.bind(untargetted.getKey());
+               }
+
+               @Override
+               public ScopedBindingBuilder visit(LinkedKeyBinding linked) {
+                  return source.bind(linked.getKey()).to(linked.getLinkedKey());
+               }
+
+               @Override
+               public ScopedBindingBuilder visit(ProviderInstanceBinding provider) {
+                  return source.bind(provider.getKey()).toProvider(provider.getProviderInstance());
+               }
+
+               @Override
+               public ScopedBindingBuilder visit(ProviderKeyBinding provider) {
+                  return source.bind(provider.getKey()).toProvider(provider.getProviderKey());
+               }
+
+               @Override
+               public ScopedBindingBuilder visit(ConstructorBinding constructor) {
+                  return source.bind(constructor.getKey()).toConstructor(
+                        (Constructor) constructor.getConstructor().getMember(),
+                        constructor.getConstructor().getDeclaringType());
+               }
+            });
+      if (rebound == null)
+         binding.applyTo(binder);
+      else
+         rebound.in(scope);
+   }
+}
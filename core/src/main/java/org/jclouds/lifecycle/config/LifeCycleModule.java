@@ -42,7 +42,10 @@ import com.google.common.util.concurrent.ExecutionList;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.inject.AbstractModule;
 import com.google.inject.Inject;
+import com.google.inject.Injector;
+import com.google.inject.Key;
 import com.google.inject.TypeLiteral;
+import com.google.inject.name.Names;
 import com.google.inject.spi.InjectionListener;
 import com.google.inject.spi.TypeEncounter;
 import com.google.inject.spi.TypeListener;
@@ -52,7 +55,8 @@ import com.google.inject.spi.TypeListener;
  * injection, and Associate {@link PreDestroy} with a global {@link Closer} object.
  * 
  * <h3>Important</h3> Make sure you create your injector with {@link Stage#PRODUCTION} and execute the bound
- * {@link ExecutionList} prior to using any other objects.
+ * {@link ExecutionList} prior to using any other objects. With {@link Stage#DEVELOPMENT}, singletons created after
+ * the list executed have their {@link PostConstruct} methods invoked as soon as they are injected.
  * 
  * <p/>
  * Ex.
@@ -66,6 +70,8 @@ public class LifeCycleModule extends AbstractModule {
    protected void configure() {
 
       Closeable executorCloser = new Closeable() {
+         @Inject
+         Injector injector;
          @Inject
          @Named(PROPERTY_USER_THREADS)
          ListeningExecutorService userExecutor;
@@ -76,11 +82,17 @@ public class LifeCycleModule extends AbstractModule {
 
          public void close() throws IOException {
             assert userExecutor != null;
-            userExecutor.shutdownNow();
+            // executors inherited from a parent injector are shared with its other children
+            if (boundHere(ListeningExecutorService.class, PROPERTY_USER_THREADS))
+               userExecutor.shutdownNow();
             // ScheduledExecutor is defined in an optional module
-            if (scheduledExecutor != null)
+            if (scheduledExecutor != null && boundHere(ScheduledExecutorService.class, PROPERTY_SCHEDULER_THREADS))
                scheduledExecutor.shutdownNow();
          }
+
+         private boolean boundHere(Class<?> type, String name) {
+            return injector.getBindings().containsKey(Key.get(type, Names.named(name)));
+         }
       };
 
       binder().requestInjection(executorCloser);
@@ -39,6 +39,7 @@ import org.jclouds.location.predicates.ZoneIdFilter;
 import org.jclouds.location.suppliers.ImplicitLocationSupplier;
 import org.jclouds.location.suppliers.ImplicitRegionIdSupplier;
 import org.jclouds.location.suppliers.LocationIdToIso3166CodesSupplier;
+import org.jclouds.location.suppliers.LocationsSnapshotCodec;
 import org.jclouds.location.suppliers.LocationsSupplier;
 import org.jclouds.location.suppliers.ProviderURISupplier;
 import org.jclouds.location.suppliers.RegionIdToURISupplier;
@@ -50,6 +51,7 @@ import org.jclouds.reflect.InvocationSuccess;
 import org.jclouds.rest.AuthorizationException;
 import org.jclouds.rest.functions.ImplicitOptionalConverter;
 import org.jclouds.rest.suppliers.MemoizedRetryOnTimeOutButNotOnAuthorizationExceptionSupplier;
+import org.jclouds.suppliers.CatalogSnapshots;
 
 import com.google.common.base.Function;
 import com.google.common.base.Optional;
@@ -105,9 +107,9 @@ public class LocationModule extends AbstractModule {
    @Memoized
    protected Supplier<Set<? extends Location>> memoizedLocationsSupplier(
             AtomicReference<AuthorizationException> authException, @Named(PROPERTY_SESSION_INTERVAL) long seconds,
-            LocationsSupplier uncached) {
-      return MemoizedRetryOnTimeOutButNotOnAuthorizationExceptionSupplier.create(authException, uncached, seconds,
-               TimeUnit.SECONDS);
+            LocationsSupplier uncached, CatalogSnapshots snapshots, LocationsSnapshotCodec codec) {
+      return snapshots.backing("locations", codec, MemoizedRetryOnTimeOutButNotOnAuthorizationExceptionSupplier
+               .create(authException, uncached, seconds, TimeUnit.SECONDS));
    }
 
    @Provides
@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.location.suppliers;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.inject.Singleton;
+
+import org.jclouds.domain.Location;
+import org.jclouds.domain.LocationBuilder;
+import org.jclouds.domain.LocationScope;
+import org.jclouds.suppliers.SnapshotCodec;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Persists locations as a table written parents first, so that each location refers to its parent by index. Only
+ * {@code String} metadata values are kept.
+ */
+@Singleton
+public class LocationsSnapshotCodec extends SnapshotCodec<Set<? extends Location>> {
+
+   @Override
+   public int version() {
+      return 1;
+   }
+
+   @Override
+   public void write(Set<? extends Location> value, DataOutput out) throws IOException {
+      Map<Location, Integer> table = writeTable(value, out);
+      out.writeInt(value.size());
+      for (Location location : value)
+         out.writeInt(table.get(location));
+   }
+
+   @Override
+   public Set<? extends Location> read(DataInput in) throws IOException {
+      List<Location> table = readTable(in);
+      int size = in.readInt();
+      ImmutableSet.Builder<Location> locations = ImmutableSet.builder();
+      for (int i = 0; i < size; i++)
+         locations.add(table.get(in.readInt()));
+      return locations.build();
+   }
+
+   /**
+    * Writes the given locations and all of their ancestors.
+    * 
+    * @return the index of every written location, as understood by {@link #readTable}
+    */
+   public static Map<Location, Integer> writeTable(Iterable<? extends Location> locations, DataOutput out)
+         throws IOException {
+      Map<Location, Integer> table = Maps.newLinkedHashMap();
+      for (Location location : locations)
+         index(location, table);
+      out.writeInt(table.size());
+      for (Location location : table.keySet()) {
+         writeEnum(location.getScope(), out);
+         writeString(location.getId(), out);
+         writeString(location.getDescription(), out);
+         out.writeInt(location.getParent() == null ? -1 : table.get(location.getParent()));
+         writeStrings(location.getIso3166Codes(), out);
+         ImmutableMap.Builder<String, String> metadata = ImmutableMap.builder();
+         for (Map.Entry<String, Object> entry : location.getMetadata().entrySet()) {
+            if (entry.getValue() instanceof String)
+               metadata.put(entry.getKey(), (String) entry.getValue());
+         }
+         writeStringMap(metadata.build(), out);
+      }
+      return table;
+   }
+
+   private static void index(Location location, Map<Location, Integer> table) {
+      if (table.containsKey(location))
+         return;
+      if (location.getParent() != null)
+         index(location.getParent(), table);
+      table.put(location, table.size());
+   }
+
+   public static List<Location> readTable(DataInput in) throws IOException {
+      int size = in.readInt();
+      List<Location> table = Lists.newArrayListWithCapacity(size);
+      for (int i = 0; i < size; i++) {
+         LocationBuilder builder = new LocationBuilder().scope(readEnum(LocationScope.class, null, in));
+         builder.id(readString(in)).description(readString(in));
+         int parent = in.readInt();
+         if (parent != -1)
+            builder.parent(table.get(parent));
+         builder.iso3166Codes(readStrings(in));
+         builder.metadata(ImmutableMap.<String, Object> copyOf(readStringMap(in)));
+         table.add(builder.build());
+      }
+      return ImmutableList.copyOf(table);
+   }
+}
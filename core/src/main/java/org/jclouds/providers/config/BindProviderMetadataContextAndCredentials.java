@@ -51,19 +51,38 @@ public class BindProviderMetadataContextAndCredentials extends AbstractModule {
 
    private final ProviderMetadata providerMetadata;
    private final Supplier<Credentials> creds;
+   private final boolean bindProperties;
 
    public BindProviderMetadataContextAndCredentials(ProviderMetadata providerMetadata, Supplier<Credentials> creds) {
+      this(providerMetadata, creds, true);
+   }
+
+   /**
+    * @param bindProperties
+    *           false when the properties are already bound by a parent injector
+    */
+   public BindProviderMetadataContextAndCredentials(ProviderMetadata providerMetadata, Supplier<Credentials> creds,
+            boolean bindProperties) {
       this.providerMetadata = checkNotNull(providerMetadata, "providerMetadata");
       this.creds = checkNotNull(creds, "creds");
+      this.bindProperties = bindProperties;
    }
 
-   @Override
-   protected void configure() {
-      bind(ProviderMetadata.class).toInstance(providerMetadata);
+   /**
+    * @return the properties of the provider and its api, as they are bound to the injector
+    */
+   public static Properties propertiesToBind(ProviderMetadata providerMetadata) {
       Properties toBind = new Properties();
       toBind.putAll(providerMetadata.getApiMetadata().getDefaultProperties());
       toBind.putAll(providerMetadata.getDefaultProperties());
-      Names.bindProperties(binder(), toBind);
+      return toBind;
+   }
+
+   @Override
+   protected void configure() {
+      bind(ProviderMetadata.class).toInstance(providerMetadata);
+      if (bindProperties)
+         Names.bindProperties(binder(), propertiesToBind(providerMetadata));
       bind(new TypeLiteral<Supplier<Credentials>>(){}).annotatedWith(Provider.class).toInstance(creds);
       bindConstant().annotatedWith(Provider.class).to(providerMetadata.getId());
       bind(new TypeLiteral<Set<String>>() {
@@ -0,0 +1,42 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.suppliers;
+
+import java.io.IOException;
+
+import com.google.common.base.Optional;
+import com.google.common.io.ByteSource;
+import com.google.inject.ImplementedBy;
+
+/**
+ * Persists catalog snapshots between processes. The default implementation keeps one file per key in
+ * {@link org.jclouds.Constants#PROPERTY_CATALOG_SNAPSHOT_DIR}; bind another implementation to share snapshots through
+ * a different medium.
+ */
+@ImplementedBy(FileCatalogSnapshotStore.class)
+public interface CatalogSnapshotStore {
+
+   /**
+    * @return the last snapshot saved under {@code key}, or absent if there is none
+    */
+   Optional<ByteSource> load(String key) throws IOException;
+
+   /**
+    * Replaces the snapshot saved under {@code key}. Readers must never observe a partially written snapshot.
+    */
+   void save(String key, ByteSource snapshot) throws IOException;
+}
@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.suppliers;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.jclouds.Constants.PROPERTY_CATALOG_SNAPSHOT_DIR;
+import static org.jclouds.Constants.PROPERTY_USER_THREADS;
+
+import java.net.URI;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.jclouds.config.ValueOfConfigurationKeyOrNull;
+import org.jclouds.domain.Credentials;
+import org.jclouds.location.Provider;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.TypeLiteral;
+import com.google.inject.name.Names;
+
+/**
+ * Backs memoized catalogs with snapshots when {@link org.jclouds.Constants#PROPERTY_CATALOG_SNAPSHOT_DIR} is set.
+ * Snapshots are keyed by provider, catalog name and a digest of the endpoint and identity, so that contexts for
+ * different accounts never share a catalog.
+ * 
+ * @see SnapshotBackedSupplier
+ */
+@Singleton
+public class CatalogSnapshots {
+
+   private final Injector injector;
+   private final boolean enabled;
+
+   @Inject
+   CatalogSnapshots(ValueOfConfigurationKeyOrNull config, Injector injector) {
+      this.injector = checkNotNull(injector, "injector");
+      this.enabled = config.apply(PROPERTY_CATALOG_SNAPSHOT_DIR) != null;
+   }
+
+   /**
+    * @param catalog
+    *           name of the catalog, unique per context (ex. {@code images})
+    * @return {@code memoized} itself when snapshots are disabled
+    */
+   public <T> Supplier<T> backing(final String catalog, SnapshotCodec<T> codec, Supplier<T> memoized) {
+      if (!enabled)
+         return memoized;
+      Supplier<String> key = Suppliers.memoize(new Supplier<String>() {
+         @Override
+         public String get() {
+            return key(catalog);
+         }
+      });
+      SnapshotBackedSupplier<T> supplier = new SnapshotBackedSupplier<T>(memoized,
+            injector.getInstance(CatalogSnapshotStore.class), key, codec, injector.getInstance(Key.get(
+                  ListeningExecutorService.class, Names.named(PROPERTY_USER_THREADS))));
+      injector.injectMembers(supplier);
+      return supplier;
+   }
+
+   private String key(String catalog) {
+      String provider = injector.getInstance(Key.get(String.class, Provider.class));
+      URI endpoint = injector.getInstance(Key.get(new TypeLiteral<Supplier<URI>>() {
+      }, Provider.class)).get();
+      Credentials creds = injector.getInstance(Key.get(new TypeLiteral<Supplier<Credentials>>() {
+      }, Provider.class)).get();
+      String account = Hashing.sha256().hashString(endpoint + "\n" + creds.identity, Charsets.UTF_8).toString();
+      return String.format("%s-%s-%s.snapshot", provider, catalog, account.substring(0, 32));
+   }
+
+   public boolean isEnabled() {
+      return enabled;
+   }
+
+   @Override
+   public String toString() {
+      return "CatalogSnapshots(enabled=" + enabled + ")";
+   }
+}
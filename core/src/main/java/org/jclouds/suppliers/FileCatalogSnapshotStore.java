@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.suppliers;
+
+import static com.google.common.base.Preconditions.checkState;
+import static org.jclouds.Constants.PROPERTY_CATALOG_SNAPSHOT_DIR;
+
+import java.io.File;
+import java.io.IOException;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.jclouds.config.ValueOfConfigurationKeyOrNull;
+
+import com.google.common.base.Optional;
+import com.google.common.io.ByteSource;
+import com.google.common.io.Files;
+
+/**
+ * Stores each snapshot as a file named after its key. Snapshots are written to a temporary file in the same directory
+ * and renamed over the previous one.
+ */
+@Singleton
+public class FileCatalogSnapshotStore implements CatalogSnapshotStore {
+
+   private final File directory;
+
+   @Inject
+   FileCatalogSnapshotStore(ValueOfConfigurationKeyOrNull config) {
+      String directory = config.apply(PROPERTY_CATALOG_SNAPSHOT_DIR);
+      checkState(directory != null, "%s must be set to use %s", PROPERTY_CATALOG_SNAPSHOT_DIR,
+            getClass().getSimpleName());
+      this.directory = new File(directory);
+   }
+
+   @Override
+   public Optional<ByteSource> load(String key) {
+      File file = new File(directory, key);
+      return file.isFile() ? Optional.of(Files.asByteSource(file)) : Optional.<ByteSource> absent();
+   }
+
+   @Override
+   public void save(String key, ByteSource snapshot) throws IOException {
+      if (!directory.isDirectory() && !directory.mkdirs() && !directory.isDirectory())
+         throw new IOException("could not create snapshot directory " + directory);
+      File tmp = File.createTempFile(key, ".tmp", directory);
+      try {
+         snapshot.copyTo(Files.asByteSink(tmp));
+         File target = new File(directory, key);
+         // File.renameTo does not replace an existing target on all platforms
+         if (!tmp.renameTo(target) && !(target.delete() && tmp.renameTo(target)))
+            throw new IOException("could not move " + tmp + " to " + target);
+      } finally {
+         if (tmp.exists() && !tmp.delete())
+            tmp.deleteOnExit();
+      }
+   }
+
+   @Override
+   public String toString() {
+      return "FileCatalogSnapshotStore(" + directory + ")";
+   }
+}
@@ -0,0 +1,218 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.suppliers;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.jclouds.util.Throwables2.getFirstThrowableOfType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.annotation.Resource;
+
+import org.jclouds.logging.Logger;
+import org.jclouds.rest.AuthorizationException;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Objects;
+import com.google.common.base.Optional;
+import com.google.common.base.Supplier;
+import com.google.common.base.Ticker;
+import com.google.common.collect.ForwardingObject;
+import com.google.common.io.ByteSource;
+import com.google.common.io.Closer;
+
+/**
+ * Serves the last persisted snapshot of a memoized catalog until the delegate has been revalidated in the background.
+ * <p/>
+ * On the first call, the snapshot saved under the key is decoded and returned immediately, while the delegate is
+ * invoked on the executor. Once the delegate succeeds, its value is persisted and every subsequent call goes straight
+ * to the delegate. When there is no usable snapshot, the first call blocks on the delegate and persists its value.
+ * Whenever the memoized delegate refreshes, the new value is persisted again.
+ * <p/>
+ * An {@link AuthorizationException} from the delegate discards the snapshot, so that callers observe the failure
+ * rather than a catalog they may no longer access. Other failures keep the snapshot, and the delegate is not tried
+ * again until a delay, doubling after each failure, has passed.
+ */
+public class SnapshotBackedSupplier<T> extends ForwardingObject implements Supplier<T> {
+
+   // "JCSN"
+   private static final int MAGIC = 0x4a43534e;
+
+   @VisibleForTesting
+   static final long MIN_RETRY_DELAY_NANOS = TimeUnit.SECONDS.toNanos(5);
+   private static final long MAX_RETRY_DELAY_NANOS = TimeUnit.MINUTES.toNanos(5);
+
+   @Resource
+   protected Logger logger = Logger.NULL;
+
+   private final Supplier<T> delegate;
+   private final CatalogSnapshotStore store;
+   private final Supplier<String> key;
+   private final SnapshotCodec<T> codec;
+   private final Executor executor;
+   private final Ticker ticker;
+
+   private final Object loadLock = new Object();
+   private volatile boolean loaded;
+   private final AtomicBoolean revalidating = new AtomicBoolean();
+   // non-null until the delegate has been revalidated
+   private volatile T snapshot;
+   // guarded by revalidating
+   private long retryDelayNanos = MIN_RETRY_DELAY_NANOS;
+   private volatile long retryAtNanos;
+   // the last value persisted, so that each refresh of the memoized delegate is persisted once
+   private final AtomicReference<T> saved = new AtomicReference<T>();
+
+   public SnapshotBackedSupplier(Supplier<T> delegate, CatalogSnapshotStore store, Supplier<String> key,
+         SnapshotCodec<T> codec, Executor executor) {
+      this(delegate, store, key, codec, executor, Ticker.systemTicker());
+   }
+
+   @VisibleForTesting
+   SnapshotBackedSupplier(Supplier<T> delegate, CatalogSnapshotStore store, Supplier<String> key,
+         SnapshotCodec<T> codec, Executor executor, Ticker ticker) {
+      this.delegate = checkNotNull(delegate, "delegate");
+      this.store = checkNotNull(store, "store");
+      this.key = checkNotNull(key, "key");
+      this.codec = checkNotNull(codec, "codec");
+      this.executor = checkNotNull(executor, "executor");
+      this.ticker = checkNotNull(ticker, "ticker");
+      this.retryAtNanos = ticker.read();
+   }
+
+   @Override
+   protected Supplier<T> delegate() {
+      return delegate;
+   }
+
+   @Override
+   public T get() {
+      if (!loaded) {
+         // callers racing the first one wait for the snapshot rather than calling the delegate themselves
+         synchronized (loadLock) {
+            if (!loaded) {
+               snapshot = load().orNull();
+               loaded = true;
+            }
+         }
+      }
+      T current = snapshot;
+      if (current == null) {
+         T value = delegate.get();
+         saveIfRefreshed(value);
+         return value;
+      }
+      revalidate();
+      return current;
+   }
+
+   private void revalidate() {
+      if (ticker.read() - retryAtNanos < 0 || !revalidating.compareAndSet(false, true))
+         return;
+      executor.execute(new Runnable() {
+         @Override
+         public void run() {
+            try {
+               saveIfRefreshed(delegate.get());
+               snapshot = null;
+            } catch (RuntimeException e) {
+               if (getFirstThrowableOfType(e, AuthorizationException.class) != null) {
+                  snapshot = null;
+               } else {
+                  retryAtNanos = ticker.read() + retryDelayNanos;
+                  logger.warn(e, "could not revalidate snapshot %s; serving it for another %ss", key.get(),
+                        TimeUnit.NANOSECONDS.toSeconds(retryDelayNanos));
+                  retryDelayNanos = Math.min(retryDelayNanos * 2, MAX_RETRY_DELAY_NANOS);
+               }
+            } finally {
+               revalidating.set(false);
+            }
+         }
+
+         @Override
+         public String toString() {
+            return "revalidate(" + key.get() + ")";
+         }
+      });
+   }
+
+   private Optional<T> load() {
+      try {
+         Optional<ByteSource> persisted = store.load(key.get());
+         if (!persisted.isPresent())
+            return Optional.absent();
+         Closer closer = Closer.create();
+         try {
+            InputStream in = closer.register(persisted.get().openBufferedStream());
+            DataInputStream data = new DataInputStream(closer.register(new GZIPInputStream(in)));
+            if (data.readInt() != MAGIC || data.readInt() != codec.version()) {
+               logger.debug("ignoring snapshot %s written in another format", key.get());
+               return Optional.absent();
+            }
+            return Optional.fromNullable(codec.read(data));
+         } catch (Throwable e) {
+            throw closer.rethrow(e);
+         } finally {
+            closer.close();
+         }
+      } catch (IOException e) {
+         logger.warn(e, "could not load snapshot %s", key.get());
+         return Optional.absent();
+      } catch (RuntimeException e) {
+         logger.warn(e, "could not load snapshot %s", key.get());
+         return Optional.absent();
+      }
+   }
+
+   private void saveIfRefreshed(T value) {
+      T last = saved.get();
+      if (value != null && value != last && saved.compareAndSet(last, value))
+         save(value);
+   }
+
+   private void save(T value) {
+      try {
+         ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+         DataOutputStream data = new DataOutputStream(new GZIPOutputStream(bytes));
+         data.writeInt(MAGIC);
+         data.writeInt(codec.version());
+         codec.write(value, data);
+         data.close();
+         store.save(key.get(), ByteSource.wrap(bytes.toByteArray()));
+      } catch (IOException e) {
+         logger.warn(e, "could not save snapshot %s", key.get());
+      } catch (RuntimeException e) {
+         logger.warn(e, "could not save snapshot %s", key.get());
+      }
+   }
+
+   @Override
+   public String toString() {
+      return Objects.toStringHelper(this).add("delegate", delegate).add("key", key.get()).add("store", store)
+            .toString();
+   }
+}
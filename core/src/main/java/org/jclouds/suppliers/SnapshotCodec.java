@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.suppliers;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+
+import org.jclouds.javax.annotation.Nullable;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Writes and reads a catalog value in the compact binary form persisted by {@link CatalogSnapshotStore}.
+ * <p/>
+ * Implementations must bump their {@link #version()} whenever the layout changes; snapshots written with a different
+ * version are ignored.
+ */
+public abstract class SnapshotCodec<T> {
+
+   /**
+    * @return layout version written ahead of the value
+    */
+   public abstract int version();
+
+   public abstract void write(T value, DataOutput out) throws IOException;
+
+   public abstract T read(DataInput in) throws IOException;
+
+   protected static void writeString(@Nullable String value, DataOutput out) throws IOException {
+      if (value == null) {
+         out.writeInt(-1);
+         return;
+      }
+      byte[] bytes = value.getBytes(Charsets.UTF_8);
+      out.writeInt(bytes.length);
+      out.write(bytes);
+   }
+
+   @Nullable
+   protected static String readString(DataInput in) throws IOException {
+      int length = in.readInt();
+      if (length == -1)
+         return null;
+      byte[] bytes = new byte[length];
+      in.readFully(bytes);
+      return new String(bytes, Charsets.UTF_8);
+   }
+
+   protected static void writeStrings(Set<String> values, DataOutput out) throws IOException {
+      out.writeInt(values.size());
+      for (String value : values)
+         writeString(value, out);
+   }
+
+   protected static Set<String> readStrings(DataInput in) throws IOException {
+      int size = in.readInt();
+      ImmutableSet.Builder<String> builder = ImmutableSet.builder();
+      for (int i = 0; i < size; i++)
+         builder.add(readString(in));
+      return builder.build();
+   }
+
+   protected static void writeStringMap(Map<String, String> values, DataOutput out) throws IOException {
+      out.writeInt(values.size());
+      for (Map.Entry<String, String> entry : values.entrySet()) {
+         writeString(entry.getKey(), out);
+         writeString(entry.getValue(), out);
+      }
+   }
+
+   protected static Map<String, String> readStringMap(DataInput in) throws IOException {
+      int size = in.readInt();
+      ImmutableMap.Builder<String, String> builder = ImmutableMap.builder();
+      for (int i = 0; i < size; i++)
+         builder.put(readString(in), readString(in));
+      return builder.build();
+   }
+
+   protected static <E extends Enum<E>> void writeEnum(@Nullable E value, DataOutput out) throws IOException {
+      writeString(value == null ? null : value.name(), out);
+   }
+
+   /**
+    * @return the constant with the persisted name, {@code fallback} if it is no longer defined
+    */
+   @Nullable
+   protected static <E extends Enum<E>> E readEnum(Class<E> type, @Nullable E fallback, DataInput in)
+         throws IOException {
+      String name = readString(in);
+      if (name == null)
+         return null;
+      try {
+         return Enum.valueOf(type, name);
+      } catch (IllegalArgumentException e) {
+         return fallback;
+      }
+   }
+}
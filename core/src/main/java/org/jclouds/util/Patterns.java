@@ -26,6 +26,11 @@ public class Patterns {
 
    public static final Pattern NEWLINE_PATTERN = Pattern.compile("\r?\n");
 
+   /**
+    * @deprecated no longer used; {@link Strings2#replaceTokens(String, com.google.common.collect.Multimap)} replaces
+    *             tokens without regular expressions. This will be removed in jclouds v2.
+    */
+   @Deprecated
    public static final LoadingCache<String, Pattern> TOKEN_TO_PATTERN = CacheBuilder.newBuilder()
          .<String, Pattern> build(new CacheLoader<String, Pattern>() {
             @Override
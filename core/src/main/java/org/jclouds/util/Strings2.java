@@ -18,7 +18,6 @@ package org.jclouds.util;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static org.jclouds.util.Closeables2.closeQuietly;
-import static org.jclouds.util.Patterns.TOKEN_TO_PATTERN;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
@@ -26,19 +25,14 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
-import java.net.URLEncoder;
+import java.util.Collection;
 import java.util.Map;
-import java.util.Map.Entry;
-import java.util.concurrent.ExecutionException;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.jclouds.javax.annotation.Nullable;
 
 import com.google.common.base.Charsets;
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
 import com.google.common.collect.Multimap;
 import com.google.common.io.CharStreams;
 import com.google.common.primitives.Chars;
@@ -52,35 +46,50 @@ public class Strings2 {
       return urlEncode(in, Chars.asList(skipEncode));
    }
 
+   /**
+    * Encodes the same way as {@link java.net.URLEncoder} in {@code UTF-8}, except that space and {@code *} are always
+    * percent encoded. This is done in a single pass, and returns {@code in} itself when nothing needs encoding.
+    */
    public static String urlEncode(String in, Iterable<Character> skipEncode) {
       if (isUrlEncoded(in))
          return in;
-      try {
-         String returnVal = URLEncoder.encode(in, "UTF-8");
-         returnVal = returnVal.replace("+", "%20");
-         returnVal = returnVal.replace("*", "%2A");
-         for (char c : skipEncode) {
-            returnVal = returnVal.replace(CHAR_TO_ENCODED.get(c), c + "");
+      StringBuilder out = null;
+      int length = in.length();
+      int i = 0;
+      while (i < length) {
+         if (!needsEncoding(in.charAt(i), skipEncode)) {
+            if (out != null)
+               out.append(in.charAt(i));
+            i++;
+            continue;
          }
-         return returnVal;
-      } catch (UnsupportedEncodingException e) {
-         throw new IllegalStateException("Bad encoding on input: " + in, e);
-      } catch (ExecutionException e) {
-         throw new IllegalStateException("error creating pattern: " + in, e);
+         if (out == null)
+            out = new StringBuilder(length + 16).append(in, 0, i);
+         // encode the whole run at once, so that surrogate pairs become a single UTF-8 sequence
+         int end = i + 1;
+         while (end < length && needsEncoding(in.charAt(end), skipEncode))
+            end++;
+         for (byte b : in.substring(i, end).getBytes(Charsets.UTF_8))
+            out.append('%').append(HEX_DIGITS[(b >> 4) & 0xF]).append(HEX_DIGITS[b & 0xF]);
+         i = end;
       }
+      return out == null ? in : out.toString();
+   }
+
+   private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+   private static boolean needsEncoding(char c, Iterable<Character> skipEncode) {
+      if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '.' || c == '-'
+            || c == '_')
+         return false;
+      if (c == ' ' || c == '*')
+         return true;
+      for (char skip : skipEncode) {
+         if (c == skip)
+            return false;
+      }
+      return true;
    }
-   
-   private static final LoadingCache<Character, String> CHAR_TO_ENCODED = CacheBuilder.newBuilder()
-         .<Character, String> build(new CacheLoader<Character, String>() {
-            @Override
-            public String load(Character plain) throws ExecutionException {
-               try {
-                  return URLEncoder.encode(plain + "", "UTF-8");
-               } catch (UnsupportedEncodingException e) {
-                  throw new ExecutionException("Bad encoding on input: " + plain, e);
-               }
-            }
-         });
    
    private static final String IP_ADDRESS = "(\\d{1,3})\\.(\\d{1,3})\\.(\\d{1,3})\\.(\\d{1,3})";
    private static final String SLASH_FORMAT = IP_ADDRESS + "/(\\d{1,3})";
@@ -91,10 +100,25 @@ public class Strings2 {
       return CIDR_PATTERN.matcher(in).matches();
    }
       
-   private static final Pattern URL_ENCODED_PATTERN = Pattern.compile(".*%[a-fA-F0-9][a-fA-F0-9].*");
-
+   /**
+    * @return true if {@code in} contains a percent encoded octet, and no line terminators
+    */
    public static boolean isUrlEncoded(String in) {
-      return URL_ENCODED_PATTERN.matcher(in).matches();
+      boolean encoded = false;
+      int length = in.length();
+      for (int i = 0; i < length; i++) {
+         char c = in.charAt(i);
+         // kept from the regular expression this replaced, where '.' does not match line terminators
+         if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029')
+            return false;
+         if (!encoded && c == '%' && i + 2 < length && isHexDigit(in.charAt(i + 1)) && isHexDigit(in.charAt(i + 2)))
+            encoded = true;
+      }
+      return encoded;
+   }
+
+   private static boolean isHexDigit(char c) {
+      return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
    }
 
    /**
@@ -166,11 +190,33 @@ public class Strings2 {
    
    private static final Pattern TOKEN_PATTERN = Pattern.compile("\\{(.+?)\\}");
 
+   /**
+    * replaces tokens that are expressed as <code>{token}</code> with the first value of that token, in a single pass
+    * over {@code input}. Tokens without a value are left as they are.
+    */
    public static String replaceTokens(String input, Multimap<String, ?> tokenValues) {
-      for (Entry<String, ?> tokenValue : tokenValues.entries()) {
-         Pattern pattern = TOKEN_TO_PATTERN.getUnchecked(tokenValue.getKey());
-         input = pattern.matcher(input).replaceAll(tokenValue.getValue().toString());
+      int open = input.indexOf('{');
+      if (open == -1)
+         return input;
+      StringBuilder builder = null;
+      int copied = 0;
+      while (open != -1) {
+         int close = input.indexOf('}', open + 1);
+         if (close == -1)
+            break;
+         Collection<?> values = tokenValues.get(input.substring(open + 1, close));
+         if (values.isEmpty()) {
+            open = input.indexOf('{', open + 1);
+            continue;
+         }
+         if (builder == null)
+            builder = new StringBuilder(input.length() + 16);
+         builder.append(input, copied, open).append(values.iterator().next().toString());
+         copied = close + 1;
+         open = input.indexOf('{', copied);
       }
-      return input;
+      if (builder == null)
+         return input;
+      return builder.append(input, copied, input.length()).toString();
    }
 }
@@ -19,12 +19,17 @@ package org.jclouds;
 import static com.google.common.base.Suppliers.ofInstance;
 import static org.jclouds.providers.AnonymousProviderMetadata.forApiOnEndpoint;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
 
 import java.net.URI;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
 
 import org.jclouds.concurrent.config.ExecutorServiceModule;
 import org.jclouds.domain.Credentials;
@@ -32,6 +37,7 @@ import org.jclouds.events.config.EventBusModule;
 import org.jclouds.http.IntegrationTestClient;
 import org.jclouds.http.config.ConfiguresHttpCommandExecutorService;
 import org.jclouds.http.config.JavaUrlHttpCommandExecutorServiceModule;
+import org.jclouds.lifecycle.InitializationCosts;
 import org.jclouds.location.Provider;
 import org.jclouds.logging.config.LoggingModule;
 import org.jclouds.logging.config.NullLoggingModule;
@@ -45,9 +51,12 @@ import com.google.common.base.Supplier;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.inject.AbstractModule;
+import com.google.inject.Injector;
 import com.google.inject.Key;
 import com.google.inject.Module;
+import com.google.inject.Provides;
 import com.google.inject.TypeLiteral;
+import com.google.inject.name.Names;
 
 /**
  * Tests behavior of modules configured in ContextBuilder
@@ -61,6 +70,21 @@ public class ContextBuilderTest {
       }
    }
 
+   static class CountingModule extends AbstractModule {
+      final AtomicInteger created = new AtomicInteger();
+
+      protected void configure() {
+      }
+
+      @Provides
+      @Singleton
+      @Named("counted")
+      Object counted() {
+         created.incrementAndGet();
+         return new Object();
+      }
+   }
+
    private ContextBuilder testContextBuilder() {
       return ContextBuilder.newBuilder(forApiOnEndpoint(IntegrationTestClient.class, "http://localhost"));
    }
@@ -82,6 +106,33 @@ public class ContextBuilderTest {
     assertEquals(context.getName(), "mytest");
   }
 
+   @Test
+   public void testSingletonsAreCreatedWhenBuilt() {
+      CountingModule counting = new CountingModule();
+      testContextBuilder().modules(ImmutableSet.of(counting)).buildInjector();
+      assertEquals(counting.created.get(), 1);
+   }
+
+   @Test
+   public void testLazyDefersSingletonsUntilFirstUse() {
+      CountingModule counting = new CountingModule();
+      Injector injector = testContextBuilder().modules(ImmutableSet.of(counting)).lazy().buildInjector();
+      assertEquals(counting.created.get(), 0);
+      injector.getInstance(Key.get(Object.class, Names.named("counted")));
+      injector.getInstance(Key.get(Object.class, Names.named("counted")));
+      assertEquals(counting.created.get(), 1);
+      assertTrue(InitializationCosts.measure(injector).containsKey(Key.get(Object.class, Names.named("counted"))));
+   }
+
+   @Test
+   public void testLazyViaProperty() {
+      Properties overrides = new Properties();
+      overrides.setProperty(Constants.PROPERTY_LAZY_INITIALIZATION, "true");
+      CountingModule counting = new CountingModule();
+      testContextBuilder().modules(ImmutableSet.of(counting)).overrides(overrides).buildInjector();
+      assertEquals(counting.created.get(), 0);
+   }
+
    @Test
    public void testProviderMetadataBoundWithCorrectEndpoint() {
       ContextBuilder withVariablesToReplace = testContextBuilder().endpoint("http://${jclouds.identity}.service.com")
@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds;
+
+import static org.jclouds.providers.AnonymousProviderMetadata.forApiOnEndpoint;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.jclouds.http.IntegrationTestClient;
+import org.jclouds.logging.config.NullLoggingModule;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.io.Closeables;
+
+/**
+ * Compares the time and heap it takes to build a context per tenant, standalone or as children of a
+ * {@link SharedContextParent}. The number of tenants is set by the {@code jclouds.test.tenants} system property.
+ */
+@Test(groups = "performance", singleThreaded = true, timeOut = 5 * 60 * 1000, testName = "SharedContextParentPerformanceTest")
+public class SharedContextParentPerformanceTest {
+   private static final int TENANTS = Integer.getInteger("jclouds.test.tenants", 1000);
+   private static final int WARM_UP = 300;
+
+   private static ContextBuilder testContextBuilder() {
+      return ContextBuilder.newBuilder(forApiOnEndpoint(IntegrationTestClient.class, "http://localhost")).modules(
+            ImmutableSet.of(new NullLoggingModule()));
+   }
+
+   @BeforeClass
+   public void warmUp() throws IOException {
+      buildStandaloneContexts(WARM_UP, false);
+      buildContextsSharingParent(WARM_UP, false);
+   }
+
+   public void testStandaloneContexts() throws IOException {
+      buildStandaloneContexts(TENANTS, true);
+   }
+
+   public void testContextsSharingParent() throws IOException {
+      buildContextsSharingParent(TENANTS, true);
+   }
+
+   private static void buildStandaloneContexts(int tenants, boolean report) throws IOException {
+      List<Context> contexts = Lists.newArrayListWithCapacity(tenants);
+      long usedBefore = usedHeap();
+      long start = System.nanoTime();
+      for (int i = 0; i < tenants; i++)
+         contexts.add(testContextBuilder().credentials("tenant" + i, "secret").build());
+      if (report)
+         report("standalone", tenants, System.nanoTime() - start, usedHeap() - usedBefore);
+      for (Context context : contexts)
+         Closeables.close(context, true);
+   }
+
+   private static void buildContextsSharingParent(int tenants, boolean report) throws IOException {
+      List<Context> contexts = Lists.newArrayListWithCapacity(tenants);
+      long usedBefore = usedHeap();
+      long start = System.nanoTime();
+      SharedContextParent parent = testContextBuilder().buildSharedParent();
+      for (int i = 0; i < tenants; i++)
+         contexts.add(ContextBuilder.newBuilder(parent).credentials("tenant" + i, "secret").build());
+      if (report)
+         report("shared parent", tenants, System.nanoTime() - start, usedHeap() - usedBefore);
+      for (Context context : contexts)
+         Closeables.close(context, true);
+      parent.close();
+   }
+
+   private static long usedHeap() {
+      System.gc();
+      return Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
+   }
+
+   private static void report(String name, int tenants, long nanos, long bytes) {
+      System.out.printf("TIMING: %d %s contexts took %.3fms (%.3fms each), retaining %dKB (%dKB each)%n", tenants,
+            name, nanos / 1000000.0, nanos / 1000000.0 / tenants, bytes / 1024, bytes / 1024 / tenants);
+   }
+}
@@ -0,0 +1,232 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds;
+
+import static org.jclouds.providers.AnonymousProviderMetadata.forApiOnEndpoint;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+import javax.net.ssl.HostnameVerifier;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.jclouds.concurrent.ExecutorStats;
+import org.jclouds.concurrent.ExecutorStrategy;
+import org.jclouds.concurrent.RejectionPolicy;
+import org.jclouds.domain.Credentials;
+import org.jclouds.http.HttpCommandExecutorService;
+import org.jclouds.http.HttpUtils;
+import org.jclouds.http.IntegrationTestClient;
+import org.jclouds.http.config.JavaUrlHttpCommandExecutorServiceModule;
+import org.jclouds.location.Provider;
+import org.jclouds.logging.config.NullLoggingModule;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableSet;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.TypeLiteral;
+import com.google.inject.name.Names;
+
+@Test(groups = "unit", testName = "SharedContextParentTest")
+public class SharedContextParentTest {
+
+   private static ContextBuilder testContextBuilder() {
+      return ContextBuilder.newBuilder(forApiOnEndpoint(IntegrationTestClient.class, "http://localhost"));
+   }
+
+   private static Credentials credentials(Injector injector) {
+      return injector.getInstance(Key.get(new TypeLiteral<Supplier<Credentials>>() {
+      }, Provider.class)).get();
+   }
+
+   private static URI endpoint(Injector injector) {
+      return injector.getInstance(Key.get(new TypeLiteral<Supplier<URI>>() {
+      }, Provider.class)).get();
+   }
+
+   public void testChildrenHaveTheirOwnCredentialsAndEndpoint() throws IOException {
+      SharedContextParent parent = testContextBuilder().buildSharedParent();
+      try {
+         Injector foo = testContextBuilder().parent(parent).credentials("foo", "secret").buildInjector();
+         Injector bar = testContextBuilder().parent(parent).endpoint("http://bar.service.com")
+               .credentials("bar", "secret").buildInjector();
+
+         assertEquals(credentials(foo), new Credentials("foo", "secret"));
+         assertEquals(credentials(bar), new Credentials("bar", "secret"));
+         assertEquals(endpoint(foo), URI.create("http://localhost"));
+         assertEquals(endpoint(bar), URI.create("http://bar.service.com"));
+         assertSame(foo.getParent(), parent.getInjector());
+      } finally {
+         parent.close();
+      }
+   }
+
+   public void testChildEndpointIsExpandedAgainstItsOwnCredentials() throws IOException {
+      SharedContextParent parent = testContextBuilder().buildSharedParent();
+      try {
+         Injector foo = ContextBuilder.newBuilder(parent).endpoint("http://${jclouds.identity}.service.com")
+               .credentials("foo", "secret").buildInjector();
+
+         assertEquals(endpoint(foo), URI.create("http://foo.service.com"));
+      } finally {
+         parent.close();
+      }
+   }
+
+   public void testStatelessSingletonsAreShared() throws IOException {
+      SharedContextParent parent = testContextBuilder().buildSharedParent();
+      try {
+         Injector foo = testContextBuilder().parent(parent).credentials("foo", "secret").buildInjector();
+         Injector bar = testContextBuilder().parent(parent).credentials("bar", "secret").buildInjector();
+         Injector standalone = testContextBuilder().credentials("foo", "secret").buildInjector();
+
+         assertSame(foo.getInstance(HttpUtils.class), bar.getInstance(HttpUtils.class));
+         assertNotSame(foo.getInstance(HttpUtils.class), standalone.getInstance(HttpUtils.class));
+      } finally {
+         parent.close();
+      }
+   }
+
+   public void testClosingChildDoesNotShutDownSharedExecutor() throws IOException {
+      SharedContextParent parent = testContextBuilder().buildSharedParent();
+      Key<ExecutorService> userExecutor = Key.get(ExecutorService.class, Names.named(Constants.PROPERTY_USER_THREADS));
+      Context foo = testContextBuilder().parent(parent).credentials("foo", "secret").build();
+      Context bar = testContextBuilder().parent(parent).credentials("bar", "secret").build();
+
+      foo.close();
+      assertFalse(bar.utils().injector().getInstance(userExecutor).isShutdown());
+
+      bar.close();
+      parent.close();
+      assertTrue(parent.getInjector().getInstance(userExecutor).isShutdown());
+   }
+
+   public void testTransportIsSharedButNotItsApiDependentBindings() throws IOException {
+      SharedContextParent parent = testContextBuilder().buildSharedParent();
+      try {
+         Injector foo = testContextBuilder().parent(parent).credentials("foo", "secret").buildInjector();
+         Injector bar = testContextBuilder().parent(parent).credentials("bar", "secret").buildInjector();
+
+         assertSame(foo.getInstance(SAXParserFactory.class), bar.getInstance(SAXParserFactory.class));
+         assertSame(foo.getInstance(Key.get(HostnameVerifier.class, Names.named("untrusted"))),
+               bar.getInstance(Key.get(HostnameVerifier.class, Names.named("untrusted"))));
+         assertNotSame(foo.getInstance(HttpCommandExecutorService.class),
+               bar.getInstance(HttpCommandExecutorService.class));
+      } finally {
+         parent.close();
+      }
+   }
+
+   public void testSharedExecutorHonoursUserExecutorProperties() throws Exception {
+      Properties overrides = new Properties();
+      overrides.setProperty(Constants.PROPERTY_USER_THREADS, "1");
+      overrides.setProperty(Constants.PROPERTY_USER_EXECUTOR, ExecutorStrategy.BOUNDED.name());
+      overrides.setProperty(Constants.PROPERTY_USER_QUEUE_SIZE, "1");
+      overrides.setProperty(Constants.PROPERTY_USER_REJECTION_POLICY, RejectionPolicy.ABORT.name());
+      SharedContextParent parent = testContextBuilder().overrides(overrides).buildSharedParent();
+      final CountDownLatch release = new CountDownLatch(1);
+      try {
+         Injector foo = testContextBuilder().parent(parent).overrides(overrides).credentials("foo", "secret")
+               .buildInjector();
+         ExecutorService userExecutor = foo.getInstance(Key.get(ExecutorService.class,
+               Names.named(Constants.PROPERTY_USER_THREADS)));
+         Runnable waitForRelease = new Runnable() {
+            public void run() {
+               try {
+                  release.await();
+               } catch (InterruptedException e) {
+                  Thread.currentThread().interrupt();
+               }
+            }
+         };
+         userExecutor.submit(waitForRelease);
+         userExecutor.submit(waitForRelease);
+         try {
+            userExecutor.submit(waitForRelease);
+            fail("a task beyond the thread and queue should have been rejected");
+         } catch (RejectedExecutionException expected) {
+         }
+
+         ExecutorStats stats = foo.getInstance(Key.get(ExecutorStats.class,
+               Names.named(Constants.PROPERTY_USER_THREADS)));
+         assertSame(stats, parent.getInjector().getInstance(Key.get(ExecutorStats.class,
+               Names.named(Constants.PROPERTY_USER_THREADS))));
+         assertEquals(stats.getRejectedCount(), 1);
+      } finally {
+         release.countDown();
+         parent.close();
+      }
+   }
+
+   @Test(expectedExceptions = IllegalArgumentException.class)
+   public void testChildCannotConfigureTransport() throws IOException {
+      SharedContextParent parent = testContextBuilder().buildSharedParent();
+      try {
+         testContextBuilder().parent(parent).modules(ImmutableSet.of(new JavaUrlHttpCommandExecutorServiceModule()))
+               .credentials("foo", "secret").buildInjector();
+      } finally {
+         parent.close();
+      }
+   }
+
+   @Test(expectedExceptions = IllegalArgumentException.class)
+   public void testChildCannotOverrideProperties() throws IOException {
+      SharedContextParent parent = testContextBuilder().buildSharedParent();
+      try {
+         Properties overrides = new Properties();
+         overrides.setProperty(Constants.PROPERTY_MAX_RETRIES, "10");
+         testContextBuilder().parent(parent).overrides(overrides).credentials("foo", "secret").buildInjector();
+      } finally {
+         parent.close();
+      }
+   }
+
+   @Test(expectedExceptions = IllegalArgumentException.class)
+   public void testChildCannotConfigureLogging() throws IOException {
+      SharedContextParent parent = testContextBuilder().buildSharedParent();
+      try {
+         testContextBuilder().parent(parent).modules(ImmutableSet.of(new NullLoggingModule()))
+               .credentials("foo", "secret").buildInjector();
+      } finally {
+         parent.close();
+      }
+   }
+
+   @Test(expectedExceptions = IllegalArgumentException.class)
+   public void testParentMustBeForSameProvider() throws IOException {
+      SharedContextParent parent = ContextBuilder.newBuilder(
+            forApiOnEndpoint(IntegrationTestClient.class, "http://localhost").toBuilder().id("other").build())
+            .buildSharedParent();
+      try {
+         testContextBuilder().parent(parent);
+      } finally {
+         parent.close();
+      }
+   }
+}
@@ -19,12 +19,21 @@ package org.jclouds.collect;
 import static org.easymock.EasyMock.createMock;
 import static org.easymock.EasyMock.expect;
 
+import java.util.Iterator;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.easymock.EasyMock;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
 import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.MoreExecutors;
 
 /**
  * Tests behavior of {@code IterableWithMarkers}.
@@ -70,4 +79,94 @@ public class PagedIterablesTest {
       EasyMock.verify(markerToNext);
 
    }
+
+   @Test
+   public void testPrefetchReturnsAllPagesInOrder() {
+      ExecutorService executor = Executors.newSingleThreadExecutor();
+      try {
+         PagedIterable<Integer> iterable = PagedIterables.advance(page(0, 5), new NumberedPages(5, null, null));
+         Assert.assertEquals(iterable.prefetch(executor, 2).concat().toList(), ImmutableList.of(0, 1, 2, 3, 4));
+      } finally {
+         executor.shutdownNow();
+      }
+   }
+
+   @Test
+   public void testPrefetchWithSameThreadExecutor() {
+      PagedIterable<Integer> iterable = PagedIterables.advance(page(0, 3), new NumberedPages(3, null, null));
+      Assert.assertEquals(iterable.prefetch(MoreExecutors.sameThreadExecutor(), 1).concat().toList(),
+            ImmutableList.of(0, 1, 2));
+   }
+
+   @Test
+   public void testPrefetchFetchesAheadUpToDepth() throws InterruptedException {
+      CountDownLatch fetched = new CountDownLatch(2);
+      NumberedPages markerToNext = new NumberedPages(100, fetched, null);
+      ExecutorService executor = Executors.newSingleThreadExecutor();
+      try {
+         Iterator<IterableWithMarker<Integer>> pages = PagedIterables.advance(page(0, 100), markerToNext)
+               .prefetch(executor, 2).iterator();
+         Assert.assertEquals(pages.next().get(0), Integer.valueOf(0));
+         // pages 1 and 2 are requested without the caller asking for them
+         Assert.assertTrue(fetched.await(5, TimeUnit.SECONDS));
+         Thread.sleep(100);
+         Assert.assertEquals(markerToNext.requests.get(), 2, "fetched beyond the look-ahead depth");
+
+         Assert.assertEquals(pages.next().get(0), Integer.valueOf(1));
+         Assert.assertEquals(pages.next().get(0), Integer.valueOf(2));
+         Assert.assertTrue(markerToNext.requests.get() <= 4);
+      } finally {
+         executor.shutdownNow();
+      }
+   }
+
+   @Test
+   public void testPrefetchPropagatesFailureAfterEarlierPages() {
+      ExecutorService executor = Executors.newSingleThreadExecutor();
+      try {
+         PagedIterable<Integer> iterable = PagedIterables.advance(page(0, 5), new NumberedPages(5, null, 2));
+         Iterator<IterableWithMarker<Integer>> pages = iterable.prefetch(executor, 3).iterator();
+         Assert.assertEquals(pages.next().get(0), Integer.valueOf(0));
+         Assert.assertEquals(pages.next().get(0), Integer.valueOf(1));
+         try {
+            pages.next();
+            Assert.fail("expected the failed page request to surface");
+         } catch (IllegalStateException expected) {
+            Assert.assertEquals(expected.getMessage(), "page 2 failed");
+         }
+      } finally {
+         executor.shutdownNow();
+      }
+   }
+
+   private static IterableWithMarker<Integer> page(int number, int count) {
+      return IterableWithMarkers.from(ImmutableSet.of(number), number + 1 < count ? number + 1 : null);
+   }
+
+   /**
+    * Serves single-element pages numbered from the marker.
+    */
+   private static class NumberedPages implements Function<Object, IterableWithMarker<Integer>> {
+      private final int count;
+      private final CountDownLatch fetched;
+      private final Integer failAt;
+      private final AtomicInteger requests = new AtomicInteger();
+
+      private NumberedPages(int count, CountDownLatch fetched, Integer failAt) {
+         this.count = count;
+         this.fetched = fetched;
+         this.failAt = failAt;
+      }
+
+      @Override
+      public IterableWithMarker<Integer> apply(Object marker) {
+         int number = (Integer) marker;
+         requests.incrementAndGet();
+         if (fetched != null)
+            fetched.countDown();
+         if (failAt != null && failAt == number)
+            throw new IllegalStateException("page " + number + " failed");
+         return page(number, count);
+      }
+   }
 }
@@ -23,15 +23,24 @@ import static org.easymock.EasyMock.createMock;
 import static org.easymock.EasyMock.expect;
 import static org.easymock.EasyMock.replay;
 import static org.easymock.EasyMock.verify;
+import static org.jclouds.Constants.PROPERTY_SUBMISSION_TRACE_SAMPLING;
+import static org.jclouds.Constants.PROPERTY_USER_EXECUTOR;
+import static org.jclouds.Constants.PROPERTY_USER_QUEUE_SIZE;
+import static org.jclouds.Constants.PROPERTY_USER_REJECTION_POLICY;
 import static org.jclouds.Constants.PROPERTY_USER_THREADS;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotEquals;
 import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
 
 import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
 
+import org.jclouds.concurrent.ExecutorStats;
 import org.jclouds.lifecycle.Closer;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
@@ -42,6 +51,7 @@ import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
 import com.google.inject.Key;
+import com.google.inject.ProvisionException;
 
 @Test
 public class ExecutorServiceModuleTest {
@@ -104,6 +114,160 @@ public class ExecutorServiceModuleTest {
       }
    }
 
+   @Test(timeOut = 5000)
+   public void testStatsCountCompletedTasks() throws Exception {
+      ListeningExecutorService exec = injector.getInstance(Key.get(ListeningExecutorService.class,
+            named(PROPERTY_USER_THREADS)));
+      ExecutorStats stats = injector.getInstance(Key.get(ExecutorStats.class, named(PROPERTY_USER_THREADS)));
+      long completed = stats.getCompletedCount();
+
+      exec.submit(runnableThrowsRTE());
+      exec.submit(new Runnable() {
+         public void run() {
+         }
+      }).get();
+
+      // the failing task may still be finishing
+      while (stats.getCompletedCount() < completed + 2)
+         Thread.sleep(10);
+      assertEquals(stats.getActiveCount(), 0);
+      assertEquals(stats.getQueueDepth(), 0);
+      assertEquals(stats.getRejectedCount(), 0);
+   }
+
+   @Test(timeOut = 5000)
+   public void testBoundedExecutorRunsOnCallerWhenFull() throws Exception {
+      Injector bounded = createInjector("BOUNDED", "CALLER_RUNS", 1);
+      try {
+         ListeningExecutorService exec = bounded.getInstance(Key.get(ListeningExecutorService.class,
+               named(PROPERTY_USER_THREADS)));
+         ExecutorStats stats = bounded.getInstance(Key.get(ExecutorStats.class, named(PROPERTY_USER_THREADS)));
+         CountDownLatch release = new CountDownLatch(1);
+         CountDownLatch started = new CountDownLatch(1);
+
+         exec.submit(blockUntil(started, release));
+         started.await();
+         exec.submit(blockUntil(new CountDownLatch(1), release));
+         assertEquals(stats.getActiveCount(), 1);
+         assertEquals(stats.getQueueDepth(), 1);
+
+         String caller = exec.submit(currentThreadName()).get();
+         assertEquals(caller, Thread.currentThread().getName());
+         assertEquals(stats.getRejectedCount(), 1);
+         release.countDown();
+      } finally {
+         bounded.getInstance(Closer.class).close();
+      }
+   }
+
+   @Test(timeOut = 5000)
+   public void testBoundedExecutorAbortsWhenFull() throws Exception {
+      Injector bounded = createInjector("BOUNDED", "ABORT", 1);
+      try {
+         ListeningExecutorService exec = bounded.getInstance(Key.get(ListeningExecutorService.class,
+               named(PROPERTY_USER_THREADS)));
+         ExecutorStats stats = bounded.getInstance(Key.get(ExecutorStats.class, named(PROPERTY_USER_THREADS)));
+         CountDownLatch release = new CountDownLatch(1);
+         CountDownLatch started = new CountDownLatch(1);
+
+         exec.submit(blockUntil(started, release));
+         started.await();
+         exec.submit(blockUntil(new CountDownLatch(1), release));
+         try {
+            exec.submit(currentThreadName());
+            fail("expected the submission to be rejected");
+         } catch (RejectedExecutionException e) {
+            assertEquals(stats.getRejectedCount(), 1);
+            assertEquals(stats.getQueueDepth(), 1);
+         }
+         release.countDown();
+      } finally {
+         bounded.getInstance(Closer.class).close();
+      }
+   }
+
+   @Test
+   public void testBoundedExecutorRequiresAQueue() throws Exception {
+      Injector bounded = createInjector("BOUNDED", "ABORT", 0);
+      try {
+         bounded.getInstance(Key.get(ListeningExecutorService.class, named(PROPERTY_USER_THREADS)));
+         fail("expected a queue size of 0 to be rejected");
+      } catch (ProvisionException e) {
+         assertTrue(e.getCause() instanceof IllegalArgumentException, getStackTraceAsString(e));
+      } finally {
+         bounded.getInstance(Closer.class).close();
+      }
+   }
+
+   @Test(timeOut = 5000)
+   public void testVirtualExecutorRunsTasks() throws Exception {
+      Injector virtual = createInjector("VIRTUAL", "CALLER_RUNS", 1);
+      try {
+         ListeningExecutorService exec = virtual.getInstance(Key.get(ListeningExecutorService.class,
+               named(PROPERTY_USER_THREADS)));
+         assertNotEquals(exec.submit(currentThreadName()).get(), Thread.currentThread().getName());
+      } finally {
+         virtual.getInstance(Closer.class).close();
+      }
+   }
+
+   @Test(timeOut = 5000)
+   public void testSubmissionTraceNotCapturedWhenSamplingDisabled() throws Exception {
+      Injector untraced = Guice.createInjector(new ExecutorServiceModule() {
+         @Override
+         protected void configure() {
+            bindConstant().annotatedWith(named(PROPERTY_USER_THREADS)).to(1);
+            bindConstant().annotatedWith(named(PROPERTY_SUBMISSION_TRACE_SAMPLING)).to(0);
+            super.configure();
+         }
+      });
+      try {
+         ListeningExecutorService exec = untraced.getInstance(Key.get(ListeningExecutorService.class,
+               named(PROPERTY_USER_THREADS)));
+         exec.submit(runnableThrowsRTE()).get();
+         fail("expected the task to fail");
+      } catch (ExecutionException e) {
+         assertEquals(getStackTraceAsString(e.getCause()).indexOf("testSubmissionTraceNotCapturedWhenSamplingDisabled"),
+               -1);
+      } finally {
+         untraced.getInstance(Closer.class).close();
+      }
+   }
+
+   private static Injector createInjector(final String strategy, final String rejectionPolicy, final int queueSize) {
+      return Guice.createInjector(new ExecutorServiceModule() {
+         @Override
+         protected void configure() {
+            bindConstant().annotatedWith(named(PROPERTY_USER_THREADS)).to(1);
+            bindConstant().annotatedWith(named(PROPERTY_USER_EXECUTOR)).to(strategy);
+            bindConstant().annotatedWith(named(PROPERTY_USER_REJECTION_POLICY)).to(rejectionPolicy);
+            bindConstant().annotatedWith(named(PROPERTY_USER_QUEUE_SIZE)).to(queueSize);
+            super.configure();
+         }
+      });
+   }
+
+   static Runnable blockUntil(final CountDownLatch started, final CountDownLatch release) {
+      return new Runnable() {
+         public void run() {
+            started.countDown();
+            try {
+               release.await();
+            } catch (InterruptedException e) {
+               Thread.currentThread().interrupt();
+            }
+         }
+      };
+   }
+
+   static Callable<String> currentThreadName() {
+      return new Callable<String>() {
+         public String call() {
+            return Thread.currentThread().getName();
+         }
+      };
+   }
+
    static void assertTraceHasSubmission(String trace, String expected) {
       assertEquals(trace.indexOf(WithSubmissionTrace.class.getName()), -1, trace);
       assertNotEquals(trace.indexOf(expected), -1, trace + " " + expected);
@@ -0,0 +1,256 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.events;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.jclouds.events.BoundedAsyncEventBus.SubscriberQueueStats;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.eventbus.DeadEvent;
+import com.google.common.eventbus.Subscribe;
+
+@Test(groups = "unit", singleThreaded = true, testName = "BoundedAsyncEventBusTest")
+public class BoundedAsyncEventBusTest {
+
+   private BoundedAsyncEventBus bus;
+
+   static class Recorder {
+      final List<Object> events = Lists.newCopyOnWriteArrayList();
+      final CountDownLatch received;
+
+      Recorder(int expected) {
+         received = new CountDownLatch(expected);
+      }
+
+      @Subscribe
+      public void onString(String event) {
+         events.add(event);
+         received.countDown();
+      }
+
+      void await() throws InterruptedException {
+         assertTrue(received.await(10, TimeUnit.SECONDS), "timed out with events " + events);
+      }
+   }
+
+   static class CharSequenceRecorder extends Recorder {
+      CharSequenceRecorder(int expected) {
+         super(expected);
+      }
+
+      @Subscribe
+      public void onCharSequence(CharSequence event) {
+         events.add("cs:" + event);
+         received.countDown();
+      }
+   }
+
+   /**
+    * Holds on to the first event until released, so that the others pile up in its queue.
+    */
+   static class SlowRecorder extends Recorder {
+      final CountDownLatch started = new CountDownLatch(1);
+      final CountDownLatch release = new CountDownLatch(1);
+
+      SlowRecorder(int expected) {
+         super(expected);
+      }
+
+      @Override
+      @Subscribe
+      public void onString(String event) {
+         started.countDown();
+         try {
+            release.await();
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+         }
+         super.onString(event);
+      }
+   }
+
+   private BoundedAsyncEventBus bus(int queueCapacity, OverflowPolicy overflowPolicy) {
+      bus = new BoundedAsyncEventBus("test", Executors.newFixedThreadPool(2), queueCapacity, overflowPolicy);
+      return bus;
+   }
+
+   @AfterMethod
+   public void closeBus() throws IOException {
+      if (bus != null)
+         bus.close();
+      bus = null;
+   }
+
+   public void testDeliversToSubscribersOfSupertypesInOrder() throws InterruptedException {
+      BoundedAsyncEventBus bus = bus(10, OverflowPolicy.BLOCK);
+      CharSequenceRecorder recorder = new CharSequenceRecorder(4);
+      bus.register(recorder);
+
+      bus.post("a");
+      bus.post("b");
+      recorder.await();
+
+      List<Object> strings = Lists.newArrayList();
+      List<Object> charSequences = Lists.newArrayList();
+      for (Object event : recorder.events)
+         (event.toString().startsWith("cs:") ? charSequences : strings).add(event);
+      assertEquals(strings, ImmutableList.of("a", "b"));
+      assertEquals(charSequences, ImmutableList.of("cs:a", "cs:b"));
+   }
+
+   public void testRegisteringTwiceDeliversOnce() throws InterruptedException {
+      BoundedAsyncEventBus bus = bus(10, OverflowPolicy.BLOCK);
+      Recorder recorder = new Recorder(2);
+      bus.register(recorder);
+      bus.register(recorder);
+
+      bus.post("a");
+      bus.post("b");
+      recorder.await();
+
+      assertEquals(bus.getQueueStats().size(), 1);
+      assertEquals(recorder.events.subList(0, 2), ImmutableList.of("a", "b"));
+   }
+
+   public void testUnregisteredSubscriberReceivesNothing() throws InterruptedException {
+      BoundedAsyncEventBus bus = bus(10, OverflowPolicy.BLOCK);
+      Recorder unregistered = new Recorder(1);
+      Recorder registered = new Recorder(1);
+      bus.register(unregistered);
+      bus.register(registered);
+      bus.unregister(unregistered);
+
+      bus.post("a");
+      registered.await();
+
+      assertEquals(unregistered.events, ImmutableList.of());
+   }
+
+   @Test(expectedExceptions = IllegalArgumentException.class)
+   public void testUnregisterUnknownSubscriberThrows() {
+      bus(10, OverflowPolicy.BLOCK).unregister(new Recorder(0));
+   }
+
+   public void testEventWithoutSubscribersIsPostedAsDeadEvent() throws InterruptedException {
+      BoundedAsyncEventBus bus = bus(10, OverflowPolicy.BLOCK);
+      final CountDownLatch dead = new CountDownLatch(1);
+      bus.register(new Object() {
+         @Subscribe
+         public void onDeadEvent(DeadEvent event) {
+            if (event.getEvent().equals(1))
+               dead.countDown();
+         }
+      });
+
+      bus.post(1);
+
+      assertTrue(dead.await(10, TimeUnit.SECONDS));
+   }
+
+   public void testFailingSubscriberKeepsReceivingEvents() throws InterruptedException {
+      BoundedAsyncEventBus bus = bus(10, OverflowPolicy.BLOCK);
+      final CountDownLatch received = new CountDownLatch(2);
+      bus.register(new Object() {
+         @Subscribe
+         public void onString(String event) {
+            received.countDown();
+            throw new IllegalStateException(event);
+         }
+      });
+
+      bus.post("a");
+      bus.post("b");
+
+      assertTrue(received.await(10, TimeUnit.SECONDS));
+   }
+
+   public void testDiscardNewestWhenQueueIsFull() throws InterruptedException {
+      BoundedAsyncEventBus bus = bus(2, OverflowPolicy.DISCARD_NEWEST);
+      SlowRecorder recorder = new SlowRecorder(3);
+      bus.register(recorder);
+
+      bus.post("1");
+      assertTrue(recorder.started.await(10, TimeUnit.SECONDS));
+      for (String event : ImmutableList.of("2", "3", "4", "5"))
+         bus.post(event);
+
+      SubscriberQueueStats stats = Iterables.getOnlyElement(bus.getQueueStats());
+      assertEquals(stats.getDepth(), 2);
+      assertEquals(stats.getDiscarded(), 2);
+
+      recorder.release.countDown();
+      recorder.await();
+      assertEquals(recorder.events, ImmutableList.of("1", "2", "3"));
+   }
+
+   public void testDiscardOldestWhenQueueIsFull() throws InterruptedException {
+      BoundedAsyncEventBus bus = bus(2, OverflowPolicy.DISCARD_OLDEST);
+      SlowRecorder recorder = new SlowRecorder(3);
+      bus.register(recorder);
+
+      bus.post("1");
+      assertTrue(recorder.started.await(10, TimeUnit.SECONDS));
+      for (String event : ImmutableList.of("2", "3", "4", "5"))
+         bus.post(event);
+
+      assertEquals(Iterables.getOnlyElement(bus.getQueueStats()).getDiscarded(), 2);
+
+      recorder.release.countDown();
+      recorder.await();
+      assertEquals(recorder.events, ImmutableList.of("1", "4", "5"));
+   }
+
+   public void testBlockWaitsForRoomInQueue() throws InterruptedException {
+      final BoundedAsyncEventBus bus = bus(1, OverflowPolicy.BLOCK);
+      SlowRecorder recorder = new SlowRecorder(3);
+      bus.register(recorder);
+
+      bus.post("1");
+      assertTrue(recorder.started.await(10, TimeUnit.SECONDS));
+      bus.post("2");
+
+      final CountDownLatch posted = new CountDownLatch(1);
+      Thread poster = new Thread() {
+         @Override
+         public void run() {
+            bus.post("3");
+            posted.countDown();
+         }
+      };
+      poster.start();
+      assertFalse(posted.await(200, TimeUnit.MILLISECONDS), "post should wait while the queue is full");
+
+      recorder.release.countDown();
+      assertTrue(posted.await(10, TimeUnit.SECONDS));
+      recorder.await();
+      assertEquals(recorder.events, ImmutableList.of("1", "2", "3"));
+      assertEquals(Iterables.getOnlyElement(bus.getQueueStats()).getDiscarded(), 0);
+   }
+}
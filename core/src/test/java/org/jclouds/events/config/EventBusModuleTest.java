@@ -16,18 +16,23 @@
  */
 package org.jclouds.events.config;
 
+import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 
 import org.jclouds.Constants;
 import org.jclouds.concurrent.config.ExecutorServiceModule;
+import org.jclouds.events.BoundedAsyncEventBus;
+import org.jclouds.events.OverflowPolicy;
+import org.jclouds.events.config.EventBusModule.AsyncEventBusSettings;
 import org.jclouds.events.config.annotations.AsyncBus;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
 import com.google.common.eventbus.AsyncEventBus;
 import com.google.common.eventbus.EventBus;
+import com.google.inject.AbstractModule;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
 import com.google.inject.Key;
@@ -71,4 +76,34 @@ public class EventBusModuleTest {
 
         assertSame(eventBus1, eventBus2);
     }
+
+    public void testAsyncEventBusIsBounded() {
+        AsyncEventBus eventBus = injector.getInstance(AsyncEventBus.class);
+
+        assertTrue(eventBus instanceof BoundedAsyncEventBus);
+        assertSame(eventBus, injector.getInstance(BoundedAsyncEventBus.class));
+    }
+
+    public void testAsyncEventBusSettingsDefaults() {
+        AsyncEventBusSettings settings = injector.getInstance(AsyncEventBusSettings.class);
+
+        assertEquals(settings.threads, Runtime.getRuntime().availableProcessors());
+        assertEquals(settings.queueSize, 1000);
+        assertEquals(settings.overflowPolicy, OverflowPolicy.BLOCK);
+    }
+
+    public void testAsyncEventBusSettingsFromProperties() {
+        AsyncEventBusSettings settings = Guice.createInjector(new AbstractModule() {
+            @Override
+            protected void configure() {
+               bindConstant().annotatedWith(Names.named(Constants.PROPERTY_EVENT_THREADS)).to("2");
+               bindConstant().annotatedWith(Names.named(Constants.PROPERTY_EVENT_QUEUE_SIZE)).to("10");
+               bindConstant().annotatedWith(Names.named(Constants.PROPERTY_EVENT_OVERFLOW_POLICY)).to("DISCARD_OLDEST");
+            }
+        }).getInstance(AsyncEventBusSettings.class);
+
+        assertEquals(settings.threads, 2);
+        assertEquals(settings.queueSize, 10);
+        assertEquals(settings.overflowPolicy, OverflowPolicy.DISCARD_OLDEST);
+    }
 }
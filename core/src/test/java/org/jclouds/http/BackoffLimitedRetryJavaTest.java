@@ -21,9 +21,12 @@ import static org.jclouds.util.Closeables2.closeQuietly;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.fail;
 
+import java.io.ByteArrayInputStream;
 import java.util.Properties;
 
 import org.jclouds.http.config.JavaUrlHttpCommandExecutorServiceModule;
+import org.jclouds.io.Payload;
+import org.jclouds.io.Payloads;
 import org.testng.annotations.Test;
 
 import com.google.inject.Module;
@@ -144,4 +147,21 @@ public class BackoffLimitedRetryJavaTest extends BaseMockWebServerTest {
       }
    }
 
+   @Test
+   public void testStreamingPayloadIsReplayedOnRetry() throws Exception {
+      MockWebServer server = mockWebServer(new MockResponse().setResponseCode(500), new MockResponse());
+      IntegrationTestClient client = client(server.getUrl("/").toString());
+      try {
+         Payload payload = Payloads.newReplayableInputStreamPayload(new ByteArrayInputStream("streamed".getBytes()));
+         payload.getContentMetadata().setContentLength(8L);
+         client.postPayloadAndReturnHeaders("", payload);
+         assertEquals(server.getRequestCount(), 2);
+         assertEquals(server.takeRequest().getUtf8Body(), "streamed");
+         assertEquals(server.takeRequest().getUtf8Body(), "streamed");
+      } finally {
+         closeQuietly(client);
+         server.shutdown();
+      }
+   }
+
 }
@@ -18,6 +18,7 @@ package org.jclouds.http;
 
 import static org.jclouds.http.UriTemplates.expand;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
 
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
@@ -51,4 +52,13 @@ public class UriTemplatesTest {
    public void testMissingParamProceeds() {
       assertEquals(expand("/{user-dir}", ImmutableMap.of("user_dir", "foo")), "/{user-dir}");
    }
+
+   public void testNoParamsReturnsTemplate() {
+      String template = "/repos/jclouds";
+      assertSame(expand(template, ImmutableMap.of("user", "foo")), template);
+   }
+
+   public void testNestedBraceIsNotPartOfName() {
+      assertEquals(expand("/{us{er}", ImmutableMap.of("user", "foo")), "/foo");
+   }
 }
@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http;
+
+import static org.jclouds.http.Uris.uriBuilder;
+import static org.testng.Assert.assertEquals;
+
+import java.net.URI;
+
+import org.jclouds.util.Strings2;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.Multimap;
+
+/**
+ * Times building request endpoints the way {@link org.jclouds.rest.internal.RestAnnotationProcessor} does, for the
+ * path and query shapes of typical object store requests.
+ */
+@Test(groups = "performance", singleThreaded = true, testName = "UrisPerformanceTest")
+public class UrisPerformanceTest {
+   protected static int LOOP_COUNT = 100000;
+
+   private static final Multimap<String, Object> TOKENS = ImmutableMultimap.<String, Object> of("bucket", "photos",
+         "key", "2014/summer/beach day.jpg", "jclouds.api-version", "2006-03-01");
+
+   private static URI s3GetObject() {
+      return uriBuilder("https://s3.amazonaws.com").appendPath("/{bucket}").appendPath("/{key}")
+            .build(ImmutableMap.of("bucket", "photos", "key", "2014/summer/beach day.jpg"));
+   }
+
+   private static URI s3ListBucket() {
+      return uriBuilder("https://s3.amazonaws.com").appendPath("/{bucket}")
+            .addQuery("prefix", "2014/summer/").addQuery("delimiter", "/").addQuery("max-keys", "1000")
+            .build(ImmutableMap.of("bucket", "photos"));
+   }
+
+   private static URI swiftGetObject() {
+      return uriBuilder("https://storage.example.com/v1/AUTH_7b5a3c1d").appendPath("/{container}")
+            .appendPath("/{name}").build(ImmutableMap.of("container", "photos", "name", "beach.jpg"));
+   }
+
+   public void testExpectedEndpoints() {
+      assertEquals(s3GetObject().toString(), "https://s3.amazonaws.com/photos/2014/summer/beach%20day.jpg");
+      assertEquals(s3ListBucket().toString(),
+            "https://s3.amazonaws.com/photos?prefix=2014/summer/&delimiter=/&max-keys=1000");
+      assertEquals(swiftGetObject().toString(), "https://storage.example.com/v1/AUTH_7b5a3c1d/photos/beach.jpg");
+      assertEquals(Strings2.replaceTokens("{bucket}.s3.amazonaws.com", TOKENS), "photos.s3.amazonaws.com");
+   }
+
+   public void testS3GetObjectSerialResponseTime() {
+      for (int i = 0; i < LOOP_COUNT; i++)
+         assert s3GetObject() != null;
+   }
+
+   public void testS3ListBucketSerialResponseTime() {
+      for (int i = 0; i < LOOP_COUNT; i++)
+         assert s3ListBucket() != null;
+   }
+
+   public void testSwiftGetObjectSerialResponseTime() {
+      for (int i = 0; i < LOOP_COUNT; i++)
+         assert swiftGetObject() != null;
+   }
+
+   public void testReplaceTokensSerialResponseTime() {
+      for (int i = 0; i < LOOP_COUNT; i++)
+         assert Strings2.replaceTokens("{bucket}.s3.amazonaws.com", TOKENS) != null;
+   }
+}
@@ -20,15 +20,25 @@ import static org.easymock.EasyMock.createMock;
 import static org.easymock.EasyMock.expect;
 import static org.easymock.EasyMock.replay;
 import static org.easymock.EasyMock.verify;
+import static org.jclouds.reflect.Reflection2.method;
 import static org.testng.Assert.assertEquals;
 
+import java.util.List;
+
 import org.jclouds.http.HttpRequest;
 import org.jclouds.http.HttpResponse;
+import org.jclouds.http.functions.ParseSax.ElementCallback;
+import org.jclouds.http.functions.ParseSax.StreamingHandler;
+import org.jclouds.reflect.Invocation;
+import org.jclouds.rest.internal.GeneratedHttpRequest;
 import org.jclouds.utils.TestUtils;
 import org.testng.annotations.Test;
 import org.xml.sax.Locator;
 import org.xml.sax.SAXParseException;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
 /**
  * Tests behavior of {@code ParseSax}
  */
@@ -42,6 +52,54 @@ public class ParseSaxTest extends BaseHandlerTest {
       }
    }
 
+   public static class TestStreamingHandler extends ParseSax.HandlerWithResult<List<String>> implements
+         StreamingHandler<String> {
+      private final List<String> items = Lists.newArrayList();
+      private final StringBuilder currentText = new StringBuilder();
+      private ElementCallback<? super String> callback;
+
+      @Override
+      public void setCallback(ElementCallback<? super String> callback) {
+         this.callback = callback;
+      }
+
+      @Override
+      public List<String> getResult() {
+         return items;
+      }
+
+      @Override
+      public void endElement(String uri, String name, String qName) {
+         if (qName.equals("item")) {
+            if (callback != null)
+               callback.onElement(currentText.toString());
+            else
+               items.add(currentText.toString());
+         }
+         currentText.setLength(0);
+      }
+
+      @Override
+      public void characters(char ch[], int start, int length) {
+         currentText.append(ch, start, length);
+      }
+   }
+
+   interface TestListing {
+      void list(String container, ElementCallback<? super String> callback);
+   }
+
+   static final String ITEMS = "<items><item>a</item><item>b</item></items>";
+
+   static class CollectingCallback implements ElementCallback<String> {
+      final List<String> elements = Lists.newArrayList();
+
+      @Override
+      public void onElement(String element) {
+         elements.add(element);
+      }
+   }
+
    ParseSax<String> createParser() {
       return factory.create(injector.getInstance(TestHandler.class));
    }
@@ -131,4 +189,33 @@ public class ParseSaxTest extends BaseHandlerTest {
          assertEquals(e.getCause(), input);
       }
    }
+
+   public void testWithoutCallbackElementsAreCollected() {
+      List<String> result = factory.create(new TestStreamingHandler()).parse(ITEMS);
+      assertEquals(result, ImmutableList.of("a", "b"));
+   }
+
+   public void testCallbackReceivesElementsInsteadOfResult() {
+      CollectingCallback callback = new CollectingCallback();
+      TestStreamingHandler handler = new TestStreamingHandler();
+      handler.setCallback(callback);
+
+      List<String> result = factory.create(handler).parse(ITEMS);
+
+      assertEquals(callback.elements, ImmutableList.of("a", "b"));
+      assertEquals(result, ImmutableList.of());
+   }
+
+   public void testCallbackIsTakenFromInvocationArgs() {
+      CollectingCallback callback = new CollectingCallback();
+      GeneratedHttpRequest request = GeneratedHttpRequest.builder()
+            .invocation(Invocation.create(method(TestListing.class, "list", String.class, ElementCallback.class),
+                  ImmutableList.<Object> of("container", callback)))
+            .method("GET").endpoint("http://localhost").build();
+
+      List<String> result = factory.create(new TestStreamingHandler()).setContext(request).parse(ITEMS);
+
+      assertEquals(callback.elements, ImmutableList.of("a", "b"));
+      assertEquals(result, ImmutableList.of());
+   }
 }
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.io.payloads;
+
+import static com.google.common.hash.Hashing.md5;
+import static com.google.common.hash.Hashing.sha1;
+import static org.testng.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jclouds.io.Payload;
+import org.jclouds.io.Payloads;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.ByteSource;
+import com.google.common.io.Files;
+
+@Test
+public class BasePayloadTest {
+
+   private static class CountingByteSource extends ByteSource {
+      private final byte[] content;
+      private final AtomicInteger opened = new AtomicInteger();
+
+      private CountingByteSource(String content) {
+         this.content = content.getBytes(Charsets.UTF_8);
+      }
+
+      @Override
+      public InputStream openStream() {
+         opened.incrementAndGet();
+         return new ByteArrayInputStream(content);
+      }
+   }
+
+   public void testHashReadsContentOncePerHashFunction() throws IOException {
+      CountingByteSource source = new CountingByteSource("hello");
+      Payload payload = new ByteSourcePayload(source);
+
+      assertEquals(Payloads.hash(payload, md5()), md5().hashString("hello", Charsets.UTF_8));
+      assertEquals(Payloads.hash(payload, md5()), md5().hashString("hello", Charsets.UTF_8));
+      assertEquals(source.opened.get(), 1);
+
+      assertEquals(Payloads.hash(payload, sha1()), sha1().hashString("hello", Charsets.UTF_8));
+      assertEquals(source.opened.get(), 2);
+   }
+
+   public void testDelegatingPayloadSharesTheHashOfItsDelegate() throws IOException {
+      CountingByteSource source = new CountingByteSource("hello");
+      Payload payload = new ByteSourcePayload(source);
+
+      Payloads.hash(payload, sha1());
+      assertEquals(Payloads.hash(new DelegatingPayload(payload), sha1()), sha1().hashString("hello", Charsets.UTF_8));
+      assertEquals(source.opened.get(), 1);
+   }
+
+   public void testHashOfFileIsNotMemoized() throws IOException {
+      File file = File.createTempFile("payload", ".txt");
+      try {
+         Files.write("hello", file, Charsets.UTF_8);
+         Payload payload = new FilePayload(file);
+         assertEquals(Payloads.hash(payload, md5()), md5().hashString("hello", Charsets.UTF_8));
+
+         Files.write("world", file, Charsets.UTF_8);
+         assertEquals(Payloads.hash(payload, md5()), md5().hashString("world", Charsets.UTF_8));
+      } finally {
+         file.delete();
+      }
+   }
+
+   @Test(expectedExceptions = IllegalStateException.class)
+   public void testCannotHashPayloadThatIsNotRepeatable() throws IOException {
+      Payloads.hash(new InputStreamPayload(new ByteArrayInputStream(new byte[1])), md5());
+   }
+}
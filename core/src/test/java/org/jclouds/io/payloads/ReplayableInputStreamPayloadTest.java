@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.io.payloads;
+
+import static com.google.common.hash.Hashing.md5;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+
+import org.testng.annotations.Test;
+
+import com.google.common.io.ByteStreams;
+
+@Test
+public class ReplayableInputStreamPayloadTest {
+
+   private static byte[] randomBytes(int size) {
+      byte[] bytes = new byte[size];
+      new Random(size).nextBytes(bytes);
+      return bytes;
+   }
+
+   /**
+    * a source that can only be read once, like a socket.
+    */
+   private static class OnceInputStream extends ByteArrayInputStream {
+      private boolean closed;
+
+      private OnceInputStream(byte[] bytes) {
+         super(bytes);
+      }
+
+      @Override
+      public synchronized int read(byte[] b, int off, int len) {
+         if (closed)
+            throw new IllegalStateException("closed");
+         return super.read(b, off, len);
+      }
+
+      @Override
+      public void close() {
+         closed = true;
+      }
+   }
+
+   public void testReplaysInMemory() throws IOException {
+      byte[] bytes = randomBytes(1000);
+      ReplayableInputStreamPayload payload = new ReplayableInputStreamPayload(new OnceInputStream(bytes));
+      assertTrue(payload.isRepeatable());
+      assertEquals(ByteStreams.toByteArray(payload.openStream()), bytes);
+      assertEquals(ByteStreams.toByteArray(payload.openStream()), bytes);
+      assertEquals(payload.getBufferedLength(), bytes.length);
+      payload.release();
+   }
+
+   public void testReplaysAfterSpillingToDisk() throws IOException {
+      byte[] bytes = randomBytes(100 * 1024);
+      ReplayableInputStreamPayload payload = new ReplayableInputStreamPayload(new OnceInputStream(bytes), 1024);
+      assertEquals(ByteStreams.toByteArray(payload.openStream()), bytes);
+      assertEquals(ByteStreams.toByteArray(payload.openStream()), bytes);
+      payload.release();
+   }
+
+   public void testReplaysAfterPartialRead() throws IOException {
+      byte[] bytes = randomBytes(10 * 1024);
+      ReplayableInputStreamPayload payload = new ReplayableInputStreamPayload(new OnceInputStream(bytes), 1024);
+      InputStream failedAttempt = payload.openStream();
+      ByteStreams.readFully(failedAttempt, new byte[3000]);
+      failedAttempt.close();
+      assertEquals(payload.getBufferedLength(), 3000);
+
+      assertEquals(ByteStreams.toByteArray(payload.openStream()), bytes);
+      payload.release();
+   }
+
+   @Test(expectedExceptions = IOException.class)
+   public void testEarlierStreamIsSuperseded() throws IOException {
+      ReplayableInputStreamPayload payload = new ReplayableInputStreamPayload(new OnceInputStream(randomBytes(100)));
+      InputStream first = payload.openStream();
+      payload.openStream();
+      first.read();
+   }
+
+   public void testHashThenUploadReadsSourceOnce() throws IOException {
+      byte[] bytes = randomBytes(5000);
+      ReplayableInputStreamPayload payload = new ReplayableInputStreamPayload(new OnceInputStream(bytes), 1024);
+      assertEquals(payload.hash(md5()), md5().hashBytes(bytes));
+      assertEquals(ByteStreams.toByteArray(payload.openStream()), bytes);
+      payload.release();
+   }
+
+   @Test(expectedExceptions = IllegalStateException.class)
+   public void testCannotOpenAfterRelease() throws IOException {
+      ReplayableInputStreamPayload payload = new ReplayableInputStreamPayload(new OnceInputStream(randomBytes(100)));
+      payload.release();
+      payload.openStream();
+   }
+}
@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.json;
+
+import static org.testng.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.jclouds.Constants;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.http.functions.ParseFirstJsonValueNamed;
+import org.jclouds.json.config.GsonModule;
+import org.jclouds.json.internal.GsonWrapper;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.google.common.io.ByteStreams;
+import com.google.gson.Gson;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Module;
+import com.google.inject.TypeLiteral;
+import com.google.inject.name.Names;
+
+/**
+ * Compares parsing a response with the deserializers generated by {@code jclouds-json-processor} against parsing it
+ * reflectively, which is what happens when {@link Constants#PROPERTY_JSON_GENERATED_DESERIALIZERS} is false.
+ */
+@Test(groups = "performance", singleThreaded = true)
+public abstract class BaseGeneratedDeserializerPerformanceTest<T> {
+   protected static int LOOP_COUNT = 500;
+
+   private byte[] payload;
+   private ParseFirstJsonValueNamed<T> generated;
+   private ParseFirstJsonValueNamed<T> reflective;
+
+   /**
+    * resource such as {@code "/testaddresses.json"}
+    */
+   protected abstract String resource();
+
+   /**
+    * name of the json value holding the response, as in {@link org.jclouds.rest.annotations.SelectJson}
+    */
+   protected abstract String selectJson();
+
+   protected abstract TypeLiteral<T> type();
+
+   protected Iterable<Module> modules() {
+      return ImmutableList.<Module> of(new GsonModule() {
+         protected void configure() {
+            bind(DateAdapter.class).to(Iso8601DateAdapter.class);
+            super.configure();
+         }
+      });
+   }
+
+   @BeforeClass
+   protected void setUpParsers() throws IOException {
+      InputStream in = getClass().getResourceAsStream(resource());
+      try {
+         payload = ByteStreams.toByteArray(in);
+      } finally {
+         in.close();
+      }
+      generated = parser(true);
+      reflective = parser(false);
+   }
+
+   private ParseFirstJsonValueNamed<T> parser(final boolean generatedDeserializers) {
+      Gson gson = Guice.createInjector(Iterables.concat(modules(), ImmutableList.of(new AbstractModule() {
+         @Override
+         protected void configure() {
+            bindConstant().annotatedWith(Names.named(Constants.PROPERTY_JSON_GENERATED_DESERIALIZERS)).to(
+                  generatedDeserializers);
+         }
+      }))).getInstance(Gson.class);
+      return new ParseFirstJsonValueNamed<T>(new GsonWrapper(gson), type(), selectJson());
+   }
+
+   private T parse(ParseFirstJsonValueNamed<T> parser) {
+      return parser.apply(HttpResponse.builder().statusCode(200).message("ok").payload(payload).build());
+   }
+
+   public void testGeneratedDeserializersMatchReflection() {
+      assertEquals(parse(generated).toString(), parse(reflective).toString());
+   }
+
+   public void testGeneratedDeserializersSerialResponseTime() {
+      for (int i = 0; i < LOOP_COUNT; i++)
+         assert parse(generated) != null;
+   }
+
+   public void testReflectiveSerialResponseTime() {
+      for (int i = 0; i < LOOP_COUNT; i++)
+         assert parse(reflective) != null;
+   }
+}
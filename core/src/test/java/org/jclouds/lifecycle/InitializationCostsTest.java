@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.lifecycle;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Map;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.Stage;
+
+@Test(groups = "unit", testName = "InitializationCostsTest")
+public class InitializationCostsTest {
+
+   @Singleton
+   static class Slow {
+      Slow() throws InterruptedException {
+         Thread.sleep(50);
+      }
+   }
+
+   @Singleton
+   static class DependsOnSlow {
+      @Inject
+      DependsOnSlow(Slow slow) {
+      }
+   }
+
+   static class NotSingleton {
+   }
+
+   private static Injector recordingInjector() {
+      return Guice.createInjector(Stage.DEVELOPMENT, InitializationCosts.record(ImmutableSet.of(new AbstractModule() {
+         protected void configure() {
+            bind(DependsOnSlow.class);
+            bind(Slow.class);
+            bind(NotSingleton.class);
+            bind(String.class).toInstance("instance");
+         }
+      })));
+   }
+
+   public void testMeasuresSingletonsAsTheyAreCreated() {
+      Injector injector = recordingInjector();
+      assertEquals(InitializationCosts.measure(injector), ImmutableMap.of());
+
+      injector.getInstance(DependsOnSlow.class);
+      injector.getInstance(NotSingleton.class);
+      Map<Key<?>, Long> costs = InitializationCosts.measure(injector);
+
+      assertEquals(costs.keySet(), ImmutableSet.of(Key.get(DependsOnSlow.class), Key.get(Slow.class)));
+      assertEquals(ImmutableList.copyOf(costs.keySet()).get(0), Key.get(DependsOnSlow.class));
+      assertTrue(costs.get(Key.get(Slow.class)) >= 50000000L, costs.toString());
+      assertSame(injector.getInstance(DependsOnSlow.class), injector.getInstance(DependsOnSlow.class));
+   }
+
+   @Test(expectedExceptions = IllegalStateException.class)
+   public void testMeasureRequiresRecording() {
+      InitializationCosts.measure(Guice.createInjector(Stage.DEVELOPMENT));
+   }
+}
@@ -0,0 +1,304 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.suppliers;
+
+import static com.google.common.util.concurrent.MoreExecutors.sameThreadExecutor;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jclouds.domain.Location;
+import org.jclouds.domain.LocationBuilder;
+import org.jclouds.domain.LocationScope;
+import org.jclouds.location.suppliers.LocationsSnapshotCodec;
+import org.jclouds.rest.AuthorizationException;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.io.ByteSource;
+
+@Test(groups = "unit", testName = "SnapshotBackedSupplierTest", singleThreaded = true)
+public class SnapshotBackedSupplierTest {
+
+   static class InMemoryStore implements CatalogSnapshotStore {
+      final Map<String, byte[]> snapshots = Maps.newConcurrentMap();
+
+      @Override
+      public Optional<ByteSource> load(String key) {
+         byte[] bytes = snapshots.get(key);
+         return bytes == null ? Optional.<ByteSource> absent() : Optional.of(ByteSource.wrap(bytes));
+      }
+
+      @Override
+      public void save(String key, ByteSource snapshot) throws IOException {
+         snapshots.put(key, snapshot.read());
+      }
+   }
+
+   static class CountingSupplier implements Supplier<Set<? extends Location>> {
+      final AtomicInteger calls = new AtomicInteger();
+      volatile Set<? extends Location> value;
+      volatile RuntimeException failure;
+
+      CountingSupplier(Set<? extends Location> value) {
+         this.value = value;
+      }
+
+      @Override
+      public Set<? extends Location> get() {
+         calls.incrementAndGet();
+         if (failure != null)
+            throw failure;
+         return value;
+      }
+   }
+
+   static class FakeTicker extends Ticker {
+      final AtomicLong nanos = new AtomicLong();
+
+      @Override
+      public long read() {
+         return nanos.get();
+      }
+
+      void advance(long nanos) {
+         this.nanos.addAndGet(nanos);
+      }
+   }
+
+   private final Location provider = new LocationBuilder().scope(LocationScope.PROVIDER).id("aws-ec2")
+         .description("aws-ec2").iso3166Codes(ImmutableSet.of("US")).build();
+   private final Location region = new LocationBuilder().scope(LocationScope.REGION).id("us-east-1")
+         .description("us-east-1").parent(provider).metadata(ImmutableMap.<String, Object> of("endpoint", "foo"))
+         .build();
+   private final Location zone = new LocationBuilder().scope(LocationScope.ZONE).id("us-east-1a")
+         .description("us-east-1a").parent(region).build();
+
+   private final Supplier<String> key = Suppliers.ofInstance("aws-ec2-locations");
+   private InMemoryStore store;
+   private FakeTicker ticker;
+
+   @BeforeMethod
+   void setUp() {
+      store = new InMemoryStore();
+      ticker = new FakeTicker();
+   }
+
+   private SnapshotBackedSupplier<Set<? extends Location>> supplier(Supplier<Set<? extends Location>> delegate) {
+      return new SnapshotBackedSupplier<Set<? extends Location>>(delegate, store, key, new LocationsSnapshotCodec(),
+            sameThreadExecutor(), ticker);
+   }
+
+   public void testWithoutSnapshotCallsDelegateAndPersistsValue() {
+      CountingSupplier delegate = new CountingSupplier(ImmutableSet.of(region, zone));
+
+      assertEquals(supplier(delegate).get(), ImmutableSet.of(region, zone));
+      assertEquals(delegate.calls.get(), 1);
+      assertTrue(store.snapshots.containsKey(key.get()));
+   }
+
+   public void testServesSnapshotUntilRevalidated() {
+      supplier(new CountingSupplier(ImmutableSet.of(region, zone))).get();
+
+      CountingSupplier delegate = new CountingSupplier(ImmutableSet.of(region));
+      Supplier<Set<? extends Location>> restarted = supplier(delegate);
+
+      Set<? extends Location> fromSnapshot = restarted.get();
+      assertEquals(fromSnapshot, ImmutableSet.of(region, zone));
+      Location restoredZone = ImmutableSet.copyOf(fromSnapshot).asList().get(1);
+      assertEquals(restoredZone.getParent(), region);
+      assertEquals(restoredZone.getParent().getParent().getIso3166Codes(), ImmutableSet.of("US"));
+      assertEquals(restoredZone.getParent().getMetadata(), ImmutableMap.of("endpoint", "foo"));
+      assertEquals(delegate.calls.get(), 1);
+
+      assertEquals(restarted.get(), ImmutableSet.of(region));
+      assertEquals(supplier(new CountingSupplier(null)).get(), ImmutableSet.of(region));
+   }
+
+   public void testKeepsServingSnapshotWhenRevalidationFails() {
+      supplier(new CountingSupplier(ImmutableSet.of(zone))).get();
+
+      CountingSupplier delegate = new CountingSupplier(ImmutableSet.of(region));
+      delegate.failure = new IllegalStateException("timeout");
+      Supplier<Set<? extends Location>> restarted = supplier(delegate);
+
+      assertEquals(restarted.get(), ImmutableSet.of(zone));
+      assertEquals(restarted.get(), ImmutableSet.of(zone));
+      assertEquals(delegate.calls.get(), 1);
+
+      delegate.failure = null;
+      ticker.advance(SnapshotBackedSupplier.MIN_RETRY_DELAY_NANOS);
+      assertEquals(restarted.get(), ImmutableSet.of(zone));
+      assertEquals(restarted.get(), ImmutableSet.of(region));
+   }
+
+   public void testBacksOffAfterFailedRevalidation() {
+      supplier(new CountingSupplier(ImmutableSet.of(zone))).get();
+
+      CountingSupplier delegate = new CountingSupplier(ImmutableSet.of(region));
+      delegate.failure = new IllegalStateException("timeout");
+      Supplier<Set<? extends Location>> restarted = supplier(delegate);
+
+      for (int i = 0; i < 10; i++)
+         restarted.get();
+      assertEquals(delegate.calls.get(), 1);
+
+      ticker.advance(SnapshotBackedSupplier.MIN_RETRY_DELAY_NANOS - 1);
+      restarted.get();
+      assertEquals(delegate.calls.get(), 1);
+
+      ticker.advance(1);
+      restarted.get();
+      restarted.get();
+      assertEquals(delegate.calls.get(), 2);
+
+      // the delay doubled after the second failure
+      ticker.advance(SnapshotBackedSupplier.MIN_RETRY_DELAY_NANOS);
+      restarted.get();
+      assertEquals(delegate.calls.get(), 2);
+      ticker.advance(SnapshotBackedSupplier.MIN_RETRY_DELAY_NANOS);
+      restarted.get();
+      assertEquals(delegate.calls.get(), 3);
+   }
+
+   public void testCallersRacingTheFirstWaitForTheSnapshot() throws Exception {
+      supplier(new CountingSupplier(ImmutableSet.of(zone))).get();
+
+      final CountDownLatch loading = new CountDownLatch(1);
+      final CountDownLatch release = new CountDownLatch(1);
+      final InMemoryStore persisted = store;
+      store = new InMemoryStore() {
+         @Override
+         public Optional<ByteSource> load(String key) {
+            loading.countDown();
+            try {
+               release.await();
+            } catch (InterruptedException e) {
+               Thread.currentThread().interrupt();
+            }
+            return persisted.load(key);
+         }
+      };
+      final List<Runnable> revalidations = Lists.newCopyOnWriteArrayList();
+      CountingSupplier delegate = new CountingSupplier(ImmutableSet.of(region));
+      final Supplier<Set<? extends Location>> restarted = new SnapshotBackedSupplier<Set<? extends Location>>(
+            delegate, store, key, new LocationsSnapshotCodec(), new Executor() {
+               @Override
+               public void execute(Runnable command) {
+                  revalidations.add(command);
+               }
+            }, ticker);
+
+      final List<Set<? extends Location>> results = Lists.newCopyOnWriteArrayList();
+      Runnable get = new Runnable() {
+         @Override
+         public void run() {
+            results.add(restarted.get());
+         }
+      };
+      Thread first = new Thread(get);
+      first.start();
+      assertTrue(loading.await(10, TimeUnit.SECONDS));
+      Thread second = new Thread(get);
+      second.start();
+      while (second.getState() != Thread.State.BLOCKED && second.isAlive())
+         Thread.sleep(1);
+      release.countDown();
+      first.join();
+      second.join();
+
+      assertEquals(results, ImmutableList.of(ImmutableSet.of(zone), ImmutableSet.of(zone)));
+      assertEquals(delegate.calls.get(), 0);
+      assertEquals(revalidations.size(), 1);
+   }
+
+   @Test(expectedExceptions = AuthorizationException.class)
+   public void testAuthorizationExceptionDiscardsSnapshot() {
+      supplier(new CountingSupplier(ImmutableSet.of(zone))).get();
+
+      CountingSupplier delegate = new CountingSupplier(ImmutableSet.of(region));
+      delegate.failure = new AuthorizationException();
+      Supplier<Set<? extends Location>> restarted = supplier(delegate);
+
+      assertEquals(restarted.get(), ImmutableSet.of(zone));
+      restarted.get();
+   }
+
+   public void testPersistsEachRefreshOfTheDelegate() {
+      CountingSupplier delegate = new CountingSupplier(ImmutableSet.of(region));
+      Supplier<Set<? extends Location>> supplier = supplier(delegate);
+      supplier.get();
+
+      delegate.value = ImmutableSet.of(region, zone);
+      assertEquals(supplier.get(), ImmutableSet.of(region, zone));
+
+      assertEquals(supplier(new CountingSupplier(null)).get(), ImmutableSet.of(region, zone));
+   }
+
+   public void testDoesNotPersistUnchangedValueAgain() {
+      CountingSupplier delegate = new CountingSupplier(ImmutableSet.of(region));
+      Supplier<Set<? extends Location>> supplier = supplier(delegate);
+      supplier.get();
+      store.snapshots.clear();
+
+      supplier.get();
+      assertFalse(store.snapshots.containsKey(key.get()));
+   }
+
+   public void testIgnoresSnapshotWrittenWithAnotherVersion() {
+      supplier(new CountingSupplier(ImmutableSet.of(zone))).get();
+
+      CountingSupplier delegate = new CountingSupplier(ImmutableSet.of(region));
+      Supplier<Set<? extends Location>> restarted = new SnapshotBackedSupplier<Set<? extends Location>>(delegate,
+            store, key, new LocationsSnapshotCodec() {
+               @Override
+               public int version() {
+                  return super.version() + 1;
+               }
+            }, sameThreadExecutor());
+
+      assertEquals(restarted.get(), ImmutableSet.of(region));
+      assertEquals(delegate.calls.get(), 1);
+   }
+
+   public void testIgnoresCorruptSnapshot() {
+      store.snapshots.put(key.get(), new byte[] { 1, 2, 3 });
+      CountingSupplier delegate = new CountingSupplier(ImmutableSet.of(region));
+
+      assertEquals(supplier(delegate).get(), ImmutableSet.of(region));
+      assertFalse(store.snapshots.get(key.get()).length == 3);
+   }
+}
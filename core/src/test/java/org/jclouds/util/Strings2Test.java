@@ -19,10 +19,17 @@ package org.jclouds.util;
 import static org.jclouds.util.Strings2.urlDecode;
 import static org.jclouds.util.Strings2.urlEncode;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.Random;
 
 import org.testng.annotations.Test;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableMultimap;
 
 @Test(groups = "unit")
 public class Strings2Test {
@@ -30,6 +37,29 @@ public class Strings2Test {
    public void testIsEncoded() {
       assert Strings2.isUrlEncoded("/read-tests/%73%6f%6d%65%20%66%69%6c%65");
       assert !Strings2.isUrlEncoded("/read-tests/ tep");
+      assert !Strings2.isUrlEncoded("trailing%2");
+      assert !Strings2.isUrlEncoded("line\n%20break");
+   }
+
+   public void testUrlEncodeReturnsInputWhenNothingToEncode() {
+      String in = "bucket/key-1_2.txt";
+      assertSame(urlEncode(in, '/'), in);
+   }
+
+   public void testUrlEncodeMatchesURLEncoder() throws UnsupportedEncodingException {
+      String alphabet = "aZ09.-_~*+ /:;=,?&%{}\u00e9\u20aa\ud83d\ude00";
+      Random random = new Random(42);
+      for (int i = 0; i < 1000; i++) {
+         StringBuilder in = new StringBuilder();
+         for (int j = random.nextInt(12); j > 0; j--)
+            in.append(alphabet.charAt(random.nextInt(alphabet.length())));
+         String input = in.toString();
+         if (Strings2.isUrlEncoded(input))
+            continue;
+         String expected = URLEncoder.encode(input, "UTF-8").replace("+", "%20").replace("*", "%2A")
+               .replace("%2F", "/").replace("%2C", ",");
+         assertEquals(urlEncode(input, ImmutableList.of('/', ',')), expected, input);
+      }
    }
 
    public void testNoDoubleEncode() {
@@ -47,6 +77,18 @@ public class Strings2Test {
       assertEquals(Strings2.replaceTokens("hello {where}", ImmutableMap.of("where", "world")), "hello world");
    }
 
+   public void testReplaceTokensFromMultimapUsesFirstValue() {
+      assertEquals(Strings2.replaceTokens("{a}/{b}/{a}", ImmutableMultimap.of("a", "1", "b", "2", "a", "3")), "1/2/1");
+   }
+
+   public void testReplaceTokensFromMultimapLeavesUnknownTokens() {
+      assertEquals(Strings2.replaceTokens("{{a}{c}{", ImmutableMultimap.of("a", "1")), "{1{c}{");
+   }
+
+   public void testReplaceTokensFromMultimapDoesNotInterpretValues() {
+      assertEquals(Strings2.replaceTokens("cost: {price}", ImmutableMultimap.of("price", "$1\\")), "cost: $1\\");
+   }
+
    public void testUrlEncodeDecodeShouldGiveTheSameString() {
       String actual = "ssh-rsa AAAAB3NzaC1yc2EAAAADAQABAAABAQCc903twxU2zcQnIJdXv61RwZNZW94uId9qz08fgsBJsCOnHNIC4+L9k" +
          "DOA2IHV9cUfEDBm1Be5TbpadWwSbS/05E+FARH2/MCO932UgcKUq5PGymS0249fLCBPci5zoLiG5vIym+1ij1hL/nHvkK99NIwe7io+Lmp" +
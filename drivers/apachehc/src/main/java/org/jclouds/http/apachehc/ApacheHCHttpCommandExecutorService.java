@@ -45,6 +45,7 @@ import org.jclouds.io.Payloads;
 
 import com.google.common.collect.LinkedHashMultimap;
 import com.google.common.collect.Multimap;
+import com.google.common.hash.HashCode;
 
 /**
  * Simple implementation of a {@link HttpCommandExecutorService}, Apache Components HttpClient 4.x.
@@ -66,7 +67,11 @@ public class ApacheHCHttpCommandExecutorService extends BaseHttpCommandExecutorS
    protected HttpUriRequest convert(HttpRequest request) throws IOException {
       HttpUriRequest returnVal = apacheHCUtils.convertToApacheRequest(request);
       if (request.getPayload() != null && request.getPayload().getContentMetadata().getContentMD5() != null) {
-         String md5 = base64().encode(ByteStreams2.hashAndClose(request.getPayload().openStream(), md5()).asBytes());
+         Payload payload = request.getPayload();
+         // Payloads.hash only accepts repeatable payloads; others are hashed from their stream, as before
+         HashCode hash = payload.isRepeatable() ? Payloads.hash(payload, md5()) : ByteStreams2.hashAndClose(
+               payload.openStream(), md5());
+         String md5 = base64().encode(hash.asBytes());
          returnVal.addHeader("Content-MD5", md5);
       }
 
@@ -0,0 +1,482 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.json.processor;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Processor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.WildcardType;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+import com.google.auto.service.AutoService;
+
+/**
+ * Generates a json deserializer for each type that jclouds builds from a constructor annotated with
+ * {@code @ConstructorProperties}, or from a static factory method annotated with {@code @SerializedNames}.
+ * <p/>
+ * The deserializer of {@code com.example.Outer.Inner} is {@code com.example.JsonDeserializer_Outer_Inner}. It reads
+ * the json object into typed locals and calls the constructor or factory method directly, with the semantics of
+ * {@code DeserializationConstructorAndReflectiveTypeAdapterFactory}. {@code GeneratedTypeAdapterFactory} picks it up
+ * at runtime.
+ * <p/>
+ * Types that are generic, not reachable from their package, or whose deserialization target is ambiguous are skipped
+ * with a note, and remain deserialized by reflection.
+ */
+@AutoService(Processor.class)
+public final class SerializedNamesProcessor extends AbstractProcessor {
+
+   static final String CLASS_NAME_PREFIX = "JsonDeserializer_";
+
+   private static final String SERIALIZED_NAMES = "org.jclouds.json.SerializedNames";
+   private static final String CONSTRUCTOR_PROPERTIES = "java.beans.ConstructorProperties";
+   private static final Set<String> INJECT = new HashSet<String>(Arrays.asList("javax.inject.Inject",
+         "com.google.inject.Inject"));
+   private static final String OPTIONAL = "com.google.common.base.Optional";
+
+   /** Types to retry in the next round, as some of their parameter types are yet to be generated. */
+   private final Set<String> deferred = new LinkedHashSet<String>();
+
+   @Override
+   public Set<String> getSupportedAnnotationTypes() {
+      return new HashSet<String>(Arrays.asList(SERIALIZED_NAMES, CONSTRUCTOR_PROPERTIES));
+   }
+
+   @Override
+   public SourceVersion getSupportedSourceVersion() {
+      return SourceVersion.latestSupported();
+   }
+
+   @Override
+   public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+      Set<TypeElement> types = new LinkedHashSet<TypeElement>();
+      for (String name : deferred) {
+         TypeElement type = processingEnv.getElementUtils().getTypeElement(name);
+         if (type != null) {
+            types.add(type);
+         }
+      }
+      deferred.clear();
+      for (TypeElement annotation : annotations) {
+         for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+            if (element.getEnclosingElement() instanceof TypeElement) {
+               types.add((TypeElement) element.getEnclosingElement());
+            }
+         }
+      }
+      for (TypeElement type : types) {
+         process(type, roundEnv.processingOver());
+      }
+      return false;
+   }
+
+   private void process(TypeElement type, boolean lastRound) {
+      if (type.getKind() != ElementKind.CLASS) {
+         return;
+      }
+      String skipped = checkReachable(type);
+      if (skipped != null) {
+         note(type, skipped);
+         return;
+      }
+      ExecutableElement target = findTarget(type);
+      if (target == null) {
+         return;
+      }
+      List<String> names = serializedNames(target);
+      if (names == null) {
+         note(type, "names of @Inject parameters are left to reflection");
+         return;
+      }
+      if (names.size() != target.getParameters().size()
+            || new HashSet<String>(names).size() != names.size()) {
+         note(type, "the serialized names do not match the parameters of " + target);
+         return;
+      }
+      List<String> types = new ArrayList<String>();
+      for (VariableElement parameter : target.getParameters()) {
+         if (parameter.asType().getKind() == TypeKind.ERROR) {
+            if (lastRound) {
+               note(type, "the type of parameter " + parameter + " cannot be resolved");
+            } else {
+               deferred.add(type.getQualifiedName().toString());
+            }
+            return;
+         }
+         String sourceType = sourceType(parameter.asType());
+         if (sourceType == null) {
+            note(type, "the type of parameter " + parameter + " is generic");
+            return;
+         }
+         types.add(sourceType);
+      }
+      try {
+         write(type, target, names, types);
+      } catch (IOException e) {
+         processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+               "unable to write the json deserializer: " + e, type);
+      }
+   }
+
+   /**
+    * @return why the type cannot be deserialized from generated code in its package, or null if it can
+    */
+   private static String checkReachable(TypeElement type) {
+      if (!type.getTypeParameters().isEmpty()) {
+         return "generic types are deserialized by reflection";
+      }
+      for (Element e = type; e instanceof TypeElement; e = e.getEnclosingElement()) {
+         TypeElement current = (TypeElement) e;
+         if (current.getModifiers().contains(Modifier.PRIVATE)) {
+            return "private types are deserialized by reflection";
+         }
+         if (current.getNestingKind() == NestingKind.LOCAL || current.getNestingKind() == NestingKind.ANONYMOUS
+               || (current.getNestingKind() == NestingKind.MEMBER
+                     && !current.getModifiers().contains(Modifier.STATIC))) {
+            return "inner classes are deserialized by reflection";
+         }
+      }
+      return null;
+   }
+
+   /**
+    * Finds the constructor or factory method {@code DeserializationConstructorAndReflectiveTypeAdapterFactory}
+    * would invoke: the annotated constructor, or for abstract types the annotated static method returning the type.
+    */
+   private ExecutableElement findTarget(TypeElement type) {
+      List<ExecutableElement> candidates = new ArrayList<ExecutableElement>();
+      for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+         if (isMarked(constructor)) {
+            candidates.add(constructor);
+         }
+      }
+      if (type.getModifiers().contains(Modifier.ABSTRACT)) {
+         if (!candidates.isEmpty()) {
+            note(type, "abstract types are only built from static factory methods");
+            return null;
+         }
+         for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+            if (method.getModifiers().contains(Modifier.STATIC) && isMarked(method)
+                  && processingEnv.getTypeUtils().isSameType(method.getReturnType(), type.asType())) {
+               candidates.add(method);
+            }
+         }
+      }
+      if (candidates.isEmpty()) {
+         return null;
+      }
+      if (candidates.size() > 1) {
+         note(type, "more than one constructor or factory method is annotated");
+         return null;
+      }
+      ExecutableElement target = candidates.get(0);
+      if (target.getModifiers().contains(Modifier.PRIVATE)) {
+         note(type, target + " is private");
+         return null;
+      }
+      if (!target.getTypeParameters().isEmpty() || !target.getThrownTypes().isEmpty()) {
+         note(type, target + " is generic or throws checked exceptions");
+         return null;
+      }
+      return target;
+   }
+
+   private static boolean isMarked(ExecutableElement executable) {
+      for (AnnotationMirror annotation : executable.getAnnotationMirrors()) {
+         String name = annotationName(annotation);
+         if (name.equals(SERIALIZED_NAMES) || name.equals(CONSTRUCTOR_PROPERTIES) || INJECT.contains(name)) {
+            return true;
+         }
+      }
+      return false;
+   }
+
+   /**
+    * @return the names of {@code @SerializedNames}, else {@code @ConstructorProperties}, or null for other markers
+    *         such as {@code @Inject}, whose names come from parameter annotations
+    */
+   private static List<String> serializedNames(ExecutableElement target) {
+      AnnotationMirror names = null;
+      for (AnnotationMirror annotation : target.getAnnotationMirrors()) {
+         String name = annotationName(annotation);
+         if (name.equals(SERIALIZED_NAMES) || (name.equals(CONSTRUCTOR_PROPERTIES) && names == null)) {
+            names = annotation;
+         }
+      }
+      if (names == null) {
+         return null;
+      }
+      for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+            : names.getElementValues().entrySet()) {
+         if (entry.getKey().getSimpleName().contentEquals("value")) {
+            List<String> result = new ArrayList<String>();
+            for (Object value : (List<?>) entry.getValue().getValue()) {
+               result.add((String) ((AnnotationValue) value).getValue());
+            }
+            return result;
+         }
+      }
+      return null;
+   }
+
+   private static String annotationName(AnnotationMirror annotation) {
+      return ((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().toString();
+   }
+
+   /**
+    * @return how {@code type} is written in source, or null if it involves type variables
+    */
+   private static String sourceType(TypeMirror type) {
+      switch (type.getKind()) {
+         case ARRAY:
+            String component = sourceType(((ArrayType) type).getComponentType());
+            return component == null ? null : component + "[]";
+         case DECLARED:
+            DeclaredType declared = (DeclaredType) type;
+            StringBuilder result = new StringBuilder(
+                  ((TypeElement) declared.asElement()).getQualifiedName().toString());
+            if (!declared.getTypeArguments().isEmpty()) {
+               result.append('<');
+               for (int i = 0; i < declared.getTypeArguments().size(); i++) {
+                  String argument = sourceType(declared.getTypeArguments().get(i));
+                  if (argument == null) {
+                     return null;
+                  }
+                  result.append(i == 0 ? "" : ", ").append(argument);
+               }
+               result.append('>');
+            }
+            return result.toString();
+         case WILDCARD:
+            WildcardType wildcard = (WildcardType) type;
+            if (wildcard.getExtendsBound() != null) {
+               String bound = sourceType(wildcard.getExtendsBound());
+               return bound == null ? null : "? extends " + bound;
+            }
+            if (wildcard.getSuperBound() != null) {
+               String bound = sourceType(wildcard.getSuperBound());
+               return bound == null ? null : "? super " + bound;
+            }
+            return "?";
+         default:
+            return type.getKind().isPrimitive() ? type.toString() : null;
+      }
+   }
+
+   private void write(TypeElement type, ExecutableElement target, List<String> names, List<String> types)
+         throws IOException {
+      String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+      String simpleName = CLASS_NAME_PREFIX + nestedName(type);
+      String typeName = type.getQualifiedName().toString();
+      List<? extends VariableElement> parameters = target.getParameters();
+
+      PrintWriter out = new PrintWriter(processingEnv.getFiler().createSourceFile(
+            packageName.isEmpty() ? simpleName : packageName + "." + simpleName, type).openWriter());
+      try {
+         if (!packageName.isEmpty()) {
+            out.println("package " + packageName + ";");
+            out.println();
+         }
+         out.println("@javax.annotation.Generated(\"" + SerializedNamesProcessor.class.getName() + "\")");
+         out.println("public final class " + simpleName);
+         out.println("      implements org.jclouds.json.internal.GeneratedTypeAdapterFactory.Deserializer<"
+               + typeName + "> {");
+         out.println();
+         out.println("   private static final java.util.Map<java.lang.String, java.lang.Integer> NAMES = "
+               + "new java.util.HashMap<java.lang.String, java.lang.Integer>();");
+         out.println();
+         out.println("   static {");
+         for (int i = 0; i < names.size(); i++) {
+            out.println("      NAMES.put(" + stringLiteral(names.get(i)) + ", " + i + ");");
+         }
+         out.println("   }");
+         out.println();
+         for (int i = 0; i < parameters.size(); i++) {
+            out.println("   private final com.google.gson.TypeAdapter<" + boxedType(parameters.get(i).asType(),
+                  types.get(i)) + "> adapter" + i + ";");
+         }
+         out.println();
+         out.println("   public " + simpleName + "(com.google.gson.Gson gson) {");
+         for (int i = 0; i < parameters.size(); i++) {
+            out.println("      adapter" + i + " = gson.getAdapter(" + typeToken(parameters.get(i).asType(),
+                  types.get(i)) + ");");
+         }
+         out.println("   }");
+         out.println();
+         out.println("   @java.lang.Override");
+         out.println("   public " + typeName + " read(com.google.gson.stream.JsonReader in) "
+               + "throws java.io.IOException {");
+         out.println("      if (in.peek() == com.google.gson.stream.JsonToken.NULL) {");
+         out.println("         in.nextNull();");
+         out.println("         return null;");
+         out.println("      }");
+         for (int i = 0; i < parameters.size(); i++) {
+            TypeMirror parameterType = parameters.get(i).asType();
+            out.println("      " + types.get(i) + " value" + i + " = "
+                  + (parameterType.getKind().isPrimitive() ? defaultValue(parameterType) : "null") + ";");
+         }
+         out.println("      boolean empty = true;");
+         out.println("      try {");
+         out.println("         in.beginObject();");
+         out.println("         while (in.hasNext()) {");
+         out.println("            empty = false;");
+         out.println("            java.lang.Integer index = NAMES.get(in.nextName());");
+         out.println("            if (index == null || in.peek() == com.google.gson.stream.JsonToken.NULL) {");
+         out.println("               in.skipValue();");
+         out.println("               continue;");
+         out.println("            }");
+         out.println("            switch (index) {");
+         for (int i = 0; i < parameters.size(); i++) {
+            TypeMirror parameterType = parameters.get(i).asType();
+            out.println("               case " + i + ": {");
+            if (parameterType.getKind().isPrimitive()) {
+               out.println("                  " + boxedType(parameterType, types.get(i)) + " read = adapter" + i
+                     + ".read(in);");
+               out.println("                  if (read != null) {");
+               out.println("                     value" + i + " = read;");
+               out.println("                  }");
+            } else {
+               out.println("                  value" + i + " = adapter" + i + ".read(in);");
+            }
+            out.println("                  break;");
+            out.println("               }");
+         }
+         out.println("               default:");
+         out.println("                  in.skipValue();");
+         out.println("            }");
+         out.println("         }");
+         out.println("      } catch (java.lang.IllegalStateException e) {");
+         out.println("         throw new com.google.gson.JsonSyntaxException(e);");
+         out.println("      }");
+         out.println("      in.endObject();");
+         for (int i = 0; i < parameters.size(); i++) {
+            if (isOptional(parameters.get(i).asType())) {
+               out.println("      if (value" + i + " == null) {");
+               out.println("         value" + i + " = " + OPTIONAL + ".absent();");
+               out.println("      }");
+            }
+         }
+         StringBuilder arguments = new StringBuilder();
+         for (int i = 0; i < parameters.size(); i++) {
+            arguments.append(i == 0 ? "" : ", ").append("value").append(i);
+         }
+         String invocation = target.getKind() == ElementKind.CONSTRUCTOR
+               ? "new " + typeName + "(" + arguments + ")"
+               : typeName + "." + target.getSimpleName() + "(" + arguments + ")";
+         if (parameters.isEmpty()) {
+            out.println("      return " + invocation + ";");
+         } else {
+            out.println("      try {");
+            out.println("         return " + invocation + ";");
+            out.println("      } catch (java.lang.NullPointerException e) {");
+            out.println("         // {} is treated as null when the constructor rejects it");
+            out.println("         if (empty) {");
+            out.println("            return null;");
+            out.println("         }");
+            out.println("         throw e;");
+            out.println("      }");
+         }
+         out.println("   }");
+         out.println("}");
+      } finally {
+         out.close();
+      }
+   }
+
+   private static String nestedName(TypeElement type) {
+      StringBuilder name = new StringBuilder(type.getSimpleName());
+      for (Element e = type.getEnclosingElement(); e instanceof TypeElement; e = e.getEnclosingElement()) {
+         name.insert(0, ((TypeElement) e).getSimpleName() + "_");
+      }
+      return name.toString();
+   }
+
+   private String boxedType(TypeMirror type, String sourceType) {
+      if (type.getKind().isPrimitive()) {
+         return processingEnv.getTypeUtils().boxedClass((PrimitiveType) type).getQualifiedName().toString();
+      }
+      return sourceType;
+   }
+
+   private static String typeToken(TypeMirror type, String sourceType) {
+      if (type.getKind().isPrimitive()
+            || (type.getKind() == TypeKind.DECLARED && ((DeclaredType) type).getTypeArguments().isEmpty())) {
+         return sourceType + ".class";
+      }
+      return "new com.google.gson.reflect.TypeToken<" + sourceType + ">() { }";
+   }
+
+   private static String defaultValue(TypeMirror type) {
+      switch (type.getKind()) {
+         case BOOLEAN:
+            return "false";
+         case CHAR:
+            return "(char) 0";
+         default:
+            return "0";
+      }
+   }
+
+   private static boolean isOptional(TypeMirror type) {
+      return type.getKind() == TypeKind.DECLARED
+            && ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().contentEquals(OPTIONAL);
+   }
+
+   private static String stringLiteral(String value) {
+      StringBuilder literal = new StringBuilder("\"");
+      for (char c : value.toCharArray()) {
+         if (c == '"' || c == '\\') {
+            literal.append('\\').append(c);
+         } else if (c < 0x20 || c > 0x7e) {
+            literal.append(String.format("\\u%04x", (int) c));
+         } else {
+            literal.append(c);
+         }
+      }
+      return literal.append('"').toString();
+   }
+
+   private void note(TypeElement type, String message) {
+      processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+            "not generating a json deserializer for " + type + ": " + message, type);
+   }
+}
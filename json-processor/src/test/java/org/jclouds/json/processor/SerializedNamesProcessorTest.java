@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.json.processor;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.beans.ConstructorProperties;
+import java.util.List;
+
+import org.jclouds.json.Json;
+import org.jclouds.json.SerializedNames;
+import org.jclouds.json.config.GsonModule;
+import org.jclouds.json.internal.GeneratedTypeAdapterFactory;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.gson.Gson;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+
+@Test(groups = "unit", testName = "SerializedNamesProcessorTest")
+public class SerializedNamesProcessorTest {
+
+   public static class Server {
+      private final String id;
+      private final int port;
+      private final long size;
+      private final boolean active;
+      private final List<String> tags;
+      private final Optional<String> description;
+      private final Address address;
+
+      @ConstructorProperties({ "id", "port", "size", "active", "tags", "description", "address" })
+      protected Server(String id, int port, long size, boolean active, List<String> tags,
+            Optional<String> description, Address address) {
+         this.id = id;
+         this.port = port;
+         this.size = size;
+         this.active = active;
+         this.tags = tags;
+         this.description = description;
+         this.address = address;
+      }
+
+      @Override
+      public boolean equals(Object obj) {
+         if (!(obj instanceof Server))
+            return false;
+         Server that = (Server) obj;
+         return Objects.equal(id, that.id) && port == that.port && size == that.size && active == that.active
+               && Objects.equal(tags, that.tags) && Objects.equal(description, that.description)
+               && Objects.equal(address, that.address);
+      }
+
+      @Override
+      public int hashCode() {
+         return Objects.hashCode(id, port, size, active, tags, description, address);
+      }
+   }
+
+   public abstract static class Address {
+      public abstract String host();
+
+      @SerializedNames({ "host" })
+      public static Address create(String host) {
+         if (host == null)
+            throw new NullPointerException("host");
+         return new SimpleAddress(host);
+      }
+   }
+
+   static final class SimpleAddress extends Address {
+      private final String host;
+
+      SimpleAddress(String host) {
+         this.host = host;
+      }
+
+      @Override
+      public String host() {
+         return host;
+      }
+
+      @Override
+      public boolean equals(Object obj) {
+         return obj instanceof SimpleAddress && host.equals(((SimpleAddress) obj).host);
+      }
+
+      @Override
+      public int hashCode() {
+         return host.hashCode();
+      }
+   }
+
+   public static class Ambiguous {
+      @ConstructorProperties({ "a" })
+      Ambiguous(String a) {
+      }
+
+      @ConstructorProperties({ "a", "b" })
+      Ambiguous(String a, String b) {
+      }
+   }
+
+   private final Injector injector = Guice.createInjector(new GsonModule());
+   private final Json json = injector.getInstance(Json.class);
+
+   public void testGeneratesDeserializers() throws ClassNotFoundException {
+      assertTrue(GeneratedTypeAdapterFactory.Deserializer.class.isAssignableFrom(
+            Class.forName(getClass().getPackage().getName() + ".JsonDeserializer_SerializedNamesProcessorTest_Server")));
+      assertTrue(GeneratedTypeAdapterFactory.Deserializer.class.isAssignableFrom(Class
+            .forName(getClass().getPackage().getName() + ".JsonDeserializer_SerializedNamesProcessorTest_Address")));
+   }
+
+   public void testSkipsAmbiguousTypes() {
+      try {
+         Class.forName(getClass().getPackage().getName() + ".JsonDeserializer_SerializedNamesProcessorTest_Ambiguous");
+         throw new AssertionError("ambiguous constructors should be left to reflection");
+      } catch (ClassNotFoundException expected) {
+      }
+   }
+
+   public void testGeneratedAdapterIsPreferred() {
+      Gson gson = injector.getInstance(Gson.class);
+      assertTrue(gson.getAdapter(Server.class).getClass().getName().startsWith(
+            GeneratedTypeAdapterFactory.class.getName()));
+      assertFalse(gson.getAdapter(Ambiguous.class).getClass().getName().startsWith(
+            GeneratedTypeAdapterFactory.class.getName()));
+   }
+
+   public void testDeserialize() {
+      Server server = json.fromJson("{\"id\":\"1\",\"port\":80,\"size\":12345678901,\"active\":true,"
+            + "\"tags\":[\"a\",\"b\"],\"description\":\"web\",\"address\":{\"host\":\"example.com\"},"
+            + "\"unknown\":{\"nested\":[1,2]}}", Server.class);
+      assertEquals(server, new Server("1", 80, 12345678901L, true, ImmutableList.of("a", "b"), Optional.of("web"),
+            Address.create("example.com")));
+   }
+
+   public void testAbsentValuesGetDefaults() {
+      Server server = json.fromJson("{\"id\":\"1\",\"port\":null}", Server.class);
+      assertEquals(server, new Server("1", 0, 0, false, null, Optional.<String> absent(),
+            null));
+   }
+
+   public void testEmptyObjectRejectedByFactoryIsNull() {
+      assertNull(json.fromJson("{}", Address.class));
+      assertNull(json.fromJson("null", Address.class));
+   }
+
+   public void testSerializationIsUnchanged() {
+      Server server = new Server("1", 80, 2, true, ImmutableList.of("a"), Optional.of("web"), null);
+      assertEquals(json.fromJson(json.toJson(server), Server.class), server);
+   }
+}
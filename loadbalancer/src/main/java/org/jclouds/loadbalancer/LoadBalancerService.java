@@ -73,6 +73,24 @@ public interface LoadBalancerService {
    LoadBalancerMetadata createLoadBalancerInLocation(@Nullable Location location, String loadBalancerName,
          String protocol, int loadBalancerPort, int instancePort, Iterable<? extends NodeMetadata> nodes);
 
+   /**
+    * Reconciles the members of an existing load balancer with the nodes listed: nodes not yet balanced are added,
+    * members not listed are removed, and the others are left alone. Providers apply the difference with as few calls
+    * as they can, so that scaling a group does not cost one call per node.
+    * 
+    * @param id
+    *           id of the load balancer
+    * @param instancePort
+    *           The TCP port on which the nodes are listening.
+    * @param nodes
+    *           all the nodes the load balancer should balance
+    * @return the load balancer, once the changes have been applied
+    * @throws UnsupportedOperationException
+    *            if the provider cannot update the nodes of a load balancer
+    */
+   @Beta
+   LoadBalancerMetadata updateLoadBalancerNodes(String id, int instancePort, Iterable<? extends NodeMetadata> nodes);
+
    @Beta
    void destroyLoadBalancer(String id);
 
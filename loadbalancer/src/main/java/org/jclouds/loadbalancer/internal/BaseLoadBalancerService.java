@@ -42,6 +42,7 @@ import org.jclouds.loadbalancer.strategy.DestroyLoadBalancerStrategy;
 import org.jclouds.loadbalancer.strategy.GetLoadBalancerMetadataStrategy;
 import org.jclouds.loadbalancer.strategy.ListLoadBalancersStrategy;
 import org.jclouds.loadbalancer.strategy.LoadBalanceNodesStrategy;
+import org.jclouds.loadbalancer.strategy.UpdateLoadBalancerNodesStrategy;
 import org.jclouds.logging.Logger;
 
 import com.google.common.base.Predicate;
@@ -114,6 +115,24 @@ public class BaseLoadBalancerService implements LoadBalancerService {
       return lb;
    }
 
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public LoadBalancerMetadata updateLoadBalancerNodes(String id, int instancePort,
+         Iterable<? extends NodeMetadata> nodes) {
+      checkNotNull(id, "id");
+      checkNotNull(nodes, "nodes");
+      if (!(loadBalancerStrategy instanceof UpdateLoadBalancerNodesStrategy))
+         throw new UnsupportedOperationException("updating the nodes of a load balancer is not supported by "
+               + loadBalancerStrategy.getClass().getSimpleName());
+      logger.debug(">> updating nodes of load balancer (%s)", id);
+      LoadBalancerMetadata lb = UpdateLoadBalancerNodesStrategy.class.cast(loadBalancerStrategy)
+            .updateLoadBalancerNodes(id, instancePort, nodes);
+      logger.debug("<< updated nodes of load balancer (%s)", id);
+      return lb;
+   }
+
    /**
     * {@inheritDoc}
     */
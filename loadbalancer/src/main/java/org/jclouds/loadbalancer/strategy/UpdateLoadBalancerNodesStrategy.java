@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.loadbalancer.strategy;
+
+import org.jclouds.compute.domain.NodeMetadata;
+import org.jclouds.loadbalancer.domain.LoadBalancerMetadata;
+
+import com.google.common.annotations.Beta;
+
+/**
+ * Implemented by the {@link LoadBalanceNodesStrategy} of providers that can change the nodes of an existing load
+ * balancer. Providers without it do not support
+ * {@link org.jclouds.loadbalancer.LoadBalancerService#updateLoadBalancerNodes}.
+ */
+@Beta
+public interface UpdateLoadBalancerNodesStrategy extends LoadBalanceNodesStrategy {
+
+   /**
+    * Makes the nodes listed the only members of an existing load balancer. Only the nodes that differ from the current
+    * members are added or removed, using the bulk operations of the provider where it has them.
+    * 
+    * @param id
+    *           id of the load balancer
+    * @param instancePort
+    *           The TCP port on which the nodes are listening.
+    * @param nodes
+    *           nodes to loadbalance
+    * 
+    * @return the load balancer, once the changes have been applied
+    */
+   LoadBalancerMetadata updateLoadBalancerNodes(String id, int instancePort, Iterable<? extends NodeMetadata> nodes);
+
+}
@@ -26,6 +26,8 @@ import org.jclouds.date.DateCodecFactory;
 import org.jclouds.ec2.domain.Reservation;
 import org.jclouds.ec2.domain.RunningInstance;
 import org.jclouds.ec2.xml.TagSetHandler;
+import org.jclouds.http.functions.ParseSax.ElementCallback;
+import org.jclouds.http.functions.ParseSax.StreamingHandler;
 import org.jclouds.location.Region;
 import org.xml.sax.Attributes;
 import org.xml.sax.SAXException;
@@ -42,8 +44,10 @@ import com.google.common.collect.ImmutableSet.Builder;
  * @see <a href="http: />
  */
 public class AWSDescribeInstancesResponseHandler extends
-      BaseAWSReservationHandler<Set<Reservation<? extends RunningInstance>>> {
+      BaseAWSReservationHandler<Set<Reservation<? extends RunningInstance>>> implements
+      StreamingHandler<Reservation<? extends RunningInstance>> {
    private final TagSetHandler tagSetHandler;
+   private ElementCallback<? super Reservation<? extends RunningInstance>> callback;
    private Builder<Reservation<? extends RunningInstance>> reservations = ImmutableSet.<Reservation<? extends RunningInstance>>builder();
    private boolean inTagSet;
 
@@ -90,6 +94,11 @@ public class AWSDescribeInstancesResponseHandler extends
       return reservations.build();
    }
 
+   @Override
+   public void setCallback(ElementCallback<? super Reservation<? extends RunningInstance>> callback) {
+      this.callback = callback;
+   }
+
    protected boolean endOfReservationItem() {
       return itemDepth == 1;
    }
@@ -97,7 +106,11 @@ public class AWSDescribeInstancesResponseHandler extends
    @Override
    protected void inItem() {
       if (endOfReservationItem()) {
-         reservations.add(super.newReservation());
+         Reservation<? extends RunningInstance> reservation = super.newReservation();
+         if (callback != null)
+            callback.onElement(reservation);
+         else
+            reservations.add(reservation);
       } else {
          super.inItem();
       }
@@ -219,9 +219,9 @@ public class AWSEC2ComputeServiceApiMockTest extends BaseAWSEC2ApiMockTest {
    public void listNodesWhereImageDoesntExist() throws Exception {
       enqueueRegions(DEFAULT_REGION);
       enqueueXml(DEFAULT_REGION, "/describe_instances_running-1.xml");
+      enqueue(DEFAULT_REGION, new MockResponse().setBody("<DescribeSpotInstanceRequestsResponse><spotInstanceRequestSet></spotInstanceRequestSet></DescribeSpotInstanceRequestsResponse>"));
       enqueueXml(DEFAULT_REGION, "/availabilityZones.xml");
       enqueue(DEFAULT_REGION, new MockResponse().setBody("<DescribeImagesResponse><imagesSet></imagesSet></DescribeImagesResponse>"));
-      enqueue(DEFAULT_REGION, new MockResponse().setBody("<DescribeSpotInstanceRequestsResponse><spotInstanceRequestSet></spotInstanceRequestSet></DescribeSpotInstanceRequestsResponse>"));
 
       ComputeService computeService = computeService();
 
@@ -230,9 +230,9 @@ public class AWSEC2ComputeServiceApiMockTest extends BaseAWSEC2ApiMockTest {
 
       assertPosted(DEFAULT_REGION, "Action=DescribeRegions");
       assertPosted(DEFAULT_REGION, "Action=DescribeInstances");
+      assertPosted(DEFAULT_REGION, "Action=DescribeSpotInstanceRequests");
       assertPosted(DEFAULT_REGION, "Action=DescribeAvailabilityZones");
       assertPosted(DEFAULT_REGION, "Action=DescribeImages&ImageId.1=ami-aecd60c7");
-      assertPosted(DEFAULT_REGION, "Action=DescribeSpotInstanceRequests");
    }
    
    public void deleteIncidentalResourcesSuccessfully() throws Exception {
@@ -22,11 +22,14 @@ import java.io.IOException;
 import java.util.Map;
 
 import org.jclouds.Fallbacks.EmptySetOnNotFoundOr404;
+import org.jclouds.Fallbacks.VoidOnNotFoundOr404;
 import org.jclouds.aws.ec2.options.AWSRunInstancesOptions;
 import org.jclouds.aws.ec2.xml.AWSDescribeInstancesResponseHandler;
 import org.jclouds.aws.ec2.xml.AWSRunInstancesResponseHandler;
 import org.jclouds.ec2.domain.BlockDevice;
 import org.jclouds.ec2.domain.InstanceType;
+import org.jclouds.ec2.domain.Reservation;
+import org.jclouds.ec2.domain.RunningInstance;
 import org.jclouds.ec2.domain.Volume.InstanceInitiatedShutdownBehavior;
 import org.jclouds.ec2.options.RunInstancesOptions;
 import org.jclouds.ec2.xml.BlockDeviceMappingHandler;
@@ -38,6 +41,7 @@ import org.jclouds.ec2.xml.StringValueHandler;
 import org.jclouds.ec2.xml.UnencodeStringValueHandler;
 import org.jclouds.http.HttpRequest;
 import org.jclouds.http.functions.ParseSax;
+import org.jclouds.http.functions.ParseSax.ElementCallback;
 import org.jclouds.http.functions.ReleasePayloadAndReturn;
 import org.jclouds.rest.internal.GeneratedHttpRequest;
 import org.testng.annotations.Test;
@@ -68,6 +72,29 @@ public class AWSInstanceApiTest extends BaseAWSEC2ApiTest<AWSInstanceApi> {
       checkFilters(request);
    }
 
+   public void testStreamInstances() throws SecurityException, NoSuchMethodException, IOException {
+      Invokable<?, ?> method = method(AWSInstanceApi.class, "streamInstancesInRegion", String.class,
+            ElementCallback.class, String[].class);
+      ElementCallback<Reservation<? extends RunningInstance>> callback =
+            new ElementCallback<Reservation<? extends RunningInstance>>() {
+               @Override
+               public void onElement(Reservation<? extends RunningInstance> reservation) {
+               }
+            };
+      GeneratedHttpRequest request = processor.createRequest(method, Lists.<Object> newArrayList(null, callback));
+
+      assertRequestLineEquals(request, "POST https://ec2.us-east-1.amazonaws.com/ HTTP/1.1");
+      assertNonPayloadHeadersEqual(request, "Host: ec2.us-east-1.amazonaws.com\n");
+      assertPayloadEquals(request, "Action=DescribeInstances", "application/x-www-form-urlencoded",
+            false);
+
+      assertResponseParserClassEquals(method, request, ParseSax.class);
+      assertSaxResponseParserClassEquals(method, AWSDescribeInstancesResponseHandler.class);
+      assertFallbackClassEquals(method, VoidOnNotFoundOr404.class);
+
+      checkFilters(request);
+   }
+
    public void testDescribeInstancesArgs() throws SecurityException, NoSuchMethodException, IOException {
       Invokable<?, ?> method = method(AWSInstanceApi.class, "describeInstancesInRegion", String.class, String[].class);
       GeneratedHttpRequest request = processor.createRequest(method, Lists.<Object> newArrayList(null, "1", "2"));
@@ -17,9 +17,11 @@
 package org.jclouds.aws.ec2.xml;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
 
 import java.io.InputStream;
 import java.net.UnknownHostException;
+import java.util.List;
 import java.util.Set;
 
 import org.jclouds.aws.ec2.domain.AWSRunningInstance;
@@ -34,6 +36,7 @@ import org.jclouds.ec2.domain.RootDeviceType;
 import org.jclouds.ec2.domain.RunningInstance;
 import org.jclouds.ec2.xml.BaseEC2HandlerTest;
 import org.jclouds.http.functions.ParseSax;
+import org.jclouds.http.functions.ParseSax.ElementCallback;
 import org.jclouds.http.functions.config.SaxParserModule;
 import org.jclouds.location.Region;
 import org.testng.annotations.BeforeTest;
@@ -43,6 +46,8 @@ import com.google.common.base.Supplier;
 import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import com.google.inject.AbstractModule;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
@@ -142,6 +147,26 @@ public class AWSDescribeInstancesResponseHandlerTest extends BaseEC2HandlerTest
       parseAWSRunningInstances("/describe_instances_3.xml");
    }
 
+   public void testCallbackReceivesAWSRunningInstances() {
+      final List<Reservation<? extends RunningInstance>> streamed = Lists.newArrayList();
+      ParseSax<Set<Reservation<? extends RunningInstance>>> parser = createParser();
+      ((AWSDescribeInstancesResponseHandler) parser.getHandler()).setCallback(
+            new ElementCallback<Reservation<? extends RunningInstance>>() {
+               @Override
+               public void onElement(Reservation<? extends RunningInstance> reservation) {
+                  streamed.add(reservation);
+               }
+            });
+
+      Set<Reservation<? extends RunningInstance>> result = parser.parse(getClass().getResourceAsStream(
+            "/describe_instances_latest.xml"));
+
+      assertEquals(result, ImmutableSet.of());
+      assertEquals(streamed.toString(), parseAWSRunningInstances("/describe_instances_latest.xml").toString());
+      for (RunningInstance instance : Iterables.concat(streamed))
+         assertTrue(instance instanceof AWSRunningInstance, instance.toString());
+   }
+
    static ParseSax<Set<Reservation<? extends RunningInstance>>> createParser() {
       Injector injector = Guice.createInjector(new SaxParserModule(), new AbstractModule() {
 
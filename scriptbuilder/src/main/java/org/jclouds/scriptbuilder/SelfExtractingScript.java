@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.scriptbuilder;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.GZIPOutputStream;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Throwables;
+import com.google.common.base.Utf8;
+import com.google.common.io.BaseEncoding;
+
+/**
+ * Packs a rendered unix script into a small wrapper that, on its first invocation, decodes the gzipped, base64 encoded
+ * original in place and then executes it with the same arguments. Only {@code sed}, {@code base64} and {@code gzip}
+ * are needed on the node.
+ * <p/>
+ * Scripts with embedded file contents, such as certificates or configuration written by {@code AppendFile}, compress
+ * well, so this reduces the bytes transferred when the same large bootstrap is uploaded to many nodes.
+ */
+public final class SelfExtractingScript {
+
+   public static final String MARKER = "__JCLOUDS_COMPRESSED_SCRIPT__";
+
+   private static final String EXTRACTOR = Joiner.on('\n').join(
+         "#!/bin/sh",
+         "set -e",
+         "script=\"$0\"",
+         "tmp=\"$script.$$\"",
+         "sed '1,/^" + MARKER + "$/d' \"$script\" | base64 -d | gzip -dc > \"$tmp\"",
+         "chmod 755 \"$tmp\"",
+         "mv -f \"$tmp\" \"$script\"",
+         "exec \"$script\" \"$@\"",
+         MARKER,
+         "");
+
+   private static final BaseEncoding BASE64 = BaseEncoding.base64().withSeparator("\n", 76);
+
+   /**
+    * @return the self-extracting form of the unix {@code script}
+    */
+   public static String compress(String script) {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      try {
+         GZIPOutputStream gzip = new GZIPOutputStream(bytes);
+         gzip.write(checkNotNull(script, "script").getBytes(UTF_8));
+         gzip.close();
+      } catch (IOException e) {
+         throw Throwables.propagate(e);
+      }
+      return EXTRACTOR + BASE64.encode(bytes.toByteArray()) + "\n";
+   }
+
+   /**
+    * @param threshold
+    *           size in bytes above which the script is compressed; negative to never compress
+    * @return the self-extracting form of {@code script} if it is larger than {@code threshold} and compressing it
+    *         actually saves space, otherwise {@code script} itself
+    */
+   public static String compressIfLargerThan(int threshold, String script) {
+      if (threshold < 0)
+         return script;
+      int size = Utf8.encodedLength(checkNotNull(script, "script"));
+      if (size <= threshold)
+         return script;
+      String compressed = compress(script);
+      return compressed.length() < size ? compressed : script;
+   }
+
+   /**
+    * @return true if {@code script} was produced by {@link #compress}
+    */
+   public static boolean isCompressed(String script) {
+      return script.startsWith(EXTRACTOR);
+   }
+
+   private SelfExtractingScript() {
+      throw new AssertionError("intentionally unimplemented");
+   }
+}
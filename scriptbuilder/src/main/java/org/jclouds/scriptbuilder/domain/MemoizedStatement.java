@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.scriptbuilder.domain;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Map;
+
+import com.google.common.collect.ForwardingObject;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+
+/**
+ * Renders the statement it wraps once per {@link OsFamily}, so that a statement shared by many scripts, such as the
+ * bootstrap of a group of nodes, is not rendered again for each of them.
+ * <p/>
+ * The wrapped statement must not change once rendered.
+ * 
+ * @see Statements#memoize(Statement)
+ */
+public class MemoizedStatement extends ForwardingObject implements Statement, AcceptsStatementVisitor {
+   private final Statement delegate;
+   private final Map<OsFamily, String> rendered = Maps.newConcurrentMap();
+   private final Map<OsFamily, Iterable<String>> functionDependencies = Maps.newConcurrentMap();
+
+   public MemoizedStatement(Statement delegate) {
+      this.delegate = checkNotNull(delegate, "delegate");
+   }
+
+   @Override
+   public Iterable<String> functionDependencies(OsFamily family) {
+      Iterable<String> functions = functionDependencies.get(checkNotNull(family, "family"));
+      if (functions == null) {
+         functions = ImmutableList.copyOf(delegate.functionDependencies(family));
+         functionDependencies.put(family, functions);
+      }
+      return functions;
+   }
+
+   @Override
+   public String render(OsFamily family) {
+      String script = rendered.get(checkNotNull(family, "family"));
+      if (script == null) {
+         script = delegate.render(family);
+         rendered.put(family, script);
+      }
+      return script;
+   }
+
+   @Override
+   public void accept(StatementVisitor visitor) {
+      visitor.visit(delegate);
+   }
+
+   @Override
+   protected Statement delegate() {
+      return delegate;
+   }
+}
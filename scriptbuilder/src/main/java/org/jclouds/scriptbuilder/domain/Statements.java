@@ -34,6 +34,13 @@ public class Statements {
       return new StatementList(statements);
    }
 
+   /**
+    * @see MemoizedStatement
+    */
+   public static Statement memoize(Statement statement) {
+      return statement instanceof MemoizedStatement ? statement : new MemoizedStatement(statement);
+   }
+
    public static Statement switchArg(int arg, Map<String, Statement> valueToActions) {
       return new SwitchArg(arg, valueToActions);
    }
@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.scriptbuilder.functionloader;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+
+import org.jclouds.scriptbuilder.domain.OsFamily;
+
+import com.google.common.collect.Maps;
+
+/**
+ * FunctionLoader decorator which loads each function once per {@link OsFamily}, for loaders whose functions never
+ * change, such as {@link BasicFunctionLoader}.
+ */
+public class CachingFunctionLoader implements FunctionLoader {
+
+   /** The target function loader. */
+   private final FunctionLoader delegate;
+
+   private final Map<OsFamily, ConcurrentMap<String, String>> functions = Maps.newEnumMap(OsFamily.class);
+
+   public CachingFunctionLoader(FunctionLoader delegate) {
+      this.delegate = checkNotNull(delegate, "delegate");
+      for (OsFamily family : OsFamily.values())
+         functions.put(family, Maps.<String, String> newConcurrentMap());
+   }
+
+   @Override
+   public String loadFunction(String function, OsFamily family) throws FunctionNotFoundException {
+      ConcurrentMap<String, String> loaded = functions.get(checkNotNull(family, "family"));
+      String source = loaded.get(checkNotNull(function, "function"));
+      if (source == null) {
+         source = delegate.loadFunction(function, family);
+         loaded.putIfAbsent(function, source);
+      }
+      return source;
+   }
+}
@@ -30,9 +30,18 @@ public class CurrentFunctionLoader {
    private static final AtomicReference<FunctionLoader> ref = Atomics.<FunctionLoader>newReference(
             BasicFunctionLoader.INSTANCE);
 
+   /**
+    * Functions on the classpath do not change, so they are read and filtered once.
+    */
+   private static final FunctionLoader CACHED_BASIC_FUNCTION_LOADER = new CachingFunctionLoader(
+            new LicenseHeaderFilter(BasicFunctionLoader.INSTANCE));
+
    public static FunctionLoader get() {
+      FunctionLoader current = ref.get();
+      if (current == BasicFunctionLoader.INSTANCE)
+         return CACHED_BASIC_FUNCTION_LOADER;
       // Filter out license headers in function scripts
-      return new LicenseHeaderFilter(ref.get());
+      return new LicenseHeaderFilter(current);
    }
 
    public static FunctionLoader set(FunctionLoader loader) {
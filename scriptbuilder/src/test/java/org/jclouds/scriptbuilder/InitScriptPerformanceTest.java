@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.scriptbuilder;
+
+import static org.testng.Assert.assertEquals;
+
+import org.jclouds.scriptbuilder.domain.OsFamily;
+import org.jclouds.scriptbuilder.domain.Statement;
+import org.jclouds.scriptbuilder.domain.StatementList;
+import org.jclouds.scriptbuilder.domain.Statements;
+import org.jclouds.scriptbuilder.domain.chef.RunList;
+import org.jclouds.scriptbuilder.statements.chef.ChefSolo;
+import org.jclouds.scriptbuilder.statements.chef.InstallChefUsingOmnibus;
+import org.jclouds.scriptbuilder.statements.login.AdminAccess;
+import org.jclouds.scriptbuilder.statements.login.TestConfiguration;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+/**
+ * Renders the init script of a chef and admin access bootstrap for a batch of nodes, as compute does when the nodes of
+ * a group share {@code TemplateOptions.runScript}.
+ */
+@Test(groups = "performance", singleThreaded = true, timeOut = 2 * 60 * 1000, testName = "InitScriptPerformanceTest")
+public class InitScriptPerformanceTest {
+
+   private static final int NODES = Integer.getInteger("jclouds.test.nodes", 1000);
+   private static final int WARM_UP = 200;
+
+   private Statement bootstrap;
+
+   @BeforeClass
+   public void setUp() {
+      bootstrap = new StatementList(AdminAccess.standard().init(TestConfiguration.INSTANCE),
+            new InstallChefUsingOmnibus(), ChefSolo.builder().cookbooksArchiveLocation("/tmp/cookbooks.tgz")
+                  .runlist(RunList.builder().recipe("apache2").recipe("mysql::server").build()).build());
+      renderForNodes(WARM_UP, bootstrap);
+      renderForNodes(WARM_UP, Statements.memoize(bootstrap));
+   }
+
+   public void testMemoizedRenderMatches() {
+      assertEquals(initScript(0, Statements.memoize(bootstrap)).render(OsFamily.UNIX),
+            initScript(0, bootstrap).render(OsFamily.UNIX));
+   }
+
+   public void testRenderBootstrapForNodes() {
+      report("rendering", renderForNodes(NODES, bootstrap));
+   }
+
+   public void testRenderMemoizedBootstrapForNodes() {
+      report("memoized", renderForNodes(NODES, Statements.memoize(bootstrap)));
+   }
+
+   private static InitScript initScript(int node, Statement bootstrap) {
+      String name = "jclouds-script-" + node;
+      return InitScript.builder().name(name).home("/tmp/" + name).run(bootstrap).build();
+   }
+
+   private static long renderForNodes(int nodes, Statement bootstrap) {
+      long start = System.nanoTime();
+      for (int i = 0; i < nodes; i++)
+         initScript(i, bootstrap).render(OsFamily.UNIX);
+      return System.nanoTime() - start;
+   }
+
+   private static void report(String name, long nanos) {
+      System.out.printf("TIMING: %s the bootstrap of %d nodes took %.3fms (%.3fms each)%n", name, NODES,
+            nanos / 1000000.0, nanos / 1000000.0 / NODES);
+   }
+}
@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.scriptbuilder;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.zip.GZIPInputStream;
+
+import org.jclouds.scriptbuilder.domain.OsFamily;
+import org.jclouds.scriptbuilder.domain.Statements;
+import org.testng.annotations.Test;
+
+import com.google.common.base.CharMatcher;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.BaseEncoding;
+import com.google.common.io.ByteStreams;
+
+@Test(groups = "unit", testName = "SelfExtractingScriptTest")
+public class SelfExtractingScriptTest {
+
+   String script = InitScript.builder().name("mkebsboot").home("/tmp/mkebsboot").run(
+         Statements.appendFile("/etc/chef/client.rb", ImmutableList.of(Strings.repeat("log_level :info\n", 1000))))
+         .build().render(OsFamily.UNIX);
+
+   public void testCompressRoundTrips() throws IOException {
+      String compressed = SelfExtractingScript.compress(script);
+      assertTrue(SelfExtractingScript.isCompressed(compressed));
+      assertTrue(compressed.length() < script.length() / 10, compressed.length() + " >= " + script.length() / 10);
+      assertEquals(extract(compressed), script);
+   }
+
+   public void testSmallScriptsAreNotCompressed() {
+      assertSame(SelfExtractingScript.compressIfLargerThan(script.length(), script), script);
+      assertFalse(SelfExtractingScript.isCompressed(script));
+   }
+
+   public void testNegativeThresholdDisablesCompression() {
+      assertSame(SelfExtractingScript.compressIfLargerThan(-1, script), script);
+   }
+
+   public void testLargeScriptsAreCompressed() {
+      assertTrue(SelfExtractingScript.isCompressed(SelfExtractingScript.compressIfLargerThan(1024, script)));
+   }
+
+   public void testIncompressibleScriptsAreLeftAlone() {
+      String tiny = "#!/bin/sh\necho hi\n";
+      assertSame(SelfExtractingScript.compressIfLargerThan(0, tiny), tiny);
+   }
+
+   private static String extract(String compressed) throws IOException {
+      String payload = compressed.substring(compressed.indexOf(SelfExtractingScript.MARKER + "\n")
+            + SelfExtractingScript.MARKER.length() + 1);
+      byte[] gzipped = BaseEncoding.base64().decode(CharMatcher.WHITESPACE.removeFrom(payload));
+      return new String(ByteStreams.toByteArray(new GZIPInputStream(new ByteArrayInputStream(gzipped))), UTF_8);
+   }
+}
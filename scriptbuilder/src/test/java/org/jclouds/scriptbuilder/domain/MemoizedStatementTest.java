@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.scriptbuilder.domain;
+
+import static org.jclouds.scriptbuilder.domain.Statements.call;
+import static org.jclouds.scriptbuilder.domain.Statements.interpret;
+import static org.jclouds.scriptbuilder.domain.Statements.newStatementList;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jclouds.scriptbuilder.statements.login.AdminAccess;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+
+@Test(groups = "unit")
+public class MemoizedStatementTest {
+
+   private static class CountingStatement implements Statement {
+      private final Statement delegate = newStatementList(call("default"), interpret("echo started{lf}"));
+      private final AtomicInteger rendered = new AtomicInteger();
+
+      @Override
+      public Iterable<String> functionDependencies(OsFamily family) {
+         return delegate.functionDependencies(family);
+      }
+
+      @Override
+      public String render(OsFamily family) {
+         rendered.incrementAndGet();
+         return delegate.render(family);
+      }
+   }
+
+   public void testRendersOncePerOsFamily() {
+      CountingStatement counting = new CountingStatement();
+      Statement memoized = Statements.memoize(counting);
+
+      assertEquals(memoized.render(OsFamily.UNIX), "default || return 1\necho started\n");
+      assertEquals(memoized.render(OsFamily.UNIX), "default || return 1\necho started\n");
+      assertEquals(counting.rendered.get(), 1);
+
+      assertEquals(memoized.render(OsFamily.WINDOWS),
+            "call :default\r\nif errorlevel 1 goto abort\r\necho started\r\n");
+      assertEquals(counting.rendered.get(), 2);
+   }
+
+   public void testMemoizeIsIdempotent() {
+      Statement memoized = Statements.memoize(new CountingStatement());
+      assertSame(Statements.memoize(memoized), memoized);
+   }
+
+   public void testVisitorsReachTheWrappedStatement() {
+      final AdminAccess adminAccess = AdminAccess.standard();
+      final ImmutableList.Builder<AdminAccess> visited = ImmutableList.builder();
+      AcceptsStatementVisitor.class.cast(Statements.memoize(newStatementList(adminAccess))).accept(new AdminAccessVisitor() {
+         @Override
+         public void visit(AdminAccess input) {
+            visited.add(input);
+         }
+      });
+      assertEquals(visited.build(), ImmutableList.of(adminAccess));
+   }
+}
@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.scriptbuilder.functionloader;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jclouds.scriptbuilder.domain.OsFamily;
+import org.testng.annotations.Test;
+
+@Test(groups = "unit")
+public class CachingFunctionLoaderTest {
+
+   private static class CountingFunctionLoader implements FunctionLoader {
+      private final AtomicInteger loaded = new AtomicInteger();
+
+      @Override
+      public String loadFunction(String function, OsFamily family) throws FunctionNotFoundException {
+         if (function.equals("missing"))
+            throw new FunctionNotFoundException(function, family);
+         return function + "-" + family + "-" + loaded.incrementAndGet();
+      }
+   }
+
+   public void testLoadsOncePerFunctionAndOsFamily() {
+      CountingFunctionLoader counting = new CountingFunctionLoader();
+      FunctionLoader cached = new CachingFunctionLoader(counting);
+
+      assertEquals(cached.loadFunction("abort", OsFamily.UNIX), "abort-UNIX-1");
+      assertEquals(cached.loadFunction("abort", OsFamily.UNIX), "abort-UNIX-1");
+      assertEquals(cached.loadFunction("abort", OsFamily.WINDOWS), "abort-WINDOWS-2");
+      assertEquals(cached.loadFunction("installJDK", OsFamily.UNIX), "installJDK-UNIX-3");
+      assertEquals(counting.loaded.get(), 3);
+   }
+
+   @Test(expectedExceptions = FunctionNotFoundException.class)
+   public void testMissingFunctionsAreNotCached() {
+      FunctionLoader cached = new CachingFunctionLoader(new CountingFunctionLoader());
+      try {
+         cached.loadFunction("missing", OsFamily.UNIX);
+      } catch (FunctionNotFoundException e) {
+         // ignore the first attempt
+      }
+      cached.loadFunction("missing", OsFamily.UNIX);
+   }
+
+   public void testClasspathFunctionsAreCached() {
+      assertSame(CurrentFunctionLoader.get().loadFunction("abort", OsFamily.UNIX),
+            CurrentFunctionLoader.get().loadFunction("abort", OsFamily.UNIX));
+   }
+}